@@ -14,6 +14,8 @@ REPEAT: 'repeat';
 UNTIL: 'until';
 FUNCTION: 'func';
 RETURN: 'return';
+BREAK: 'break';
+CONTINUE: 'continue';
 
 // === DATA TYPES ===
 INT: 'int';
@@ -32,6 +34,8 @@ LPAREN: '(';
 RPAREN: ')';
 LBRACE: '{';
 RBRACE: '}';
+LBRACKET: '[';
+RBRACKET: ']';
 
 // === DELIMITERS ===
 SEMICOLON: ';';
@@ -70,13 +74,17 @@ program
 statement
     : variableDefinition
     | constantDefinition
+    | arrayDefinition
     | assignment
+    | arrayAssignment
     | ifStatement
     | forLoop
     | whileLoop
     | doWhileLoop
     | repeatUntilLoop
-    | functionCall
+    | breakStatement
+    | continueStatement
+    | callStatement
     ;
 
 functionDefinition
@@ -113,10 +121,18 @@ constantDefinition
     : CONST variableDefinition
     ;
 
+arrayDefinition
+    : dataType LBRACKET expression RBRACKET IDENTIFIER SEMICOLON
+    ;
+
 assignment
     : IDENTIFIER chainedAssignment* ASSIGN expression SEMICOLON
     ;
 
+arrayAssignment
+    : IDENTIFIER LBRACKET expression RBRACKET ASSIGN expression SEMICOLON
+    ;
+
 chainedAssignment
     : ASSIGN IDENTIFIER
     ;
@@ -145,8 +161,20 @@ repeatUntilLoop
     : REPEAT LBRACE statement* RBRACE UNTIL LPAREN expression RPAREN SEMICOLON
     ;
 
+breakStatement
+    : BREAK SEMICOLON
+    ;
+
+continueStatement
+    : CONTINUE SEMICOLON
+    ;
+
+callStatement
+    : functionCall SEMICOLON
+    ;
+
 functionCall
-    : IDENTIFIER LPAREN argumentList? RPAREN SEMICOLON?
+    : IDENTIFIER LPAREN argumentList? RPAREN
     ;
 
 argumentList
@@ -164,6 +192,7 @@ expression
     | expression op=(EQ | NEQ | GT | LT | GTE | LTE) expression  # comparisonExpression
     | expression op=(AND | OR) expression                        # logicalExpression
     | LPAREN expression RPAREN                                   # parenthesizedExpression
+    | IDENTIFIER LBRACKET expression RBRACKET                    # arrayAccessExpression
     | IDENTIFIER                                                 # identifierExpression
     | literal                                                    # literalExpression
     | functionCall                                               # functionCallExpression
@@ -0,0 +1,30 @@
+@echo off
+rem Runs the compiler from target\ligma.jar with the given arguments.
+rem The class data sharing archive target\ligma.jsa (dumped by "ligma.bat --train-cds target\ligma.jsa")
+rem is used when it exists, a single compilation then also uses only the quick JIT compiler.
+setlocal
+set "JAR=%~dp0target\ligma.jar"
+set "ARCHIVE=%~dp0target\ligma.jsa"
+
+if defined JAVA_HOME (
+    set "JAVA=%JAVA_HOME%\bin\java"
+) else (
+    set "JAVA=java"
+)
+
+if not exist "%ARCHIVE%" (
+    "%JAVA%" -jar "%JAR%" %*
+    exit /b %ERRORLEVEL%
+)
+
+rem The daemon and the batch compile many programs, they benefit from the optimizing JIT compiler
+set "JIT=-XX:TieredStopAtLevel=1"
+for %%A in (%*) do (
+    if "%%~A"=="--daemon" set "JIT="
+    if "%%~A"=="--batch" set "JIT="
+    if "%%~A"=="--train-cds" set "JIT="
+)
+
+"%JAVA%" -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto -Xlog:cds=off -Xlog:cds+dynamic=off ^
+    -XX:+UseSerialGC %JIT% -jar "%JAR%" %*
+exit /b %ERRORLEVEL%
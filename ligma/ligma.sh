@@ -0,0 +1,28 @@
+#!/bin/sh
+# Runs the compiler from target/ligma.jar with the given arguments.
+# The class data sharing archive target/ligma.jsa (dumped by "./ligma.sh --train-cds target/ligma.jsa")
+# is used when it exists, a single compilation then also uses only the quick JIT compiler.
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/target/ligma.jar"
+ARCHIVE="$DIR/target/ligma.jsa"
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVA=java
+fi
+
+if [ ! -f "$ARCHIVE" ]; then
+    exec "$JAVA" -jar "$JAR" "$@"
+fi
+
+# The daemon and the batch compile many programs, they benefit from the optimizing JIT compiler
+JIT="-XX:TieredStopAtLevel=1"
+for ARG in "$@"; do
+    case "$ARG" in
+        --daemon|--batch|--train-cds) JIT="" ;;
+    esac
+done
+
+exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -XX:+UseSerialGC $JIT -jar "$JAR" "$@"
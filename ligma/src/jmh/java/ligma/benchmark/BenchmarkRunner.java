@@ -0,0 +1,44 @@
+package ligma.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Entry point of `benchmarks.jar`.
+///
+/// Accepts the standard JMH command-line options and always enables the GC profiler,
+/// so every result reports the allocation rate (`gc.alloc.rate.norm` is the number of bytes
+/// allocated by one operation).
+public class BenchmarkRunner {
+
+    /// Runs the benchmarks selected by the command-line arguments.
+    ///
+    /// @param args JMH command-line options (e.g. `-rf json -rff baseline.json CompilerBenchmark.endToEnd`)
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLineOptions);
+
+        // Measure the allocation rate of every benchmark (unless profilers were chosen explicitly)
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,200 @@
+package ligma.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Sources of the programs compiled by the benchmarks.
+///
+/// A source is either `corpus` (all example programs from `src/main/resources/programs`,
+/// the folder can be changed by the `ligma.programs` system property)
+/// or `synthetic-<n>` (a program with `n` statements generated by the [ProgramSynthesizer],
+/// with one function per hundred statements)
+/// or `functions-<n>` (a program with `n` functions, every function is called once from the main program)
+/// or `nested-<n>` (a program with one expression nested `n` levels deep)
+/// or `example-<name>` (the example program `<name>.txt` from the folder of the corpus)
+/// or `counted-<n>` (a program with one for loop of `n` iterations)
+/// or `flag-search-<n>` and `break-search-<n>` (a linear search of `n` values ended by a flag variable or by `break`).
+public class BenchmarkSources {
+
+    /// Name of the source with all example programs.
+    public static final String CORPUS = "corpus";
+    /// Prefix of the sources with synthetic programs.
+    public static final String SYNTHETIC_PREFIX = "synthetic-";
+    /// Prefix of the sources with programs consisting of many functions.
+    public static final String FUNCTIONS_PREFIX = "functions-";
+    /// Prefix of the sources with deeply nested expressions.
+    public static final String NESTED_PREFIX = "nested-";
+    /// Prefix of the sources with one example program.
+    public static final String EXAMPLE_PREFIX = "example-";
+    /// Prefix of the sources with a counted loop.
+    public static final String COUNTED_PREFIX = "counted-";
+    /// Prefix of the sources with a linear search ended by a flag variable.
+    public static final String FLAG_SEARCH_PREFIX = "flag-search-";
+    /// Prefix of the sources with a linear search ended by a break statement.
+    public static final String BREAK_SEARCH_PREFIX = "break-search-";
+
+    /// Number of statements per one function of the synthetic programs.
+    private static final int STATEMENTS_PER_FUNCTION = 100;
+
+    /// Default folder with the example programs (relative to the `ligma` directory).
+    private static final String DEFAULT_PROGRAMS_FOLDER = "src/main/resources/programs";
+
+    /// Private constructor to prevent instantiation
+    private BenchmarkSources() {
+    }
+
+    /// Loads the programs of the given source.
+    ///
+    /// @param source the name of the source (`corpus`, `synthetic-<n>`, `functions-<n>`, `nested-<n>`, `example-<name>`,
+    ///               `counted-<n>`, `flag-search-<n>` or `break-search-<n>`)
+    /// @return source codes of the programs
+    public static List<String> load(String source) {
+        if (source.equals(CORPUS)) {
+            return loadCorpus(Path.of(System.getProperty("ligma.programs", DEFAULT_PROGRAMS_FOLDER)));
+        }
+
+        if (source.startsWith(SYNTHETIC_PREFIX)) {
+            int statements = Integer.parseInt(source.substring(SYNTHETIC_PREFIX.length()));
+            return List.of(ProgramSynthesizer.synthesize(SynthesizerOptions.builder()
+                .statements(statements)
+                .functions(Math.max(1, statements / STATEMENTS_PER_FUNCTION))
+                .build()));
+        }
+
+        if (source.startsWith(FUNCTIONS_PREFIX)) {
+            return List.of(functions(Integer.parseInt(source.substring(FUNCTIONS_PREFIX.length()))));
+        }
+
+        if (source.startsWith(NESTED_PREFIX)) {
+            return List.of(nested(Integer.parseInt(source.substring(NESTED_PREFIX.length()))));
+        }
+
+        if (source.startsWith(EXAMPLE_PREFIX)) {
+            String name = source.substring(EXAMPLE_PREFIX.length()) + ".txt";
+            return List.of(read(Path.of(System.getProperty("ligma.programs", DEFAULT_PROGRAMS_FOLDER), name)));
+        }
+
+        if (source.startsWith(COUNTED_PREFIX)) {
+            return List.of(counted(Integer.parseInt(source.substring(COUNTED_PREFIX.length()))));
+        }
+
+        if (source.startsWith(FLAG_SEARCH_PREFIX)) {
+            return List.of(search(Integer.parseInt(source.substring(FLAG_SEARCH_PREFIX.length())), false));
+        }
+
+        if (source.startsWith(BREAK_SEARCH_PREFIX)) {
+            return List.of(search(Integer.parseInt(source.substring(BREAK_SEARCH_PREFIX.length())), true));
+        }
+
+        throw new IllegalArgumentException("Unknown benchmark source: " + source);
+    }
+
+    /// Disables the debug logging of the compiler (it would dominate the measured times).
+    public static void silenceLogging() {
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.OFF);
+    }
+
+    /// Creates a program with the given number of functions, every function is called from the main program.
+    ///
+    /// @param count the number of functions
+    /// @return source code of the program
+    private static String functions(int count) {
+        StringBuilder code = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            code.append("int v").append(i).append(" = f").append(i).append("(").append(i).append(", true);\n");
+        }
+
+        for (int i = 0; i < count; i++) {
+            code.append("func int f").append(i).append("(int x, boolean b) {\n")
+                .append("    return x + ").append(i).append(";\n")
+                .append("}\n");
+        }
+
+        return code.toString();
+    }
+
+    /// Creates a program with one expression nested to the given depth.
+    ///
+    /// The additive expression is left-associative, so `v + 1 + 2 + ...` is a chain of nested expressions
+    /// (the parser does not recurse, only the visitors do).
+    ///
+    /// @param depth the number of nested expressions
+    /// @return source code of the program
+    private static String nested(int depth) {
+        StringBuilder code = new StringBuilder("int v = 1;\nint nested = v");
+
+        for (int i = 0; i < depth; i++) {
+            code.append(i % 2 == 0 ? " + " : " - ").append(i % 100);
+        }
+
+        return code.append(";\n").toString();
+    }
+
+    /// Creates a program with one for loop summing the values of its loop variable.
+    ///
+    /// @param iterations the number of iterations
+    /// @return source code of the program
+    private static String counted(int iterations) {
+        return "int sum = 0;\nfor (int i = 0 to " + iterations + ") {\n    sum = sum + i;\n}\n";
+    }
+
+    /// Creates a program with one while loop searching for the third value from the end.
+    ///
+    /// @param size the number of the searched values
+    /// @param useBreak whether the loop is left by `break` (otherwise by a flag variable tested in the condition)
+    /// @return source code of the program
+    private static String search(int size, boolean useBreak) {
+        String match = "    if (i * 7 % " + size + " == target * 7 % " + size + ") {\n        found = i;\n";
+
+        if (useBreak) {
+            return "int target = " + (size - 3) + ";\nint found = -1;\nint i = 0;\n"
+                   + "while (i < " + size + ") {\n" + match + "        break;\n    }\n    i = i + 1;\n}\n";
+        }
+
+        return "int target = " + (size - 3) + ";\nint found = -1;\nboolean searching = true;\nint i = 0;\n"
+               + "while (searching && i < " + size + ") {\n" + match + "        searching = false;\n    }\n    i = i + 1;\n}\n";
+    }
+
+    /// Loads all programs from the folder (sorted by the file name).
+    ///
+    /// @param folder the folder with the programs
+    /// @return source codes of the programs
+    private static List<String> loadCorpus(Path folder) {
+        try (Stream<Path> files = Files.list(folder)) {
+            List<String> programs = files.sorted().map(BenchmarkSources::read).toList();
+
+            if (programs.isEmpty()) {
+                throw new IllegalStateException("No programs found in " + folder.toAbsolutePath());
+            }
+
+            return programs;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not list programs in " + folder.toAbsolutePath(), exception);
+        }
+    }
+
+    /// Reads the whole file.
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not read program " + file, exception);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.generated.LigmaParser;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.ProgramGenerator;
+import ligma.ir.program.Program;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmarks of the individual compiler phases and of the whole compilation.
+///
+/// Every phase benchmark starts from the output of the previous phase prepared in the setup,
+/// so only the phase itself is measured:
+///
+/// | Benchmark   | Measured work                                                 |
+/// |-------------|---------------------------------------------------------------|
+/// | `lex`       | `EnhancedLigmaLexer` producing all tokens                     |
+/// | `parse`     | `LigmaParser` building the parse tree from the lexed tokens   |
+/// | `analyze`   | `ProgramVisitor` building the checked IR from the parse tree  |
+/// | `generate`  | `ProgramGenerator` generating the PL/0 instructions           |
+/// | `write`     | `Generator.writeInstructions` formatting the instructions     |
+/// | `endToEnd`  | all the phases above, from the source code to the output text |
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class CompilerBenchmark {
+
+    /// The compiled programs (see [BenchmarkSources]).
+    @Param({"corpus", "synthetic-1000", "synthetic-10000", "synthetic-100000"})
+    private String source;
+
+    /// Source codes of the programs.
+    private List<String> sources;
+    /// Tokens of the programs.
+    private List<List<Token>> tokens;
+    /// Parse trees of the programs.
+    private List<LigmaParser.ProgramContext> parseTrees;
+    /// Internal representations of the programs.
+    private List<Program> programs;
+    /// Generated instructions of the programs.
+    private List<List<InstructionInfo>> instructions;
+
+    /// Runs all phases once to prepare the inputs of the phase benchmarks.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        sources = BenchmarkSources.load(source);
+        tokens = new ArrayList<>();
+        parseTrees = new ArrayList<>();
+        programs = new ArrayList<>();
+        instructions = new ArrayList<>();
+
+        for (String code : sources) {
+            CommonTokenStream tokenStream = App.tokenize(CharStreams.fromString(code));
+            tokens.add(tokenStream.getTokens());
+
+            LigmaParser.ProgramContext parseTree = parse(tokenStream.getTokens());
+            parseTrees.add(parseTree);
+
+            Program program = new ProgramVisitor().visit(parseTree);
+            programs.add(program);
+
+            generate(program);
+            instructions.add(new ArrayList<>(Generator.getInstructions()));
+        }
+    }
+
+    @Benchmark
+    public void lex(Blackhole blackhole) {
+        for (String code : sources) {
+            blackhole.consume(App.tokenize(CharStreams.fromString(code)).size());
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (List<Token> programTokens : tokens) {
+            blackhole.consume(parse(programTokens));
+        }
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        for (LigmaParser.ProgramContext parseTree : parseTrees) {
+            blackhole.consume(new ProgramVisitor().visit(parseTree));
+        }
+    }
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        for (Program program : programs) {
+            generate(program);
+            blackhole.consume(Generator.getInstructions().size());
+        }
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws IOException {
+        for (List<InstructionInfo> programInstructions : instructions) {
+            Generator.clear();
+            Generator.getInstructions().addAll(programInstructions);
+            blackhole.consume(write());
+        }
+    }
+
+    @Benchmark
+    public void endToEnd(Blackhole blackhole) throws IOException {
+        for (String code : sources) {
+            LigmaParser.ProgramContext parseTree = App.getProgramContext(CharStreams.fromString(code));
+            generate(new ProgramVisitor().visit(parseTree));
+            blackhole.consume(write());
+        }
+    }
+
+    /// Parses the already lexed tokens.
+    private static LigmaParser.ProgramContext parse(List<Token> programTokens) {
+        return App.parse(new CommonTokenStream(new ListTokenSource(programTokens)));
+    }
+
+    /// Generates the instructions of the program from a clean generator state.
+    private static void generate(Program program) {
+        SymbolTable.clear();
+        Generator.clear();
+        new ProgramGenerator(program).generate();
+    }
+
+    /// Writes the generated instructions to a writer discarding the output.
+    ///
+    /// @return the number of written characters
+    private static long write() throws IOException {
+        CountingWriter counter = new CountingWriter();
+
+        try (BufferedWriter writer = new BufferedWriter(counter)) {
+            Generator.writeInstructions(writer);
+        }
+
+        return counter.count;
+    }
+
+    /// Writer discarding the output, counts the written characters.
+    private static class CountingWriter extends Writer {
+
+        /// Number of written characters.
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.lexer.FastLigmaLexer;
+import ligma.parser.FastLigmaParser;
+import ligma.visitor.ProgramVisitor;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the front ends, from the bytes of the source to the checked IR of the program.
+///
+/// | Parameter  | Values                                                                                   |
+/// |------------|------------------------------------------------------------------------------------------|
+/// | `frontEnd` | `antlr` (generated lexer and parser, the visitors), `fast-lexer` (`FastLigmaLexer`, the  |
+/// |            | generated parser, the visitors) or `fast-parser` (`FastLigmaLexer` and `FastLigmaParser`) |
+/// | `source`   | `synthetic-10000` (about 0.5 MB) or `synthetic-190000` (about 11 MB)                     |
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss16m", "-Xmx4g"})
+public class FrontEndBenchmark {
+
+    /// The front end.
+    @Param({"antlr", "fast-lexer", "fast-parser"})
+    private String frontEnd;
+
+    /// The analysed program (see [BenchmarkSources]).
+    @Param({"synthetic-10000", "synthetic-190000"})
+    private String source;
+
+    /// Source code of the program in UTF-8.
+    private byte[] bytes;
+
+    /// Loads the program.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        bytes = BenchmarkSources.load(source).getFirst().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object analyze() {
+        return switch (frontEnd) {
+            case "fast-lexer" -> new ProgramVisitor().visit(App.parse(App.tokenize(bytes)));
+            case "fast-parser" -> FastLigmaParser.parse(FastLigmaLexer.tokenize(bytes));
+            default -> new ProgramVisitor().visit(App.parse(App.tokenize(CharStreams.fromString(new String(bytes, StandardCharsets.UTF_8)))));
+        };
+    }
+
+}
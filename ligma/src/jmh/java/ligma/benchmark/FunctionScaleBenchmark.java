@@ -0,0 +1,78 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.generated.LigmaParser;
+import ligma.generator.Generator;
+import ligma.generator.ProgramGenerator;
+import ligma.ir.program.Program;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the phases depending on the number of functions of the program.
+///
+/// The program has `n` functions and `n` call sites (see `functions-<n>` in [BenchmarkSources]), so the
+/// time per function stays the same only if a call site finds its function in constant time.
+///
+/// | Benchmark  | Measured work                                                |
+/// |------------|--------------------------------------------------------------|
+/// | `analyze`  | `ProgramVisitor` building the checked IR from the parse tree |
+/// | `generate` | `ProgramGenerator` generating and linking all functions      |
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xss16m", "-Xmx4g"})
+public class FunctionScaleBenchmark {
+
+    /// The number of functions of the program.
+    @Param({"1000", "10000", "50000"})
+    private int functions;
+
+    /// Parse tree of the program.
+    private LigmaParser.ProgramContext parseTree;
+    /// Internal representation of the program.
+    private Program program;
+
+    /// Parses and analyses the program.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        String code = BenchmarkSources.load(BenchmarkSources.FUNCTIONS_PREFIX + functions).getFirst();
+        parseTree = App.getProgramContext(CharStreams.fromString(code));
+        program = new ProgramVisitor().visit(parseTree);
+    }
+
+    @Benchmark
+    public Program analyze() {
+        return new ProgramVisitor().visit(parseTree);
+    }
+
+    @Benchmark
+    public int generate() {
+        SymbolTable.clear();
+        Generator.clear();
+        new ProgramGenerator(program).generate();
+
+        return Generator.getInstructions().size();
+    }
+
+}
@@ -0,0 +1,93 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.lexer.FastLigmaLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the lexers, from the bytes of the source to the filled token stream.
+///
+/// | Parameter | Values                                                                                     |
+/// |-----------|--------------------------------------------------------------------------------------------|
+/// | `lexer`   | `antlr` (`EnhancedLigmaLexer` over the decoded characters), `fast` (`FastLigmaLexer`)       |
+/// |           | or `fast-array` (`FastLigmaLexer` without creating the token objects for the parser)       |
+/// | `source`  | `synthetic-10000` (about 0.5 MB) or `synthetic-190000` (about 11 MB)                       |
+///
+/// The throughput is reported in the lexed megabytes per second by the `megabytes` counter.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LexerBenchmark {
+
+    /// Number of the bytes in a megabyte.
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /// The lexer.
+    @Param({"antlr", "fast", "fast-array"})
+    private String lexer;
+
+    /// The lexed program (see [BenchmarkSources]).
+    @Param({"synthetic-10000", "synthetic-190000"})
+    private String source;
+
+    /// Source code of the program in UTF-8.
+    private byte[] bytes;
+
+    /// Loads the program.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        bytes = BenchmarkSources.load(source).getFirst().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object lex(LexedBytes lexed) {
+        Object tokens = switch (lexer) {
+            case "fast" -> App.tokenize(bytes);
+            case "fast-array" -> FastLigmaLexer.tokenize(bytes);
+            default -> App.tokenize(CharStreams.fromString(new String(bytes, StandardCharsets.UTF_8)));
+        };
+
+        lexed.megabytes += bytes.length / MEGABYTE;
+        return tokens;
+    }
+
+    /// Counter of the lexed megabytes (reported per second).
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class LexedBytes {
+
+        /// Lexed megabytes in the iteration.
+        public double megabytes;
+
+        /// Resets the counter before the iteration.
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.enums.CompilerPhase;
+import ligma.generated.LigmaParser;
+import ligma.ir.program.Program;
+import ligma.trace.Trace;
+import ligma.trace.TraceEvent;
+import ligma.visitor.ProgramVisitor;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the semantic analysis of a deeply nested expression (see `nested-<n>` in [BenchmarkSources]).
+///
+/// With `trace` set to `semantic-analysis` the text of every analysed expression is built (and consumed),
+/// which is what every compilation paid while the visitors logged `ctx.getText()` eagerly: the text of a
+/// node is concatenated from the texts of its children, so building it for every node of the chain takes
+/// (at least) quadratic time. With `none` the trace events cost one check of the traced phases.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xss16m", "-Xmx4g"})
+public class NestingBenchmark {
+
+    /// The depth of the nested expression.
+    @Param({"500", "2000"})
+    private int depth;
+
+    /// The traced phase (`none` to trace nothing).
+    @Param({"none", "semantic-analysis"})
+    private String trace;
+
+    /// Parse tree of the program.
+    private LigmaParser.ProgramContext parseTree;
+
+    /// Parses the program and switches on the tracing.
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        BenchmarkSources.silenceLogging();
+
+        String code = BenchmarkSources.load(BenchmarkSources.NESTED_PREFIX + depth).getFirst();
+        parseTree = App.getProgramContext(CharStreams.fromString(code));
+
+        if (trace.equals(CompilerPhase.SEMANTIC_ANALYSIS.getName())) {
+            Trace.enable(Set.of(CompilerPhase.SEMANTIC_ANALYSIS), (TraceEvent event) -> blackhole.consume(event.detail()));
+        }
+    }
+
+    /// Stops the tracing.
+    @TearDown
+    public void tearDown() {
+        Trace.disable();
+    }
+
+    @Benchmark
+    public Program analyze() {
+        return new ProgramVisitor().visit(parseTree);
+    }
+
+}
@@ -0,0 +1,83 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.generated.LigmaParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the prediction strategies of the parser.
+///
+/// | Parameter  | Values                                                                             |
+/// |------------|------------------------------------------------------------------------------------|
+/// | `strategy` | `sll-ll` (SLL with the bail out, LL only on failure, see `App.parse`) or `ll`      |
+/// | `dfa`      | `warm` (DFA cache filled by the previous runs) or `cold` (cleared before every run) |
+/// | `source`   | `synthetic-10000` (about 0.5 MB) or `synthetic-190000` (about 11 MB)               |
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xss64m", "-Xmx4g"})
+public class ParserBenchmark {
+
+    /// The prediction strategy.
+    @Param({"sll-ll", "ll"})
+    private String strategy;
+
+    /// Whether the shared DFA cache is kept between the runs.
+    @Param({"warm", "cold"})
+    private String dfa;
+
+    /// The parsed program (see [BenchmarkSources]).
+    @Param({"synthetic-10000", "synthetic-190000"})
+    private String source;
+
+    /// Tokens of the program.
+    private List<Token> tokens;
+
+    /// Lexes the program.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        String code = BenchmarkSources.load(source).getFirst();
+        tokens = App.tokenize(CharStreams.fromString(code)).getTokens();
+    }
+
+    /// Clears the DFA cache shared by all parsers (for the cold runs).
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if (dfa.equals("cold")) {
+            new LigmaParser(null).getInterpreter().clearDFA();
+        }
+    }
+
+    @Benchmark
+    public LigmaParser.ProgramContext parse() {
+        TokenStream tokenStream = new CommonTokenStream(new ListTokenSource(tokens));
+
+        return strategy.equals("ll") ? App.parseLL(tokenStream) : App.parse(tokenStream);
+    }
+
+}
@@ -0,0 +1,82 @@
+package ligma.benchmark;
+
+import ligma.App;
+import ligma.enums.InstructionSet;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.ProgramGenerator;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import ligma.vm.VirtualMachine;
+import org.antlr.v4.runtime.CharStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Benchmark of the execution of the generated instructions by the virtual machine.
+///
+/// | Parameter        | Values                                                                                  |
+/// |------------------|-----------------------------------------------------------------------------------------|
+/// | `source`         | `example-loops` (`loops.txt`), `counted-10000000` (a for loop of 10^7 iterations),      |
+/// |                  | `flag-search-1000000` or `break-search-1000000` (a search ended by a flag or by `break`) |
+/// | `instructionSet` | `PL0` or `EXTENDED` (the fused instructions of `--extended-isa`)                        |
+///
+/// The programs are compiled once, only the execution is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualMachineBenchmark {
+
+    /// The executed program (see [BenchmarkSources]).
+    @Param({"example-loops", "counted-10000000", "flag-search-1000000", "break-search-1000000"})
+    private String source;
+
+    /// The instruction set the program is generated for.
+    @Param({"PL0", "EXTENDED"})
+    private InstructionSet instructionSet;
+
+    /// Generated instructions of the program.
+    private List<InstructionInfo> instructions;
+
+    /// Compiles the program.
+    @Setup
+    public void setUp() {
+        BenchmarkSources.silenceLogging();
+
+        SymbolTable.clear();
+        Generator.clear();
+
+        ProgramGenerator programGenerator = new ProgramGenerator(new ProgramVisitor().visit(
+            App.getProgramContext(CharStreams.fromString(BenchmarkSources.load(source).getFirst()))
+        ));
+        programGenerator.setInstructionSet(instructionSet);
+        programGenerator.generate();
+        instructions = List.copyOf(Generator.getInstructions());
+    }
+
+    @Benchmark
+    public long execute() {
+        VirtualMachine virtualMachine = new VirtualMachine(instructions);
+        virtualMachine.run();
+
+        return virtualMachine.getExecutedInstructions();
+    }
+
+}
@@ -1,23 +1,60 @@
 package ligma;
 
+import ligma.cache.BuildCache;
+import ligma.cache.CdsArchive;
+import ligma.cache.DfaSnapshot;
+import ligma.cli.CompilerOptions;
+import ligma.daemon.CompileClient;
+import ligma.daemon.CompileDaemon;
+import ligma.daemon.DaemonResponse;
+import ligma.enums.CompilerPhase;
+import ligma.enums.MetricCounter;
+import ligma.exception.VirtualMachineException;
 import ligma.generated.LigmaLexer;
 import ligma.generated.LigmaParser;
 import ligma.generator.Generator;
 import ligma.generator.ProgramGenerator;
 import ligma.ir.program.Program;
+import ligma.lexer.FastLigmaLexer;
+import ligma.lexer.TokenArray;
+import ligma.lexer.TokenArraySource;
 import ligma.listener.EnhancedLigmaLexer;
 import ligma.listener.SyntaxErrorListener;
+import ligma.metrics.CompilerMetrics;
+import ligma.parser.FastLigmaParser;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import ligma.table.SymbolTable;
+import ligma.trace.Trace;
 import ligma.visitor.ProgramVisitor;
+import ligma.visitor.StreamingProgramReader;
+import ligma.vm.Profiler;
+import ligma.vm.VirtualMachine;
 import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.io.BufferedWriter;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
@@ -26,71 +63,518 @@ import java.io.InputStream;
 @Slf4j
 public class App {
 
+    /// Number of statements of the program compiled by the warm-up.
+    private static final int WARM_UP_STATEMENTS = 1000;
+
     /// Main entry point for the compiler application.
     ///
-    /// @param args Command-line arguments: 1st argument is the input file, 2nd is the output file.
+    /// @param args Command-line arguments: options followed by the input file and the output file.
     public static void main(String[] args) {
-        if (args.length != 2) {
-            log.error("Compiler expected two arguments: <file with program> <output file with PL/0 instructions>");
+        CompilerOptions options;
+
+        try {
+            options = CompilerOptions.parse(args);
+        } catch (IllegalArgumentException exception) {
+            log.error(exception.getMessage());
             return;
         }
 
-        String inputFilename = args[0];
-        String outputFilename = args[1];
+        Trace.enable(options.getTracedPhases());
+
+        // Dump the class data sharing archive used by the launcher
+        if (options.getCdsArchive() != null) {
+            CdsArchive.train(Path.of(options.getCdsArchive()), options.getInputFiles());
+            return;
+        }
+
+        // Run as the compile daemon or forward the compilation to it
+        if (options.getDaemonSocket() != null) {
+            runDaemon(options);
+            return;
+        }
+        if (options.getClientSocket() != null) {
+            compileInDaemon(options);
+            return;
+        }
+        if (options.getBatchDirectory() != null) {
+            compileBatch(options);
+            return;
+        }
+
+        String inputFilename = options.getInputFile();
+        String outputFilename = options.getOutputFile();
 
         Program program = null;
 
+        // The CPU time and the allocations are only measured for the report (or a JFR recording)
+        CompilerMetrics.setResourceUsageMeasured(options.getMetricsFile() != null);
+        CompilerMetrics.start(inputFilename);
+
+        // Reuse the instructions of an unchanged program (the analysis is skipped)
+        BuildCache cache = openCache(options);
+        String cacheKey = cache == null ? null : computeCacheKey(cache, options, inputFilename);
+        String cachedInstructions = cacheKey == null ? null : cache.get(cacheKey);
+
+        if (cachedInstructions != null) {
+            writeCachedInstructions(cachedInstructions, outputFilename);
+            log.info("Build cache: {}", cache.getStatistics());
+            finishMetrics(options);
+            return;
+        }
+
         // Run lexical, syntax and semantic analysis
         try (InputStream input = new FileInputStream(inputFilename)) {
             log.info("Successfully opened input file: {}", inputFilename);
 
-            // Create CharStream from the input file
-            CharStream charStream = CharStreams.fromStream(input);
+            if (options.isStream()) {
+                // Lex, parse and analyse the program statement by statement (the whole source is never in memory)
+                program = CompilerMetrics.measure(CompilerPhase.FRONT_END, () -> StreamingProgramReader.read(input));
+            } else if (options.isFastParser()) {
+                // Parse and analyse the tokens of the hand-written lexer at once (without the parse tree)
+                byte[] source = input.readAllBytes();
+                TokenArray tokens = CompilerMetrics.measure(CompilerPhase.LEXING, () -> FastLigmaLexer.tokenize(source));
+                CompilerMetrics.add(MetricCounter.TOKENS, tokens.size());
+
+                program = CompilerMetrics.measure(CompilerPhase.FRONT_END, () -> FastLigmaParser.parse(tokens));
+            } else {
+                CommonTokenStream tokenStream;
+
+                // Get the tokens (by the hand-written lexer directly from the bytes of the file)
+                if (options.isFastLexer()) {
+                    byte[] source = input.readAllBytes();
+                    tokenStream = CompilerMetrics.measure(CompilerPhase.LEXING, () -> tokenize(source));
+                } else {
+                    CharStream charStream = CharStreams.fromStream(input);
+                    tokenStream = CompilerMetrics.measure(CompilerPhase.LEXING, () -> tokenize(charStream));
+                }
+
+                // Get the program context
+                LigmaParser.ProgramContext programContext = CompilerMetrics.measure(CompilerPhase.PARSING, () -> parse(tokenStream));
 
-            // Get the program context
-            LigmaParser.ProgramContext programContext = getProgramContext(charStream);
+                CompilerMetrics.add(MetricCounter.TOKENS, tokenStream.size());
+                CompilerMetrics.add(MetricCounter.PARSE_TREE_NODES, CompilerMetrics.countNodes(programContext));
 
-            // Visit the parsed program context using the ProgramVisitor
-            ProgramVisitor programVisitor = new ProgramVisitor();
-            program = programVisitor.visit(programContext);
+                // Visit the parsed program context using the ProgramVisitor
+                ProgramVisitor programVisitor = new ProgramVisitor();
+                program = CompilerMetrics.measure(CompilerPhase.SEMANTIC_ANALYSIS, () -> programVisitor.visit(programContext));
+            }
 
             log.info("Semantic analysis has finished successfully");
         } catch (IOException exception) {
             log.error("File not found: {}", inputFilename);
         }
 
+        boolean instructionsWritten = false;
+
         // Run PL/0 instructions generation
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilename))) {
+        try (FileChannel channel = FileChannel.open(Path.of(outputFilename), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
             log.info("Successfully opened output file: {}", inputFilename);
 
             // Initialize program generator and generate PL/0 instructions
-            Generator programGenerator = new ProgramGenerator(program);
-            programGenerator.generate();
+            ProgramGenerator programGenerator = new ProgramGenerator(program);
+            programGenerator.setInstructionSet(options.getInstructionSet());
+            CompilerMetrics.measure(CompilerPhase.GENERATION, programGenerator::generate);
+            CompilerMetrics.add(MetricCounter.INSTRUCTIONS, Generator.getInstructions().size());
 
             // Write generated instructions to the output file
+            CompilerMetrics.measure(CompilerPhase.WRITING, () -> Generator.writeInstructions(channel));
+
+            log.info("Successfully generated PL/0 instructions to the output file");
+            instructionsWritten = true;
+        } catch (IOException exception) {
+            log.error("Output file not found: {}", outputFilename);
+        }
+
+        // Store the instructions for the next build
+        if (cacheKey != null && instructionsWritten) {
+            storeInstructions(cache, cacheKey, outputFilename);
+            log.info("Build cache: {}", cache.getStatistics());
+        }
+
+        // Run the generated PL/0 instructions
+        if (options.isExecutionRequested()) {
+            CompilerMetrics.measure(CompilerPhase.EXECUTION, () -> execute(options));
+        }
+
+        finishMetrics(options);
+    }
+
+    /// Finishes the compilation and writes its metrics (if requested).
+    ///
+    /// @param options The options of the compiler.
+    private static void finishMetrics(CompilerOptions options) {
+        CompilerMetrics.finish();
+
+        // Write the metrics of the compilation
+        if (options.getMetricsFile() != null) {
+            writeMetrics(options.getMetricsFile());
+        }
+    }
+
+    /// Compiles all programs of the batch in this JVM, the outputs are written to the batch directory.
+    /// A failed program is logged and the next programs are still compiled.
+    ///
+    /// @param options The options of the compiler.
+    private static void compileBatch(CompilerOptions options) {
+        Path outputDirectory = Path.of(options.getBatchDirectory());
+        List<String> inputFiles = options.getInputFiles();
+        BuildCache cache = openCache(options);
+        int compiled = 0;
+
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException exception) {
+            log.error("Could not create the output directory: {}", outputDirectory);
+            return;
+        }
+
+        if (options.isWarmUp()) {
+            warmUp();
+        }
+
+        for (String inputFilename : inputFiles) {
+            Path outputFile = outputDirectory.resolve(Path.of(inputFilename).getFileName());
+
+            try {
+                byte[] source = Files.readAllBytes(Path.of(inputFilename));
+                String cacheKey = cache == null ? null : cache.key(source, options.getCodeGenerationFlags());
+                String instructions = cacheKey == null ? null : cache.get(cacheKey);
+
+                if (instructions == null) {
+                    if (options.isFastParser()) {
+                        instructions = compileFast(source);
+                    } else if (options.isFastLexer()) {
+                        instructions = compile(source);
+                    } else {
+                        instructions = compile(CharStreams.fromString(new String(source, StandardCharsets.UTF_8), inputFilename));
+                    }
+
+                    if (cacheKey != null) {
+                        cache.put(cacheKey, instructions);
+                    }
+                }
+
+                Files.writeString(outputFile, instructions, StandardCharsets.UTF_8);
+                log.info("Successfully compiled {} to {}", inputFilename, outputFile);
+                compiled++;
+            } catch (IOException exception) {
+                log.error("Could not compile {}: {}", inputFilename, exception.getMessage());
+            } catch (RuntimeException exception) {
+                log.error("Compilation of {} failed: {}", inputFilename, exception.getMessage());
+            }
+        }
+
+        log.info("Compiled {} of {} programs", compiled, inputFiles.size());
+
+        if (cache != null) {
+            log.info("Build cache: {}", cache.getStatistics());
+        }
+    }
+
+    /// Opens the build cache.
+    ///
+    /// @param options The options of the compiler.
+    /// @return The build cache or `null` if it is disabled (or it could not be opened).
+    private static BuildCache openCache(CompilerOptions options) {
+        if (options.getCacheDirectory() == null) {
+            return null;
+        }
+
+        try {
+            long maxSize = options.getCacheSize() * 1024 * 1024;
+            return new BuildCache(Path.of(options.getCacheDirectory()), maxSize, BuildCache.COMPILER_VERSION);
+        } catch (IOException exception) {
+            log.warn("Could not open the build cache {}: {}", options.getCacheDirectory(), exception.getMessage());
+            return null;
+        }
+    }
+
+    /// Computes the key of the program in the build cache.
+    ///
+    /// @param cache The build cache.
+    /// @param options The options of the compiler.
+    /// @param inputFilename The path to the file with the program.
+    /// @return The key or `null` if the file could not be read.
+    private static String computeCacheKey(BuildCache cache, CompilerOptions options, String inputFilename) {
+        try {
+            return cache.key(Files.readAllBytes(Path.of(inputFilename)), options.getCodeGenerationFlags());
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    /// Writes the instructions found in the build cache to the output file.
+    ///
+    /// @param instructions The cached instructions.
+    /// @param outputFilename The path to the output file.
+    private static void writeCachedInstructions(String instructions, String outputFilename) {
+        try {
+            Files.writeString(Path.of(outputFilename), instructions, StandardCharsets.UTF_8);
+            log.info("Successfully written cached PL/0 instructions to the output file");
+        } catch (IOException exception) {
+            log.error("Output file not found: {}", outputFilename);
+        }
+    }
+
+    /// Stores the instructions written to the output file in the build cache.
+    ///
+    /// @param cache The build cache.
+    /// @param cacheKey The key of the program.
+    /// @param outputFilename The path to the output file.
+    private static void storeInstructions(BuildCache cache, String cacheKey, String outputFilename) {
+        try {
+            cache.put(cacheKey, Files.readString(Path.of(outputFilename), StandardCharsets.UTF_8));
+        } catch (IOException exception) {
+            log.warn("Could not store the instructions in the build cache: {}", exception.getMessage());
+        }
+    }
+
+    /// Compiles the source code to the text of the PL/0 instructions (as written to the output file).
+    ///
+    /// @param charStream The input stream containing the source code.
+    /// @return The generated instructions.
+    public static String compile(CharStream charStream) {
+        SymbolTable.clear();
+        Generator.clear();
+
+        return generate(new ProgramVisitor().visit(getProgramContext(charStream)));
+    }
+
+    /// Compiles the source code lexed by the hand-written lexer to the text of the PL/0 instructions.
+    ///
+    /// @param source The source code in UTF-8.
+    /// @return The generated instructions.
+    public static String compile(byte[] source) {
+        SymbolTable.clear();
+        Generator.clear();
+
+        return generate(new ProgramVisitor().visit(parse(tokenize(source))));
+    }
+
+    /// Compiles the source code by the hand-written lexer and parser to the text of the PL/0 instructions.
+    ///
+    /// @param source The source code in UTF-8.
+    /// @return The generated instructions.
+    public static String compileFast(byte[] source) {
+        SymbolTable.clear();
+        Generator.clear();
+
+        return generate(FastLigmaParser.parse(FastLigmaLexer.tokenize(source)));
+    }
+
+    /// Generates the text of the PL/0 instructions of the analysed program.
+    ///
+    /// @param program The program.
+    /// @return The generated instructions.
+    private static String generate(Program program) {
+        new ProgramGenerator(program).generate();
+
+        StringWriter output = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(output)) {
             Generator.writeInstructions(writer);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return output.toString();
+    }
+
+    /// Runs the compile daemon until it is stopped.
+    ///
+    /// @param options The options of the compiler.
+    private static void runDaemon(CompilerOptions options) {
+        CompileDaemon daemon = new CompileDaemon(Path.of(options.getDaemonSocket()), Duration.ofSeconds(options.getIdleTimeout()));
+
+        if (options.isWarmUp()) {
+            warmUp();
+        }
 
+        try {
+            daemon.start();
+        } catch (IOException exception) {
+            log.error("Could not start the compile daemon on {}: {}", options.getDaemonSocket(), exception.getMessage());
+            return;
+        }
+
+        daemon.serve();
+    }
+
+    /// Forwards the compilation to the compile daemon and writes the received instructions to the output file.
+    ///
+    /// @param options The options of the compiler.
+    private static void compileInDaemon(CompilerOptions options) {
+        String inputFilename = options.getInputFile();
+        String outputFilename = options.getOutputFile();
+        DaemonResponse response;
+
+        try {
+            String source = Files.readString(Path.of(inputFilename), StandardCharsets.UTF_8);
+            response = CompileClient.compile(Path.of(options.getClientSocket()), inputFilename, source);
+        } catch (IOException exception) {
+            log.error("Could not compile {} in the daemon: {}", inputFilename, exception.getMessage());
+            return;
+        }
+
+        if (!response.successful()) {
+            log.error("Compilation failed: {}", response.content());
+            return;
+        }
+
+        try {
+            Files.writeString(Path.of(outputFilename), response.content(), StandardCharsets.UTF_8);
             log.info("Successfully generated PL/0 instructions to the output file");
         } catch (IOException exception) {
             log.error("Output file not found: {}", outputFilename);
         }
     }
 
+    /// Writes the collected metrics of the compilation as a JSON report.
+    ///
+    /// @param metricsFile The path to the report.
+    private static void writeMetrics(String metricsFile) {
+        try (Writer writer = new BufferedWriter(new FileWriter(metricsFile))) {
+            CompilerMetrics.writeJson(writer);
+            log.info("Successfully written metrics to {}", metricsFile);
+        } catch (IOException exception) {
+            log.error("Could not write metrics: {}", metricsFile);
+        }
+    }
+
+    /// Runs the generated instructions in the virtual machine (optionally with the profiler).
+    ///
+    /// @param options The options of the compiler.
+    private static void execute(CompilerOptions options) {
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+        String profilePrefix = options.getProfilePrefix();
+
+        try {
+            if (profilePrefix == null) {
+                virtualMachine.run();
+                log.info("Program finished after {} instructions", virtualMachine.getExecutedInstructions());
+                return;
+            }
+
+            Profiler profiler = new Profiler(Generator.getInstructions(), Generator.getSourceMap());
+            virtualMachine.run(profiler);
+            log.info("Program finished after {} instructions", virtualMachine.getExecutedInstructions());
+
+            try (Writer profileWriter = new BufferedWriter(new FileWriter(profilePrefix + ".profile.txt"));
+                 Writer stacksWriter = new BufferedWriter(new FileWriter(profilePrefix + ".collapsed"))) {
+                profiler.writeFlatProfile(profileWriter);
+                profiler.writeCollapsedStacks(stacksWriter);
+            }
+
+            log.info("Successfully written profile to {}.profile.txt and {}.collapsed", profilePrefix, profilePrefix);
+        } catch (VirtualMachineException exception) {
+            log.error("Program execution failed: {}", exception.getMessage());
+        } catch (IOException exception) {
+            log.error("Could not write profile: {}", profilePrefix);
+        }
+    }
+
     /// Parses the input stream to extract the program context.
     ///
     /// @param charStream The input stream containing the source code to be parsed.
     public static LigmaParser.ProgramContext getProgramContext(CharStream charStream) {
         // Initialize the lexer (with listener to lexical errors) with the charStream
         LigmaLexer ligmaLexer = new EnhancedLigmaLexer(charStream);
-        // Create a token stream from the lexer
-        CommonTokenStream tokenStream = new CommonTokenStream(ligmaLexer);
+        // Create a token stream from the lexer (tokens are read as the parser needs them)
+        return parse(new CommonTokenStream(ligmaLexer));
+    }
+
+    /// Runs the lexical analysis of the whole input stream.
+    ///
+    /// @param charStream The input stream containing the source code.
+    /// @return The token stream filled with all tokens of the source code.
+    public static CommonTokenStream tokenize(CharStream charStream) {
+        // Initialize the lexer (with listener to lexical errors) with the charStream
+        CommonTokenStream tokenStream = new CommonTokenStream(new EnhancedLigmaLexer(charStream));
+        tokenStream.fill();
+
+        return tokenStream;
+    }
+
+    /// Runs the lexical analysis of the whole source code by the hand-written lexer.
+    ///
+    /// @param source The source code in UTF-8.
+    /// @return The token stream filled with all tokens of the source code.
+    public static CommonTokenStream tokenize(byte[] source) {
+        // The tokens are lexed at once, the token objects are created when the stream is filled
+        CommonTokenStream tokenStream = new CommonTokenStream(new TokenArraySource(FastLigmaLexer.tokenize(source)));
+        tokenStream.fill();
+
+        return tokenStream;
+    }
+
+    /// Parses the tokens to extract the program context.
+    ///
+    /// The program is parsed in two stages. The first stage uses the faster SLL prediction and gives up
+    /// on the first error. No decision of the grammar needs the full context (the semicolon of a call
+    /// statement belongs to the statement, not to the call), so every valid program is parsed by it.
+    /// Only when it fails, the program is parsed again with the full LL prediction, which also reports
+    /// the syntax errors.
+    ///
+    /// @param tokenStream The stream of tokens of the source code.
+    /// @return The program context.
+    public static LigmaParser.ProgramContext parse(TokenStream tokenStream) {
+        DfaSnapshot.ensureLoaded();
+
         // Create the parser from the token stream
         LigmaParser parser = new LigmaParser(tokenStream);
 
+        // First stage: SLL prediction, bail out on the first error (no error is reported)
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try {
+            return parser.program();
+        } catch (ParseCancellationException exception) {
+            log.debug("SLL parsing failed, parsing again with full LL prediction");
+        }
+
+        // Second stage: parse the program again from the first token
+        parser.reset();
+        return parseLL(parser);
+    }
+
+    /// Parses the tokens with the full LL prediction only (without the SLL stage).
+    ///
+    /// @param tokenStream The stream of tokens of the source code.
+    /// @return The program context.
+    public static LigmaParser.ProgramContext parseLL(TokenStream tokenStream) {
+        DfaSnapshot.ensureLoaded();
+
+        // Create the parser from the token stream
+        LigmaParser parser = new LigmaParser(tokenStream);
+        parser.removeErrorListeners();
+
+        return parseLL(parser);
+    }
+
+    /// Fills the DFA caches of the lexer and the parser by compiling a synthetic program which uses
+    /// all constructs of the language. The caches are shared by all instances of the lexer and the parser,
+    /// so the programs compiled later do not pay for building them.
+    public static void warmUp() {
+        long start = System.nanoTime();
+
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().statements(WARM_UP_STATEMENTS).build());
+        compile(CharStreams.fromString(source));
+
+        log.info("Compiler warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /// Parses the program with the full LL prediction, reporting the syntax errors.
+    ///
+    /// @param parser The parser (without error listeners) positioned at the first token.
+    /// @return The program context.
+    private static LigmaParser.ProgramContext parseLL(LigmaParser parser) {
         // Listen for syntax errors during parsing
         SyntaxErrorListener syntaxErrorListener = new SyntaxErrorListener();
-        parser.removeErrorListeners();
         parser.addErrorListener(syntaxErrorListener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
 
         // Parse the program and return the program context
         return parser.program();
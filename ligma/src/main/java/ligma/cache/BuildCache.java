@@ -0,0 +1,293 @@
+package ligma.cache;
+
+import ligma.App;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// On-disk cache of the generated PL/0 instructions.
+///
+/// An entry is keyed by the SHA-256 hash of the source code, the version of the compiler and the flags
+/// affecting the generated code, so an unchanged program is not lexed, parsed and generated again.
+/// Entries are written to a temporary file which is then atomically moved into place (concurrent
+/// builds never read a partially written entry). When the size of the cache exceeds its limit,
+/// the least recently used entries (by their modification time, which is updated on every hit) are removed.
+@Slf4j
+public class BuildCache {
+
+    /// Version of the compiler (the version of the JAR and the hash of its content).
+    public static final String COMPILER_VERSION = findCompilerVersion();
+
+    /// Extension of the cache entries.
+    private static final String ENTRY_EXTENSION = ".pl0";
+    /// Extension of the entries which are being written.
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /// The directory of the cache.
+    private final Path directory;
+    /// Limit of the size of the cache (in bytes).
+    private final long maxSize;
+    /// Version of the compiler which is part of every key.
+    private final String compilerVersion;
+    /// Current size of the entries (in bytes).
+    private final AtomicLong size;
+
+    /// Number of the found entries.
+    private final AtomicLong hits = new AtomicLong();
+    /// Number of the missing entries.
+    private final AtomicLong misses = new AtomicLong();
+
+    /// Opens the cache in the directory (the directory is created if it does not exist).
+    ///
+    /// @param directory the directory of the cache
+    /// @param maxSize the limit of the size of the cache (in bytes)
+    /// @param compilerVersion the version of the compiler
+    /// @throws IOException if the directory could not be created or read
+    public BuildCache(Path directory, long maxSize, String compilerVersion) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        this.compilerVersion = compilerVersion;
+        this.size = new AtomicLong(listEntries().stream().mapToLong(Entry::size).sum());
+    }
+
+    /// Computes the key of the program.
+    ///
+    /// @param source the source code of the program
+    /// @param flags the flags of the compiler affecting the generated instructions
+    /// @return the key of the cache entry
+    public String key(byte[] source, String flags) {
+        MessageDigest digest = createDigest();
+
+        digest.update(compilerVersion.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(flags.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(source);
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /// Returns the cached instructions.
+    ///
+    /// @param key the key of the entry
+    /// @return the instructions or `null` if the entry does not exist
+    public String get(String key) {
+        Path entry = getEntryPath(key);
+
+        try {
+            String instructions = Files.readString(entry, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+
+            return instructions;
+        } catch (NoSuchFileException exception) {
+            // Not cached (or evicted)
+        } catch (IOException exception) {
+            log.warn("Could not read the cache entry {}: {}", entry, exception.getMessage());
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /// Stores the instructions (an existing entry is replaced).
+    ///
+    /// @param key the key of the entry
+    /// @param instructions the generated instructions
+    public void put(String key, String instructions) {
+        Path entry = getEntryPath(key);
+        Path temporary = null;
+
+        try {
+            temporary = Files.createTempFile(directory, key, TEMPORARY_EXTENSION);
+            Files.writeString(temporary, instructions, StandardCharsets.UTF_8);
+
+            long previousSize = Files.exists(entry) ? Files.size(entry) : 0;
+            move(temporary, entry);
+            size.addAndGet(Files.size(entry) - previousSize);
+        } catch (IOException exception) {
+            log.warn("Could not write the cache entry {}: {}", entry, exception.getMessage());
+            deleteQuietly(temporary);
+            return;
+        }
+
+        if (size.get() > maxSize) {
+            evict();
+        }
+    }
+
+    /// Returns the number of the found entries.
+    public long getHits() {
+        return hits.get();
+    }
+
+    /// Returns the number of the missing entries.
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /// Returns the share of the found entries (`0` if nothing was looked up).
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /// Returns the current size of the entries (in bytes).
+    public long getSize() {
+        return size.get();
+    }
+
+    /// Returns the summary of the statistics of the cache.
+    public String getStatistics() {
+        return String.format("%d hits, %d misses (hit rate %.1f %%), %d bytes cached",
+            hits.get(), misses.get(), getHitRate() * 100, size.get());
+    }
+
+    /// Removes the least recently used entries until the size of the cache is within the limit.
+    private synchronized void evict() {
+        List<Entry> entries;
+
+        try {
+            entries = listEntries();
+        } catch (IOException exception) {
+            log.warn("Could not list the cache entries: {}", exception.getMessage());
+            return;
+        }
+
+        entries.sort(Comparator.comparing(Entry::lastUsed));
+        long currentSize = entries.stream().mapToLong(Entry::size).sum();
+
+        for (Entry entry : entries) {
+            if (currentSize <= maxSize) {
+                break;
+            }
+
+            deleteQuietly(entry.path());
+            currentSize -= entry.size();
+        }
+
+        size.set(currentSize);
+    }
+
+    /// Lists the entries of the cache.
+    private List<Entry> listEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(path -> path.toString().endsWith(ENTRY_EXTENSION)).toList()) {
+                try {
+                    entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path)));
+                } catch (NoSuchFileException exception) {
+                    // Evicted by another build
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /// Returns the path of the entry with the key.
+    private Path getEntryPath(String key) {
+        return directory.resolve(key + ENTRY_EXTENSION);
+    }
+
+    /// Moves the file atomically (if the file system supports it).
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /// Deletes the file, the failure is only logged.
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exception) {
+            log.warn("Could not delete the cache entry {}: {}", path, exception.getMessage());
+        }
+    }
+
+    /// Creates the SHA-256 digest.
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not supported", exception);
+        }
+    }
+
+    /// Finds the version of the compiler, the hash of its classes distinguishes builds with the same version.
+    private static String findCompilerVersion() {
+        String version = Objects.requireNonNullElse(App.class.getPackage().getImplementationVersion(), "development");
+
+        try {
+            Path code = Path.of(App.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return version + "@" + hashCompilerCode(code);
+        } catch (IOException | URISyntaxException | RuntimeException exception) {
+            return version;
+        }
+    }
+
+    /// Computes the hash of the code of the compiler from the content of the files (never from their times,
+    /// the time of a directory does not change when a nested class is compiled again).
+    ///
+    /// @param code the JAR of the compiler or the directory with its classes
+    /// @return the SHA-256 hash of the code
+    /// @throws IOException if the code could not be read
+    public static String hashCompilerCode(Path code) throws IOException {
+        MessageDigest digest = createDigest();
+
+        if (Files.isDirectory(code)) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(code)) {
+                files = paths.filter(Files::isRegularFile).sorted().toList();
+            }
+
+            // The relative paths are part of the hash, so a moved class is a different build
+            for (Path file : files) {
+                digest.update(code.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(file));
+            }
+        } else {
+            digest.update(Files.readAllBytes(code));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /// Entry of the cache.
+    ///
+    /// @param path the path of the entry
+    /// @param size the size of the entry (in bytes)
+    /// @param lastUsed the time the entry was last written or read
+    private record Entry(Path path, long size, FileTime lastUsed) {
+    }
+
+}
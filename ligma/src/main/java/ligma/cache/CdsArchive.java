@@ -0,0 +1,151 @@
+package ligma.cache;
+
+import ligma.App;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Training of the dynamic AppCDS archive of the compiler.
+///
+/// Most of the time of a short compilation is spent by the JVM loading, verifying and linking the classes of
+/// the compiler, ANTLR and Logback. The archive stores these classes already parsed and verified, so a JVM
+/// started with `-XX:SharedArchiveFile=<archive>` maps them instead of loading them from the jar.
+///
+/// The archive is dumped by a child JVM started with `-XX:ArchiveClassesAtExit=<archive>` (see [#train(Path, List)]),
+/// which compiles a synthetic program and the given corpus by all front ends (see [#main(String[])]), so the archive
+/// contains the classes loaded by the usual compilations. The archive is only valid for the same JVM and the same
+/// class path, the launcher scripts (`ligma.sh` and `ligma.bat`) use it automatically when it is next to the jar.
+@Slf4j
+public class CdsArchive {
+
+    /// Number of statements of the synthetic training program.
+    private static final int TRAINING_STATEMENTS = 200;
+
+    /// Options of the compiler the training programs are compiled with.
+    private static final List<List<String>> TRAINING_OPTIONS = List.of(
+        List.of(),
+        List.of("--fast-lexer"),
+        List.of("--fast-parser"),
+        List.of("--run")
+    );
+
+    /// Private constructor to prevent instantiation
+    private CdsArchive() {
+    }
+
+    /// Dumps the archive by a child JVM compiling the training programs.
+    ///
+    /// @param archive path to the archive
+    /// @param corpus files (or directories with files) with programs compiled in addition to the synthetic program
+    /// @return whether the archive was written
+    public static boolean train(Path archive, List<String> corpus) {
+        List<String> classPath = classPath();
+
+        // The JVM archives only the classes loaded from jars, not from directories
+        if (!classPath.stream().allMatch(entry -> entry.endsWith(".jar"))) {
+            log.error("The class data sharing archive can only be dumped when the compiler runs from the jar");
+            return false;
+        }
+
+        Path target = archive.toAbsolutePath();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-XX:ArchiveClassesAtExit=" + target);
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classPath));
+        command.add(CdsArchive.class.getName());
+        corpus.forEach(path -> command.add(Path.of(path).toAbsolutePath().toString()));
+
+        long start = System.nanoTime();
+
+        try {
+            Files.createDirectories(target.getParent());
+            Files.deleteIfExists(target);
+
+            // The output of the compilations is not interesting, only the exit code
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                                                         .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                                                         .start();
+            int exitCode = process.waitFor();
+
+            if (exitCode != 0 || !Files.isRegularFile(target)) {
+                // The JVM dumps the archive even when the training failed
+                Files.deleteIfExists(target);
+                log.error("Could not dump the class data sharing archive (exit code {}): {}", exitCode, String.join(" ", command));
+                return false;
+            }
+        } catch (IOException exception) {
+            log.error("Could not dump the class data sharing archive: {}", exception.getMessage());
+            return false;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        log.info("Written the class data sharing archive {} in {} ms", target, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /// Compiles the training programs, run by the child JVM dumping the archive.
+    ///
+    /// @param args files (or directories with files) with programs compiled in addition to the synthetic program
+    /// @throws IOException if the programs could not be read or the outputs could not be written
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("ligma-cds");
+
+        try {
+            List<Path> programs = new ArrayList<>();
+            Path synthetic = directory.resolve("synthetic.txt");
+            Files.writeString(synthetic, ProgramSynthesizer.synthesize(SynthesizerOptions.builder().statements(TRAINING_STATEMENTS).build()));
+            programs.add(synthetic);
+
+            for (String arg : args) {
+                try (Stream<Path> paths = Files.walk(Path.of(arg))) {
+                    programs.addAll(paths.filter(Files::isRegularFile).sorted().toList());
+                }
+            }
+
+            Path output = directory.resolve("output.txt");
+            for (Path program : programs) {
+                for (List<String> options : TRAINING_OPTIONS) {
+                    List<String> arguments = new ArrayList<>(options);
+                    arguments.add(program.toString());
+                    arguments.add(output.toString());
+
+                    App.main(arguments.toArray(String[]::new));
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted((first, second) -> second.compareTo(first)).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /// Returns the entries of the class path of the compiler as absolute paths, the launcher uses the same paths.
+    private static List<String> classPath() {
+        List<String> entries = new ArrayList<>();
+
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(Path.of(entry).toAbsolutePath().normalize().toString());
+            }
+        }
+
+        return entries;
+    }
+
+}
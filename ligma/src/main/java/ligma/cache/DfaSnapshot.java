@@ -0,0 +1,898 @@
+package ligma.cache;
+
+import ligma.App;
+import ligma.generated.LigmaLexer;
+import ligma.generated.LigmaParser;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RuntimeMetaData;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.EmptyPredictionContext;
+import org.antlr.v4.runtime.atn.LexerATNConfig;
+import org.antlr.v4.runtime.atn.LexerAction;
+import org.antlr.v4.runtime.atn.LexerActionExecutor;
+import org.antlr.v4.runtime.atn.LexerIndexedCustomAction;
+import org.antlr.v4.runtime.atn.OrderedATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Snapshot of the DFA caches of the generated lexer and parser.
+///
+/// ANTLR builds the DFA of every decision lazily, so the first program compiled by a fresh JVM pays for
+/// simulating the ATN of every construct it uses. The caches learned from a training corpus are written
+/// to a binary file at build time (see [#main(String[])]), bundled as the resource [#RESOURCE] and installed
+/// into the shared caches before the first program is lexed or parsed (see [#ensureLoaded()]).
+///
+/// The snapshot is tied to the serialized ATNs of the lexer and the parser (i.e. to the grammar) and to
+/// the version of the ANTLR runtime by a hash. A snapshot with a different hash is ignored and
+/// the caches are built as usual. A cache of a decision is only installed when it is still empty.
+@Slf4j
+public class DfaSnapshot {
+
+    /// Path of the bundled snapshot.
+    public static final String RESOURCE = "/ligma/cache/ligma.dfa";
+
+    /// Magic number at the start of the snapshot ("LDFA").
+    private static final int MAGIC = 0x4C444641;
+    /// Version of the format of the snapshot.
+    private static final int FORMAT_VERSION = 1;
+    /// Hash of the grammar and of the runtime the snapshot belongs to.
+    private static final long GRAMMAR_HASH = computeGrammarHash();
+
+    /// Number of statements of the synthetic program compiled by the training.
+    private static final int TRAINING_STATEMENTS = 1000;
+
+    /// Identifier of the error state of the ANTLR simulators in the edges.
+    private static final int ERROR_STATE = -2;
+    /// Identifier of a missing state or context.
+    private static final int NONE = -1;
+
+    /// Tags of the prediction contexts.
+    private static final byte EMPTY_CONTEXT = 0;
+    private static final byte SINGLETON_CONTEXT = 1;
+    private static final byte ARRAY_CONTEXT = 2;
+
+    /// Tags of the semantic contexts.
+    private static final byte EMPTY_PREDICATE = 0;
+    private static final byte PREDICATE = 1;
+    private static final byte PRECEDENCE_PREDICATE = 2;
+    private static final byte AND = 3;
+    private static final byte OR = 4;
+
+    /// Whether the bundled snapshot was already (tried to be) loaded.
+    private static volatile boolean loaded;
+
+    /// Private constructor to prevent instantiation
+    private DfaSnapshot() {
+    }
+
+    /// Loads the bundled snapshot into the shared caches (only once, the later calls return immediately).
+    public static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (DfaSnapshot.class) {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+
+            long start = System.nanoTime();
+            try (InputStream input = DfaSnapshot.class.getResourceAsStream(RESOURCE)) {
+                if (input == null) {
+                    log.debug("No DFA snapshot is bundled");
+                    return;
+                }
+
+                Caches caches = read(input);
+                if (caches == null) {
+                    log.warn("Ignoring the DFA snapshot built for a different grammar");
+                    return;
+                }
+
+                int installed = install(caches, Caches.shared());
+                log.debug("Loaded {} DFA states in {} ms", installed, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException | RuntimeException exception) {
+                log.warn("Could not load the DFA snapshot: {}", exception.getMessage());
+            }
+        }
+    }
+
+    /// Trains the caches on a corpus and writes the snapshot.
+    ///
+    /// The caches are trained on a synthetic program using all constructs of the language and on every
+    /// file of the corpus (the programs which fail to compile train the caches as well).
+    ///
+    /// @param args the path of the snapshot followed by the files or the directories of the corpus
+    /// @throws IOException if the corpus could not be read or the snapshot could not be written
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            log.error("Usage: DfaSnapshot <snapshot> [corpus...]");
+            return;
+        }
+
+        // Train from the empty caches, the bundled snapshot may be outdated
+        loaded = true;
+
+        train(ProgramSynthesizer.synthesize(SynthesizerOptions.builder().statements(TRAINING_STATEMENTS).build()));
+        for (int i = 1; i < args.length; i++) {
+            try (Stream<Path> paths = Files.walk(Path.of(args[i]))) {
+                for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                    train(Files.readString(path));
+                }
+            }
+        }
+
+        Path snapshot = Path.of(args[0]);
+        Files.createDirectories(snapshot.toAbsolutePath().getParent());
+        try (OutputStream output = Files.newOutputStream(snapshot)) {
+            write(output, Caches.shared());
+        }
+
+        log.info("Written {} DFA states to {}", Caches.shared().countStates(), snapshot);
+    }
+
+    /// Compiles the program to fill the caches.
+    private static void train(String source) {
+        try {
+            App.compile(CharStreams.fromString(source));
+        } catch (RuntimeException exception) {
+            // The caches are filled even by an invalid program
+        }
+    }
+
+    /// Writes the caches.
+    ///
+    /// @param output the stream (it is not closed)
+    /// @param caches the caches to write
+    /// @throws IOException if the snapshot could not be written
+    public static void write(OutputStream output, Caches caches) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(GRAMMAR_HASH);
+
+        new Writer(data, LigmaLexer._ATN, true).write(caches.lexer());
+        new Writer(data, LigmaParser._ATN, false).write(caches.parser());
+
+        data.flush();
+    }
+
+    /// Reads the caches.
+    ///
+    /// @param input the stream (it is not closed)
+    /// @return the caches or `null` if the snapshot belongs to a different grammar or runtime
+    /// @throws IOException if the snapshot could not be read or it is corrupted
+    public static Caches read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION || data.readLong() != GRAMMAR_HASH) {
+            return null;
+        }
+
+        DFA[] lexer = new Reader(data, LigmaLexer._ATN, true).read();
+        DFA[] parser = new Reader(data, LigmaParser._ATN, false).read();
+
+        return new Caches(lexer, parser);
+    }
+
+    /// Installs the read caches into the target caches.
+    ///
+    /// Only the caches of the decisions which are still empty are installed (a cache which was already
+    /// used is left unchanged).
+    ///
+    /// @param source the read caches
+    /// @param target the caches to fill (usually [Caches#shared()])
+    /// @return the number of the installed states
+    public static int install(Caches source, Caches target) {
+        return install(source.lexer(), target.lexer()) + install(source.parser(), target.parser());
+    }
+
+    /// Installs the read caches of the decisions into the target caches.
+    private static int install(DFA[] source, DFA[] target) {
+        int installed = 0;
+
+        for (int decision = 0; decision < target.length; decision++) {
+            DFA from = source[decision];
+            DFA to = target[decision];
+
+            synchronized (to.states) {
+                if (!to.states.isEmpty()) {
+                    continue;
+                }
+
+                to.states.putAll(from.states);
+                if (to.isPrecedenceDfa()) {
+                    DFAState[] starts = from.s0.edges;
+                    for (int precedence = 0; precedence < starts.length; precedence++) {
+                        if (starts[precedence] != null) {
+                            to.setPrecedenceStartState(precedence, starts[precedence]);
+                        }
+                    }
+                } else if (from.s0 != null) {
+                    to.s0 = from.s0;
+                }
+            }
+
+            installed += from.states.size();
+        }
+
+        return installed;
+    }
+
+    /// Computes the hash of the serialized ATNs of the lexer and the parser and of the version of the runtime.
+    ///
+    /// A CRC is used instead of a cryptographic hash, the snapshot is loaded by every fresh JVM and initializing
+    /// the security providers would cost more than the snapshot saves.
+    private static long computeGrammarHash() {
+        CRC32 crc = new CRC32();
+
+        for (String part : List.of(LigmaLexer._serializedATN, LigmaParser._serializedATN, RuntimeMetaData.VERSION)) {
+            crc.update(part.getBytes(StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+
+        // The lengths of the ATNs are part of the hash to make a collision after a change of the grammar less likely
+        return crc.getValue() << 32 | (LigmaLexer._serializedATN.length() ^ (long) LigmaParser._serializedATN.length() << 16) & 0xFFFFFFFFL;
+    }
+
+    /// DFA caches of the decisions of the lexer (one per mode) and of the parser.
+    ///
+    /// @param lexer the caches of the lexer
+    /// @param parser the caches of the parser
+    public record Caches(DFA[] lexer, DFA[] parser) {
+
+        /// Returns the caches shared by all instances of the generated lexer and parser.
+        public static Caches shared() {
+            return new Caches(new LigmaLexer(null).getInterpreter().decisionToDFA,
+                new LigmaParser(null).getInterpreter().decisionToDFA);
+        }
+
+        /// Returns the new empty caches.
+        public static Caches empty() {
+            return new Caches(createDfas(LigmaLexer._ATN), createDfas(LigmaParser._ATN));
+        }
+
+        /// Returns the number of the states of all caches.
+        public int countStates() {
+            return Stream.concat(Stream.of(lexer), Stream.of(parser)).mapToInt(dfa -> dfa.states.size()).sum();
+        }
+
+        /// Creates the empty caches of all decisions of the ATN.
+        private static DFA[] createDfas(ATN atn) {
+            DFA[] dfas = new DFA[atn.getNumberOfDecisions()];
+            for (int decision = 0; decision < dfas.length; decision++) {
+                dfas[decision] = new DFA(atn.getDecisionState(decision), decision);
+            }
+
+            return dfas;
+        }
+
+    }
+
+    /// Writer of the caches of one recognizer.
+    ///
+    /// The prediction and the semantic contexts are shared by the configurations, so they are written first
+    /// (every context after its parents or operands) and the configurations refer to them by their index.
+    private static class Writer {
+
+        /// The output.
+        private final DataOutputStream data;
+        /// ATN of the recognizer.
+        private final ATN atn;
+        /// Whether the recognizer is the lexer.
+        private final boolean lexer;
+
+        /// Indices of the written prediction contexts.
+        private final Map<PredictionContext, Integer> contexts = new IdentityHashMap<>();
+        /// Indices of the written semantic contexts.
+        private final Map<SemanticContext, Integer> predicates = new IdentityHashMap<>();
+        /// The prediction contexts in the order of writing.
+        private final List<PredictionContext> contextOrder = new ArrayList<>();
+        /// The semantic contexts in the order of writing.
+        private final List<SemanticContext> predicateOrder = new ArrayList<>();
+
+        private Writer(DataOutputStream data, ATN atn, boolean lexer) {
+            this.data = data;
+            this.atn = atn;
+            this.lexer = lexer;
+        }
+
+        /// Writes the caches of all decisions.
+        private void write(DFA[] dfas) throws IOException {
+            List<List<DFAState>> states = new ArrayList<>();
+
+            for (DFA dfa : dfas) {
+                List<DFAState> sorted = new ArrayList<>(dfa.states.values());
+                sorted.sort(Comparator.comparingInt(state -> state.stateNumber));
+                states.add(sorted);
+
+                for (DFAState state : sorted) {
+                    for (ATNConfig config : state.configs) {
+                        collect(config.context);
+                        collect(config.semanticContext);
+                    }
+                    if (state.predicates != null) {
+                        for (DFAState.PredPrediction prediction : state.predicates) {
+                            collect(prediction.pred);
+                        }
+                    }
+                }
+            }
+
+            writeContexts();
+            writePredicates();
+
+            data.writeInt(dfas.length);
+            for (int decision = 0; decision < dfas.length; decision++) {
+                writeDfa(dfas[decision], states.get(decision));
+            }
+        }
+
+        /// Writes the cache of a decision.
+        private void writeDfa(DFA dfa, List<DFAState> states) throws IOException {
+            Map<DFAState, Integer> ids = new IdentityHashMap<>();
+            for (DFAState state : states) {
+                ids.put(state, ids.size());
+            }
+
+            data.writeInt(states.size());
+            for (DFAState state : states) {
+                writeState(state);
+            }
+            for (DFAState state : states) {
+                writeEdges(state.edges, ids);
+            }
+
+            if (dfa.isPrecedenceDfa()) {
+                writeEdges(dfa.s0.edges, ids);
+            } else {
+                data.writeInt(stateId(dfa.s0, ids));
+            }
+        }
+
+        /// Writes the state without its edges.
+        private void writeState(DFAState state) throws IOException {
+            ATNConfigSet configs = state.configs;
+            BitSet conflictingAlts = lexer ? null : new ConfigSet(configs).getConflictingAlts();
+
+            data.writeInt(state.stateNumber);
+            data.writeBoolean(configs.fullCtx);
+            data.writeInt(configs.uniqueAlt);
+            writeLongs(conflictingAlts == null ? null : conflictingAlts.toLongArray());
+            data.writeBoolean(configs.hasSemanticContext);
+            data.writeBoolean(configs.dipsIntoOuterContext);
+
+            data.writeInt(configs.size());
+            for (ATNConfig config : configs) {
+                data.writeInt(config.state.stateNumber);
+                data.writeInt(config.alt);
+                data.writeInt(contexts.get(config.context));
+                data.writeInt(predicates.get(config.semanticContext));
+                data.writeInt(config.reachesIntoOuterContext);
+
+                if (lexer) {
+                    LexerATNConfig lexerConfig = (LexerATNConfig) config;
+                    data.writeBoolean(lexerConfig.hasPassedThroughNonGreedyDecision());
+                    writeExecutor(lexerConfig.getLexerActionExecutor());
+                }
+            }
+
+            data.writeBoolean(state.isAcceptState);
+            data.writeInt(state.prediction);
+            data.writeBoolean(state.requiresFullContext);
+            writeExecutor(state.lexerActionExecutor);
+
+            if (state.predicates == null) {
+                data.writeInt(NONE);
+            } else {
+                data.writeInt(state.predicates.length);
+                for (DFAState.PredPrediction prediction : state.predicates) {
+                    data.writeInt(predicates.get(prediction.pred));
+                    data.writeInt(prediction.alt);
+                }
+            }
+        }
+
+        /// Writes the edges of a state (only the existing ones).
+        private void writeEdges(DFAState[] edges, Map<DFAState, Integer> ids) throws IOException {
+            if (edges == null) {
+                data.writeInt(NONE);
+                return;
+            }
+
+            data.writeInt(edges.length);
+            for (int symbol = 0; symbol < edges.length; symbol++) {
+                if (edges[symbol] != null) {
+                    data.writeInt(symbol);
+                    data.writeInt(stateId(edges[symbol], ids));
+                }
+            }
+            data.writeInt(NONE);
+        }
+
+        /// Returns the identifier of the target of an edge.
+        private int stateId(DFAState state, Map<DFAState, Integer> ids) {
+            if (state == null) {
+                return NONE;
+            }
+            if (state == ATNSimulator.ERROR) {
+                return ERROR_STATE;
+            }
+
+            Integer id = ids.get(state);
+            if (id == null) {
+                throw new IllegalStateException("DFA edge leads to state " + state.stateNumber + " outside of the DFA");
+            }
+
+            return id;
+        }
+
+        /// Writes the actions of the lexer as the indices into the actions of the ATN.
+        private void writeExecutor(LexerActionExecutor executor) throws IOException {
+            if (executor == null) {
+                data.writeInt(NONE);
+                return;
+            }
+
+            LexerAction[] actions = executor.getLexerActions();
+            data.writeInt(actions.length);
+            for (LexerAction action : actions) {
+                if (action instanceof LexerIndexedCustomAction indexed) {
+                    data.writeInt(indexed.getOffset());
+                    data.writeInt(actionIndex(indexed.getAction()));
+                } else {
+                    data.writeInt(NONE);
+                    data.writeInt(actionIndex(action));
+                }
+            }
+        }
+
+        /// Returns the index of the action in the actions of the ATN.
+        private int actionIndex(LexerAction action) {
+            for (int i = 0; i < atn.lexerActions.length; i++) {
+                if (atn.lexerActions[i].equals(action)) {
+                    return i;
+                }
+            }
+
+            throw new IllegalStateException("Lexer action " + action + " is not part of the ATN");
+        }
+
+        /// Adds the prediction context and its parents to the written contexts.
+        private void collect(PredictionContext context) {
+            if (contexts.containsKey(context)) {
+                return;
+            }
+
+            if (context instanceof SingletonPredictionContext singleton && !(context instanceof EmptyPredictionContext)) {
+                if (singleton.parent != null) {
+                    collect(singleton.parent);
+                }
+            } else if (context instanceof ArrayPredictionContext array) {
+                for (PredictionContext parent : array.parents) {
+                    if (parent != null) {
+                        collect(parent);
+                    }
+                }
+            }
+
+            contexts.put(context, contextOrder.size());
+            contextOrder.add(context);
+        }
+
+        /// Adds the semantic context and its operands to the written contexts.
+        private void collect(SemanticContext predicate) {
+            if (predicates.containsKey(predicate)) {
+                return;
+            }
+
+            if (predicate instanceof SemanticContext.Operator operator) {
+                for (SemanticContext operand : operator.getOperands()) {
+                    collect(operand);
+                }
+            }
+
+            predicates.put(predicate, predicateOrder.size());
+            predicateOrder.add(predicate);
+        }
+
+        /// Writes the collected prediction contexts.
+        private void writeContexts() throws IOException {
+            data.writeInt(contextOrder.size());
+
+            for (PredictionContext context : contextOrder) {
+                if (context instanceof EmptyPredictionContext) {
+                    data.writeByte(EMPTY_CONTEXT);
+                } else if (context instanceof SingletonPredictionContext singleton) {
+                    data.writeByte(SINGLETON_CONTEXT);
+                    data.writeInt(singleton.parent == null ? NONE : contexts.get(singleton.parent));
+                    data.writeInt(singleton.returnState);
+                } else if (context instanceof ArrayPredictionContext array) {
+                    data.writeByte(ARRAY_CONTEXT);
+                    data.writeInt(array.returnStates.length);
+                    for (int i = 0; i < array.returnStates.length; i++) {
+                        data.writeInt(array.parents[i] == null ? NONE : contexts.get(array.parents[i]));
+                        data.writeInt(array.returnStates[i]);
+                    }
+                } else {
+                    throw new IllegalStateException("Unknown prediction context " + context.getClass().getName());
+                }
+            }
+        }
+
+        /// Writes the collected semantic contexts.
+        private void writePredicates() throws IOException {
+            data.writeInt(predicateOrder.size());
+
+            for (SemanticContext predicate : predicateOrder) {
+                switch (predicate) {
+                    case SemanticContext.Empty ignored -> data.writeByte(EMPTY_PREDICATE);
+                    case SemanticContext.Predicate rule -> {
+                        data.writeByte(PREDICATE);
+                        data.writeInt(rule.ruleIndex);
+                        data.writeInt(rule.predIndex);
+                        data.writeBoolean(rule.isCtxDependent);
+                    }
+                    case SemanticContext.PrecedencePredicate precedence -> {
+                        data.writeByte(PRECEDENCE_PREDICATE);
+                        data.writeInt(precedence.precedence);
+                    }
+                    case SemanticContext.Operator operator -> {
+                        data.writeByte(operator instanceof SemanticContext.AND ? AND : OR);
+                        data.writeInt(operator.getOperands().size());
+                        for (SemanticContext operand : operator.getOperands()) {
+                            data.writeInt(predicates.get(operand));
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown semantic context " + predicate.getClass().getName());
+                }
+            }
+        }
+
+        /// Writes the array (or `null`).
+        private void writeLongs(long[] values) throws IOException {
+            if (values == null) {
+                data.writeInt(NONE);
+                return;
+            }
+
+            data.writeInt(values.length);
+            for (long value : values) {
+                data.writeLong(value);
+            }
+        }
+
+    }
+
+    /// Reader of the caches of one recognizer (the counterpart of the [Writer]).
+    private static class Reader {
+
+        /// The input.
+        private final DataInputStream data;
+        /// ATN of the recognizer.
+        private final ATN atn;
+        /// Whether the recognizer is the lexer.
+        private final boolean lexer;
+        /// A non-greedy decision state of the lexer (to recreate the configurations which passed through one).
+        private final DecisionState nonGreedyState;
+
+        /// The read prediction contexts.
+        private PredictionContext[] contexts;
+        /// The read semantic contexts.
+        private SemanticContext[] predicates;
+
+        private Reader(DataInputStream data, ATN atn, boolean lexer) {
+            this.data = data;
+            this.atn = atn;
+            this.lexer = lexer;
+            this.nonGreedyState = findNonGreedyState(atn);
+        }
+
+        /// Returns a non-greedy decision state of the ATN (`null` if there is none).
+        private static DecisionState findNonGreedyState(ATN atn) {
+            for (DecisionState state : atn.decisionToState) {
+                if (state.nonGreedy) {
+                    return state;
+                }
+            }
+
+            return null;
+        }
+
+        /// Reads the caches of all decisions.
+        private DFA[] read() throws IOException {
+            readContexts();
+            readPredicates();
+
+            int count = data.readInt();
+            if (count != atn.getNumberOfDecisions()) {
+                throw new IOException("DFA snapshot has " + count + " decisions instead of " + atn.getNumberOfDecisions());
+            }
+
+            DFA[] dfas = new DFA[count];
+            for (int decision = 0; decision < count; decision++) {
+                dfas[decision] = readDfa(new DFA(atn.getDecisionState(decision), decision));
+            }
+
+            return dfas;
+        }
+
+        /// Reads the cache of a decision.
+        private DFA readDfa(DFA dfa) throws IOException {
+            DFAState[] states = new DFAState[data.readInt()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = readState();
+            }
+            for (DFAState state : states) {
+                state.edges = readEdges(states);
+                dfa.states.put(state, state);
+            }
+
+            if (dfa.isPrecedenceDfa()) {
+                DFAState[] starts = readEdges(states);
+                for (int precedence = 0; starts != null && precedence < starts.length; precedence++) {
+                    if (starts[precedence] != null) {
+                        dfa.setPrecedenceStartState(precedence, starts[precedence]);
+                    }
+                }
+            } else {
+                dfa.s0 = state(data.readInt(), states);
+            }
+
+            return dfa;
+        }
+
+        /// Reads the state without its edges.
+        private DFAState readState() throws IOException {
+            int stateNumber = data.readInt();
+            boolean fullCtx = data.readBoolean();
+            int uniqueAlt = data.readInt();
+            long[] conflictingAlts = readLongs();
+            boolean hasSemanticContext = data.readBoolean();
+            boolean dipsIntoOuterContext = data.readBoolean();
+
+            ConfigSet parserConfigs = lexer ? null : new ConfigSet(fullCtx);
+            ATNConfigSet configs = lexer ? new OrderedATNConfigSet() : parserConfigs;
+
+            int size = data.readInt();
+            for (int i = 0; i < size; i++) {
+                configs.add(readConfig());
+            }
+            if (configs.size() != size) {
+                throw new IOException("DFA snapshot contains duplicate configurations");
+            }
+
+            configs.uniqueAlt = uniqueAlt;
+            configs.hasSemanticContext = hasSemanticContext;
+            configs.dipsIntoOuterContext = dipsIntoOuterContext;
+            if (parserConfigs != null && conflictingAlts != null) {
+                parserConfigs.setConflictingAlts(BitSet.valueOf(conflictingAlts));
+            }
+            configs.setReadonly(true);
+
+            DFAState state = new DFAState(configs);
+            state.stateNumber = stateNumber;
+            state.isAcceptState = data.readBoolean();
+            state.prediction = data.readInt();
+            state.requiresFullContext = data.readBoolean();
+            state.lexerActionExecutor = readExecutor();
+
+            int predictionCount = data.readInt();
+            if (predictionCount != NONE) {
+                state.predicates = new DFAState.PredPrediction[predictionCount];
+                for (int i = 0; i < predictionCount; i++) {
+                    state.predicates[i] = new DFAState.PredPrediction(predicates[data.readInt()], data.readInt());
+                }
+            }
+
+            return state;
+        }
+
+        /// Reads a configuration of a state.
+        private ATNConfig readConfig() throws IOException {
+            int stateNumber = data.readInt();
+            int alt = data.readInt();
+            PredictionContext context = contexts[data.readInt()];
+            SemanticContext predicate = predicates[data.readInt()];
+            int reachesIntoOuterContext = data.readInt();
+
+            ATNConfig config;
+            if (lexer) {
+                boolean passedThroughNonGreedyDecision = data.readBoolean();
+                LexerATNConfig lexerConfig = new LexerATNConfig(atn.states.get(stateNumber), alt, context, readExecutor());
+
+                if (passedThroughNonGreedyDecision) {
+                    if (nonGreedyState == null) {
+                        throw new IOException("DFA snapshot refers to a non-greedy decision the lexer does not have");
+                    }
+                    // The flag can only be set by deriving the configuration through a non-greedy decision
+                    lexerConfig = new LexerATNConfig(new LexerATNConfig(lexerConfig, nonGreedyState), atn.states.get(stateNumber));
+                }
+                config = lexerConfig;
+            } else {
+                config = new ATNConfig(atn.states.get(stateNumber), alt, context, predicate);
+            }
+
+            config.reachesIntoOuterContext = reachesIntoOuterContext;
+            return config;
+        }
+
+        /// Reads the edges of a state.
+        private DFAState[] readEdges(DFAState[] states) throws IOException {
+            int length = data.readInt();
+            if (length == NONE) {
+                return null;
+            }
+
+            DFAState[] edges = new DFAState[length];
+            for (int symbol = data.readInt(); symbol != NONE; symbol = data.readInt()) {
+                edges[symbol] = state(data.readInt(), states);
+            }
+
+            return edges;
+        }
+
+        /// Returns the state of the identifier.
+        private DFAState state(int id, DFAState[] states) {
+            return switch (id) {
+                case NONE -> null;
+                case ERROR_STATE -> ATNSimulator.ERROR;
+                default -> states[id];
+            };
+        }
+
+        /// Reads the actions of the lexer.
+        private LexerActionExecutor readExecutor() throws IOException {
+            int count = data.readInt();
+            if (count == NONE) {
+                return null;
+            }
+
+            LexerAction[] actions = new LexerAction[count];
+            for (int i = 0; i < count; i++) {
+                int offset = data.readInt();
+                LexerAction action = atn.lexerActions[data.readInt()];
+                actions[i] = offset == NONE ? action : new LexerIndexedCustomAction(offset, action);
+            }
+
+            return new LexerActionExecutor(actions);
+        }
+
+        /// Reads the prediction contexts.
+        private void readContexts() throws IOException {
+            contexts = new PredictionContext[data.readInt()];
+
+            for (int i = 0; i < contexts.length; i++) {
+                contexts[i] = switch (data.readByte()) {
+                    case EMPTY_CONTEXT -> EmptyPredictionContext.Instance;
+                    case SINGLETON_CONTEXT -> SingletonPredictionContext.create(context(data.readInt()), data.readInt());
+                    case ARRAY_CONTEXT -> {
+                        int size = data.readInt();
+                        PredictionContext[] parents = new PredictionContext[size];
+                        int[] returnStates = new int[size];
+                        for (int j = 0; j < size; j++) {
+                            parents[j] = context(data.readInt());
+                            returnStates[j] = data.readInt();
+                        }
+                        yield new ArrayPredictionContext(parents, returnStates);
+                    }
+                    default -> throw new IOException("Unknown prediction context in the DFA snapshot");
+                };
+            }
+        }
+
+        /// Returns the read prediction context of the index.
+        private PredictionContext context(int index) {
+            return index == NONE ? null : contexts[index];
+        }
+
+        /// Reads the semantic contexts.
+        private void readPredicates() throws IOException {
+            predicates = new SemanticContext[data.readInt()];
+
+            for (int i = 0; i < predicates.length; i++) {
+                byte tag = data.readByte();
+                predicates[i] = switch (tag) {
+                    case EMPTY_PREDICATE -> SemanticContext.Empty.Instance;
+                    case PREDICATE -> new SemanticContext.Predicate(data.readInt(), data.readInt(), data.readBoolean());
+                    case PRECEDENCE_PREDICATE -> new SemanticContext.PrecedencePredicate(data.readInt());
+                    case AND, OR -> {
+                        SemanticContext[] operands = new SemanticContext[data.readInt()];
+                        for (int j = 0; j < operands.length; j++) {
+                            operands[j] = predicates[data.readInt()];
+                        }
+                        yield combine(tag, operands);
+                    }
+                    default -> throw new IOException("Unknown semantic context in the DFA snapshot");
+                };
+            }
+        }
+
+        /// Recreates the conjunction or the disjunction of the operands.
+        private static SemanticContext combine(byte tag, SemanticContext[] operands) {
+            SemanticContext second = operands.length > 1 ? operands[1] : operands[0];
+            SemanticContext result = tag == AND ? new SemanticContext.AND(operands[0], second) : new SemanticContext.OR(operands[0], second);
+
+            // The nested operators are flattened by the constructors
+            for (int i = 2; i < operands.length; i++) {
+                result = tag == AND ? new SemanticContext.AND(result, operands[i]) : new SemanticContext.OR(result, operands[i]);
+            }
+
+            return result;
+        }
+
+        /// Reads the array (or `null`).
+        private long[] readLongs() throws IOException {
+            int length = data.readInt();
+            if (length == NONE) {
+                return null;
+            }
+
+            long[] values = new long[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = data.readLong();
+            }
+
+            return values;
+        }
+
+    }
+
+    /// Set of the configurations of the parser giving access to the conflicting alternatives.
+    private static class ConfigSet extends ATNConfigSet {
+
+        private ConfigSet(boolean fullCtx) {
+            super(fullCtx);
+        }
+
+        /// Copies the set (including its conflicting alternatives).
+        private ConfigSet(ATNConfigSet configs) {
+            super(configs);
+        }
+
+        private BitSet getConflictingAlts() {
+            return conflictingAlts;
+        }
+
+        private void setConflictingAlts(BitSet conflictingAlts) {
+            this.conflictingAlts = conflictingAlts;
+        }
+
+    }
+
+}
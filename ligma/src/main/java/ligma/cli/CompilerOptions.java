@@ -0,0 +1,284 @@
+package ligma.cli;
+
+import ligma.enums.CompilerPhase;
+import ligma.enums.InstructionSet;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Options of the compiler parsed from the command-line arguments.
+///
+/// Usage: `[options] <file with program> <output file with PL/0 instructions>`
+/// or `[options] --batch <output directory> <files with programs...>`
+/// or `--train-cds <archive> [files with programs...]`
+///
+/// | Option                   | Description                                                              |
+/// |--------------------------|--------------------------------------------------------------------------|
+/// | `--run`                  | Run the generated instructions in the virtual machine                    |
+/// | `--profile <path>`       | Run with the profiler, write `<path>.profile.txt` and `<path>.collapsed` |
+/// | `--metrics <path>`       | Write the metrics of the compilation (phases and counters) as JSON       |
+/// | `--daemon <socket>`      | Start the compile daemon on the socket (no files are expected)           |
+/// | `--client <socket>`      | Compile the program in the daemon listening on the socket                |
+/// | `--idle-timeout <secs>`  | Stop the daemon after the given time without requests (default 600 s)    |
+/// | `--batch <directory>`    | Compile all given programs, outputs are written to the directory         |
+/// | `--cache <directory>`    | Reuse the instructions of unchanged programs stored in the directory     |
+/// | `--cache-size <MB>`      | Limit of the size of the cache (default 64 MB)                           |
+/// | `--warm-up`              | Fill the parser caches before the daemon or the batch starts             |
+/// | `--stream`               | Build the IR while reading the program, without the parse tree           |
+/// | `--trace <phases>`       | Log the trace events of the phases (comma separated names, or `all`)     |
+/// | `--fast-lexer`           | Lex the program by the hand-written lexer instead of the generated one   |
+/// | `--fast-parser`          | Lex and parse the program by the hand-written lexer and parser           |
+/// | `--train-cds <archive>`  | Dump the class data sharing archive by compiling the given programs      |
+/// | `--extended-isa`         | Generate the extended instructions (run only by our virtual machine)     |
+@Getter
+@Setter
+public class CompilerOptions {
+
+    /// Message describing the expected arguments.
+    public static final String USAGE =
+        "Compiler expected two arguments: [options] <file with program> <output file with PL/0 instructions>";
+
+    /// Default time without requests after which the daemon stops (in seconds).
+    public static final long DEFAULT_IDLE_TIMEOUT = 600;
+    /// Default limit of the size of the build cache (in megabytes).
+    public static final long DEFAULT_CACHE_SIZE = 64;
+
+    /// Path to the file with the program.
+    private String inputFile;
+    /// Path to the output file with PL/0 instructions.
+    private String outputFile;
+    /// Whether to run the generated instructions in the virtual machine.
+    private boolean run;
+    /// Prefix of the profile output files (`null` if the profiler is disabled).
+    private String profilePrefix;
+    /// Path to the JSON report with the metrics of the compilation (`null` if not requested).
+    private String metricsFile;
+    /// Path to the socket the daemon listens on (`null` if the compiler does not run as the daemon).
+    private String daemonSocket;
+    /// Path to the socket of the daemon the compilation is forwarded to (`null` to compile locally).
+    private String clientSocket;
+    /// Time without requests after which the daemon stops (in seconds).
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    /// Directory the outputs of the batch compilation are written to (`null` if not compiling in batch).
+    private String batchDirectory;
+    /// Paths to the files with the programs compiled in batch.
+    private List<String> inputFiles = List.of();
+    /// Directory of the build cache (`null` if the cache is disabled).
+    private String cacheDirectory;
+    /// Limit of the size of the build cache (in megabytes).
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+    /// Whether to fill the shared parser caches before the first program is compiled.
+    private boolean warmUp;
+    /// Whether to read the program by the streaming front end.
+    private boolean stream;
+    /// Whether to lex the program by the hand-written lexer.
+    private boolean fastLexer;
+    /// Whether to lex, parse and analyse the program by the hand-written lexer and parser.
+    private boolean fastParser;
+    /// Path to the class data sharing archive to dump (`null` if the compiler does not train the archive).
+    private String cdsArchive;
+    /// Instruction set the program is generated for.
+    private InstructionSet instructionSet = InstructionSet.PL0;
+    /// Phases whose trace events are logged.
+    private Set<CompilerPhase> tracedPhases = Set.of();
+
+    /// Parses the command-line arguments.
+    ///
+    /// @param args the command-line arguments
+    /// @return the parsed options
+    /// @throws IllegalArgumentException if the arguments are not valid
+    public static CompilerOptions parse(String[] args) {
+        CompilerOptions options = new CompilerOptions();
+        List<String> positional = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            switch (arg) {
+                case "--run" -> options.setRun(true);
+                case "--warm-up" -> options.setWarmUp(true);
+                case "--stream" -> options.setStream(true);
+                case "--fast-lexer" -> options.setFastLexer(true);
+                case "--fast-parser" -> options.setFastParser(true);
+                case "--extended-isa" -> options.setInstructionSet(InstructionSet.EXTENDED);
+                case "--profile" -> options.setProfilePrefix(requireValue(args, ++i, arg));
+                case "--metrics" -> options.setMetricsFile(requireValue(args, ++i, arg));
+                case "--daemon" -> options.setDaemonSocket(requireValue(args, ++i, arg));
+                case "--client" -> options.setClientSocket(requireValue(args, ++i, arg));
+                case "--idle-timeout" -> options.setIdleTimeout(requirePositiveNumber(args, ++i, arg));
+                case "--batch" -> options.setBatchDirectory(requireValue(args, ++i, arg));
+                case "--cache" -> options.setCacheDirectory(requireValue(args, ++i, arg));
+                case "--cache-size" -> options.setCacheSize(requirePositiveNumber(args, ++i, arg));
+                case "--trace" -> options.setTracedPhases(requirePhases(args, ++i, arg));
+                case "--train-cds" -> options.setCdsArchive(requireValue(args, ++i, arg));
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    positional.add(arg);
+                }
+            }
+        }
+
+        if (options.getCdsArchive() != null) {
+            if (options.getDaemonSocket() != null || options.getClientSocket() != null || options.isLocalOnlyRequested()
+                || options.getBatchDirectory() != null || options.getCacheDirectory() != null || options.isFastLexer()
+                || options.isFastParser() || options.isStream() || options.isWarmUp() || options.isExtendedInstructionSet()) {
+                throw new IllegalArgumentException("Option --train-cds expects no other options, only the files with programs");
+            }
+
+            options.setInputFiles(List.copyOf(positional));
+            return options;
+        }
+
+        if (options.getDaemonSocket() != null) {
+            if (!positional.isEmpty() || options.getClientSocket() != null || options.isLocalOnlyRequested()
+                || options.getBatchDirectory() != null || options.getCacheDirectory() != null || options.isFastLexer()
+                || options.isFastParser() || options.isExtendedInstructionSet()) {
+                throw new IllegalArgumentException("Option --daemon expects no other arguments except --idle-timeout and --warm-up");
+            }
+
+            return options;
+        }
+
+        if (options.getClientSocket() != null && options.isLocalOnlyRequested()) {
+            throw new IllegalArgumentException("Option --client cannot be combined with --run, --profile or --metrics");
+        }
+
+        if (options.isFastLexer() && (options.getClientSocket() != null || options.isStream())) {
+            throw new IllegalArgumentException("Option --fast-lexer cannot be combined with --client or --stream");
+        }
+
+        if (options.isFastParser() && (options.getClientSocket() != null || options.isStream())) {
+            throw new IllegalArgumentException("Option --fast-parser cannot be combined with --client or --stream");
+        }
+
+        // The daemon and the batch compile the programs only for PL/0
+        if (options.isExtendedInstructionSet() && (options.getClientSocket() != null || options.getBatchDirectory() != null)) {
+            throw new IllegalArgumentException("Option --extended-isa cannot be combined with --client or --batch");
+        }
+
+        if (options.getCacheDirectory() != null && (options.getClientSocket() != null || options.isExecutionRequested())) {
+            throw new IllegalArgumentException("Option --cache cannot be combined with --client, --run or --profile");
+        }
+
+        if (options.getBatchDirectory() != null) {
+            if (positional.isEmpty()) {
+                throw new IllegalArgumentException("Option --batch expects at least one file with program");
+            }
+            if (options.getClientSocket() != null || options.isLocalOnlyRequested()) {
+                throw new IllegalArgumentException("Option --batch cannot be combined with --client, --run, --profile or --metrics");
+            }
+            // The batch reads every program at once (the key of the build cache is computed from the whole source)
+            if (options.isStream()) {
+                throw new IllegalArgumentException("Option --batch cannot be combined with --stream");
+            }
+
+            options.setInputFiles(List.copyOf(positional));
+            return options;
+        }
+
+        if (positional.size() != 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        options.setInputFile(positional.get(0));
+        options.setOutputFile(positional.get(1));
+
+        return options;
+    }
+
+    /// Returns whether the generated instructions should be executed.
+    public boolean isExecutionRequested() {
+        return run || profilePrefix != null;
+    }
+
+    /// Returns whether the program is generated for the extended instruction set.
+    public boolean isExtendedInstructionSet() {
+        return instructionSet == InstructionSet.EXTENDED;
+    }
+
+    /// Returns the flags affecting the generated instructions (part of the key of the build cache).
+    public String getCodeGenerationFlags() {
+        return isExtendedInstructionSet() ? "extended-isa" : "";
+    }
+
+    /// Returns whether an option which needs the compilation in this process is used.
+    private boolean isLocalOnlyRequested() {
+        return isExecutionRequested() || metricsFile != null;
+    }
+
+    /// Returns the value of an option which is a positive number.
+    ///
+    /// @param args the command-line arguments
+    /// @param index the index of the value
+    /// @param option the name of the option
+    /// @return the value of the option
+    /// @throws IllegalArgumentException if the value is missing or it is not a positive number
+    private static long requirePositiveNumber(String[] args, int index, String option) {
+        String value = requireValue(args, index, option);
+
+        try {
+            long number = Long.parseLong(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException exception) {
+            // Reported below
+        }
+
+        throw new IllegalArgumentException("Option " + option + " expects a positive number, got: " + value);
+    }
+
+    /// Returns the value of an option which is a list of phases of the compilation.
+    ///
+    /// @param args the command-line arguments
+    /// @param index the index of the value
+    /// @param option the name of the option
+    /// @return the phases (all phases for `all`)
+    /// @throws IllegalArgumentException if the value is missing or it contains an unknown phase
+    private static Set<CompilerPhase> requirePhases(String[] args, int index, String option) {
+        String value = requireValue(args, index, option);
+
+        if (value.equals("all")) {
+            return EnumSet.allOf(CompilerPhase.class);
+        }
+
+        Set<CompilerPhase> phases = EnumSet.noneOf(CompilerPhase.class);
+        for (String name : value.split(",")) {
+            CompilerPhase phase = Arrays.stream(CompilerPhase.values())
+                                        .filter(candidate -> candidate.getName().equals(name.trim()))
+                                        .findFirst()
+                                        .orElseThrow(() -> new IllegalArgumentException(
+                                            "Option " + option + " expects names of phases, got: " + name
+                                        ));
+            phases.add(phase);
+        }
+
+        return phases;
+    }
+
+    /// Returns the value of an option.
+    ///
+    /// @param args the command-line arguments
+    /// @param index the index of the value
+    /// @param option the name of the option
+    /// @return the value of the option
+    /// @throws IllegalArgumentException if the value is missing
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Option " + option + " expects a value");
+        }
+
+        return args[index];
+    }
+
+}
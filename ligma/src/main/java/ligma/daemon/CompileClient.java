@@ -0,0 +1,56 @@
+package ligma.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Thin client forwarding requests to a running [CompileDaemon].
+public class CompileClient {
+
+    /// Private constructor to prevent instantiation
+    private CompileClient() {
+    }
+
+    /// Compiles the source code in the daemon.
+    ///
+    /// @param socket the path to the socket of the daemon
+    /// @param inputName the name of the compiled program
+    /// @param source the source code
+    /// @return the response with the instructions or the diagnostics
+    /// @throws IOException if the daemon is not reachable
+    public static DaemonResponse compile(Path socket, String inputName, String source) throws IOException {
+        return send(socket, new DaemonRequest(DaemonProtocol.COMPILE, inputName, source));
+    }
+
+    /// Stops the daemon.
+    ///
+    /// @param socket the path to the socket of the daemon
+    /// @throws IOException if the daemon is not reachable
+    public static void shutdown(Path socket) throws IOException {
+        send(socket, new DaemonRequest(DaemonProtocol.SHUTDOWN, "", ""));
+    }
+
+    /// Sends the request over a new connection and waits for the response.
+    private static DaemonResponse send(Path socket, DaemonRequest request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+            DaemonProtocol.writeRequest(output, request);
+            return DaemonProtocol.readResponse(input);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package ligma.daemon;
+
+import ligma.App;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Long-lived compiler listening on a Unix domain socket.
+///
+/// The daemon keeps the JVM, the loaded classes and the ANTLR caches (the deserialized ATN and the DFA
+/// shared by all instances of the lexer and the parser) warm, so a compilation only pays for the work
+/// on the program itself. Requests are processed concurrently by a pool of workers (the state of the
+/// compiler is confined to the compiling thread). The daemon stops itself when no request arrives
+/// for the idle timeout.
+@Slf4j
+public class CompileDaemon {
+
+    /// Smallest number of workers (a long compilation must not block the other clients).
+    private static final int MIN_WORKERS = 2;
+    /// Longest period of the check of the idle timeout (in milliseconds).
+    private static final long MAX_IDLE_CHECK_PERIOD = 1000;
+
+    /// The path to the socket.
+    private final Path socket;
+    /// Time without requests after which the daemon stops.
+    private final Duration idleTimeout;
+    /// Workers processing the requests.
+    private final ExecutorService workers;
+    /// Scheduler of the check of the idle timeout.
+    private final ScheduledExecutorService idleChecker = Executors.newSingleThreadScheduledExecutor();
+    /// Number of requests being processed.
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    /// Time of the last activity (in nanoseconds).
+    private volatile long lastActivity;
+    /// The listening channel (`null` before the start).
+    private ServerSocketChannel server;
+
+    public CompileDaemon(Path socket, Duration idleTimeout) {
+        this.socket = socket;
+        this.idleTimeout = idleTimeout;
+        this.workers = Executors.newFixedThreadPool(Math.max(MIN_WORKERS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /// Binds the socket, after this method returns, clients can connect to the daemon.
+    ///
+    /// @throws IOException if the socket could not be bound
+    public void start() throws IOException {
+        // Remove the socket left by a daemon which was killed
+        Files.deleteIfExists(socket);
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        lastActivity = System.nanoTime();
+
+        long period = Math.clamp(idleTimeout.toMillis() / 4, 1, MAX_IDLE_CHECK_PERIOD);
+        idleChecker.scheduleAtFixedRate(this::checkIdleTimeout, period, period, TimeUnit.MILLISECONDS);
+
+        log.info("Compile daemon is listening on {}", socket);
+    }
+
+    /// Accepts the connections until the daemon is stopped (by the idle timeout or by the shutdown request).
+    public void serve() {
+        try {
+            while (true) {
+                SocketChannel channel = server.accept();
+
+                activeRequests.incrementAndGet();
+                lastActivity = System.nanoTime();
+                workers.execute(() -> handle(channel));
+            }
+        } catch (ClosedChannelException exception) {
+            log.info("Compile daemon has stopped");
+        } catch (IOException exception) {
+            log.error("Compile daemon failed: {}", exception.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /// Stops accepting new connections, the requests being processed are finished.
+    public void stop() {
+        try {
+            server.close();
+        } catch (IOException exception) {
+            log.warn("Could not close the socket: {}", exception.getMessage());
+        }
+    }
+
+    /// Compiles the source code of the request.
+    ///
+    /// @param request the compile request
+    /// @return the instructions or the diagnostics of the failed compilation
+    static DaemonResponse compile(DaemonRequest request) {
+        try {
+            String instructions = App.compile(CharStreams.fromString(request.source(), request.inputName()));
+            log.info("Compiled {}", request.inputName());
+
+            return new DaemonResponse(true, instructions);
+        } catch (RuntimeException exception) {
+            log.info("Compilation of {} failed: {}", request.inputName(), exception.getMessage());
+
+            return new DaemonResponse(false, exception.getClass().getSimpleName() + ": " + exception.getMessage());
+        }
+    }
+
+    /// Processes one connection.
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+            DaemonRequest request = DaemonProtocol.readRequest(input);
+            DaemonResponse response = switch (request.command()) {
+                case DaemonProtocol.COMPILE -> compile(request);
+                case DaemonProtocol.SHUTDOWN -> {
+                    stop();
+                    yield new DaemonResponse(true, "");
+                }
+                default -> new DaemonResponse(false, "Unknown command: " + request.command());
+            };
+
+            DaemonProtocol.writeResponse(output, response);
+        } catch (IOException exception) {
+            log.warn("Could not process the request: {}", exception.getMessage());
+        } finally {
+            lastActivity = System.nanoTime();
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    /// Stops the daemon if there was no activity for the idle timeout.
+    private void checkIdleTimeout() {
+        long idleTime = System.nanoTime() - lastActivity;
+
+        if (activeRequests.get() == 0 && idleTime >= idleTimeout.toNanos()) {
+            log.info("No request for {} ms, stopping the compile daemon", idleTimeout.toMillis());
+            stop();
+        }
+    }
+
+    /// Waits for the processed requests and releases the resources of the daemon.
+    private void close() {
+        idleChecker.shutdownNow();
+        workers.shutdown();
+
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            Files.deleteIfExists(socket);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (IOException exception) {
+            log.warn("Could not delete the socket: {}", exception.getMessage());
+        }
+    }
+
+}
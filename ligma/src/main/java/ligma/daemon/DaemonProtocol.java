@@ -0,0 +1,94 @@
+package ligma.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Binary protocol between the [CompileClient] and the [CompileDaemon].
+///
+/// Every connection carries exactly one request and its response:
+///
+/// - request: command (UTF), input name (UTF), source length (int), source (UTF-8 bytes)
+/// - response: status `ok` or `error` (UTF), content length (int), content (UTF-8 bytes)
+public class DaemonProtocol {
+
+    /// Command compiling the attached source code.
+    public static final String COMPILE = "compile";
+    /// Command stopping the daemon.
+    public static final String SHUTDOWN = "shutdown";
+
+    /// Status of a successfully processed request.
+    private static final String OK = "ok";
+    /// Status of a failed request.
+    private static final String ERROR = "error";
+
+    /// Private constructor to prevent instantiation
+    private DaemonProtocol() {
+    }
+
+    /// Writes the request.
+    ///
+    /// @param output the output stream of the connection
+    /// @param request the request
+    /// @throws IOException if the request could not be written
+    public static void writeRequest(DataOutputStream output, DaemonRequest request) throws IOException {
+        output.writeUTF(request.command());
+        output.writeUTF(request.inputName());
+        writeText(output, request.source());
+        output.flush();
+    }
+
+    /// Reads the request.
+    ///
+    /// @param input the input stream of the connection
+    /// @return the request
+    /// @throws IOException if the request could not be read
+    public static DaemonRequest readRequest(DataInputStream input) throws IOException {
+        String command = input.readUTF();
+        String inputName = input.readUTF();
+
+        return new DaemonRequest(command, inputName, readText(input));
+    }
+
+    /// Writes the response.
+    ///
+    /// @param output the output stream of the connection
+    /// @param response the response
+    /// @throws IOException if the response could not be written
+    public static void writeResponse(DataOutputStream output, DaemonResponse response) throws IOException {
+        output.writeUTF(response.successful() ? OK : ERROR);
+        writeText(output, response.content());
+        output.flush();
+    }
+
+    /// Reads the response.
+    ///
+    /// @param input the input stream of the connection
+    /// @return the response
+    /// @throws IOException if the response could not be read
+    public static DaemonResponse readResponse(DataInputStream input) throws IOException {
+        boolean successful = OK.equals(input.readUTF());
+
+        return new DaemonResponse(successful, readText(input));
+    }
+
+    /// Writes a text of any length (the length of `writeUTF` is limited to 64 kB).
+    private static void writeText(DataOutputStream output, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /// Reads a text written by [#writeText].
+    private static String readText(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,12 @@
+package ligma.daemon;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Request sent by the client to the [CompileDaemon].
+///
+/// @param command the command ([DaemonProtocol#COMPILE] or [DaemonProtocol#SHUTDOWN])
+/// @param inputName the name of the compiled program (used in logs)
+/// @param source the source code of the program (empty for the shutdown)
+public record DaemonRequest(String command, String inputName, String source) {
+}
@@ -0,0 +1,11 @@
+package ligma.daemon;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Response of the [CompileDaemon] to a request.
+///
+/// @param successful whether the request was processed successfully
+/// @param content the generated PL/0 instructions or the diagnostics of the failed compilation
+public record DaemonResponse(boolean successful, String content) {
+}
@@ -0,0 +1,19 @@
+package ligma.enums;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Shapes of the call graph of the functions in a synthetic program.
+/// The graphs are acyclic, so the synthetic programs always terminate.
+public enum CallGraphShape {
+
+    /// The functions do not call each other.
+    NONE,
+    /// Every function calls the next function (`f0 -> f1 -> f2 -> ...`).
+    CHAIN,
+    /// Binary tree, the function `fi` calls the functions `f(2i+1)` and `f(2i+2)`.
+    TREE,
+    /// Random tree, every function (except the first one) is called by a randomly chosen previous function.
+    RANDOM
+
+}
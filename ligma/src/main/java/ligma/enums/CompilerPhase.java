@@ -0,0 +1,28 @@
+package ligma.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Phases of the compilation measured by the [ligma.metrics.CompilerMetrics].
+@Getter
+@RequiredArgsConstructor
+public enum CompilerPhase {
+
+    LEXING("lexing"),
+    PARSING("parsing"),
+    SEMANTIC_ANALYSIS("semantic-analysis"),
+    /// Lexing, parsing and semantic analysis interleaved by the streaming front end.
+    FRONT_END("front-end"),
+    GENERATION("generation"),
+    /// Optimization of the linked instructions, nested in the generation.
+    OPTIMIZATION("optimization"),
+    WRITING("writing"),
+    EXECUTION("execution");
+
+    /// The name of the phase used in the reports.
+    private final String name;
+
+}
@@ -36,6 +36,25 @@ package ligma.enums;
 /// - **`jmp 0, A`**: Jump to address `A`.
 /// - **`jmc 0, A`**: Conditional jump to address `A` if the value on the stack top is `0`.
 /// - **`ret 0, 0`**: Return from a procedure.
+///
+/// #### Extended Instructions
+/// Generated only for the [InstructionSet#EXTENDED] (they are not part of PL/0, only our virtual machine runs them).
+/// - **`dup 0, 0`**: Push a copy of the value on the stack top.
+/// - **`inc L, A`**: Increment the variable at address `L, A` by `1`.
+/// - **`dec L, A`**: Decrement the variable at address `L, A` by `1`.
+/// - **`adi 0, A`**: Add the constant `A` to the value on the stack top (`lit 0, A` followed by `opr 0, 2`).
+/// - **`not 0, 0`**: Negate the boolean on the stack top (`1` if the value is `0`, `0` otherwise).
+/// - **`jcc C, A`**: Compare the two values on the stack top by the `opr` code `C` (`8` to `13`) and jump
+///   to address `A` if the comparison does not hold (`opr 0, C` followed by `jmc 0, A`).
+///
+/// #### Array Instructions
+/// Also generated only for the [InstructionSet#EXTENDED], PL/0 has no indirect addressing. The elements of an array
+/// are stored in consecutive cells starting at address `L, A`, the index is taken from the stack.
+/// - **`alc 0, N`**: Allocate `N` cells on the stack and set them to `0`.
+/// - **`ldx L, A`**: Replace the index on the stack top by the element of the array at address `L, A`.
+/// - **`stx L, A`**: Store the value on the stack top into the element of the array at address `L, A` whose index
+///   is below the value (both are removed).
+/// - **`chk 0, N`**: Check that the index on the stack top is in the range `0` to `N - 1` (the index is kept).
 public enum Instruction {
     LIT,
     OPR,
@@ -45,5 +64,15 @@ public enum Instruction {
     INT,
     JMP,
     JMC,
-    RET
+    RET,
+    DUP,
+    INC,
+    DEC,
+    ADI,
+    NOT,
+    JCC,
+    ALC,
+    LDX,
+    STX,
+    CHK
 }
@@ -0,0 +1,14 @@
+package ligma.enums;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Instruction sets the programs can be generated for.
+public enum InstructionSet {
+
+    /// The nine instructions of PL/0, the output can be run by any PL/0 interpreter.
+    PL0,
+    /// PL/0 with the fused and stack-manipulation instructions, the output can be run only by our virtual machine.
+    EXTENDED
+
+}
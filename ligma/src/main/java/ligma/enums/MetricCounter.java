@@ -0,0 +1,23 @@
+package ligma.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Counters of the compilation collected by the [ligma.metrics.CompilerMetrics].
+@Getter
+@RequiredArgsConstructor
+public enum MetricCounter {
+
+    TOKENS("tokens"),
+    PARSE_TREE_NODES("parseTreeNodes"),
+    IR_NODES("irNodes"),
+    SYMBOL_LOOKUPS("symbolLookups"),
+    INSTRUCTIONS("instructions");
+
+    /// The name of the counter used in the reports.
+    private final String name;
+
+}
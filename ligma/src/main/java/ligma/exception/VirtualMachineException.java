@@ -0,0 +1,13 @@
+package ligma.exception;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents a custom exception thrown during the execution of PL/0 instructions, extending {@code RuntimeException}.
+public class VirtualMachineException extends RuntimeException {
+
+    public VirtualMachineException(String message) {
+        super(message);
+    }
+
+}
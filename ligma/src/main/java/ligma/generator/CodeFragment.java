@@ -0,0 +1,26 @@
+package ligma.generator;
+
+import java.util.List;
+import java.util.Map;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Relocatable instructions of one function generated independently of the rest of the program.
+///
+/// The addresses of the jumps are relative to the first instruction of the fragment and the calls of the
+/// functions are not resolved yet, both are fixed when the fragment is linked into the program.
+///
+/// @param function the name of the function
+/// @param instructions the generated instructions
+/// @param sourceMap the origin of the generated instructions
+/// @param functionCalls the names of the called functions by the indexes of their `CAL` instructions
+/// @param error the error the generation failed with (`null` if the generation succeeded)
+record CodeFragment(
+    String function,
+    List<InstructionInfo> instructions,
+    SourceMap sourceMap,
+    Map<Integer, String> functionCalls,
+    RuntimeException error
+) {
+}
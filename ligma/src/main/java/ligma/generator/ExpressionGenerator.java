@@ -1,10 +1,15 @@
 package ligma.generator;
 
+import ligma.enums.CompilerPhase;
+import ligma.enums.DataType;
 import ligma.enums.Instruction;
 import ligma.enums.Operator;
-import ligma.exception.GenerateException;
+import ligma.ir.SourcePosition;
+import ligma.ir.VariableAddress;
 import ligma.ir.expression.AdditiveExpression;
+import ligma.ir.expression.ArrayAccess;
 import ligma.ir.expression.ComparisonExpression;
+import ligma.ir.expression.ConstantEvaluator;
 import ligma.ir.expression.Expression;
 import ligma.ir.expression.FunctionCallExpression;
 import ligma.ir.expression.Identifier;
@@ -16,21 +21,26 @@ import ligma.ir.expression.ParenthesizedExpression;
 import ligma.ir.expression.PowerExpression;
 import ligma.ir.expression.UnaryMinusExpression;
 import ligma.ir.expression.UnaryPlusExpression;
-import ligma.table.Descriptor;
-import ligma.table.SymbolTable;
+import ligma.trace.Trace;
 import lombok.Setter;
-import lombok.extern.slf4j.Slf4j;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
 ///
 /// Generates code for various types of expressions.
-@Slf4j
+///
+/// The index of an array element is checked at runtime (`CHK`) only if it is not proven to be in the bounds of
+/// the array: a constant index addresses the element directly and the range of an index derived from the loop
+/// variable of a for loop with a constant range is known (see [#findRange(Expression)]).
 @Setter
 public class ExpressionGenerator extends Generator {
 
+    /// Address of the result of the power routine (the first address after its Activation Record),
+    /// the base and the counter follow.
+    private static final int POWER_RESULT_ADDRESS = 3;
+
     /// Static instance of FunctionGenerator for function-related expression generation
-    private static final FunctionGenerator functionGenerator = new FunctionGenerator();
+    private static final ThreadLocal<FunctionGenerator> functionGenerator = ThreadLocal.withInitial(FunctionGenerator::new);
 
     /// The current expression being generated
     private Expression expression;
@@ -38,6 +48,8 @@ public class ExpressionGenerator extends Generator {
     /// Generates the appropriate PL/0 instructions based on the expression type.
     @Override
     public void generate() {
+        SourcePosition previousPosition = setCurrentPosition(expression.getPosition());
+
         switch (expression) {
             case PowerExpression powerExpression -> generatePowerExpression(powerExpression);
             case UnaryMinusExpression unaryMinusExpression -> genUnaryMinusExpression(unaryMinusExpression);
@@ -49,10 +61,67 @@ public class ExpressionGenerator extends Generator {
             case LogicalExpression logicalExpression -> genLogicalExpression(logicalExpression);
             case ParenthesizedExpression parenthesizedExpression -> genParenthesizedExpression(parenthesizedExpression);
             case Identifier identifier -> genIdentifierExpression(identifier);
-            case Literal<?> literal -> generateLiteral(literal);
+            case ArrayAccess arrayAccess -> genArrayAccess(arrayAccess);
+            case Literal literal -> generateLiteral(literal);
             case FunctionCallExpression functionCallExpression -> generateFunctionCallExpression(functionCallExpression);
             default -> {}
         }
+
+        setCurrentPosition(previousPosition);
+    }
+
+    /// Generates the PL/0 instructions for the negation of the current boolean expression (`1` where the expression is `0`).
+    ///
+    /// The comparisons are generated with the opposite operator, `!` is dropped, the boolean literals are flipped,
+    /// and `&&` and `||` are swapped by De Morgan's laws, so these are negated without any additional instruction
+    /// (see [#isNegatedForFree(Expression)]). Any other expression is compared with `0`.
+    public void generateNegated() {
+        SourcePosition previousPosition = setCurrentPosition(expression.getPosition());
+
+        switch (expression) {
+            case ComparisonExpression comparisonExpression -> genNegatedComparisonExpression(comparisonExpression);
+            case NotExpression notExpression -> generateExpression(notExpression.getExpression());
+            case LogicalExpression logicalExpression -> genNegatedLogicalExpression(logicalExpression);
+            case ParenthesizedExpression parenthesizedExpression -> generateNegatedExpression(parenthesizedExpression.getExpression());
+            case Literal literal when literal.getType() == DataType.BOOLEAN -> addInstruction(Instruction.LIT, 0, 1 - literal.getValue());
+            default -> {
+                generate();
+
+                // Is the value 0 ?
+                if (isExtendedInstructionSet()) {
+                    addInstruction(Instruction.NOT, 0, 0);
+                } else {
+                    addInstruction(Instruction.LIT, 0, 0);
+                    addInstruction(Instruction.OPR, 0, 8);
+                }
+            }
+        }
+
+        setCurrentPosition(previousPosition);
+    }
+
+    /// Returns whether the negation of the boolean expression takes no more instructions than the expression itself.
+    ///
+    /// @param expression the boolean expression
+    /// @return whether [#generateNegated()] adds no instruction
+    public static boolean isNegatedForFree(Expression expression) {
+        return switch (expression) {
+            case ComparisonExpression ignored -> true;
+            case NotExpression ignored -> true;
+            case LogicalExpression logicalExpression ->
+                isNegatedForFree(logicalExpression.getLeft()) && isNegatedForFree(logicalExpression.getRight());
+            case ParenthesizedExpression parenthesizedExpression -> isNegatedForFree(parenthesizedExpression.getExpression());
+            case Literal literal -> literal.getType() == DataType.BOOLEAN;
+            default -> false;
+        };
+    }
+
+    /// Helper method to trigger the generation of the negation of an expression.
+    ///
+    /// @param expression the boolean expression to negate
+    private void generateNegatedExpression(Expression expression) {
+        this.expression = expression;
+        generateNegated();
     }
 
     /// Helper method to trigger the generation of an expression.
@@ -68,7 +137,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param powerExpression the power expression to generate
     private void generatePowerExpression(PowerExpression powerExpression) {
-        log.debug("Generating power expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating power expression");
         Expression left = powerExpression.getLeft();
         Expression right = powerExpression.getRight();
 
@@ -88,8 +157,9 @@ public class ExpressionGenerator extends Generator {
         int jmpIndex = getCurrentInstructionRow();
         int functionBodyIndex = getCurrentInstructionRow();
 
-        // Enter function scope
-        SymbolTable.enterScope(true);
+        // Enter the routine (its frame is one level above the variables of the operands)
+        enterRoutine();
+        String previousFunction = setCurrentFunction(SourceMap.POWER_FUNCTION);
 
         // Allocate space in the stack for the Activation Record and result
         addInstruction(Instruction.INT, 0, 4);
@@ -98,20 +168,20 @@ public class ExpressionGenerator extends Generator {
         addInstruction(Instruction.LIT, 0, 1);
 
         // Save 1 to the result
-        int resultAddress = SymbolTable.getNextAddress();
+        int resultAddress = POWER_RESULT_ADDRESS;
         addInstruction(Instruction.STO, 0, resultAddress);
 
         // Base
         generateExpression(left);
 
         // Save base address
-        int baseAddress = SymbolTable.getNextAddress();
+        int baseAddress = POWER_RESULT_ADDRESS + 1;
 
         // Exponent as counter
         generateExpression(right);
 
         // Save counter to the stack
-        int counterAddress = SymbolTable.getNextAddress();
+        int counterAddress = POWER_RESULT_ADDRESS + 2;
 
         // Loop address of the power expression
         int loopStart = getCurrentInstructionRow();
@@ -166,8 +236,9 @@ public class ExpressionGenerator extends Generator {
         // Return from function
         addInstruction(Instruction.RET, 0, 0);
 
-        // Exit function scope
-        SymbolTable.exitScope();
+        // Exit the routine
+        setCurrentFunction(previousFunction);
+        exitRoutine();
 
         // Address of the last function instruction
         int afterFunctionBodyIndex = getCurrentInstructionRow();
@@ -181,7 +252,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param unaryMinusExpression the unary minus expression to generate
     private void genUnaryMinusExpression(UnaryMinusExpression unaryMinusExpression) {
-        log.debug("Generating unary minus expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating unary minus expression");
         Expression expressionUnary = unaryMinusExpression.getExpression();
         Operator operator = unaryMinusExpression.getOperator();
 
@@ -204,7 +275,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param unaryPlusExpression the unary plus expression to generate
     private void genUnaryPlusExpression(UnaryPlusExpression unaryPlusExpression) {
-        log.debug("Generating unary plus expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating unary plus expression");
         Expression expressionUnary = unaryPlusExpression.getExpression();
         Operator operator = unaryPlusExpression.getOperator();
 
@@ -218,12 +289,19 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param notExpression the NOT expression to generate
     private void genNotExpression(NotExpression notExpression) {
-        log.debug("Generating not expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating not expression");
         Expression expressionNot = notExpression.getExpression();
         Operator operator = notExpression.getOperator();
 
         switch (operator) {
             case NOT -> {
+                if (isExtendedInstructionSet()) {
+                    // Negate the boolean directly
+                    generateExpression(expressionNot);
+                    addInstruction(Instruction.NOT, 0, 0);
+                    return;
+                }
+
                 // Add 1 to the top of the stack
                 addInstruction(Instruction.LIT, 0, 1);
 
@@ -242,7 +320,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param multiplicativeExpression the multiplicative expression to generate
     private void genMultiplicativeExpression(MultiplicativeExpression multiplicativeExpression) {
-        log.debug("Generating multiplicative expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating multiplicative expression");
         Expression left = multiplicativeExpression.getLeft();
         Expression right = multiplicativeExpression.getRight();
 
@@ -285,7 +363,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param additiveExpression the additive expression to generate
     private void genAdditiveExpression(AdditiveExpression additiveExpression) {
-        log.debug("Generating additive expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating additive expression");
         Expression left = additiveExpression.getLeft();
         Expression right = additiveExpression.getRight();
 
@@ -319,7 +397,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param comparisonExpression the comparison expression to generate
     private void genComparisonExpression(ComparisonExpression comparisonExpression) {
-        log.debug("Generating comparison expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating comparison expression");
         Expression left = comparisonExpression.getLeft();
         Expression right = comparisonExpression.getRight();
 
@@ -389,7 +467,7 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param logicalExpression the logical expression to generate
     private void genLogicalExpression(LogicalExpression logicalExpression) {
-        log.debug("Generating logical expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating logical expression");
         Expression left = logicalExpression.getLeft();
         Expression right = logicalExpression.getRight();
 
@@ -423,12 +501,63 @@ public class ExpressionGenerator extends Generator {
         }
     }
 
+    /// Generates the PL/0 instructions for the negation of a comparison expression (e.g., a < b as a >= b).
+    ///
+    /// @param comparisonExpression the comparison expression to negate
+    private void genNegatedComparisonExpression(ComparisonExpression comparisonExpression) {
+        Trace.event(CompilerPhase.GENERATION, "Generating negated comparison expression");
+
+        // Generate left and right expression
+        generateExpression(comparisonExpression.getLeft());
+        generateExpression(comparisonExpression.getRight());
+
+        // Compare by the opposite operator
+        int operation = switch (comparisonExpression.getOperator()) {
+            case EQ -> 9;   // left != right
+            case NEQ -> 8;  // left == right
+            case GT -> 13;  // left <= right
+            case LT -> 11;  // left >= right
+            case GTE -> 10; // left < right
+            case LTE -> 12; // left > right
+            default -> throw new IllegalStateException("Unexpected comparison: " + comparisonExpression.getOperator());
+        };
+        addInstruction(Instruction.OPR, 0, operation);
+    }
+
+    /// Generates the PL/0 instructions for the negation of a logical expression by De Morgan's laws
+    /// (e.g., !(a && b) as !a || !b).
+    ///
+    /// @param logicalExpression the logical expression to negate
+    private void genNegatedLogicalExpression(LogicalExpression logicalExpression) {
+        Trace.event(CompilerPhase.GENERATION, "Generating negated logical expression");
+
+        // Generate negated left and right expression
+        generateNegatedExpression(logicalExpression.getLeft());
+        generateNegatedExpression(logicalExpression.getRight());
+
+        switch (logicalExpression.getOperator()) {
+            case AND -> {
+                // !left || !right
+                addInstruction(Instruction.OPR, 0, 2);  // Add both values
+                addInstruction(Instruction.LIT, 0, 1);  // Add 1 to the top of the stack
+                addInstruction(Instruction.OPR, 0, 11); // Is the result >= 1 ?
+            }
+            case OR -> {
+                // !left && !right
+                addInstruction(Instruction.OPR, 0, 4); // Multiply
+                addInstruction(Instruction.LIT, 0, 1); // Add 1 to the top of the stack
+                addInstruction(Instruction.OPR, 0, 8); // Is the result 1 ?
+            }
+            default -> throw new IllegalStateException("Unexpected logical operator: " + logicalExpression.getOperator());
+        }
+    }
+
     /// Generates the PL/0 instructions for parenthesized expressions (e.g., (a + b)).
     /// Parentheses simply alter the order of evaluation.
     ///
     /// @param parenthesizedExpression the parenthesized expression to generate
     private void genParenthesizedExpression(ParenthesizedExpression parenthesizedExpression) {
-        log.debug("Generating parenthesized expression");
+        Trace.event(CompilerPhase.GENERATION, "Generating parenthesized expression");
         Expression parenthesizedExpr = parenthesizedExpression.getExpression();
 
         generateExpression(parenthesizedExpr);
@@ -438,29 +567,108 @@ public class ExpressionGenerator extends Generator {
     ///
     /// @param identifier the identifier expression to generate
     private void genIdentifierExpression(Identifier identifier) {
-        String idenName = identifier.getName();
-        Descriptor descriptor = SymbolTable.lookup(idenName);
+        VariableAddress address = identifier.getAddress();
 
-        addInstruction(Instruction.LOD, SymbolTable.getLevel(idenName), descriptor.getAddres());
+        addInstruction(Instruction.LOD, resolveLevel(address.level()), address.address());
+    }
+
+    /// Generates the instructions for an access to an element of an array (e.g., a[i]).
+    ///
+    /// @param arrayAccess the accessed element
+    private void genArrayAccess(ArrayAccess arrayAccess) {
+        VariableAddress address = arrayAccess.getAddress();
+        Integer index = findConstantIndex(arrayAccess);
+
+        // The element is known at compile time
+        if (index != null) {
+            addInstruction(Instruction.LOD, resolveLevel(address.level()), address.address() + index);
+            return;
+        }
+
+        generateIndex(arrayAccess);
+        addInstruction(Instruction.LDX, resolveLevel(address.level()), address.address());
+    }
+
+    /// Generates the index of an accessed element, followed by its check unless it is proven to be in the bounds.
+    ///
+    /// @param arrayAccess the accessed element
+    public void generateIndex(ArrayAccess arrayAccess) {
+        generateExpression(arrayAccess.getIndex());
+
+        ValueRange range = findRange(arrayAccess.getIndex());
+        if (range == null || !range.isWithin(arrayAccess.getLength())) {
+            addInstruction(Instruction.CHK, 0, arrayAccess.getLength());
+        }
+    }
+
+    /// Returns the index of an accessed element if it is known at compile time and it is in the bounds of the array.
+    ///
+    /// An index out of the bounds is left to the check at runtime (the access can be in a branch which is never
+    /// executed).
+    ///
+    /// @param arrayAccess the accessed element
+    /// @return the index (`null` if it is not known or it is out of the bounds)
+    public static Integer findConstantIndex(ArrayAccess arrayAccess) {
+        Integer index = ConstantEvaluator.evaluate(arrayAccess.getIndex());
+
+        return index != null && index >= 0 && index < arrayAccess.getLength() ? index : null;
+    }
+
+    /// Finds the range of the values of an integer expression in the generated code.
+    ///
+    /// The range is known for a constant, a variable with a known range (see [Generator#setVariableRange]) and
+    /// for such an expression with a constant added or subtracted (or subtracted from a constant).
+    ///
+    /// @param expression the integer expression
+    /// @return the range of the values (`null` if it is not known)
+    static ValueRange findRange(Expression expression) {
+        Integer value = ConstantEvaluator.evaluate(expression);
+        if (value != null) {
+            return new ValueRange(value, value);
+        }
+
+        return switch (expression) {
+            case Identifier identifier -> getVariableRange(identifier.getAddress());
+            case ParenthesizedExpression parenthesized -> findRange(parenthesized.getExpression());
+            case UnaryPlusExpression unaryPlus -> findRange(unaryPlus.getExpression());
+            case AdditiveExpression additive -> {
+                Integer right = ConstantEvaluator.evaluate(additive.getRight());
+                Integer left = ConstantEvaluator.evaluate(additive.getLeft());
+
+                if (right != null) {
+                    ValueRange range = findRange(additive.getLeft());
+                    yield range == null ? null : range.shift(additive.getOperator() == Operator.ADD ? right : -(long) right);
+                }
+                if (left != null) {
+                    ValueRange range = findRange(additive.getRight());
+                    if (range == null) {
+                        yield null;
+                    }
+
+                    // 'c - e' reverses the range of 'e'
+                    yield additive.getOperator() == Operator.ADD ? range.shift(left)
+                                                                 : new ValueRange(left - range.max(), left - range.min());
+                }
+
+                yield null;
+            }
+            default -> null;
+        };
     }
 
     /// Generates the PL/0 instructions for literal expressions (e.g., integers, booleans).
     ///
     /// @param literal the literal expression to generate
-    private void generateLiteral(Literal<?> literal) {
-        switch (literal.getValue()) {
-            case Integer integer -> addInstruction(Instruction.LIT, 0, integer);
-            case Boolean bool -> addInstruction(Instruction.LIT, 0, bool ? 1 : 0);
-            default -> throw new GenerateException("Unexpected value: " + literal.getValue());
-        }
+    private void generateLiteral(Literal literal) {
+        addInstruction(Instruction.LIT, 0, literal.getValue());
     }
 
     /// Generates the PL/0 instructions for a function call expression (e.g., function(a, b)).
     ///
     /// @param functionCall the function call expression to generate
     private void generateFunctionCallExpression(FunctionCallExpression functionCall) {
-        functionGenerator.setFunctionCall(functionCall);
-        functionGenerator.generate();
+        functionGenerator.get().setFunctionCall(functionCall);
+        functionGenerator.get().generate();
     }
 
 }
@@ -0,0 +1,99 @@
+package ligma.generator;
+
+import ligma.enums.DataType;
+import ligma.ir.function.Function;
+import ligma.ir.function.FunctionParameter;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Functions of the program indexed by their names.
+///
+/// The registry is built once per compilation, so every call site finds its function (with the types of
+/// the parameters already collected) in constant time, regardless of the number of functions. The entry
+/// addresses of the functions are stored in the registry when the functions are linked.
+public class FunctionRegistry {
+
+    /// Address of a function which was not linked yet.
+    public static final int UNRESOLVED_ADDRESS = -1;
+
+    /// All functions of the program in the order of their definition.
+    @Getter
+    private final List<Function> functions;
+    /// Entries of the functions by their names.
+    private final Map<String, Entry> entries;
+
+    /// Creates the registry of the functions.
+    ///
+    /// @param functions the functions of the program
+    public FunctionRegistry(List<Function> functions) {
+        this.functions = Collections.unmodifiableList(functions);
+        this.entries = HashMap.newHashMap(functions.size());
+
+        for (Function function : functions) {
+            entries.putIfAbsent(function.name(), new Entry(function));
+        }
+    }
+
+    /// Returns the entry of the function.
+    ///
+    /// @param name the name of the function
+    /// @return the entry of the function (`null` if there is no such function)
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    /// Returns the return type of the function.
+    /// If the function is not found, it returns `DataType.INT` as the default type.
+    ///
+    /// @param name the name of the function
+    /// @return the return type of the function
+    public DataType getReturnType(String name) {
+        Entry entry = entries.get(name);
+
+        return entry != null ? entry.getFunction().returnType() : DataType.INT;
+    }
+
+    /// Returns the number of the functions.
+    public int size() {
+        return entries.size();
+    }
+
+    /// A function of the program with the data needed by its call sites.
+    @Getter
+    public static class Entry {
+
+        /// The function.
+        private final Function function;
+        /// Types of the parameters of the function.
+        private final DataType[] parameterTypes;
+        /// Address of the first instruction of the function ([#UNRESOLVED_ADDRESS] until it is linked).
+        private int address = UNRESOLVED_ADDRESS;
+
+        /// Creates the entry of the function.
+        ///
+        /// @param function the function
+        private Entry(Function function) {
+            this.function = function;
+
+            List<FunctionParameter> parameters = function.parameters();
+            this.parameterTypes = new DataType[parameters.size()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = parameters.get(i).type();
+            }
+        }
+
+        /// Sets the address of the first instruction of the linked function.
+        void setAddress(int address) {
+            this.address = address;
+        }
+
+    }
+
+}
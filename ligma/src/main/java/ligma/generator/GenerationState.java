@@ -0,0 +1,44 @@
+package ligma.generator;
+
+import ligma.enums.InstructionSet;
+import ligma.ir.SourcePosition;
+import ligma.ir.VariableAddress;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Mutable state of the generation of one program.
+/// Every thread has its own state, so independent programs can be generated concurrently.
+class GenerationState {
+
+    /// Functions of the program indexed by their names.
+    FunctionRegistry functionRegistry = new FunctionRegistry(List.of());
+    /// Names of the called functions by the indexes of the `CAL` instructions (resolved when linked).
+    final Map<Integer, String> functionCalls = new HashMap<>();
+    /// A list of generated instructions.
+    final List<InstructionInfo> instructions = new ArrayList<>();
+    /// Source positions and functions of the generated instructions.
+    final SourceMap sourceMap = new SourceMap();
+    /// Source position of the construct which is being generated.
+    SourcePosition currentPosition = SourcePosition.UNKNOWN;
+    /// Name of the function which is being generated.
+    String currentFunction = SourceMap.MAIN_FUNCTION;
+    /// Number of the generated routines (power) enclosing the current instruction within its function.
+    int routineDepth;
+    /// Instruction set the instructions are generated for.
+    InstructionSet instructionSet = InstructionSet.PL0;
+    /// Ranges of the values of the variables known in the code being generated (the loop variables of the for loops).
+    final Map<VariableAddress, ValueRange> variableRanges = new HashMap<>();
+    /// Number of the stack cells allocated by the definitions of the enclosing scopes of the current function.
+    int allocatedCells;
+    /// Loops enclosing the statement being generated (the innermost one first).
+    final Deque<LoopJumps> loops = new ArrayDeque<>();
+
+}
@@ -2,16 +2,24 @@ package ligma.generator;
 
 import ligma.enums.DataType;
 import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
 import ligma.exception.GenerateException;
+import ligma.ir.SourcePosition;
+import ligma.ir.VariableAddress;
 import ligma.ir.function.Function;
 import lombok.Setter;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
@@ -20,13 +28,8 @@ import java.util.Map;
 @Setter
 public abstract class Generator {
 
-    /// A list of all functions in the program.
-    @Setter
-    protected static List<Function> functions;
-    /// A map storing function addresses by their names.
-    protected static final Map<String, Integer> functionAddresses = new HashMap<>();
-    /// A list of generated instructions.
-    private static List<InstructionInfo> instructions = new ArrayList<>();
+    /// State of the generation (functions, generated instructions, ...) of the current thread.
+    private static final ThreadLocal<GenerationState> state = ThreadLocal.withInitial(GenerationState::new);
 
     /// Abstract method to generate PL/0 instructions. Each subclass of `Generator` must implement
     /// this method to produce the relevant instructions (such as function calls, expressions, etc.).
@@ -38,7 +41,261 @@ public abstract class Generator {
     /// @param level the level of the instruction (scope level)
     /// @param address the address associated with the instruction
     protected static void addInstruction(Instruction instruction, int level, int address) {
-        instructions.add(new InstructionInfo(instruction, level, address));
+        GenerationState current = state.get();
+
+        current.instructions.add(new InstructionInfo(instruction, level, address));
+        current.sourceMap.record(current.currentPosition, current.currentFunction);
+    }
+
+    /// Returns the generated instructions.
+    public static List<InstructionInfo> getInstructions() {
+        return state.get().instructions;
+    }
+
+    /// Returns the side table with the origin of the generated instructions.
+    public static SourceMap getSourceMap() {
+        return state.get().sourceMap;
+    }
+
+    /// Sets the functions of the program so that they can be called (builds their registry).
+    ///
+    /// @param functions the functions of the program
+    public static void setFunctions(List<Function> functions) {
+        state.get().functionRegistry = new FunctionRegistry(functions);
+    }
+
+    /// Selects the instruction set the following instructions are generated for.
+    ///
+    /// @param instructionSet the instruction set
+    protected static void selectInstructionSet(InstructionSet instructionSet) {
+        state.get().instructionSet = instructionSet;
+    }
+
+    /// Returns whether the instructions are generated for the [InstructionSet#EXTENDED] instruction set.
+    protected static boolean isExtendedInstructionSet() {
+        return state.get().instructionSet == InstructionSet.EXTENDED;
+    }
+
+    /// Sets the range of the values of a variable in the code generated until the range is removed.
+    ///
+    /// @param address the location of the variable resolved by the semantic analysis
+    /// @param range the range of the values (`null` removes the range)
+    protected static void setVariableRange(VariableAddress address, ValueRange range) {
+        if (range == null) {
+            state.get().variableRanges.remove(address);
+        } else {
+            state.get().variableRanges.put(address, range);
+        }
+    }
+
+    /// Returns the range of the values of a variable in the generated code.
+    ///
+    /// @param address the location of the variable resolved by the semantic analysis
+    /// @return the range of the values (`null` if it is not known)
+    protected static ValueRange getVariableRange(VariableAddress address) {
+        return state.get().variableRanges.get(address);
+    }
+
+    /// Records the stack cells allocated by a definition (or released by a scope cleanup if negative).
+    ///
+    /// @param cells the number of the allocated cells
+    protected static void allocateCells(int cells) {
+        state.get().allocatedCells += cells;
+    }
+
+    /// Returns the number of the stack cells allocated by the definitions of the enclosing scopes.
+    protected static int getAllocatedCells() {
+        return state.get().allocatedCells;
+    }
+
+    /// Starts the generation of a loop, its break and continue statements are collected until the loop is finished.
+    ///
+    /// @param continueCells the number of the allocated stack cells at the test of the next iteration
+    protected static void enterLoop(int continueCells) {
+        GenerationState current = state.get();
+        current.loops.push(new LoopJumps(current.allocatedCells, continueCells));
+    }
+
+    /// Returns the innermost loop being generated (`null` if there is none).
+    protected static LoopJumps getCurrentLoop() {
+        return state.get().loops.peek();
+    }
+
+    /// Finishes the generation of the innermost loop, its break and continue statements jump to the given addresses.
+    ///
+    /// @param continueAddress the address of the test of the next iteration
+    /// @param exitAddress the address of the first instruction after the loop
+    protected static void exitLoop(int continueAddress, int exitAddress) {
+        LoopJumps loop = state.get().loops.pop();
+
+        loop.continueJumps().forEach(index -> modifyInstructionAddress(index, continueAddress));
+        loop.breakJumps().forEach(index -> modifyInstructionAddress(index, exitAddress));
+    }
+
+    /// Returns the registry of the functions of the program.
+    protected static FunctionRegistry getFunctionRegistry() {
+        return state.get().functionRegistry;
+    }
+
+    /// Adds the call of a function, its address is resolved when the function is linked by [#link].
+    ///
+    /// @param level the level of the instruction (the level of the global scope, which is the static link)
+    /// @param function the name of the called function
+    protected static void addFunctionCall(int level, String function) {
+        addInstruction(Instruction.CAL, level, -1);
+        state.get().functionCalls.put(getCurrentInstructionRow(), function);
+    }
+
+    /// Generates a function into a separate relocatable fragment.
+    ///
+    /// The fragment is generated with its own state, so the fragments of the functions can be generated
+    /// in parallel. An error of the generation is kept in the fragment and reported by [#link].
+    ///
+    /// @param functionRegistry the registry of the functions of the program
+    /// @param instructionSet the instruction set the function is generated for
+    /// @param function the name of the generated function
+    /// @param generation the generation of the instructions of the function
+    /// @return the generated fragment
+    protected static CodeFragment generateFragment(FunctionRegistry functionRegistry, InstructionSet instructionSet,
+                                                   String function, Runnable generation) {
+        GenerationState previous = state.get();
+        GenerationState fragment = new GenerationState();
+        fragment.functionRegistry = functionRegistry;
+        fragment.instructionSet = instructionSet;
+        fragment.currentFunction = function;
+        state.set(fragment);
+
+        try {
+            generation.run();
+            return new CodeFragment(function, fragment.instructions, fragment.sourceMap, fragment.functionCalls, null);
+        } catch (RuntimeException exception) {
+            return new CodeFragment(function, List.of(), new SourceMap(), Map.of(), exception);
+        } finally {
+            state.set(previous);
+        }
+    }
+
+    /// Links the fragments of the called functions after the generated instructions.
+    ///
+    /// Only the functions reachable from the generated instructions are linked (in the order of their
+    /// definition), the jumps of the fragments are relocated and all calls are resolved. The errors are
+    /// reported for all functions, even for the ones which are never called.
+    ///
+    /// @param fragments the fragments of all functions of the program (in the order of their definition)
+    /// @throws RuntimeException the error of the first function which could not be generated
+    protected static void link(List<CodeFragment> fragments) {
+        // The first error in the order of the definitions wins, as if the functions were generated one by one
+        for (CodeFragment fragment : fragments) {
+            if (fragment.error() != null) {
+                throw fragment.error();
+            }
+        }
+
+        GenerationState current = state.get();
+        Map<String, CodeFragment> fragmentsByName = new HashMap<>();
+        for (CodeFragment fragment : fragments) {
+            fragmentsByName.putIfAbsent(fragment.function(), fragment);
+        }
+
+        // Functions reachable from the generated instructions
+        Set<String> reachable = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(current.functionCalls.values());
+        while (!pending.isEmpty()) {
+            String function = pending.poll();
+            CodeFragment fragment = fragmentsByName.get(function);
+
+            if (fragment != null && reachable.add(function)) {
+                pending.addAll(fragment.functionCalls().values());
+            }
+        }
+
+        // Addresses of the linked functions
+        FunctionRegistry functionRegistry = current.functionRegistry;
+        List<CodeFragment> linked = new ArrayList<>();
+        int address = current.instructions.size();
+        for (CodeFragment fragment : fragments) {
+            FunctionRegistry.Entry entry = functionRegistry.get(fragment.function());
+
+            if (!reachable.contains(fragment.function()) || entry.getAddress() != FunctionRegistry.UNRESOLVED_ADDRESS) {
+                continue;
+            }
+
+            linked.add(fragment);
+            entry.setAddress(address);
+            address += fragment.instructions().size();
+        }
+
+        current.functionCalls.forEach((index, function) ->
+            current.instructions.get(index).setAddress(functionRegistry.get(function).getAddress())
+        );
+
+        for (CodeFragment fragment : linked) {
+            int offset = functionRegistry.get(fragment.function()).getAddress();
+            List<InstructionInfo> instructions = fragment.instructions();
+
+            for (int i = 0; i < instructions.size(); i++) {
+                InstructionInfo instruction = instructions.get(i);
+                String calledFunction = fragment.functionCalls().get(i);
+
+                if (calledFunction != null) {
+                    instruction.setAddress(functionRegistry.get(calledFunction).getAddress());
+                } else if (isJump(instruction.getInstruction())) {
+                    instruction.setAddress(instruction.getAddress() + offset);
+                }
+
+                current.instructions.add(instruction);
+                current.sourceMap.record(fragment.sourceMap().getPosition(i), fragment.sourceMap().getFunction(i));
+            }
+        }
+
+        current.functionCalls.clear();
+    }
+
+    /// Returns whether the instruction jumps to an instruction address.
+    static boolean isJump(Instruction instruction) {
+        return instruction == Instruction.JMP || instruction == Instruction.JMC || instruction == Instruction.CAL
+               || instruction == Instruction.JCC;
+    }
+
+    /// Sets the source position used for the following instructions.
+    ///
+    /// @param position the source position of the construct being generated
+    /// @return the previous source position (to be restored afterward)
+    protected static SourcePosition setCurrentPosition(SourcePosition position) {
+        GenerationState current = state.get();
+        SourcePosition previous = current.currentPosition;
+        current.currentPosition = position;
+        return previous;
+    }
+
+    /// Sets the function name used for the following instructions.
+    ///
+    /// @param function the name of the function being generated
+    /// @return the previous function name (to be restored afterward)
+    protected static String setCurrentFunction(String function) {
+        GenerationState current = state.get();
+        String previous = current.currentFunction;
+        current.currentFunction = function;
+        return previous;
+    }
+
+    /// Enters an inline routine (e.g. the power), its frame is one more level above the variables.
+    protected static void enterRoutine() {
+        state.get().routineDepth++;
+    }
+
+    /// Exits the inline routine entered by [#enterRoutine].
+    protected static void exitRoutine() {
+        state.get().routineDepth--;
+    }
+
+    /// Returns the level of a variable (or the static link) resolved by the semantic analysis,
+    /// adjusted by the inline routines enclosing the current instruction.
+    ///
+    /// @param level the level resolved by the semantic analysis
+    /// @return the level used in the instruction
+    protected static int resolveLevel(int level) {
+        return level + state.get().routineDepth;
     }
 
     /// Gets the current row (index) in the list of instructions.
@@ -46,7 +303,7 @@ public abstract class Generator {
     ///
     /// @return the current instruction row
     protected static int getCurrentInstructionRow() {
-        return instructions.size() - 1;
+        return getInstructions().size() - 1;
     }
 
     /// Modifies the address of an existing instruction at the given index.
@@ -54,29 +311,29 @@ public abstract class Generator {
     /// @param index the index of the instruction to modify
     /// @param address the new address to set for the instruction
     protected static void modifyInstructionAddress(int index, int address) {
-        instructions.get(index).setAddress(address);
+        getInstructions().get(index).setAddress(address);
     }
 
     /// Writes the generated instructions to the output file.
     /// Each instruction is written in a formatted manner, including the row, instruction type, level, and address.
     ///
     /// @param writer A writer used to output the generated instructions to a file.
-    public static void writeInstructions(BufferedWriter writer) {
-        int row = 0;
-
-        for (InstructionInfo instruction : instructions) {
-            String instructionString = String.format("%-3d %-5s %-3d %d%n",
-                row++,
-                instruction.getInstruction().name(),
-                instruction.getLevel(),
-                instruction.getAddress()
-            );
-
-            try {
-                writer.write(instructionString);
-            } catch (IOException e) {
-                throw new GenerateException("Could not write instruction '" + instructionString + "' to file");
-            }
+    public static void writeInstructions(Writer writer) {
+        try {
+            new InstructionWriter().write(getInstructions(), writer);
+        } catch (IOException e) {
+            throw new GenerateException("Could not write instructions to file: " + e.getMessage());
+        }
+    }
+
+    /// Writes the generated instructions to the output file through its channel.
+    ///
+    /// @param channel A channel of the output file.
+    public static void writeInstructions(WritableByteChannel channel) {
+        try {
+            new InstructionWriter().write(getInstructions(), channel);
+        } catch (IOException e) {
+            throw new GenerateException("Could not write instructions to file: " + e.getMessage());
         }
     }
 
@@ -86,19 +343,12 @@ public abstract class Generator {
     /// @param functionIdentifier the name of the function whose return type is to be fetched
     /// @return the return type of the function
     protected static DataType getFunctionReturnType(String functionIdentifier) {
-        for (Function function : functions) {
-            if (function.name().equals(functionIdentifier)) {
-                return function.returnType();
-            }
-        }
-
-        return DataType.INT;
+        return getFunctionRegistry().getReturnType(functionIdentifier);
     }
 
+    /// Clears the state of the generation of the current thread.
     public static void clear() {
-        functions.clear();
-        functionAddresses.clear();
-        instructions.clear();
+        state.set(new GenerationState());
     }
 
 }
@@ -0,0 +1,349 @@
+package ligma.generator;
+
+import ligma.enums.CompilerPhase;
+import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
+import ligma.trace.Trace;
+
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Optimizes the linked instructions of a program.
+///
+/// 1. The jumps are threaded: a jump to a `JMP` is retargeted to the final destination of the chain of jumps
+///    and a `JMP` to a return is replaced by the return.
+/// 2. The instructions which can never be executed (e.g., the branches ruled out by a constant condition or the code
+///    after an infinite loop) are removed.
+/// 3. The jumps to the next remaining instruction are removed (a `JMC` only drops the condition).
+/// 4. The remaining instructions are moved together and the addresses of all `JMP`, `JMC` and `CAL` instructions
+///    (and the [SourceMap]) are remapped accordingly.
+/// 5. For the [InstructionSet#EXTENDED] instruction set, the common sequences of instructions are fused
+///    into the extended instructions (`ADI`, `INC`, `DEC` and `JCC`) and the instructions are compacted again.
+///
+/// Every step takes a linear time in the number of instructions. The first instruction (the `JMP` to the main
+/// program) is always kept, so the program starts as any PL/0 program.
+public class InstructionOptimizer {
+
+    /// Private constructor to prevent instantiation
+    private InstructionOptimizer() {
+    }
+
+    /// Optimizes the instructions in place.
+    ///
+    /// @param instructions the linked instructions of the program (the execution starts at the first one)
+    /// @param sourceMap the side table of the instructions
+    /// @param instructionSet the instruction set the program is generated for
+    public static void optimize(List<InstructionInfo> instructions, SourceMap sourceMap, InstructionSet instructionSet) {
+        threadJumps(instructions);
+        boolean[] kept = findReachable(instructions);
+        removeJumpsToNext(instructions, kept);
+        int compacted = compact(instructions, sourceMap, kept);
+        int fused = instructionSet == InstructionSet.EXTENDED ? compact(instructions, sourceMap, fuseInstructions(instructions)) : 0;
+        int removed = compacted + fused;
+
+        if (removed > 0) {
+            Trace.event(CompilerPhase.OPTIMIZATION, "Removing unreachable instructions and redundant jumps", () -> removed + " removed");
+        }
+    }
+
+    /// Retargets every jump to a `JMP` to the final destination of the chain of jumps,
+    /// a `JMP` to a return is replaced by the return.
+    ///
+    /// @param instructions the instructions
+    static void threadJumps(List<InstructionInfo> instructions) {
+        int[] destinations = findDestinations(instructions);
+
+        for (InstructionInfo instruction : instructions) {
+            if (!Generator.isJump(instruction.getInstruction()) || !isValidAddress(instructions, instruction.getAddress())) {
+                continue;
+            }
+
+            int destination = destinations[instruction.getAddress()];
+            instruction.setAddress(destination);
+
+            // Jumping to a return is the same as returning right away
+            InstructionInfo target = instructions.get(destination);
+            if (instruction.getInstruction() == Instruction.JMP && isReturn(target)) {
+                instruction.setInstruction(target.getInstruction());
+                instruction.setLevel(target.getLevel());
+                instruction.setAddress(target.getAddress());
+            }
+        }
+    }
+
+    /// Finds the final destination of every instruction, i.e. the first instruction which is not a `JMP`
+    /// reached by following the `JMP` instructions (a `JMP` in a cycle of jumps is its own destination).
+    ///
+    /// @param instructions the instructions
+    /// @return the index of the destination of the instruction at the index
+    private static int[] findDestinations(List<InstructionInfo> instructions) {
+        int size = instructions.size();
+        int[] destinations = new int[size];
+        // 0 - not resolved, 1 - on the current chain, 2 - resolved
+        byte[] states = new byte[size];
+        int[] chain = new int[size];
+
+        for (int start = 0; start < size; start++) {
+            int length = 0;
+            int index = start;
+
+            // Follow the chain until a resolved instruction, an instruction which is not a jump or a cycle
+            while (states[index] == 0 && isUnconditionalJump(instructions, index)) {
+                states[index] = 1;
+                chain[length++] = index;
+                index = instructions.get(index).getAddress();
+            }
+
+            int destination;
+            if (states[index] == 2) {
+                destination = destinations[index];
+            } else if (states[index] == 1) {
+                // The chain ends in a cycle of jumps, the jumps are left as they are
+                destination = -1;
+            } else {
+                destination = index;
+                states[index] = 2;
+                destinations[index] = index;
+            }
+
+            while (length > 0) {
+                int jump = chain[--length];
+                states[jump] = 2;
+                destinations[jump] = destination == -1 ? jump : destination;
+            }
+        }
+
+        return destinations;
+    }
+
+    /// Returns whether the instruction at the index is a `JMP` to a valid address.
+    private static boolean isUnconditionalJump(List<InstructionInfo> instructions, int index) {
+        InstructionInfo instruction = instructions.get(index);
+        return instruction.getInstruction() == Instruction.JMP && isValidAddress(instructions, instruction.getAddress());
+    }
+
+    /// Returns whether the address is an index of an instruction.
+    private static boolean isValidAddress(List<InstructionInfo> instructions, int address) {
+        return address >= 0 && address < instructions.size();
+    }
+
+    /// Returns whether the instruction returns from the current call.
+    private static boolean isReturn(InstructionInfo instruction) {
+        return instruction.getInstruction() == Instruction.RET
+               || instruction.getInstruction() == Instruction.OPR && instruction.getAddress() == 0;
+    }
+
+    /// Marks the instructions reachable from the first instruction.
+    ///
+    /// @param instructions the instructions
+    /// @return whether the instruction at the index can be executed
+    static boolean[] findReachable(List<InstructionInfo> instructions) {
+        int size = instructions.size();
+        boolean[] reachable = new boolean[size];
+        int[] pending = new int[size];
+        int count = 0;
+
+        if (size > 0) {
+            reachable[0] = true;
+            pending[count++] = 0;
+        }
+
+        while (count > 0) {
+            int index = pending[--count];
+            InstructionInfo instruction = instructions.get(index);
+            Instruction type = instruction.getInstruction();
+
+            // A jump continues only at its target, a conditional jump or a call also at the next instruction
+            if (Generator.isJump(type)) {
+                int target = instruction.getAddress();
+                if (target >= 0 && target < size && !reachable[target]) {
+                    reachable[target] = true;
+                    pending[count++] = target;
+                }
+            }
+
+            boolean fallsThrough = type != Instruction.JMP && !isReturn(instruction);
+            int next = index + 1;
+            if (fallsThrough && next < size && !reachable[next]) {
+                reachable[next] = true;
+                pending[count++] = next;
+            }
+        }
+
+        return reachable;
+    }
+
+    /// Removes the jumps to the next kept instruction, a `JMC` to the next instruction is replaced by `INT 0,-1`
+    /// (it only drops the condition).
+    ///
+    /// The instructions are processed from the last one, so a jump over jumps which are removed is removed as well.
+    ///
+    /// @param instructions the instructions
+    /// @param kept whether the instruction at the index is kept (the removed jumps are marked as not kept)
+    static void removeJumpsToNext(List<InstructionInfo> instructions, boolean[] kept) {
+        int size = instructions.size();
+        // Index of the first kept instruction at the index or after it
+        int[] nextKept = new int[size + 1];
+        nextKept[size] = size;
+
+        for (int i = size - 1; i >= 0; i--) {
+            InstructionInfo instruction = instructions.get(i);
+            Instruction type = instruction.getInstruction();
+            boolean jumpsToNext = kept[i] && i > 0 && (type == Instruction.JMP || type == Instruction.JMC)
+                                  && isValidAddress(instructions, instruction.getAddress())
+                                  && nextKept[instruction.getAddress()] == nextKept[i + 1];
+
+            if (jumpsToNext && type == Instruction.JMP) {
+                kept[i] = false;
+            } else if (jumpsToNext) {
+                instruction.setInstruction(Instruction.INT);
+                instruction.setLevel(0);
+                instruction.setAddress(-1);
+            }
+
+            nextKept[i] = kept[i] ? i : nextKept[i + 1];
+        }
+    }
+
+    /// Fuses the sequences of instructions into the extended instructions, the first instruction of a sequence
+    /// is replaced by the fused instruction and the rest is marked as not kept. A sequence is fused only if no jump
+    /// targets its instructions except the first one.
+    ///
+    /// | Sequence                                  | Fused instruction      |
+    /// |-------------------------------------------|------------------------|
+    /// | `LOD L,A` `LIT 0,1` `OPR 0,2` `STO L,A`   | `INC L,A`              |
+    /// | `LOD L,A` `LIT 0,1` `OPR 0,3` `STO L,A`   | `DEC L,A`              |
+    /// | `LIT 0,C` `OPR 0,2` (or `OPR 0,3`)        | `ADI 0,C` (`ADI 0,-C`) |
+    /// | `OPR 0,C` `JMC 0,A` (comparison code `C`) | `JCC C,A`              |
+    ///
+    /// @param instructions the instructions (all of them reachable)
+    /// @return whether the instruction at the index is kept
+    static boolean[] fuseInstructions(List<InstructionInfo> instructions) {
+        int size = instructions.size();
+        boolean[] kept = new boolean[size];
+        boolean[] targets = new boolean[size];
+
+        for (InstructionInfo instruction : instructions) {
+            if (Generator.isJump(instruction.getInstruction()) && isValidAddress(instructions, instruction.getAddress())) {
+                targets[instruction.getAddress()] = true;
+            }
+        }
+
+        int i = 0;
+        while (i < size) {
+            InstructionInfo instruction = instructions.get(i);
+            kept[i] = true;
+
+            int length = 1;
+            if (isFusible(instructions, targets, i, 4) && isIncrement(instructions, i)) {
+                InstructionInfo operation = instructions.get(i + 2);
+                instruction.setInstruction(operation.getAddress() == 2 ? Instruction.INC : Instruction.DEC);
+                length = 4;
+            } else if (isFusible(instructions, targets, i, 2) && isImmediateAddition(instructions, i)) {
+                InstructionInfo operation = instructions.get(i + 1);
+                instruction.setInstruction(Instruction.ADI);
+                instruction.setAddress(operation.getAddress() == 2 ? instruction.getAddress() : -instruction.getAddress());
+                length = 2;
+            } else if (isFusible(instructions, targets, i, 2) && isComparisonBranch(instructions, i)) {
+                InstructionInfo jump = instructions.get(i + 1);
+                instruction.setInstruction(Instruction.JCC);
+                instruction.setLevel(instruction.getAddress());
+                instruction.setAddress(jump.getAddress());
+                length = 2;
+            }
+
+            i += length;
+        }
+
+        return kept;
+    }
+
+    /// Returns whether the sequence of the given length starting at the index exists
+    /// and no jump targets its instructions except the first one.
+    private static boolean isFusible(List<InstructionInfo> instructions, boolean[] targets, int start, int length) {
+        if (start + length > instructions.size()) {
+            return false;
+        }
+
+        for (int i = start + 1; i < start + length; i++) {
+            if (targets[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /// Returns whether the four instructions at the index add `1` to a variable or subtract `1` from it.
+    private static boolean isIncrement(List<InstructionInfo> instructions, int start) {
+        InstructionInfo load = instructions.get(start);
+        InstructionInfo literal = instructions.get(start + 1);
+        InstructionInfo operation = instructions.get(start + 2);
+        InstructionInfo store = instructions.get(start + 3);
+
+        return load.getInstruction() == Instruction.LOD && store.getInstruction() == Instruction.STO
+               && load.getLevel() == store.getLevel() && load.getAddress() == store.getAddress()
+               && literal.getInstruction() == Instruction.LIT && literal.getAddress() == 1
+               && isOperation(operation, 2, 3);
+    }
+
+    /// Returns whether the two instructions at the index add a constant to the stack top or subtract it.
+    private static boolean isImmediateAddition(List<InstructionInfo> instructions, int start) {
+        return instructions.get(start).getInstruction() == Instruction.LIT && isOperation(instructions.get(start + 1), 2, 3);
+    }
+
+    /// Returns whether the two instructions at the index compare the values on the stack top and jump by the result.
+    private static boolean isComparisonBranch(List<InstructionInfo> instructions, int start) {
+        return isOperation(instructions.get(start), 8, 13) && instructions.get(start + 1).getInstruction() == Instruction.JMC;
+    }
+
+    /// Returns whether the instruction is an `opr` with the code in the given range.
+    private static boolean isOperation(InstructionInfo instruction, int minCode, int maxCode) {
+        return instruction.getInstruction() == Instruction.OPR
+               && instruction.getAddress() >= minCode && instruction.getAddress() <= maxCode;
+    }
+
+    /// Removes the instructions which are not kept and remaps the addresses of the jumps.
+    ///
+    /// @param instructions the instructions
+    /// @param sourceMap the side table of the instructions
+    /// @param kept whether the instruction at the index is kept (the targets of the kept jumps must be kept)
+    /// @return the number of removed instructions
+    static int compact(List<InstructionInfo> instructions, SourceMap sourceMap, boolean[] kept) {
+        int size = instructions.size();
+        int[] newIndexes = new int[size];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+            newIndexes[i] = count;
+            if (kept[i]) {
+                count++;
+            }
+        }
+
+        if (count == size) {
+            return 0;
+        }
+
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            if (!kept[i]) {
+                continue;
+            }
+
+            InstructionInfo instruction = instructions.get(i);
+            if (Generator.isJump(instruction.getInstruction())) {
+                instruction.setAddress(newIndexes[instruction.getAddress()]);
+            }
+            instructions.set(index++, instruction);
+        }
+
+        instructions.subList(count, size).clear();
+        sourceMap.retain(kept);
+
+        return size - count;
+    }
+
+}
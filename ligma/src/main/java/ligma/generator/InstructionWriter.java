@@ -0,0 +1,239 @@
+package ligma.generator;
+
+import ligma.enums.Instruction;
+import ligma.parallel.ParallelRunner;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Writes the generated instructions in the text format of the output file.
+///
+/// Every instruction is one line `row instruction level address` with the columns left-aligned to the same
+/// widths as `String.format("%-3d %-5s %-3d %d%n", ...)`. The lines are formatted into a reused byte buffer
+/// (all characters are ASCII) instead of creating the formatter and the strings for every instruction.
+///
+/// The instructions of a large program are split into chunks which are formatted in parallel and written
+/// in their order, so the output does not depend on the number of threads.
+public class InstructionWriter {
+
+    /// Default number of instructions formatted by one task.
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    /// Default number of instructions from which the chunks are formatted in parallel.
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+    /// Size of the buffer the lines are formatted into (and of the direct buffer of a channel).
+    private static final int BUFFER_SIZE = 1 << 16;
+    /// Upper bound of the length of one line (three numbers with a sign, a name and the separators).
+    private static final int MAX_LINE_LENGTH = 64;
+    /// Minimal widths of the columns.
+    private static final int ROW_WIDTH = 3;
+    private static final int NAME_WIDTH = 5;
+    private static final int LEVEL_WIDTH = 3;
+
+    /// Names of the instructions indexed by their ordinal.
+    private static final byte[][] NAMES = Arrays.stream(Instruction.values())
+                                                .map(instruction -> instruction.name().getBytes(StandardCharsets.US_ASCII))
+                                                .toArray(byte[][]::new);
+    /// Line separator (as written by `%n`).
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    /// Number of instructions formatted by one task.
+    private final int chunkSize;
+    /// Number of instructions from which the chunks are formatted in parallel.
+    private final int parallelThreshold;
+
+    /// Creates the writer with the default chunks (formatted in parallel only if there are more threads).
+    public InstructionWriter() {
+        this(DEFAULT_CHUNK_SIZE, ForkJoinPool.getCommonPoolParallelism() > 1 ? DEFAULT_PARALLEL_THRESHOLD : Integer.MAX_VALUE);
+    }
+
+    /// Creates the writer.
+    ///
+    /// @param chunkSize the number of instructions formatted by one task
+    /// @param parallelThreshold the number of instructions from which the chunks are formatted in parallel
+    public InstructionWriter(int chunkSize, int parallelThreshold) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Size of a chunk must be positive, got: " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /// Writes the instructions to the channel (e.g. a `FileChannel` of the output file).
+    ///
+    /// @param instructions the instructions
+    /// @param channel the channel
+    /// @throws IOException if the instructions could not be written
+    public void write(List<InstructionInfo> instructions, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        format(instructions, chunk -> {
+            int offset = 0;
+
+            while (offset < chunk.length()) {
+                int length = Math.min(buffer.remaining(), chunk.length() - offset);
+                buffer.put(chunk.bytes(), offset, length);
+                offset += length;
+
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+            }
+        });
+
+        drain(buffer, channel);
+    }
+
+    /// Writes the instructions to the writer.
+    ///
+    /// @param instructions the instructions
+    /// @param writer the writer
+    /// @throws IOException if the instructions could not be written
+    public void write(List<InstructionInfo> instructions, Writer writer) throws IOException {
+        format(instructions, chunk -> writer.write(new String(chunk.bytes(), 0, chunk.length(), StandardCharsets.US_ASCII)));
+    }
+
+    /// Formats the instructions into chunks (in parallel for a large program) and passes them to the
+    /// consumer in their order.
+    private void format(List<InstructionInfo> instructions, ChunkConsumer consumer) throws IOException {
+        int chunks = (instructions.size() + chunkSize - 1) / chunkSize;
+
+        if (instructions.size() < parallelThreshold || chunks < 2) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            // One buffer is reused, the chunk is consumed before the next one is formatted
+            for (int start = 0; start < instructions.size(); start += chunkSize) {
+                Chunk chunk = formatChunk(instructions, start, buffer);
+                consumer.accept(chunk);
+                buffer = chunk.bytes();
+            }
+
+            return;
+        }
+
+        List<Integer> starts = IntStream.range(0, chunks).mapToObj(chunk -> chunk * chunkSize).toList();
+        List<Chunk> formatted = ParallelRunner.map(starts, start -> formatChunk(instructions, start, new byte[BUFFER_SIZE]));
+
+        for (Chunk chunk : formatted) {
+            consumer.accept(chunk);
+        }
+    }
+
+    /// Formats the instructions of the chunk starting at the given row.
+    private Chunk formatChunk(List<InstructionInfo> instructions, int start, byte[] buffer) {
+        int end = Math.min(instructions.size(), start + chunkSize);
+        int length = 0;
+
+        for (int row = start; row < end; row++) {
+            if (buffer.length - length < MAX_LINE_LENGTH) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            length = formatLine(row, instructions.get(row), buffer, length);
+        }
+
+        return new Chunk(buffer, length);
+    }
+
+    /// Formats one line into the buffer.
+    ///
+    /// @return the position after the line
+    private static int formatLine(int row, InstructionInfo instruction, byte[] buffer, int position) {
+        position = appendPadded(buffer, position, row, ROW_WIDTH);
+        buffer[position++] = ' ';
+
+        byte[] name = NAMES[instruction.getInstruction().ordinal()];
+        System.arraycopy(name, 0, buffer, position, name.length);
+        position = pad(buffer, position + name.length, NAME_WIDTH - name.length);
+        buffer[position++] = ' ';
+
+        position = appendPadded(buffer, position, instruction.getLevel(), LEVEL_WIDTH);
+        buffer[position++] = ' ';
+
+        position = append(buffer, position, instruction.getAddress());
+
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, position, LINE_SEPARATOR.length);
+        return position + LINE_SEPARATOR.length;
+    }
+
+    /// Appends the number left-aligned in a column of the given width.
+    private static int appendPadded(byte[] buffer, int position, int value, int width) {
+        int end = append(buffer, position, value);
+
+        return pad(buffer, end, width - (end - position));
+    }
+
+    /// Appends the decimal digits of the number (with the minus sign).
+    private static int append(byte[] buffer, int position, int value) {
+        long remaining = value;
+
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+
+        int digits = 1;
+        for (long bound = 10; bound <= remaining; bound *= 10) {
+            digits++;
+        }
+
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+
+        return end;
+    }
+
+    /// Appends the given number of spaces (none if the count is not positive).
+    private static int pad(byte[] buffer, int position, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer[position++] = ' ';
+        }
+
+        return position;
+    }
+
+    /// Writes the content of the buffer to the channel and clears the buffer.
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /// Formatted lines of a chunk of instructions.
+    ///
+    /// @param bytes the buffer with the lines
+    /// @param length the length of the lines in the buffer
+    private record Chunk(byte[] bytes, int length) {
+    }
+
+    /// Consumer of the formatted chunks (writing them to the output).
+    @FunctionalInterface
+    private interface ChunkConsumer {
+
+        /// Consumes the chunk.
+        ///
+        /// @param chunk the formatted chunk
+        /// @throws IOException if the chunk could not be written
+        void accept(Chunk chunk) throws IOException;
+
+    }
+
+}
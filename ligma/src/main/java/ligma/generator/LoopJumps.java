@@ -0,0 +1,33 @@
+package ligma.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Jumps of the break and continue statements of a loop, their addresses are set when the loop is generated.
+///
+/// The statements jump directly out of the nested scopes, so they first release the stack cells allocated
+/// since the point they jump to.
+///
+/// @param exitCells the number of the allocated stack cells after the loop
+/// @param continueCells the number of the allocated stack cells at the test of the next iteration
+/// @param breakJumps the indexes of the `JMP` instructions of the break statements
+/// @param continueJumps the indexes of the `JMP` instructions of the continue statements
+record LoopJumps(
+    int exitCells,
+    int continueCells,
+    List<Integer> breakJumps,
+    List<Integer> continueJumps
+) {
+
+    /// Creates the jumps of a loop without any break or continue statement yet.
+    ///
+    /// @param exitCells the number of the allocated stack cells after the loop
+    /// @param continueCells the number of the allocated stack cells at the test of the next iteration
+    LoopJumps(int exitCells, int continueCells) {
+        this(exitCells, continueCells, new ArrayList<>(), new ArrayList<>());
+    }
+
+}
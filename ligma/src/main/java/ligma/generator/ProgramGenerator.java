@@ -1,12 +1,16 @@
 package ligma.generator;
 
+import ligma.enums.CompilerPhase;
 import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
 import ligma.ir.function.Function;
 import ligma.ir.program.Program;
 import ligma.ir.statement.Statement;
-import ligma.table.SymbolTable;
+import ligma.metrics.CompilerMetrics;
+import ligma.parallel.ParallelRunner;
+import ligma.trace.Trace;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -14,30 +18,37 @@ import java.util.List;
 /// @version 1.0
 ///
 /// Generates a program (PL/0 instructions) based on it's statements and functions.
-@Slf4j
+///
+/// The main program is generated first, the functions are generated in parallel into separate fragments
+/// which are then linked after the main program. Finally, the linked instructions are optimized
+/// by the [InstructionOptimizer].
 @RequiredArgsConstructor
 public class ProgramGenerator extends Generator {
 
     /// The program from which the PL/0 instructions will be  generated
     private final Program program;
+    /// Whether the linked instructions are optimized (the tests compare the optimized program with the generated one)
+    @Setter
+    private boolean optimized = true;
+    /// Instruction set the program is generated for
+    @Setter
+    private InstructionSet instructionSet = InstructionSet.PL0;
 
     /// Initiates the generation process of the program.
     @Override
     public void generate() {
-        log.debug("Generating program");
+        Trace.event(CompilerPhase.GENERATION, "Generating program");
+        selectInstructionSet(instructionSet);
 
         // Jump to the first instruction of the program - always at line 1
         addInstruction(Instruction.JMP, 0, 1);
         // Allocate space for the Activation Record
         addInstruction(Instruction.INT, 0, 3);
 
-        // Enter global scope
-        SymbolTable.enterScope(false);
-
         List<Statement> statements = program.statements();
         List<Function> functions = program.functions();
 
-        // Set functions so that they can be called
+        // Set functions so that they can be called (built once, shared by all generated functions)
         Generator.setFunctions(functions);
 
         // Generate statements
@@ -45,11 +56,22 @@ public class ProgramGenerator extends Generator {
         statementGenerator.setStatements(statements);
         statementGenerator.generate();
 
-        // Exit global scope
-        SymbolTable.exitScope();
-
         // Last instruction indicating end
         addInstruction(Instruction.RET, 0, 0);
+
+        // Generate the functions in parallel (they only read the resolved IR) and link the called ones
+        FunctionRegistry functionRegistry = getFunctionRegistry();
+        List<CodeFragment> fragments = ParallelRunner.map(functions, function ->
+            new FunctionGenerator().generateFragment(functionRegistry, instructionSet, function)
+        );
+        link(fragments);
+
+        // Thread the jumps and remove the code which can never be executed (e.g., the branches of constant conditions)
+        if (optimized) {
+            CompilerMetrics.measure(CompilerPhase.OPTIMIZATION, () ->
+                InstructionOptimizer.optimize(getInstructions(), getSourceMap(), instructionSet)
+            );
+        }
     }
 
 }
@@ -0,0 +1,79 @@
+package ligma.generator;
+
+import ligma.ir.SourcePosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Side table of the generated instructions.
+/// Maps every instruction index to the source position and to the function it was generated from.
+public class SourceMap {
+
+    /// Name used for the instructions of the main program.
+    public static final String MAIN_FUNCTION = "<main>";
+    /// Name used for the instructions of the generated power routine.
+    public static final String POWER_FUNCTION = "<power>";
+
+    /// Source positions of the instructions (indexed by the instruction index).
+    private final List<SourcePosition> positions = new ArrayList<>();
+    /// Function names of the instructions (indexed by the instruction index).
+    private final List<String> functions = new ArrayList<>();
+
+    /// Records the origin of the next instruction.
+    ///
+    /// @param position the source position of the instruction
+    /// @param function the name of the function the instruction belongs to
+    public void record(SourcePosition position, String function) {
+        positions.add(position);
+        functions.add(function);
+    }
+
+    /// Returns the source position of the instruction at the given index.
+    ///
+    /// @param index the index of the instruction
+    /// @return the source position of the instruction
+    public SourcePosition getPosition(int index) {
+        return positions.get(index);
+    }
+
+    /// Returns the name of the function the instruction at the given index belongs to.
+    ///
+    /// @param index the index of the instruction
+    /// @return the name of the function
+    public String getFunction(int index) {
+        return functions.get(index);
+    }
+
+    /// Returns the number of recorded instructions.
+    public int size() {
+        return positions.size();
+    }
+
+    /// Keeps only the given instructions, the following instructions are moved to the freed indexes.
+    ///
+    /// @param kept whether the instruction at the index is kept
+    public void retain(boolean[] kept) {
+        int size = 0;
+
+        for (int i = 0; i < positions.size(); i++) {
+            if (kept[i]) {
+                positions.set(size, positions.get(i));
+                functions.set(size, functions.get(i));
+                size++;
+            }
+        }
+
+        positions.subList(size, positions.size()).clear();
+        functions.subList(size, functions.size()).clear();
+    }
+
+    /// Removes all recorded instructions.
+    public void clear() {
+        positions.clear();
+        functions.clear();
+    }
+
+}
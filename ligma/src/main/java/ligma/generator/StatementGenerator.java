@@ -1,12 +1,22 @@
 package ligma.generator;
 
+import ligma.enums.CompilerPhase;
 import ligma.enums.DataType;
 import ligma.enums.Instruction;
 import ligma.exception.GenerateException;
+import ligma.ir.SourcePosition;
+import ligma.ir.VariableAddress;
+import ligma.ir.expression.ArrayAccess;
+import ligma.ir.expression.ConstantEvaluator;
 import ligma.ir.expression.Expression;
+import ligma.ir.expression.Identifier;
 import ligma.ir.function.Callable;
+import ligma.ir.statement.ArrayAssignment;
+import ligma.ir.statement.ArrayDefinition;
 import ligma.ir.statement.Assignment;
+import ligma.ir.statement.BreakStatement;
 import ligma.ir.statement.ConstantDefinition;
+import ligma.ir.statement.ContinueStatement;
 import ligma.ir.statement.DoWhileLoop;
 import ligma.ir.statement.ForLoop;
 import ligma.ir.statement.FunctionCall;
@@ -15,11 +25,8 @@ import ligma.ir.statement.RepeatUntilLoop;
 import ligma.ir.statement.Statement;
 import ligma.ir.statement.VariableDefinition;
 import ligma.ir.statement.WhileLoop;
-import ligma.table.Descriptor;
-import ligma.table.SymbolTable;
-import ligma.table.VariableDescriptor;
+import ligma.trace.Trace;
 import lombok.Setter;
-import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 
@@ -27,14 +34,25 @@ import java.util.List;
 /// @version 1.0
 ///
 /// Generates statement PL/0 instructions, including variable definitions, assignments, loops, etc.
-@Slf4j
+///
+/// A condition known at compile time (see [ConstantEvaluator]) is not evaluated, the branch it rules out is still
+/// generated (so its statements are checked), but it is jumped over and removed as unreachable code
+/// by the [InstructionOptimizer].
+///
+/// The arrays are generated only for the [ligma.enums.InstructionSet#EXTENDED] instruction set. The loop variable
+/// of a for loop with a constant range which is not assigned in the body is known to be in the range, so the
+/// accesses to the arrays indexed by it are not checked at runtime (see [ExpressionGenerator#generateIndex]).
+///
+/// The break and continue statements are direct jumps out of the nested scopes. The generator counts the stack
+/// cells allocated by the definitions of the enclosing scopes, so a jump first releases the cells allocated since
+/// the point it jumps to (`INT 0,-n`, the loop variable is released too when a for loop is left).
 @Setter
 public class StatementGenerator extends Generator {
 
     /// Expression generator used to evaluate expressions in statements.
-    private static final ExpressionGenerator expressionGenerator = new ExpressionGenerator();
+    private static final ThreadLocal<ExpressionGenerator> expressionGenerator = ThreadLocal.withInitial(ExpressionGenerator::new);
     /// Function generator used to handle function calls.
-    private static final FunctionGenerator functionGenerator = new FunctionGenerator();
+    private static final ThreadLocal<FunctionGenerator> functionGenerator = ThreadLocal.withInitial(FunctionGenerator::new);
 
     /// List of statements to be generated.
     private List<Statement> statements;
@@ -44,18 +62,26 @@ public class StatementGenerator extends Generator {
     public void generate() {
         // Generate statements
         for (Statement statement : statements) {
+            SourcePosition previousPosition = setCurrentPosition(statement.getPosition());
+
             switch (statement) {
                 case VariableDefinition varDef -> generateVariableDefinition(varDef);
                 case ConstantDefinition constDef -> generateConstantDefinition(constDef);
+                case ArrayDefinition arrayDef -> generateArrayDefinition(arrayDef);
                 case Assignment assignment -> generateAssignment(assignment);
+                case ArrayAssignment arrayAssignment -> generateArrayAssignment(arrayAssignment);
                 case IfStatement ifStatement -> generateIfStatement(ifStatement);
                 case ForLoop forLoop -> generateForLoop(forLoop);
                 case WhileLoop whileLoop -> generateWhile(whileLoop);
                 case DoWhileLoop doWhileLoop -> generateDoWhile(doWhileLoop);
                 case RepeatUntilLoop repeatUntilLoop -> generateRepeatUntil(repeatUntilLoop);
+                case BreakStatement ignored -> generateBreak();
+                case ContinueStatement ignored -> generateContinue();
                 case FunctionCall functionCall -> generateFunctionCall(functionCall);
                 default -> {}
             }
+
+            setCurrentPosition(previousPosition);
         }
     }
 
@@ -63,25 +89,17 @@ public class StatementGenerator extends Generator {
     ///
     /// @param varDef The variable definition to process.
     private void generateVariableDefinition(VariableDefinition varDef) {
-        log.debug("Generating variable definition");
-        String identifier = varDef.getIdentifier();
+        Trace.event(CompilerPhase.GENERATION, "Generating variable definition");
         Expression expression = varDef.getExpression();
-        DataType dataType = varDef.getType();
-
-        Descriptor descriptor = VariableDescriptor.builder()
-                                                  .name(identifier)
-                                                  .type(dataType)
-                                                  .isConstant(false)
-                                                  .build();
-
-        SymbolTable.add(identifier, descriptor);
+        VariableAddress address = varDef.getAddress();
 
         // Allocate space for the variable
         addInstruction(Instruction.INT, 0, 1);
+        allocateCells(1);
 
         // Put the result of the expression on the top of the stack
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
 
         // If its a function -> set data type to a function return type
         if (expression instanceof Callable callable) {
@@ -90,34 +108,26 @@ public class StatementGenerator extends Generator {
         }
 
         // Check data types (needed because of function return types)
-        validateAssignmentType(descriptor, expression);
+        validateAssignmentType(varDef.getType(), varDef.getIdentifier(), expression);
 
         // Save the result of the expression to the allocated space
-        addInstruction(Instruction.STO, SymbolTable.getLevel(identifier), descriptor.getAddres());
+        addInstruction(Instruction.STO, resolveLevel(address.level()), address.address());
     }
 
     /// Generates PL/0 instructions for a constant definition.
     ///
     /// @param constDef The constant definition to process.
     private void generateConstantDefinition(ConstantDefinition constDef) {
-        log.debug("Generating constant definition");
-        String identifier = constDef.getIdentifier();
+        Trace.event(CompilerPhase.GENERATION, "Generating constant definition");
         Expression expression = constDef.getExpression();
 
-        Descriptor descriptor = VariableDescriptor.builder()
-                                                  .name(identifier)
-                                                  .type(constDef.getType())
-                                                  .isConstant(false)
-                                                  .build();
-
-        SymbolTable.add(identifier, descriptor);
-
         // Allocate space for the variable
         addInstruction(Instruction.INT, 0, 1);
+        allocateCells(1);
 
         // Put the result of the expression on the top of the stack
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
 
         // If its a function -> set data type to a function return type
         if (expression instanceof Callable callable) {
@@ -126,28 +136,46 @@ public class StatementGenerator extends Generator {
         }
 
         // Check data types (needed because of function return types)
-        validateAssignmentType(descriptor, expression);
+        validateAssignmentType(constDef.getType(), constDef.getIdentifier(), expression);
 
         // Save the result of the expression to the allocated space
-        addInstruction(Instruction.STO, 0, descriptor.getAddres());
+        addInstruction(Instruction.STO, 0, constDef.getAddress().address());
+    }
+
+    /// Generates the instructions for an array definition (all elements are set to `0`).
+    ///
+    /// @param arrayDef The array definition to process.
+    /// @throws GenerateException if the instructions are generated for PL/0 (it has no indirect addressing).
+    private void generateArrayDefinition(ArrayDefinition arrayDef) {
+        Trace.event(CompilerPhase.GENERATION, "Generating array definition");
+
+        if (!isExtendedInstructionSet()) {
+            throw new GenerateException(
+                "Array '" + arrayDef.getIdentifier() + "' needs the extended instruction set (--extended-isa)," +
+                " PL/0 cannot access its elements by an index");
+        }
+
+        // Allocate the elements
+        addInstruction(Instruction.ALC, 0, arrayDef.getLength());
+        allocateCells(arrayDef.getLength());
     }
 
     /// Generates PL/0 instructions for an assignment.
     ///
     /// @param assignment The assignment to process.
     private void generateAssignment(Assignment assignment) {
-        log.debug("Generating assignment");
+        Trace.event(CompilerPhase.GENERATION, "Generating assignment");
 
         // Evaluate expression
         Expression expression = assignment.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
 
-        List<String> allIdentifiers = assignment.getAllIdentifiers();
+        List<Identifier> targets = assignment.getTargets();
 
-        for (int i = 0; i < allIdentifiers.size(); i++) {
-            String identifier = allIdentifiers.get(i);
-            Descriptor descriptor = SymbolTable.lookup(identifier);
+        for (int i = 0; i < targets.size(); i++) {
+            Identifier target = targets.get(i);
+            VariableAddress address = target.getAddress();
 
             // If its a function -> set data type to a function return type
             if (expression instanceof Callable callable) {
@@ -156,160 +184,242 @@ public class StatementGenerator extends Generator {
             }
 
             // Check data types (needed because of function return types)
-            validateAssignmentType(descriptor, expression);
+            validateAssignmentType(target.getType(), target.getName(), expression);
+
+            boolean last = i == targets.size() - 1;
+
+            // Keep a copy of the value for the next target
+            if (!last && isExtendedInstructionSet()) {
+                addInstruction(Instruction.DUP, 0, 0);
+            }
 
             // Store the value of the expression to the given identifier
-            addInstruction(Instruction.STO, SymbolTable.getLevel(identifier), descriptor.getAddres());
+            addInstruction(Instruction.STO, resolveLevel(address.level()), address.address());
 
             // Return the expression value on the top of the stack
-            if (i != allIdentifiers.size() - 1) {
+            if (!last && !isExtendedInstructionSet()) {
                 addInstruction(Instruction.INT, 0, 1);
             }
         }
     }
 
+    /// Generates the instructions for an assignment to an element of an array.
+    ///
+    /// @param arrayAssignment The assignment to process.
+    private void generateArrayAssignment(ArrayAssignment arrayAssignment) {
+        Trace.event(CompilerPhase.GENERATION, "Generating array assignment");
+
+        ArrayAccess target = arrayAssignment.getTarget();
+        VariableAddress address = target.getAddress();
+        Integer index = ExpressionGenerator.findConstantIndex(target);
+
+        // The index is below the value
+        if (index == null) {
+            expressionGenerator.get().generateIndex(target);
+        }
+
+        // Evaluate expression
+        Expression expression = arrayAssignment.getExpression();
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
+
+        // If its a function -> set data type to a function return type
+        if (expression instanceof Callable callable) {
+            DataType functionReturnType = getFunctionReturnType(callable.getIdentifier());
+            expression.setType(functionReturnType);
+        }
+
+        // Check data types (needed because of function return types)
+        validateAssignmentType(target.getType(), target.getName(), expression);
+
+        // Store the value to the element (directly if the element is known at compile time)
+        if (index != null) {
+            addInstruction(Instruction.STO, resolveLevel(address.level()), address.address() + index);
+        } else {
+            addInstruction(Instruction.STX, resolveLevel(address.level()), address.address());
+        }
+    }
+
     /// Generates PL/0 instructions for an if statement.
     ///
     /// @param ifStatement The if statement to process.
     private void generateIfStatement(IfStatement ifStatement) {
-        log.debug("Generating if statement");
-
-        SymbolTable.enterScope(false);
+        Trace.event(CompilerPhase.GENERATION, "Generating if statement");
 
         // Evaluate the condition of the 'if' statement
         Expression expression = ifStatement.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
-
-        // Conditional jump - later we can modify the '-1' to the correct address
-        addInstruction(Instruction.JMC, 0, -1);
-
-        int beforeIfRow = getCurrentInstructionRow();
+        Integer condition = ConstantEvaluator.evaluate(expression);
+        int beforeIfRow = -1;
+
+        if (condition == null) {
+            expressionGenerator.get().setExpression(expression);
+            expressionGenerator.get().generate();
+
+            // Conditional jump - later we can modify the '-1' to the correct address
+            addInstruction(Instruction.JMC, 0, -1);
+            beforeIfRow = getCurrentInstructionRow();
+        } else if (condition == 0) {
+            // The 'if' body is never executed - jump straight to the 'else' body
+            addInstruction(Instruction.JMP, 0, -1);
+            beforeIfRow = getCurrentInstructionRow();
+        }
 
         // Generate all statements in the 'if' body
         List<Statement> ifStatements = ifStatement.getIfStatements();
         setStatements(ifStatements);
         generate();
 
+        // Clear the scope variables (before leaving the 'if' body)
+        addScopeCleanup(ifStatement.getIfScopeSize());
+
         // Jump over the 'else' body
         // Later we can modify the '-1' to the correct address
         addInstruction(Instruction.JMP, 0, -1);
 
-        int afterIfRow = getCurrentInstructionRow();
-
         int beforeElseRow = getCurrentInstructionRow();
 
-        // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
-
-        SymbolTable.exitScope();
-
         // Set the address of JMC to the first instruction of the 'else'
-        modifyInstructionAddress(beforeIfRow, afterIfRow + 1);
-
-        SymbolTable.enterScope(false);
+        if (beforeIfRow != -1) {
+            modifyInstructionAddress(beforeIfRow, beforeElseRow + 1);
+        }
 
         // Generate all statements in the 'if' body
         List<Statement> elseStatements = ifStatement.getElseStatements();
         setStatements(elseStatements);
         generate();
 
+        // Clear the scope variables
+        addScopeCleanup(ifStatement.getElseScopeSize());
+
         int afterElseRow = getCurrentInstructionRow();
 
+        // Set the address of JMP to the first instruction after the 'else'
         modifyInstructionAddress(beforeElseRow, afterElseRow + 1);
-
-        // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
-
-        SymbolTable.exitScope();
     }
 
     /// Generates PL/0 instructions for a for loop.
     ///
+    /// The loop is rotated: the range is tested once before the loop and then at the bottom of every iteration,
+    /// so the iteration does not need the jump back to the top.
+    ///
     /// @param forLoop The for loop to process.
     private void generateForLoop(ForLoop forLoop) {
-        log.debug("Generating for loop");
-
-        SymbolTable.enterScope(false);
+        Trace.event(CompilerPhase.GENERATION, "Generating for loop");
 
-        String identifier = forLoop.getIdentifier();
-        Descriptor descriptor = VariableDescriptor.builder()
-                                                  .name(identifier)
-                                                  .type(DataType.INT)
-                                                  .isConstant(false)
-                                                  .build();
+        VariableAddress address = forLoop.getAddress();
+        int level = resolveLevel(address.level());
 
-        SymbolTable.add(identifier, descriptor);
+        // The break statements release the loop variable too
+        enterLoop(getAllocatedCells() + 1);
 
         addInstruction(Instruction.INT, 0, 1);
+        allocateCells(1);
 
         // Evaluate the variable definition in the 'for' header
         Expression expression = forLoop.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
 
-        addInstruction(Instruction.STO, SymbolTable.getLevel(identifier), descriptor.getAddres());
+        addInstruction(Instruction.STO, level, address.address());
 
-        int startIndex = getCurrentInstructionRow();
-
-        addInstruction(Instruction.LOD, SymbolTable.getLevel(identifier), descriptor.getAddres());
-
-        // Evaluate the assigment int the 'for' header
+        // Compare '<' - jump over the 'for' loop if the range is empty
         Expression toExpression = forLoop.getToExpression();
-        expressionGenerator.setExpression(toExpression);
-        expressionGenerator.generate();
+        Integer from = ConstantEvaluator.evaluate(expression);
+        Integer to = ConstantEvaluator.evaluate(toExpression);
+        int guardIndex = -1;
+
+        if (from == null || to == null) {
+            addInstruction(Instruction.LOD, level, address.address());
+            expressionGenerator.get().setExpression(toExpression);
+            expressionGenerator.get().generate();
+            addInstruction(Instruction.OPR, 0, 10);
+            addInstruction(Instruction.JMC, 0, -1);
+            guardIndex = getCurrentInstructionRow();
+        } else if (from >= to) {
+            // The range is known to be empty
+            addInstruction(Instruction.JMP, 0, -1);
+            guardIndex = getCurrentInstructionRow();
+        }
 
-        // Compare '<'
-        addInstruction(Instruction.OPR, 0, 10);
+        int bodyIndex = getCurrentInstructionRow();
 
-        // Jump over the 'for' body
-        addInstruction(Instruction.JMC, 0, -1);
-
-        int beforeForBody = getCurrentInstructionRow();
+        // The loop variable stays in the constant range unless the body assigns it
+        List<Statement> forStatements = forLoop.getStatements();
+        boolean isRangeKnown = from != null && to != null && from < to && !isAssigned(forStatements, address);
+        if (isRangeKnown) {
+            setVariableRange(address, new ValueRange(from, to - 1L));
+        }
 
         // Generate 'for' statements
-        List<Statement> forStatements = forLoop.getStatements();
         setStatements(forStatements);
         generate();
 
-        // Default increment by 1
-        addInstruction(Instruction.LOD, SymbolTable.getLevel(identifier), descriptor.getAddres());
-        addInstruction(Instruction.LIT, 0, 1);
-        addInstruction(Instruction.OPR, 0, 2);
-        addInstruction(Instruction.STO, SymbolTable.getLevel(identifier), descriptor.getAddres());
+        if (isRangeKnown) {
+            setVariableRange(address, null);
+        }
+
+        // Clear the variables of the body (the loop variable is the first variable of the scope)
+        addScopeCleanup(forLoop.getScopeSize() - 1);
+
+        int continueAddress = getCurrentInstructionRow() + 1;
 
-        addInstruction(Instruction.JMP, 0, startIndex + 1);
+        // Default increment by 1
+        if (isExtendedInstructionSet()) {
+            addInstruction(Instruction.INC, level, address.address());
+        } else {
+            addInstruction(Instruction.LOD, level, address.address());
+            addInstruction(Instruction.LIT, 0, 1);
+            addInstruction(Instruction.OPR, 0, 2);
+            addInstruction(Instruction.STO, level, address.address());
+        }
 
-        int afterForBody = getCurrentInstructionRow();
+        // Compare '>=' - jump back to the 'for' body while the range is not finished
+        addInstruction(Instruction.LOD, level, address.address());
+        expressionGenerator.get().setExpression(toExpression);
+        expressionGenerator.get().generate();
+        addInstruction(Instruction.OPR, 0, 11);
+        addInstruction(Instruction.JMC, 0, bodyIndex + 1);
 
-        modifyInstructionAddress(beforeForBody, afterForBody + 1);
+        if (guardIndex != -1) {
+            modifyInstructionAddress(guardIndex, getCurrentInstructionRow() + 1);
+        }
 
-        // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
+        // Clear the loop variable
+        addScopeCleanup(1);
 
-        SymbolTable.exitScope();
+        exitLoop(continueAddress, getCurrentInstructionRow() + 1);
     }
 
     /// Generates PL/0 instructions for a while loop.
     ///
+    /// The loop is rotated: the condition is tested once before the loop and then at the bottom of every iteration,
+    /// so the iteration does not need the jump back to the top.
+    ///
     /// @param whileLoop The while loop to process.
     private void generateWhile(WhileLoop whileLoop) {
-        log.debug("Generating while loop");
-
-        SymbolTable.enterScope(false);
-
-        int beforeCondition = getCurrentInstructionRow();
+        Trace.event(CompilerPhase.GENERATION, "Generating while loop");
 
         // Evaluate the condition of the 'while' loop
         Expression expression = whileLoop.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
-
-        // Jump over the 'while' body
-        // Conditional jump - later we can modify the '-1' to the correct address
-        addInstruction(Instruction.JMC, 0, -1);
+        Integer condition = ConstantEvaluator.evaluate(expression);
+        int guardIndex = -1;
+
+        if (condition == null) {
+            expressionGenerator.get().setExpression(expression);
+            expressionGenerator.get().generate();
+
+            // Jump over the 'while' loop
+            // Conditional jump - later we can modify the '-1' to the correct address
+            addInstruction(Instruction.JMC, 0, -1);
+            guardIndex = getCurrentInstructionRow();
+        } else if (condition == 0) {
+            // The 'while' body is never executed
+            addInstruction(Instruction.JMP, 0, -1);
+            guardIndex = getCurrentInstructionRow();
+        }
 
-        int jmcIndex = getCurrentInstructionRow();
+        int bodyIndex = getCurrentInstructionRow();
+        enterLoop(getAllocatedCells());
 
         // Generate all statements in the 'while' body
         List<Statement> whileStatements = whileLoop.getStatements();
@@ -317,36 +427,59 @@ public class StatementGenerator extends Generator {
         generate();
 
         // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
+        addScopeCleanup(whileLoop.getScopeSize());
 
-        // Jump to the first address in the 'while' body
-        addInstruction(Instruction.JMP, 0, beforeCondition + 1);
+        int continueAddress = getCurrentInstructionRow() + 1;
 
-        // Modify the JMC instruction to jump over the 'while' body
-        modifyInstructionAddress(jmcIndex, getCurrentInstructionRow() + 1);
+        // Jump back to the first instruction of the 'while' body while the condition holds
+        int exitJmcIndex = generateBottomTest(expression, bodyIndex + 1);
 
-        SymbolTable.exitScope();
+        // Modify the JMC instructions to jump over the 'while' loop
+        if (guardIndex != -1) {
+            modifyInstructionAddress(guardIndex, getCurrentInstructionRow() + 1);
+        }
+        if (exitJmcIndex != -1) {
+            modifyInstructionAddress(exitJmcIndex, getCurrentInstructionRow() + 1);
+        }
+
+        exitLoop(continueAddress, getCurrentInstructionRow() + 1);
     }
 
     /// Generates PL/0 instructions for a do-while loop.
     ///
     /// @param doWhileLoop The do-while loop to process.
     private void generateDoWhile(DoWhileLoop doWhileLoop) {
-        log.debug("Generating do while loop");
-
-        SymbolTable.enterScope(false);
+        Trace.event(CompilerPhase.GENERATION, "Generating do while loop");
 
         int doBodyStart = getCurrentInstructionRow();
 
+        // The condition is tested in the scope of the body (it can use the variables of the body)
+        enterLoop(getAllocatedCells() + doWhileLoop.getScopeSize());
+
         // Generate all statements in the 'do' body
         List<Statement> doWhileStatements = doWhileLoop.getStatements();
         setStatements(doWhileStatements);
         generate();
 
+        int continueAddress = getCurrentInstructionRow() + 1;
+
         // Evaluate the condition
         Expression expression = doWhileLoop.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        Integer condition = ConstantEvaluator.evaluate(expression);
+
+        if (condition != null) {
+            // Clear the scope variables and repeat the body if the condition always holds
+            addScopeCleanup(doWhileLoop.getScopeSize());
+            if (condition != 0) {
+                addInstruction(Instruction.JMP, 0, doBodyStart + 1);
+            }
+
+            exitLoop(continueAddress, getCurrentInstructionRow() + 1);
+            return;
+        }
+
+        expressionGenerator.get().setExpression(expression);
+        expressionGenerator.get().generate();
 
         // Jump over the 'do-while' body
         // Conditional jump - later we can modify the '-1' to the correct address
@@ -354,28 +487,27 @@ public class StatementGenerator extends Generator {
 
         int jmcIndex = getCurrentInstructionRow();
 
-        // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
+        // Clear the scope variables (they are cleared again after the loop)
+        addCleanup(doWhileLoop.getScopeSize());
 
         addInstruction(Instruction.JMP, 0, doBodyStart + 1);
 
         modifyInstructionAddress(jmcIndex, getCurrentInstructionRow() + 1);
 
         // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
+        addScopeCleanup(doWhileLoop.getScopeSize());
 
-        SymbolTable.exitScope();
+        exitLoop(continueAddress, getCurrentInstructionRow() + 1);
     }
 
     /// Generates PL/0 instructions for a repeat-until loop.
     ///
     /// @param repeatUntilLoop The repeat-until loop to process.
     private void generateRepeatUntil(RepeatUntilLoop repeatUntilLoop) {
-        log.debug("Generating repeat until loop");
-
-        SymbolTable.enterScope(false);
+        Trace.event(CompilerPhase.GENERATION, "Generating repeat until loop");
 
         int repeatBodyStart = getCurrentInstructionRow();
+        enterLoop(getAllocatedCells());
 
         // Generate all statements in the 'repeat' body
         List<Statement> doWhileStatements = repeatUntilLoop.getStatements();
@@ -383,39 +515,156 @@ public class StatementGenerator extends Generator {
         generate();
 
         // Clear the scope variables
-        addInstruction(Instruction.INT, 0, -SymbolTable.getCurrentScopeSize());
+        addScopeCleanup(repeatUntilLoop.getScopeSize());
+
+        int continueAddress = getCurrentInstructionRow() + 1;
 
         // Evaluate the condition
         Expression expression = repeatUntilLoop.getExpression();
-        expressionGenerator.setExpression(expression);
-        expressionGenerator.generate();
+        Integer condition = ConstantEvaluator.evaluate(expression);
 
-        // Jump to the start of the 'repeat-until' body
-        addInstruction(Instruction.JMC, 0, repeatBodyStart + 1);
+        if (condition == null) {
+            expressionGenerator.get().setExpression(expression);
+            expressionGenerator.get().generate();
 
-        SymbolTable.exitScope();
+            // Jump to the start of the 'repeat-until' body
+            addInstruction(Instruction.JMC, 0, repeatBodyStart + 1);
+        } else if (condition == 0) {
+            // The condition never holds - repeat the body forever
+            addInstruction(Instruction.JMP, 0, repeatBodyStart + 1);
+        }
+
+        exitLoop(continueAddress, getCurrentInstructionRow() + 1);
+    }
+
+    /// Generates the test of a rotated loop at the bottom of its body, the test jumps back to the body while
+    /// the condition holds.
+    ///
+    /// `JMC` jumps when the condition does not hold, so the negated condition is tested when it costs no
+    /// additional instruction. Otherwise, `JMC` leaves the loop and `JMP` jumps back to the body.
+    /// A constant condition is not tested at all.
+    ///
+    /// @param condition The condition of the loop.
+    /// @param bodyAddress The address of the first instruction of the body.
+    /// @return The index of the `JMC` leaving the loop (`-1` if there is no such `JMC`).
+    private int generateBottomTest(Expression condition, int bodyAddress) {
+        Integer value = ConstantEvaluator.evaluate(condition);
+        if (value != null) {
+            if (value != 0) {
+                addInstruction(Instruction.JMP, 0, bodyAddress);
+            }
+            return -1;
+        }
+
+        expressionGenerator.get().setExpression(condition);
+
+        if (ExpressionGenerator.isNegatedForFree(condition)) {
+            expressionGenerator.get().generateNegated();
+            addInstruction(Instruction.JMC, 0, bodyAddress);
+            return -1;
+        }
+
+        expressionGenerator.get().generate();
+        addInstruction(Instruction.JMC, 0, -1);
+        int jmcIndex = getCurrentInstructionRow();
+        addInstruction(Instruction.JMP, 0, bodyAddress);
+
+        return jmcIndex;
+    }
+
+    /// Returns whether the statements (including the nested ones) assign the variable.
+    ///
+    /// @param statements The statements.
+    /// @param address The location of the variable.
+    /// @return whether a statement assigns the variable
+    private static boolean isAssigned(List<Statement> statements, VariableAddress address) {
+        for (Statement statement : statements) {
+            boolean assigned = switch (statement) {
+                case Assignment assignment -> assignment.getTargets().stream().anyMatch(target -> address.equals(target.getAddress()));
+                case IfStatement ifStatement ->
+                    isAssigned(ifStatement.getIfStatements(), address) || isAssigned(ifStatement.getElseStatements(), address);
+                case ForLoop forLoop -> isAssigned(forLoop.getStatements(), address);
+                case WhileLoop whileLoop -> isAssigned(whileLoop.getStatements(), address);
+                case DoWhileLoop doWhileLoop -> isAssigned(doWhileLoop.getStatements(), address);
+                case RepeatUntilLoop repeatUntilLoop -> isAssigned(repeatUntilLoop.getStatements(), address);
+                default -> false;
+            };
+
+            if (assigned) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /// Generates a break statement, a jump after the innermost loop.
+    private void generateBreak() {
+        Trace.event(CompilerPhase.GENERATION, "Generating break statement");
+
+        LoopJumps loop = getCurrentLoop();
+
+        // Clear the variables of the scopes left by the jump
+        addCleanup(getAllocatedCells() - loop.exitCells());
+
+        addInstruction(Instruction.JMP, 0, -1);
+        loop.breakJumps().add(getCurrentInstructionRow());
+    }
+
+    /// Generates a continue statement, a jump to the test of the next iteration of the innermost loop.
+    ///
+    /// The condition of a do-while loop is tested before its scope is cleared, so the jump allocates
+    /// the variables of the body defined after the continue statement instead (they are not initialized).
+    private void generateContinue() {
+        Trace.event(CompilerPhase.GENERATION, "Generating continue statement");
+
+        LoopJumps loop = getCurrentLoop();
+
+        // Clear the variables of the scopes left by the jump
+        addCleanup(getAllocatedCells() - loop.continueCells());
+
+        addInstruction(Instruction.JMP, 0, -1);
+        loop.continueJumps().add(getCurrentInstructionRow());
+    }
+
+    /// Clears the variables of a scope when its generation is finished.
+    ///
+    /// @param scopeSize The number of variables of the scope.
+    private void addScopeCleanup(int scopeSize) {
+        addCleanup(scopeSize);
+        allocateCells(-scopeSize);
+    }
+
+    /// Releases the stack cells (no instruction is needed for no cells, negative number allocates the cells).
+    ///
+    /// @param cells The number of the released cells.
+    private void addCleanup(int cells) {
+        if (cells != 0) {
+            addInstruction(Instruction.INT, 0, -cells);
+        }
     }
 
     /// Generates PL/0 instructions for a function call.
     ///
     /// @param functionCall The function call to process.
     private void generateFunctionCall(FunctionCall functionCall) {
-        functionGenerator.setFunctionCall(functionCall);
-        functionGenerator.generate();
+        functionGenerator.get().setFunctionCall(functionCall);
+        functionGenerator.get().generate();
     }
 
     /// Validates that the assignment is compatible with the data type.
     ///
-    /// @param descriptor The descriptor of the variable to which the value will be assigned.
+    /// @param type The data type of the variable to which the value will be assigned.
+    /// @param name The name of the variable to which the value will be assigned.
     /// @param expression The expression to be assigned.
     /// @throws GenerateException if the data types do not match.
-    private void validateAssignmentType(Descriptor descriptor, Expression expression) {
+    private void validateAssignmentType(DataType type, String name, Expression expression) {
         // Validate that the data types are compatible (needed because of functions)
-        if (descriptor.getType() != expression.getType()) {
+        if (type != expression.getType()) {
             throw new GenerateException(
                 "Cannot assign a value of type " + expression.getType() +
-                " to variable '" + descriptor.getName() +
-                "' because it is of type " + descriptor.getType());
+                " to variable '" + name +
+                "' because it is of type " + type);
         }
     }
 }
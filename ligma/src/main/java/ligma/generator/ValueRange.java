@@ -0,0 +1,31 @@
+package ligma.generator;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Range of the values an expression can have at runtime (known at compile time).
+///
+/// @param min the smallest value
+/// @param max the largest value
+record ValueRange(
+    long min,
+    long max
+) {
+
+    /// Returns the range shifted by the constant.
+    ///
+    /// @param offset the added constant
+    /// @return the shifted range
+    ValueRange shift(long offset) {
+        return new ValueRange(min + offset, max + offset);
+    }
+
+    /// Returns whether all values of the range are valid indexes of an array.
+    ///
+    /// @param length the number of the elements of the array
+    /// @return whether the range is within `0` and `length - 1`
+    boolean isWithin(int length) {
+        return min >= 0 && max < length;
+    }
+
+}
@@ -0,0 +1,27 @@
+package ligma.ir;
+
+import org.antlr.v4.runtime.Token;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents a position in the source code (line and column of the first token of a construct).
+/// @param line The line of the position (starting at 1).
+/// @param column The column of the position (starting at 0).
+public record SourcePosition(
+    int line,
+    int column
+) {
+
+    /// Position used for instructions which do not originate from any source construct.
+    public static final SourcePosition UNKNOWN = new SourcePosition(0, 0);
+
+    /// Creates the position of the given token.
+    ///
+    /// @param token The token (usually `ctx.getStart()`).
+    /// @return The position of the token.
+    public static SourcePosition of(Token token) {
+        return new SourcePosition(token.getLine(), token.getCharPositionInLine());
+    }
+
+}
@@ -0,0 +1,14 @@
+package ligma.ir;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents the resolved location of a variable on the stack (resolved by the semantic analysis).
+/// @param level The level of the variable (the number of named scopes between the use and the definition).
+/// @param address The address of the variable relative to the base of its activation record.
+public record VariableAddress(
+    int level,
+    int address
+) {
+
+}
@@ -0,0 +1,32 @@
+package ligma.ir.expression;
+
+import ligma.enums.DataType;
+import ligma.ir.VariableAddress;
+import lombok.Getter;
+import lombok.Setter;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents an access to an element of an array with the name of the array and the index of the element.
+@Getter
+public class ArrayAccess extends Expression {
+
+    /// The name of the array.
+    private final String name;
+    /// The expression computing the index of the element.
+    private final Expression index;
+    /// The resolved location of the first element of the array.
+    @Setter
+    private VariableAddress address;
+    /// The number of the elements of the array.
+    @Setter
+    private int length;
+
+    public ArrayAccess(String name, Expression index, DataType type) {
+        super(type);
+        this.name = name;
+        this.index = index;
+    }
+
+}
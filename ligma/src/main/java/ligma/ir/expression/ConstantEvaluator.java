@@ -0,0 +1,157 @@
+package ligma.ir.expression;
+
+import ligma.enums.Operator;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Evaluates the expressions whose value is known at compile time.
+///
+/// An expression is constant when it consists of literals and constants with a known value (see
+/// [Identifier#getConstantValue()]). The value is computed exactly as by the generated instructions in the virtual
+/// machine (32-bit integers, booleans as `0` and `1`). A division by zero or a function call is never evaluated.
+///
+/// `&&` and `||` are also constant when one of their operands decides the result (e.g., `DEBUG && x > 0` with
+/// `const boolean DEBUG = false;`), but only if the other operand has no effect, i.e. it calls no function
+/// and it cannot divide by zero.
+public class ConstantEvaluator {
+
+    /// Private constructor to prevent instantiation
+    private ConstantEvaluator() {
+    }
+
+    /// Evaluates the expression.
+    ///
+    /// @param expression the expression
+    /// @return the value of the expression (`null` if it is not known at compile time)
+    public static Integer evaluate(Expression expression) {
+        return switch (expression) {
+            case Literal literal -> literal.getValue();
+            case Identifier identifier -> identifier.getConstantValue();
+            case ParenthesizedExpression parenthesized -> evaluate(parenthesized.getExpression());
+            case UnaryPlusExpression unaryPlus -> evaluate(unaryPlus.getExpression());
+            case UnaryMinusExpression unaryMinus -> {
+                Integer value = evaluate(unaryMinus.getExpression());
+                yield value == null ? null : 0 - value;
+            }
+            case NotExpression not -> {
+                Integer value = evaluate(not.getExpression());
+                yield value == null ? null : toBoolean(1 + value == 1);
+            }
+            case AdditiveExpression additive -> evaluateBinary(additive.getOperator(), additive.getLeft(), additive.getRight());
+            case MultiplicativeExpression multiplicative ->
+                evaluateBinary(multiplicative.getOperator(), multiplicative.getLeft(), multiplicative.getRight());
+            case ComparisonExpression comparison -> evaluateBinary(comparison.getOperator(), comparison.getLeft(), comparison.getRight());
+            case PowerExpression power -> evaluateBinary(power.getOperator(), power.getLeft(), power.getRight());
+            case LogicalExpression logical -> evaluateLogical(logical);
+            default -> null;
+        };
+    }
+
+    /// Returns whether the evaluation of the expression has no effect besides its value
+    /// (it calls no function and it cannot fail by a division by zero).
+    ///
+    /// @param expression the expression
+    /// @return whether the expression can be left out when its value is not needed
+    public static boolean hasNoEffect(Expression expression) {
+        return switch (expression) {
+            case Literal ignored -> true;
+            case Identifier ignored -> true;
+            case ParenthesizedExpression parenthesized -> hasNoEffect(parenthesized.getExpression());
+            case UnaryPlusExpression unaryPlus -> hasNoEffect(unaryPlus.getExpression());
+            case UnaryMinusExpression unaryMinus -> hasNoEffect(unaryMinus.getExpression());
+            case NotExpression not -> hasNoEffect(not.getExpression());
+            case AdditiveExpression additive -> hasNoEffect(additive.getLeft()) && hasNoEffect(additive.getRight());
+            case MultiplicativeExpression multiplicative -> {
+                Integer divisor = evaluate(multiplicative.getRight());
+                boolean division = multiplicative.getOperator() != Operator.MUL;
+
+                yield hasNoEffect(multiplicative.getLeft()) && hasNoEffect(multiplicative.getRight())
+                      && (!division || divisor != null && divisor != 0);
+            }
+            case ComparisonExpression comparison -> hasNoEffect(comparison.getLeft()) && hasNoEffect(comparison.getRight());
+            case PowerExpression power -> hasNoEffect(power.getLeft()) && hasNoEffect(power.getRight());
+            case LogicalExpression logical -> hasNoEffect(logical.getLeft()) && hasNoEffect(logical.getRight());
+            default -> false;
+        };
+    }
+
+    /// Evaluates a logical expression, one operand may decide the result.
+    private static Integer evaluateLogical(LogicalExpression logical) {
+        Integer left = evaluate(logical.getLeft());
+        Integer right = evaluate(logical.getRight());
+
+        if (left != null && right != null) {
+            return switch (logical.getOperator()) {
+                case AND -> toBoolean(left * right == 1);
+                case OR -> toBoolean(left + right >= 1);
+                default -> null;
+            };
+        }
+
+        // 'false && x' and 'true || x' do not depend on 'x'
+        int decisive = switch (logical.getOperator()) {
+            case AND -> 0;
+            case OR -> 1;
+            default -> -1;
+        };
+        if (left != null && left == decisive && hasNoEffect(logical.getRight())) {
+            return decisive;
+        }
+        if (right != null && right == decisive && hasNoEffect(logical.getLeft())) {
+            return decisive;
+        }
+
+        return null;
+    }
+
+    /// Evaluates a binary arithmetic or comparison expression.
+    private static Integer evaluateBinary(Operator operator, Expression leftExpression, Expression rightExpression) {
+        Integer left = evaluate(leftExpression);
+        Integer right = evaluate(rightExpression);
+
+        if (left == null || right == null) {
+            return null;
+        }
+
+        return switch (operator) {
+            case ADD -> left + right;
+            case SUB -> left - right;
+            case MUL -> left * right;
+            case DIV -> right == 0 ? null : left / right;
+            case MOD -> right == 0 ? null : left % right;
+            case POW -> power(left, right);
+            case EQ -> toBoolean(left.intValue() == right.intValue());
+            case NEQ -> toBoolean(left.intValue() != right.intValue());
+            case LT -> toBoolean(left < right);
+            case GTE -> toBoolean(left >= right);
+            case GT -> toBoolean(left > right);
+            case LTE -> toBoolean(left <= right);
+            default -> null;
+        };
+    }
+
+    /// Computes the power as the generated routine does: it multiplies the result by the base and decrements
+    /// the exponent until it reaches zero (a negative exponent wraps around, so it is taken as unsigned).
+    private static int power(int base, int exponent) {
+        long remaining = Integer.toUnsignedLong(exponent);
+        int result = 1;
+        int square = base;
+
+        while (remaining != 0) {
+            if ((remaining & 1) != 0) {
+                result *= square;
+            }
+            square *= square;
+            remaining >>>= 1;
+        }
+
+        return result;
+    }
+
+    /// Returns the value of a boolean in the virtual machine.
+    private static int toBoolean(boolean value) {
+        return value ? 1 : 0;
+    }
+
+}
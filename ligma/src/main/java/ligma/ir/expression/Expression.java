@@ -1,7 +1,7 @@
 package ligma.ir.expression;
 
 import ligma.enums.DataType;
-import lombok.AllArgsConstructor;
+import ligma.ir.SourcePosition;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,10 +11,15 @@ import lombok.Setter;
 /// Represents an abstract class for an expression with a specific data type.
 @Getter
 @Setter
-@AllArgsConstructor
 public abstract class Expression {
 
     /// The data type of the expression.
     private DataType type;
+    /// The position of the expression in the source code.
+    private SourcePosition position = SourcePosition.UNKNOWN;
+
+    protected Expression(DataType type) {
+        this.type = type;
+    }
 
 }
@@ -3,6 +3,7 @@ package ligma.ir.expression;
 import ligma.enums.DataType;
 import ligma.ir.function.Callable;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -17,6 +18,9 @@ public class FunctionCallExpression extends Expression implements Callable {
     private final String identifier;
     /// The list of arguments passed to the function.
     private final List<Expression> arguments;
+    /// The level of the global scope at the call (the static link of the called function).
+    @Setter
+    private int globalLevel;
 
     public FunctionCallExpression(DataType type, String identifier, List<Expression> arguments) {
         super(type);
@@ -1,7 +1,9 @@
 package ligma.ir.expression;
 
 import ligma.enums.DataType;
+import ligma.ir.VariableAddress;
 import lombok.Getter;
+import lombok.Setter;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
@@ -12,6 +14,12 @@ public class Identifier extends Expression {
 
     /// The name of the identifier.
     private final String name;
+    /// The resolved location of the variable.
+    @Setter
+    private VariableAddress address;
+    /// The value of the constant known at compile time (`null` for a variable or a constant computed at runtime).
+    @Setter
+    private Integer constantValue;
 
     public Identifier(String name, DataType type) {
         super(type);
@@ -6,16 +6,29 @@ import lombok.Getter;
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
 ///
-/// Represents a literal expression with a value of generic type `T` and a data type.
+/// Represents a literal expression with a data type.
+///
+/// The value is stored unboxed as it is represented by the PL/0 machine (a boolean is `1` or `0`).
 @Getter
-public class Literal<T> extends Expression {
+public class Literal extends Expression {
 
     /// The value of the literal expression.
-    private final T value;
+    private final int value;
 
-    public Literal(T value, DataType type) {
-        super(type);
+    /// Creates an integer literal.
+    ///
+    /// @param value The value of the literal.
+    public Literal(int value) {
+        super(DataType.INT);
         this.value = value;
     }
 
+    /// Creates a boolean literal.
+    ///
+    /// @param value The value of the literal.
+    public Literal(boolean value) {
+        super(DataType.BOOLEAN);
+        this.value = value ? 1 : 0;
+    }
+
 }
@@ -14,5 +14,9 @@ public interface Callable {
     String getIdentifier();
     /// Returns the list of arguments passed to the callable.
     List<Expression> getArguments();
+    /// Returns the level of the global scope at the call (the static link of the called function).
+    int getGlobalLevel();
+    /// Sets the level of the global scope at the call (resolved by the semantic analysis).
+    void setGlobalLevel(int globalLevel);
 
 }
\ No newline at end of file
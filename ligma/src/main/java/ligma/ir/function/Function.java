@@ -1,6 +1,7 @@
 package ligma.ir.function;
 
 import ligma.enums.DataType;
+import ligma.ir.SourcePosition;
 import ligma.ir.expression.Expression;
 import ligma.ir.statement.Statement;
 
@@ -15,12 +16,14 @@ import java.util.List;
 /// @param parameters The list of parameters for the function.
 /// @param statements The list of statements contained in the function.
 /// @param returnExpression The expression that produces the return value of the function.
+/// @param position The position of the function definition in the source code.
 public record Function(
     String name,
     DataType returnType,
     List<FunctionParameter> parameters,
     List<Statement> statements,
-    Expression returnExpression
+    Expression returnExpression,
+    SourcePosition position
 ) {
 
 }
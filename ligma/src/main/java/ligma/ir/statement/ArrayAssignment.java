@@ -0,0 +1,21 @@
+package ligma.ir.statement;
+
+import ligma.ir.expression.ArrayAccess;
+import ligma.ir.expression.Expression;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents an assignment to an element of an array, including the accessed element and the expression assigned.
+@Getter
+@RequiredArgsConstructor
+public class ArrayAssignment extends Statement {
+
+    /// The element of the array the value is assigned to.
+    private final ArrayAccess target;
+    /// The expression being assigned to the element.
+    private final Expression expression;
+
+}
@@ -0,0 +1,28 @@
+package ligma.ir.statement;
+
+import ligma.enums.DataType;
+import ligma.ir.VariableAddress;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents an array definition statement, including an identifier, the type of the elements and the length.
+/// All elements are initialized to `0` (`false`).
+@Getter
+@RequiredArgsConstructor
+public class ArrayDefinition extends Statement {
+
+    /// The identifier of the array being defined.
+    private final String identifier;
+    /// The data type of the elements.
+    private final DataType type;
+    /// The number of the elements (known at compile time).
+    private final int length;
+    /// The resolved location of the first element (the other elements follow it).
+    @Setter
+    private VariableAddress address;
+
+}
@@ -1,8 +1,10 @@
 package ligma.ir.statement;
 
 import ligma.ir.expression.Expression;
+import ligma.ir.expression.Identifier;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -19,5 +21,8 @@ public class Assignment extends Statement {
     private final List<String> allIdentifiers;
     /// The expression being assigned to the identifiers.
     private final Expression expression;
+    /// The resolved identifiers (in the same order as `allIdentifiers`).
+    @Setter
+    private List<Identifier> targets;
 
 }
@@ -0,0 +1,8 @@
+package ligma.ir.statement;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents a break statement, which leaves the innermost enclosing loop.
+public class BreakStatement extends Statement {
+}
@@ -1,9 +1,11 @@
 package ligma.ir.statement;
 
 import ligma.enums.DataType;
+import ligma.ir.VariableAddress;
 import ligma.ir.expression.Expression;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
@@ -19,5 +21,8 @@ public class ConstantDefinition extends Statement {
     private final DataType type;
     /// The expression assigned to the constant.
     private final Expression expression;
+    /// The resolved location of the constant.
+    @Setter
+    private VariableAddress address;
 
 }
@@ -0,0 +1,9 @@
+package ligma.ir.statement;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Represents a continue statement, which skips the rest of the body of the innermost enclosing loop
+/// and continues with its next iteration (the test of its condition).
+public class ContinueStatement extends Statement {
+}
@@ -3,6 +3,7 @@ package ligma.ir.statement;
 import ligma.ir.expression.Expression;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -18,5 +19,8 @@ public class DoWhileLoop extends Statement {
     private final List<Statement> statements;
     /// The condition expression for the do-while loop.
     private final Expression expression;
+    /// The number of variables defined in the scope of the do-while loop.
+    @Setter
+    private int scopeSize;
 
 }
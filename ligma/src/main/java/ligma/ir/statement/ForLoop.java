@@ -1,8 +1,10 @@
 package ligma.ir.statement;
 
+import ligma.ir.VariableAddress;
 import ligma.ir.expression.Expression;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -22,5 +24,11 @@ public class ForLoop extends Statement {
     private final Expression toExpression;
     /// The list of statements inside the for loop.
     private final List<Statement> statements;
+    /// The resolved location of the loop variable.
+    @Setter
+    private VariableAddress address;
+    /// The number of variables defined in the scope of the loop (including the loop variable).
+    @Setter
+    private int scopeSize;
 
 }
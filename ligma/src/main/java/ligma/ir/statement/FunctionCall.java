@@ -4,6 +4,7 @@ import ligma.ir.expression.Expression;
 import ligma.ir.function.Callable;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -19,5 +20,8 @@ public class FunctionCall extends Statement implements Callable {
     private final String identifier;
     /// The list of arguments passed to the function in the call.
     private final List<Expression> arguments;
+    /// The level of the global scope at the call (the static link of the called function).
+    @Setter
+    private int globalLevel;
 
 }
@@ -3,6 +3,7 @@ package ligma.ir.statement;
 import ligma.ir.expression.Expression;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -20,5 +21,11 @@ public class IfStatement extends Statement {
     private final List<Statement> ifStatements;
     /// The list of statements executed if the condition is false (empty if there is no 'else' branch).
     private final List<Statement> elseStatements;
+    /// The number of variables defined in the 'if' branch.
+    @Setter
+    private int ifScopeSize;
+    /// The number of variables defined in the 'else' branch.
+    @Setter
+    private int elseScopeSize;
 
 }
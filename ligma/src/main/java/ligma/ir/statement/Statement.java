@@ -1,10 +1,19 @@
 package ligma.ir.statement;
 
+import ligma.ir.SourcePosition;
+import lombok.Getter;
+import lombok.Setter;
+
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
 ///
 /// Represents a generic statement in the intermediate representation.
 /// All specific types of statements should extend this class.
+@Getter
+@Setter
 public abstract class Statement {
 
+    /// The position of the statement in the source code.
+    private SourcePosition position = SourcePosition.UNKNOWN;
+
 }
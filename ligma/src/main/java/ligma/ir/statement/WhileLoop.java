@@ -3,6 +3,7 @@ package ligma.ir.statement;
 import ligma.ir.expression.Expression;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -18,5 +19,8 @@ public class WhileLoop extends Statement {
     private final Expression expression;
     /// The list of statements inside the while loop.
     private final List<Statement> statements;
+    /// The number of variables defined in the scope of the while loop.
+    @Setter
+    private int scopeSize;
 
 }
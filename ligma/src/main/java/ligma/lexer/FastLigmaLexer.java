@@ -0,0 +1,343 @@
+package ligma.lexer;
+
+import ligma.exception.LexicalException;
+import ligma.generated.LigmaLexer;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.Token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Hand-written lexer of the Ligma language, a faster alternative to the generated `LigmaLexer`.
+///
+/// The lexer reads the UTF-8 bytes of the source directly, a byte is classified by a table and the tokens
+/// are stored in a [TokenArray] instead of creating a token object for every token. It recognizes the same
+/// tokens as the rules of the grammar (the longest match wins, a keyword wins over an identifier of the same
+/// length) and reports a lexical error with the same message as the [ligma.listener.EnhancedLigmaLexer],
+/// including the line and the column where the ANTLR lexer stops:
+///
+/// - an unexpected character is reported at its own column,
+/// - a lone `&` or `|` is reported one column after it, together with the following character,
+/// - an unterminated block comment is not an error, its `/` and `*` are lexed as the operators.
+///
+/// The tokens are passed to the unchanged `LigmaParser` by the [TokenArraySource].
+@Slf4j
+public class FastLigmaLexer {
+
+    /// Classes of the bytes (0 for a byte which does not start any token).
+    private static final byte WHITESPACE = 1;
+    private static final byte LETTER = 2;
+    private static final byte DIGIT = 3;
+    /// Operator which is a token alone and possibly also followed by `=`.
+    private static final byte OPERATOR = 4;
+    /// Operator which is a token only when it is doubled (`&&` and `||`).
+    private static final byte DOUBLED = 5;
+    /// Slash (the division or the start of a comment).
+    private static final byte SLASH = 6;
+
+    /// Class of every byte.
+    private static final byte[] CLASSES = new byte[256];
+    /// Whether the byte can be a part of an identifier (a letter, a digit or `_`).
+    private static final boolean[] IDENTIFIER_PARTS = new boolean[256];
+    /// Types of the tokens of the operators alone.
+    private static final int[] SINGLE_TYPES = new int[256];
+    /// Types of the tokens of the operators followed by `=` (0 if it is not a token).
+    private static final int[] EQUALS_TYPES = new int[256];
+    /// Types of the tokens of the doubled operators.
+    private static final int[] DOUBLED_TYPES = new int[256];
+    /// Keywords (and the boolean literals) indexed by their first letter.
+    private static final Keyword[][] KEYWORDS = new Keyword[256][];
+
+    static {
+        for (char c : " \t\r\n".toCharArray()) {
+            CLASSES[c] = WHITESPACE;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        CLASSES['_'] = LETTER;
+        for (int c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (int c = 0; c < CLASSES.length; c++) {
+            IDENTIFIER_PARTS[c] = CLASSES[c] == LETTER || CLASSES[c] == DIGIT;
+        }
+        CLASSES['/'] = SLASH;
+
+        addOperator('(', LigmaLexer.LPAREN, 0);
+        addOperator(')', LigmaLexer.RPAREN, 0);
+        addOperator('{', LigmaLexer.LBRACE, 0);
+        addOperator('}', LigmaLexer.RBRACE, 0);
+        addOperator('[', LigmaLexer.LBRACKET, 0);
+        addOperator(']', LigmaLexer.RBRACKET, 0);
+        addOperator(';', LigmaLexer.SEMICOLON, 0);
+        addOperator(',', LigmaLexer.COMMA, 0);
+        addOperator('+', LigmaLexer.ADD, 0);
+        addOperator('-', LigmaLexer.SUB, 0);
+        addOperator('*', LigmaLexer.MUL, 0);
+        addOperator('%', LigmaLexer.MOD, 0);
+        addOperator('^', LigmaLexer.POW, 0);
+        addOperator('=', LigmaLexer.ASSIGN, LigmaLexer.EQ);
+        addOperator('!', LigmaLexer.NOT, LigmaLexer.NEQ);
+        addOperator('>', LigmaLexer.GT, LigmaLexer.GTE);
+        addOperator('<', LigmaLexer.LT, LigmaLexer.LTE);
+
+        CLASSES['&'] = DOUBLED;
+        DOUBLED_TYPES['&'] = LigmaLexer.AND;
+        CLASSES['|'] = DOUBLED;
+        DOUBLED_TYPES['|'] = LigmaLexer.OR;
+
+        addKeyword("const", LigmaLexer.CONST);
+        addKeyword("if", LigmaLexer.IF);
+        addKeyword("else", LigmaLexer.ELSE);
+        addKeyword("for", LigmaLexer.FOR);
+        addKeyword("to", LigmaLexer.TO);
+        addKeyword("while", LigmaLexer.WHILE);
+        addKeyword("do", LigmaLexer.DO);
+        addKeyword("repeat", LigmaLexer.REPEAT);
+        addKeyword("until", LigmaLexer.UNTIL);
+        addKeyword("func", LigmaLexer.FUNCTION);
+        addKeyword("return", LigmaLexer.RETURN);
+        addKeyword("break", LigmaLexer.BREAK);
+        addKeyword("continue", LigmaLexer.CONTINUE);
+        addKeyword("int", LigmaLexer.INT);
+        addKeyword("boolean", LigmaLexer.BOOLEAN);
+        addKeyword("true", LigmaLexer.BOOLEAN_LITERAL);
+        addKeyword("false", LigmaLexer.BOOLEAN_LITERAL);
+    }
+
+    /// Source code in UTF-8.
+    private final byte[] source;
+    /// Produced tokens.
+    private final TokenArray tokens;
+
+    /// Offset of the next byte.
+    private int position;
+    /// Current line (starting from 1).
+    private int line = 1;
+    /// Number of the continuation bytes of the characters before the next byte.
+    private int continuations;
+
+    private FastLigmaLexer(byte[] source) {
+        this.source = source;
+        this.tokens = new TokenArray(source);
+    }
+
+    /// Lexes the whole source code.
+    ///
+    /// @param source the source code in UTF-8
+    /// @return the tokens (the whitespace and the comments are skipped, the last token is the end of the file)
+    /// @throws LexicalException if the source contains a character which does not start any token
+    public static TokenArray tokenize(byte[] source) {
+        return new FastLigmaLexer(source).run();
+    }
+
+    /// Lexes the tokens until the end of the source.
+    private TokenArray run() {
+        while (position < source.length) {
+            int current = source[position] & 0xFF;
+
+            switch (CLASSES[current]) {
+                case WHITESPACE -> skipWhitespace();
+                case LETTER -> lexIdentifier(current);
+                case DIGIT -> emit(LigmaLexer.INTEGER_LITERAL, scanDigits(position + 1) - position);
+                case OPERATOR -> {
+                    if (EQUALS_TYPES[current] != 0 && next() == '=') {
+                        emit(EQUALS_TYPES[current], 2);
+                    } else {
+                        emit(SINGLE_TYPES[current], 1);
+                    }
+                }
+                case DOUBLED -> {
+                    if (next() != current) {
+                        // The ANTLR lexer consumes the first character before it finds out the second one does not match
+                        throw unexpectedCharacter(1);
+                    }
+                    emit(DOUBLED_TYPES[current], 2);
+                }
+                case SLASH -> {
+                    if (next() == '/') {
+                        skipLineComment();
+                    } else if (next() != '*' || !skipBlockComment()) {
+                        emit(LigmaLexer.DIV, 1);
+                    }
+                }
+                default -> throw unexpectedCharacter(0);
+            }
+        }
+
+        tokens.add(Token.EOF, position, 0, line);
+        return tokens;
+    }
+
+    /// Lexes an identifier, a keyword or a boolean literal.
+    private void lexIdentifier(int first) {
+        int length = scanIdentifier(position + 1) - position;
+        int type = LigmaLexer.IDENTIFIER;
+
+        Keyword[] candidates = KEYWORDS[first];
+        if (candidates != null) {
+            for (Keyword keyword : candidates) {
+                if (keyword.matches(source, position, length)) {
+                    type = keyword.type();
+                    break;
+                }
+            }
+        }
+
+        emit(type, length);
+    }
+
+    /// Returns the byte after the current one (-1 at the end of the source).
+    private int next() {
+        return position + 1 < source.length ? source[position + 1] & 0xFF : -1;
+    }
+
+    /// Adds the token of ASCII characters starting at the current position and moves after it.
+    private void emit(int type, int length) {
+        tokens.add(type, position, length, line);
+        position += length;
+    }
+
+    /// Returns the offset of the first byte from the given offset which is not a letter or a digit.
+    private int scanIdentifier(int from) {
+        int end = from;
+
+        while (end < source.length && IDENTIFIER_PARTS[source[end] & 0xFF]) {
+            end++;
+        }
+
+        return end;
+    }
+
+    /// Returns the offset of the first byte from the given offset which is not a digit.
+    private int scanDigits(int from) {
+        int end = from;
+
+        while (end < source.length && source[end] >= '0' && source[end] <= '9') {
+            end++;
+        }
+
+        return end;
+    }
+
+    /// Skips the whitespace.
+    private void skipWhitespace() {
+        while (position < source.length) {
+            byte current = source[position];
+
+            if (current == '\n') {
+                position++;
+                line++;
+                tokens.addLine(position, position - continuations);
+            } else if (current == ' ' || current == '\t' || current == '\r') {
+                position++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /// Skips the comment up to the end of the line (the line break is not part of the comment).
+    private void skipLineComment() {
+        while (position < source.length && source[position] != '\n' && source[position] != '\r') {
+            advance(source[position++]);
+        }
+    }
+
+    /// Skips the block comment.
+    ///
+    /// @return whether the comment is terminated (otherwise nothing is skipped)
+    private boolean skipBlockComment() {
+        int end = position + 2;
+
+        while (end + 1 < source.length && (source[end] != '*' || source[end + 1] != '/')) {
+            end++;
+        }
+        if (end + 1 >= source.length) {
+            return false;
+        }
+
+        while (position < end + 2) {
+            advance(source[position++]);
+        }
+
+        return true;
+    }
+
+    /// Updates the line after the skipped byte (the position is already after it).
+    private void advance(byte value) {
+        if (value == '\n') {
+            line++;
+            tokens.addLine(position, position - continuations);
+        } else if ((value & 0xC0) == 0x80) {
+            continuations++;
+            tokens.markNonAscii();
+        }
+    }
+
+    /// Creates the exception for the character which does not start any token.
+    ///
+    /// @param consumed the number of the (ASCII) characters the ANTLR lexer consumes before it fails
+    /// @return the exception with the message of the [ligma.listener.EnhancedLigmaLexer]
+    private LexicalException unexpectedCharacter(int consumed) {
+        int offending = position + consumed;
+        String errorText = new String(source, position, consumed + characterLength(offending), StandardCharsets.UTF_8);
+
+        String message = "Lexical error at line " + line + ", column " + tokens.getColumn(line, offending) + ": unexpected character '" + errorText + "'";
+        log.error(message);
+
+        return new LexicalException(message);
+    }
+
+    /// Returns the number of the bytes of the character starting at the offset (0 at the end of the source).
+    private int characterLength(int offset) {
+        if (offset >= source.length) {
+            return 0;
+        }
+
+        int lead = source[offset] & 0xFF;
+        int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+
+        return Math.min(length, source.length - offset);
+    }
+
+    /// Adds the operator to the tables.
+    ///
+    /// @param operator the character of the operator
+    /// @param type the type of the token of the operator alone
+    /// @param equalsType the type of the token of the operator followed by `=` (0 if it is not a token)
+    private static void addOperator(char operator, int type, int equalsType) {
+        CLASSES[operator] = OPERATOR;
+        SINGLE_TYPES[operator] = type;
+        EQUALS_TYPES[operator] = equalsType;
+    }
+
+    /// Adds the keyword to the table.
+    private static void addKeyword(String text, int type) {
+        int first = text.charAt(0);
+        Keyword[] candidates = KEYWORDS[first] == null ? new Keyword[0] : KEYWORDS[first];
+
+        Keyword[] extended = Arrays.copyOf(candidates, candidates.length + 1);
+        extended[candidates.length] = new Keyword(text.getBytes(StandardCharsets.US_ASCII), type);
+        KEYWORDS[first] = extended;
+    }
+
+    /// Keyword of the language.
+    ///
+    /// @param text the text of the keyword
+    /// @param type the type of its token
+    private record Keyword(byte[] text, int type) {
+
+        /// Returns whether the identifier at the offset of the source is this keyword.
+        boolean matches(byte[] source, int offset, int length) {
+            return length == text.length && Arrays.equals(source, offset, offset + length, text, 0, length);
+        }
+
+    }
+
+}
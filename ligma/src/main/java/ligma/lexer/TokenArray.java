@@ -0,0 +1,203 @@
+package ligma.lexer;
+
+import ligma.generated.LigmaLexer;
+import org.antlr.v4.runtime.Token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Compact array of the tokens produced by the [FastLigmaLexer].
+///
+/// A token is not an object, it is three ints: the offset of its first byte in the source, its type packed
+/// with its length in bytes and its line. The ints are stored in fixed-size blocks, so the array never copies
+/// the tokens when it grows. The column and the index of the first character of a token are computed from
+/// the starts of the lines (they count the code points like the ANTLR lexer does).
+///
+/// The text of an identifier or a number is read from the source only when it is needed, the other tokens
+/// share the constant texts of their types. The last token is always the end of the file.
+public class TokenArray {
+
+    /// Number of the ints stored for one token.
+    private static final int FIELDS = 3;
+    private static final int START = 0;
+    private static final int TYPE_AND_LENGTH = 1;
+    private static final int LINE = 2;
+
+    /// Number of the bits of the packed type (the rest is the length).
+    private static final int TYPE_BITS = 8;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /// Number of the tokens in one block (a power of two).
+    private static final int BLOCK_BITS = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    /// Initial number of the blocks and of the lines.
+    private static final int INITIAL_CAPACITY = 256;
+
+    /// Texts of the tokens which always have the same text (indexed by the type, `null` for the others).
+    private static final String[] FIXED_TEXTS = new String[LigmaLexer.VOCABULARY.getMaxTokenType() + 1];
+
+    static {
+        for (int type = 0; type < FIXED_TEXTS.length; type++) {
+            String literal = LigmaLexer.VOCABULARY.getLiteralName(type);
+
+            // The literal name is quoted, e.g. 'if'
+            if (literal != null) {
+                FIXED_TEXTS[type] = literal.substring(1, literal.length() - 1);
+            }
+        }
+    }
+
+    /// Source code in UTF-8.
+    private final byte[] source;
+    /// Blocks with the fields of the tokens.
+    private int[][] blocks = new int[INITIAL_CAPACITY][];
+    /// Number of the tokens.
+    private int size;
+
+    /// Offset of the first byte of every line (indexed by the line starting from 0).
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+    /// Index of the first character of every line.
+    private int[] lineCharStarts = new int[INITIAL_CAPACITY];
+    /// Number of the lines.
+    private int lineCount = 1;
+    /// Whether the source contains only ASCII characters (every character is one byte).
+    private boolean ascii = true;
+
+    /// Creates an empty array of the tokens of the source code.
+    ///
+    /// @param source the source code in UTF-8
+    TokenArray(byte[] source) {
+        this.source = source;
+    }
+
+    /// Appends a token.
+    void add(int type, int start, int length, int line) {
+        int block = size >>> BLOCK_BITS;
+
+        if (block == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length * 2);
+        }
+        if (blocks[block] == null) {
+            blocks[block] = new int[BLOCK_SIZE * FIELDS];
+        }
+
+        int[] data = blocks[block];
+        int offset = (size & (BLOCK_SIZE - 1)) * FIELDS;
+        data[offset + START] = start;
+        data[offset + TYPE_AND_LENGTH] = length << TYPE_BITS | type & TYPE_MASK;
+        data[offset + LINE] = line;
+        size++;
+    }
+
+    /// Appends the start of the next line.
+    ///
+    /// @param start the offset of the first byte of the line
+    /// @param charStart the index of the first character of the line
+    void addLine(int start, int charStart) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineCharStarts = Arrays.copyOf(lineCharStarts, lineCount * 2);
+        }
+
+        lineStarts[lineCount] = start;
+        lineCharStarts[lineCount] = charStart;
+        lineCount++;
+    }
+
+    /// Marks that the source contains a character of more bytes.
+    void markNonAscii() {
+        ascii = false;
+    }
+
+    /// Returns the number of the tokens (including the end of the file).
+    public int size() {
+        return size;
+    }
+
+    /// Returns the type of the token (one of the `LigmaLexer` constants or `Token.EOF`).
+    public int getType(int index) {
+        int type = field(index, TYPE_AND_LENGTH) & TYPE_MASK;
+
+        return type == (Token.EOF & TYPE_MASK) ? Token.EOF : type;
+    }
+
+    /// Returns the offset of the first byte of the token in the source.
+    public int getStart(int index) {
+        return field(index, START);
+    }
+
+    /// Returns the length of the token in bytes.
+    public int getLength(int index) {
+        return field(index, TYPE_AND_LENGTH) >>> TYPE_BITS;
+    }
+
+    /// Returns the line of the token (starting from 1).
+    public int getLine(int index) {
+        return field(index, LINE);
+    }
+
+    /// Returns the column of the token (starting from 0).
+    public int getColumn(int index) {
+        return getColumn(getLine(index), getStart(index));
+    }
+
+    /// Returns the index of the first character of the token in the source.
+    public int getCharIndex(int index) {
+        int line = getLine(index);
+
+        return lineCharStarts[line - 1] + getColumn(line, getStart(index));
+    }
+
+    /// Returns the text of the token (`<EOF>` for the end of the file).
+    public String getText(int index) {
+        int type = getType(index);
+
+        if (type == Token.EOF) {
+            return "<EOF>";
+        }
+        if (FIXED_TEXTS[type] != null) {
+            return FIXED_TEXTS[type];
+        }
+        if (type == LigmaLexer.BOOLEAN_LITERAL) {
+            return getLength(index) == 4 ? "true" : "false";
+        }
+
+        // The identifiers and the numbers consist of ASCII characters only
+        return new String(source, getStart(index), getLength(index), StandardCharsets.ISO_8859_1);
+    }
+
+    /// Returns the column of the byte (the number of the characters before it on its line).
+    ///
+    /// @param line the line of the byte (starting from 1)
+    /// @param offset the offset of the byte in the source
+    int getColumn(int line, int offset) {
+        int lineStart = lineStarts[line - 1];
+
+        if (ascii) {
+            return offset - lineStart;
+        }
+
+        // The continuation bytes of the characters are not counted
+        int column = 0;
+        for (int i = lineStart; i < offset; i++) {
+            if ((source[i] & 0xC0) != 0x80) {
+                column++;
+            }
+        }
+
+        return column;
+    }
+
+    /// Returns the field of the token.
+    private int field(int index, int field) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Token index " + index + " out of bounds for size " + size);
+        }
+
+        return blocks[index >>> BLOCK_BITS][(index & (BLOCK_SIZE - 1)) * FIELDS + field];
+    }
+
+}
@@ -0,0 +1,191 @@
+package ligma.lexer;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.WritableToken;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Source of the tokens of a [TokenArray] for the ANTLR token streams (and so for the `LigmaParser`).
+///
+/// A token object is only a view of a token of the array (its index), it is created when the stream reads
+/// the token. It has the same type, text, line, column and character indices as the token of the generated
+/// lexer, but it has no character stream and it cannot be modified (except for its index in the stream).
+/// After the end of the file, the end of the file is returned again.
+public class TokenArraySource implements TokenSource {
+
+    /// The lexed tokens.
+    private final TokenArray tokens;
+    /// Name of the source (e.g. the file name).
+    private final String sourceName;
+
+    /// Factory of the tokens created by the parser (e.g. the missing tokens during the error recovery).
+    private TokenFactory<?> tokenFactory = CommonTokenFactory.DEFAULT;
+    /// Index of the next token.
+    private int next;
+
+    /// Creates the source of the tokens.
+    ///
+    /// @param tokens the lexed tokens
+    public TokenArraySource(TokenArray tokens) {
+        this(tokens, IntStream.UNKNOWN_SOURCE_NAME);
+    }
+
+    /// Creates the source of the tokens.
+    ///
+    /// @param tokens the lexed tokens
+    /// @param sourceName the name of the source
+    public TokenArraySource(TokenArray tokens, String sourceName) {
+        this.tokens = tokens;
+        this.sourceName = sourceName;
+    }
+
+    @Override
+    public Token nextToken() {
+        int index = next;
+        if (next < tokens.size() - 1) {
+            next++;
+        }
+
+        return new ArrayToken(index);
+    }
+
+    @Override
+    public int getLine() {
+        return tokens.getLine(next);
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return tokens.getColumn(next);
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return null;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.tokenFactory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return tokenFactory;
+    }
+
+    /// Token of the array, all its attributes are read from the array.
+    private class ArrayToken implements WritableToken {
+
+        /// Index of the token in the array.
+        private final int index;
+        /// Index of the token in the token stream.
+        private int tokenIndex = -1;
+
+        private ArrayToken(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getText() {
+            return tokens.getText(index);
+        }
+
+        @Override
+        public int getType() {
+            return tokens.getType(index);
+        }
+
+        @Override
+        public int getLine() {
+            return tokens.getLine(index);
+        }
+
+        @Override
+        public int getCharPositionInLine() {
+            return tokens.getColumn(index);
+        }
+
+        @Override
+        public int getChannel() {
+            return DEFAULT_CHANNEL;
+        }
+
+        @Override
+        public int getTokenIndex() {
+            return tokenIndex;
+        }
+
+        @Override
+        public int getStartIndex() {
+            return tokens.getCharIndex(index);
+        }
+
+        @Override
+        public int getStopIndex() {
+            return getStartIndex() + tokens.getLength(index) - 1;
+        }
+
+        @Override
+        public TokenSource getTokenSource() {
+            return TokenArraySource.this;
+        }
+
+        @Override
+        public CharStream getInputStream() {
+            return null;
+        }
+
+        @Override
+        public void setTokenIndex(int index) {
+            this.tokenIndex = index;
+        }
+
+        @Override
+        public void setText(String text) {
+            throw new UnsupportedOperationException("Token of the array cannot be modified");
+        }
+
+        @Override
+        public void setType(int type) {
+            throw new UnsupportedOperationException("Token of the array cannot be modified");
+        }
+
+        @Override
+        public void setLine(int line) {
+            throw new UnsupportedOperationException("Token of the array cannot be modified");
+        }
+
+        @Override
+        public void setCharPositionInLine(int position) {
+            throw new UnsupportedOperationException("Token of the array cannot be modified");
+        }
+
+        @Override
+        public void setChannel(int channel) {
+            throw new UnsupportedOperationException("Token of the array cannot be modified");
+        }
+
+        /// Returns the description of the token in the format of the ANTLR tokens.
+        @Override
+        public String toString() {
+            String text = getText().replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+
+            return "[@" + tokenIndex + "," + getStartIndex() + ":" + getStopIndex() + "='" + text + "',<" + getType()
+                + ">," + getLine() + ":" + getCharPositionInLine() + "]";
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package ligma.listener;
 
+import ligma.cache.DfaSnapshot;
 import ligma.exception.LexicalException;
 import ligma.generated.LigmaLexer;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,8 @@ public class EnhancedLigmaLexer extends LigmaLexer {
 
     public EnhancedLigmaLexer(CharStream input) {
         super(input);
+        // The shared DFA caches are filled from the bundled snapshot before the first token is lexed
+        DfaSnapshot.ensureLoaded();
     }
 
     @Override
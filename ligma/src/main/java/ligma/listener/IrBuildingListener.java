@@ -0,0 +1,525 @@
+package ligma.listener;
+
+import ligma.enums.CompilerPhase;
+import ligma.enums.DataType;
+import ligma.enums.MetricCounter;
+import ligma.enums.Operator;
+import ligma.exception.SemanticException;
+import ligma.generated.LigmaParser;
+import ligma.ir.SourcePosition;
+import ligma.ir.expression.Expression;
+import ligma.ir.expression.FunctionCallExpression;
+import ligma.ir.expression.Literal;
+import ligma.ir.expression.ParenthesizedExpression;
+import ligma.ir.function.Function;
+import ligma.ir.function.FunctionParameter;
+import ligma.ir.statement.Assignment;
+import ligma.ir.statement.DoWhileLoop;
+import ligma.ir.statement.ForLoop;
+import ligma.ir.statement.FunctionCall;
+import ligma.ir.statement.IfStatement;
+import ligma.ir.statement.RepeatUntilLoop;
+import ligma.ir.statement.Statement;
+import ligma.ir.statement.WhileLoop;
+import ligma.metrics.CompilerMetrics;
+import ligma.semantic.SemanticAnalysis;
+import ligma.table.Descriptor;
+import ligma.table.FunctionDescriptor;
+import ligma.table.SymbolTable;
+import ligma.trace.Trace;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Parse listener building the IR of the program while it is parsed.
+///
+/// The listener is registered by [Parser#addParseListener] on a parser which does not build the parse
+/// tree (`setBuildParseTree(false)`), so the contexts of the rules are released as soon as the rules are
+/// parsed. The IR nodes of the finished rules are kept on a value stack until the enclosing rule is
+/// finished, every completed top-level statement and function definition is passed to the consumers.
+///
+/// The semantic checks are done by the [SemanticAnalysis] shared with the visitors in the same order as the
+/// visitors do them (the checks which the visitors do before visiting the rest of a construct are done when the
+/// corresponding token is matched), so the same error is reported for an invalid program.
+public class IrBuildingListener implements ParseTreeListener {
+
+    /// The parser the listener is registered to.
+    private final Parser parser;
+    /// Consumer of the completed top-level statements.
+    private final Consumer<Statement> statementConsumer;
+    /// Consumer of the completed function definitions.
+    private final Consumer<Function> functionConsumer;
+
+    /// IR nodes (and other values) of the finished rules whose enclosing rules are not finished yet.
+    private final List<Object> values = new ArrayList<>();
+    /// Size of the value stack when the currently parsed rules were entered.
+    private final Deque<Integer> marks = new ArrayDeque<>();
+    /// Whether the parsing failed (the remaining events come from the parser unwinding its rules).
+    private boolean failed;
+
+    public IrBuildingListener(Parser parser, Consumer<Statement> statementConsumer, Consumer<Function> functionConsumer) {
+        this.parser = parser;
+        this.statementConsumer = statementConsumer;
+        this.functionConsumer = functionConsumer;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (failed) {
+            return;
+        }
+
+        // The left operand of a binary expression is finished before its context is entered
+        marks.push(isBinaryExpression(ctx) ? values.size() - 1 : values.size());
+
+        switch (ctx.getRuleIndex()) {
+            case LigmaParser.RULE_program -> {
+                Trace.event(CompilerPhase.FRONT_END, "Program (direct)");
+
+                // Start with an empty table (a previous analysis could have failed inside a nested scope)
+                SymbolTable.clear();
+                SymbolTable.enterScope(false);
+            }
+            case LigmaParser.RULE_functionDefinition -> SymbolTable.enterScope(true);
+            case LigmaParser.RULE_ifStatement -> SymbolTable.enterScope(false);
+            case LigmaParser.RULE_forLoop, LigmaParser.RULE_whileLoop, LigmaParser.RULE_doWhileLoop,
+                 LigmaParser.RULE_repeatUntilLoop -> SymbolTable.enterLoopScope();
+            default -> {
+                // Nothing to do before the children
+            }
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        if (failed) {
+            return;
+        }
+
+        try {
+            ParserRuleContext ctx = (ParserRuleContext) node.getParent();
+
+            switch (ctx) {
+                case LigmaParser.VariableDefinitionContext definitionCtx when node.getSymbol().getType() == LigmaParser.ASSIGN ->
+                    SemanticAnalysis.checkNotDefined(SymbolTable.intern(definitionCtx.IDENTIFIER().getText()), getDefinitionLine(definitionCtx));
+                case LigmaParser.IfStatementContext ifCtx when node.getSymbol().getType() == LigmaParser.RPAREN ->
+                    SemanticAnalysis.checkCondition((Expression) peek(0), ifCtx.getStart().getLine());
+                case LigmaParser.IfStatementContext ignored when node.getSymbol().getType() == LigmaParser.ELSE -> {
+                    // The size of the 'if' scope follows the 'if' body
+                    values.add(SymbolTable.getCurrentScopeSize());
+                    SymbolTable.exitScope();
+                    SymbolTable.enterScope(false);
+                }
+                case LigmaParser.WhileLoopContext whileCtx when node.getSymbol().getType() == LigmaParser.RPAREN ->
+                    SemanticAnalysis.checkCondition((Expression) peek(0), whileCtx.getStart().getLine());
+                case LigmaParser.ForLoopContext forCtx when node.getSymbol().getType() == LigmaParser.IDENTIFIER ->
+                    SemanticAnalysis.declareVariable(SymbolTable.intern(forCtx.IDENTIFIER().getText()), DataType.INT);
+                case LigmaParser.ForLoopContext forCtx when node.getSymbol().getType() == LigmaParser.RPAREN ->
+                    SemanticAnalysis.checkForLoopRange((Expression) peek(1), (Expression) peek(0), forCtx.getStart().getLine());
+                default -> {
+                    // Other tokens are read when their rule is finished
+                }
+            }
+        } catch (RuntimeException exception) {
+            failed = true;
+            throw exception;
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        // Syntax errors are thrown by the SyntaxErrorListener
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        if (failed || isParsingFailed()) {
+            // The rule was not finished, its children are not complete
+            failed = true;
+            return;
+        }
+
+        int mark = marks.pop();
+        List<Object> children = new ArrayList<>(values.subList(mark, values.size()));
+        values.subList(mark, values.size()).clear();
+
+        try {
+            exitRule(ctx, children);
+        } catch (RuntimeException exception) {
+            failed = true;
+            throw exception;
+        }
+    }
+
+    /// Builds the IR of a finished rule from the values of its children.
+    ///
+    /// @param ctx the context of the rule (its tokens are attached, the contexts of its subrules are not)
+    /// @param children the values of the children in the order they were parsed
+    private void exitRule(ParserRuleContext ctx, List<Object> children) {
+        switch (ctx) {
+            case LigmaParser.ProgramContext ignored -> SymbolTable.exitScope();
+            case LigmaParser.StatementContext statementCtx -> exitStatement(statementCtx, (Statement) children.getFirst());
+            case LigmaParser.FunctionDefinitionContext functionCtx -> exitFunctionDefinition(functionCtx, children);
+            case LigmaParser.ParameterContext parameterCtx -> values.add(exitParameter(parameterCtx, (DataType) children.getFirst()));
+            case LigmaParser.DataTypeContext dataTypeCtx -> values.add(DataType.getDataType(dataTypeCtx.getText()));
+            case LigmaParser.LiteralContext literalCtx -> values.add(exitLiteral(literalCtx));
+            case LigmaParser.VariableDefinitionContext definitionCtx -> values.add(exitVariableDefinition(definitionCtx, children));
+            case LigmaParser.ArrayDefinitionContext definitionCtx -> values.add(exitArrayDefinition(definitionCtx, children));
+            case LigmaParser.AssignmentContext assignmentCtx -> values.add(exitAssignment(assignmentCtx, children));
+            case LigmaParser.ArrayAssignmentContext assignmentCtx -> values.add(exitArrayAssignment(assignmentCtx, children));
+            case LigmaParser.ChainedAssignmentContext chainedCtx -> values.add(SymbolTable.intern(chainedCtx.IDENTIFIER().getText()));
+            case LigmaParser.IfStatementContext ifCtx -> values.add(exitIfStatement(children));
+            case LigmaParser.IfElseBodyContext ignored -> values.add(statements(children, 0, children.size()));
+            case LigmaParser.ForLoopContext forCtx -> values.add(exitForLoop(forCtx, children));
+            case LigmaParser.WhileLoopContext ignored -> values.add(exitWhileLoop(children));
+            case LigmaParser.DoWhileLoopContext doWhileCtx -> values.add(exitConditionLoop(doWhileCtx, children, DoWhileLoop::new));
+            case LigmaParser.RepeatUntilLoopContext repeatCtx -> values.add(exitConditionLoop(repeatCtx, children, RepeatUntilLoop::new));
+            case LigmaParser.BreakStatementContext breakCtx -> values.add(exitLoopJump(breakCtx, true));
+            case LigmaParser.ContinueStatementContext continueCtx -> values.add(exitLoopJump(continueCtx, false));
+            case LigmaParser.FunctionCallContext callCtx -> values.add(exitFunctionCall(callCtx, children));
+            case LigmaParser.ExpressionContext expressionCtx -> values.add(exitExpression(expressionCtx, children));
+            // constantDefinition, callStatement, functionBody, parameterList and argumentList only pass the values of their children
+            default -> values.addAll(children);
+        }
+    }
+
+    /// Records the position of a finished statement and passes it to the consumer if it is a top-level one.
+    private void exitStatement(LigmaParser.StatementContext ctx, Statement statement) {
+        statement.setPosition(SourcePosition.of(ctx.getStart()));
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        if (ctx.getParent() instanceof LigmaParser.ProgramContext) {
+            statementConsumer.accept(statement);
+        } else {
+            values.add(statement);
+        }
+    }
+
+    /// Checks the return type of a finished function definition, adds its descriptor to the symbol table
+    /// and passes it to the consumer.
+    ///
+    /// @throws SemanticException If the type of the return expression does not match the return type.
+    private void exitFunctionDefinition(LigmaParser.FunctionDefinitionContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        DataType returnType = (DataType) children.getFirst();
+        Expression returnExpr = (Expression) children.getLast();
+        Trace.event(CompilerPhase.FRONT_END, "Function definition", () -> returnType + " " + identifier);
+
+        List<FunctionParameter> parameters = new ArrayList<>();
+        List<Statement> statements = new ArrayList<>();
+        for (Object child : children.subList(1, children.size() - 1)) {
+            switch (child) {
+                case FunctionParameter parameter -> parameters.add(parameter);
+                case Statement statement -> statements.add(statement);
+                default -> throw new IllegalStateException("Unexpected child of a function definition: " + child);
+            }
+        }
+
+        // Function's return type doesn't match the expression type
+        SemanticAnalysis.checkReturnType(returnType, returnExpr, ctx.getStart().getLine());
+
+        SymbolTable.exitScope();
+
+        // Function descriptor belongs to the parent scope
+        Descriptor descriptor = FunctionDescriptor.builder()
+                                                  .name(identifier)
+                                                  .type(returnType)
+                                                  .scopeLevel(SymbolTable.getLevel(identifier))
+                                                  .parameters(parameters)
+                                                  .statements(statements)
+                                                  .returnExpression(returnExpr)
+                                                  .build();
+        SymbolTable.add(identifier, descriptor);
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        functionConsumer.accept(new Function(identifier, returnType, parameters, statements, returnExpr, SourcePosition.of(ctx.getStart())));
+    }
+
+    /// Adds a finished parameter to the symbol table.
+    private FunctionParameter exitParameter(LigmaParser.ParameterContext ctx, DataType type) {
+        String name = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Trace.event(CompilerPhase.FRONT_END, "Parameter", () -> type + " " + name);
+
+        SemanticAnalysis.declareVariable(name, type);
+
+        return new FunctionParameter(type, name);
+    }
+
+    /// Creates the literal of a finished literal rule.
+    private Literal exitLiteral(LigmaParser.LiteralContext ctx) {
+        // int
+        if (ctx.INTEGER_LITERAL() != null) {
+            return new Literal(Integer.parseInt(ctx.INTEGER_LITERAL().getText()));
+        }
+
+        // boolean
+        return new Literal(Boolean.parseBoolean(ctx.BOOLEAN_LITERAL().getText()));
+    }
+
+    /// Checks the type of a finished variable (or constant) definition and adds it to the symbol table.
+    ///
+    /// @throws SemanticException If the type of the expression does not match the type of the variable.
+    private Statement exitVariableDefinition(LigmaParser.VariableDefinitionContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        DataType dataType = (DataType) children.get(0);
+        Expression expression = (Expression) children.get(1);
+        boolean isConstant = ctx.getParent() instanceof LigmaParser.ConstantDefinitionContext;
+        Trace.event(CompilerPhase.FRONT_END, isConstant ? "Constant definition" : "Variable definition", () -> dataType + " " + identifier);
+
+        return SemanticAnalysis.createVariableDefinition(identifier, dataType, expression, isConstant, getDefinitionLine(ctx));
+    }
+
+    /// Checks the length of a finished array definition and adds it to the symbol table.
+    ///
+    /// @throws SemanticException If there is a redeclaration or the length is not a positive int known at compile time.
+    private Statement exitArrayDefinition(LigmaParser.ArrayDefinitionContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        DataType dataType = (DataType) children.get(0);
+        Expression lengthExpression = (Expression) children.get(1);
+        Trace.event(CompilerPhase.FRONT_END, "Array definition", () -> dataType + "[] " + identifier);
+
+        return SemanticAnalysis.createArrayDefinition(identifier, dataType, lengthExpression, ctx.getStart().getLine());
+    }
+
+    /// Checks the identifiers of a finished assignment.
+    ///
+    /// @throws SemanticException If reassignment to a constant or function occurs or if a type mismatch is found.
+    private Statement exitAssignment(LigmaParser.AssignmentContext ctx, List<Object> children) {
+        Expression expression = (Expression) children.getLast();
+
+        // All identifiers in the assigment
+        List<String> allIdentifiers = new ArrayList<>();
+        allIdentifiers.add(SymbolTable.intern(ctx.IDENTIFIER().getText()));
+        for (Object child : children.subList(0, children.size() - 1)) {
+            allIdentifiers.add((String) child);
+        }
+        Trace.event(CompilerPhase.FRONT_END, "Assignment", allIdentifiers::toString);
+
+        return SemanticAnalysis.createAssignment(allIdentifiers, expression, ctx.getStart().getLine());
+    }
+
+    /// Checks the element and the type of a finished assignment to an element of an array.
+    ///
+    /// @throws SemanticException If the identifier is not an array, the index is not an int or a type mismatch is found.
+    private Statement exitArrayAssignment(LigmaParser.ArrayAssignmentContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Expression index = (Expression) children.get(0);
+        Expression expression = (Expression) children.get(1);
+        Trace.event(CompilerPhase.FRONT_END, "Array assignment", () -> identifier);
+
+        return SemanticAnalysis.createArrayAssignment(identifier, index, expression, ctx.getStart().getLine());
+    }
+
+    /// Creates a finished if statement (its condition was checked when its closing parenthesis was matched).
+    @SuppressWarnings("unchecked")
+    private Statement exitIfStatement(List<Object> children) {
+        Expression expression = (Expression) children.get(0);
+        List<Statement> ifStatements = (List<Statement>) children.get(1);
+        IfStatement ifStatement;
+
+        // 'else' is present (the size of the 'if' scope was added when 'else' was matched)
+        if (children.size() > 2) {
+            ifStatement = new IfStatement(expression, ifStatements, (List<Statement>) children.get(3));
+            ifStatement.setIfScopeSize((Integer) children.get(2));
+            ifStatement.setElseScopeSize(SymbolTable.getCurrentScopeSize());
+        } else {
+            ifStatement = new IfStatement(expression, ifStatements, new ArrayList<>());
+            ifStatement.setIfScopeSize(SymbolTable.getCurrentScopeSize());
+        }
+
+        SymbolTable.exitScope();
+
+        return ifStatement;
+    }
+
+    /// Creates a finished for loop (its range was checked when its closing parenthesis was matched).
+    private Statement exitForLoop(LigmaParser.ForLoopContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        ForLoop forLoop = new ForLoop(
+            identifier,
+            (Expression) children.get(0),
+            (Expression) children.get(1),
+            statements(children, 2, children.size())
+        );
+        forLoop.setAddress(SymbolTable.resolve(identifier));
+        forLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+
+        SymbolTable.exitScope();
+
+        return forLoop;
+    }
+
+    /// Creates a finished while loop (its condition was checked when its closing parenthesis was matched).
+    private Statement exitWhileLoop(List<Object> children) {
+        WhileLoop whileLoop = new WhileLoop((Expression) children.getFirst(), statements(children, 1, children.size()));
+        whileLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+
+        SymbolTable.exitScope();
+
+        return whileLoop;
+    }
+
+    /// Checks the condition of a finished do-while or repeat-until loop.
+    ///
+    /// @throws SemanticException If the loop condition is not of boolean type.
+    private Statement exitConditionLoop(
+        ParserRuleContext ctx,
+        List<Object> children,
+        BiFunction<List<Statement>, Expression, Statement> loopConstructor
+    ) {
+        Expression condition = (Expression) children.getLast();
+        SemanticAnalysis.checkCondition(condition, ctx.getStart().getLine());
+
+        Statement loop = loopConstructor.apply(statements(children, 0, children.size() - 1), condition);
+        int scopeSize = SymbolTable.getCurrentScopeSize();
+        switch (loop) {
+            case DoWhileLoop doWhileLoop -> doWhileLoop.setScopeSize(scopeSize);
+            case RepeatUntilLoop repeatUntilLoop -> repeatUntilLoop.setScopeSize(scopeSize);
+            default -> throw new IllegalStateException("Unexpected loop: " + loop);
+        }
+
+        SymbolTable.exitScope();
+
+        return loop;
+    }
+
+    /// Checks that a finished break or continue statement is in the body of a loop.
+    ///
+    /// @throws SemanticException If the statement is not in a loop.
+    private Statement exitLoopJump(ParserRuleContext ctx, boolean isBreak) {
+        Trace.event(CompilerPhase.FRONT_END, isBreak ? "Break statement" : "Continue statement");
+
+        return SemanticAnalysis.createLoopJump(isBreak, ctx.getStart().getLine());
+    }
+
+    /// Creates a finished function call (a statement or a part of an expression).
+    private Object exitFunctionCall(LigmaParser.FunctionCallContext ctx, List<Object> children) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        List<Expression> arguments = children.stream()
+                                             .map(Expression.class::cast)
+                                             .toList();
+
+        if (ctx.getParent() instanceof LigmaParser.FunctionCallExpressionContext) {
+            Trace.event(CompilerPhase.FRONT_END, "Function call expression", () -> identifier);
+            FunctionCallExpression functionCall = new FunctionCallExpression(DataType.INT, identifier, arguments);
+            functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+            return functionCall;
+        }
+
+        Trace.event(CompilerPhase.FRONT_END, "Function call statement", () -> identifier);
+        FunctionCall functionCall = new FunctionCall(identifier, arguments);
+        functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+        return functionCall;
+    }
+
+    /// Checks the operands of a finished expression and records its position.
+    private Expression exitExpression(LigmaParser.ExpressionContext ctx, List<Object> children) {
+        Expression expression = switch (ctx) {
+            case LigmaParser.PowerExpressionContext powerCtx ->
+                SemanticAnalysis.createPower((Expression) children.get(0), (Expression) children.get(1), powerCtx.getStart().getLine());
+            case LigmaParser.UnaryMinusExpressionContext minusCtx ->
+                SemanticAnalysis.createUnaryMinus((Expression) children.getFirst(), minusCtx.getStart().getLine());
+            case LigmaParser.UnaryPlusExpressionContext plusCtx ->
+                SemanticAnalysis.createUnaryPlus((Expression) children.getFirst(), plusCtx.getStart().getLine());
+            case LigmaParser.NotExpressionContext notCtx ->
+                SemanticAnalysis.createNot((Expression) children.getFirst(), notCtx.getStart().getLine());
+            case LigmaParser.MultiplicativeExpressionContext multiplicativeCtx -> SemanticAnalysis.createMultiplicative(
+                Operator.fromSymbol(multiplicativeCtx.op.getText()),
+                (Expression) children.get(0),
+                (Expression) children.get(1),
+                multiplicativeCtx.getStart().getLine()
+            );
+            case LigmaParser.AdditiveExpressionContext additiveCtx -> SemanticAnalysis.createAdditive(
+                Operator.fromSymbol(additiveCtx.op.getText()),
+                (Expression) children.get(0),
+                (Expression) children.get(1),
+                additiveCtx.getStart().getLine()
+            );
+            case LigmaParser.ComparisonExpressionContext comparisonCtx -> SemanticAnalysis.createComparison(
+                Operator.fromSymbol(comparisonCtx.op.getText()),
+                (Expression) children.get(0),
+                (Expression) children.get(1),
+                comparisonCtx.getStart().getLine()
+            );
+            case LigmaParser.LogicalExpressionContext logicalCtx -> SemanticAnalysis.createLogical(
+                Operator.fromSymbol(logicalCtx.op.getText()),
+                (Expression) children.get(0),
+                (Expression) children.get(1),
+                logicalCtx.getStart().getLine()
+            );
+            case LigmaParser.ParenthesizedExpressionContext ignored -> {
+                Expression inner = (Expression) children.getFirst();
+                yield new ParenthesizedExpression(inner, inner.getType());
+            }
+            case LigmaParser.IdentifierExpressionContext identifierCtx -> SemanticAnalysis.createIdentifier(
+                SymbolTable.intern(identifierCtx.IDENTIFIER().getText()),
+                identifierCtx.getStart().getLine()
+            );
+            case LigmaParser.ArrayAccessExpressionContext accessCtx -> SemanticAnalysis.createArrayAccess(
+                SymbolTable.intern(accessCtx.IDENTIFIER().getText()),
+                (Expression) children.getFirst(),
+                accessCtx.getStart().getLine()
+            );
+            // Literal and function call expressions are built by their subrules
+            default -> (Expression) children.getFirst();
+        };
+
+        expression.setPosition(SourcePosition.of(ctx.getStart()));
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        return expression;
+    }
+
+    /// Returns the line of a variable definition (the line of `const` for a constant definition).
+    private static int getDefinitionLine(LigmaParser.VariableDefinitionContext ctx) {
+        ParserRuleContext definitionCtx = ctx.getParent() instanceof LigmaParser.ConstantDefinitionContext constantCtx ? constantCtx : ctx;
+        return definitionCtx.getStart().getLine();
+    }
+
+    /// Returns the value of a finished child of the currently parsed rule.
+    ///
+    /// @param depth the position of the value from the top of the value stack
+    private Object peek(int depth) {
+        return values.get(values.size() - 1 - depth);
+    }
+
+    /// Returns whether the parsing failed and the parser only unwinds its rules.
+    private boolean isParsingFailed() {
+        // A syntax error is counted before it is thrown, a lexical error leaves the lexer without a token
+        return parser.getNumberOfSyntaxErrors() > 0
+            || parser.getTokenStream().getTokenSource() instanceof Lexer lexer && lexer.getToken() == null;
+    }
+
+    /// Returns whether the context is a binary expression (its left operand is parsed before it is entered).
+    private static boolean isBinaryExpression(ParserRuleContext ctx) {
+        return ctx instanceof LigmaParser.PowerExpressionContext
+            || ctx instanceof LigmaParser.MultiplicativeExpressionContext
+            || ctx instanceof LigmaParser.AdditiveExpressionContext
+            || ctx instanceof LigmaParser.ComparisonExpressionContext
+            || ctx instanceof LigmaParser.LogicalExpressionContext;
+    }
+
+    /// Collects the values of statements.
+    private static List<Statement> statements(List<Object> children, int from, int to) {
+        List<Statement> statements = new ArrayList<>();
+        for (Object child : children.subList(from, to)) {
+            statements.add((Statement) child);
+        }
+
+        return statements;
+    }
+
+}
@@ -0,0 +1,29 @@
+package ligma.logging;
+
+import ch.qos.logback.classic.BasicConfigurator;
+import ch.qos.logback.classic.LoggerContext;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Configuration of Logback registered as a service, so Logback does not look for its configuration files.
+///
+/// The log is written to the console in the same format as the default configuration of Logback, but the
+/// classes for reading the XML configuration are never loaded, which shortens the start of the compiler.
+/// When the configuration file is given by the `logback.configurationFile` property, Logback reads it as usual.
+public class ConsoleLogConfigurator extends BasicConfigurator {
+
+    /// Property with the path to the configuration file of Logback.
+    private static final String CONFIGURATION_FILE_PROPERTY = "logback.configurationFile";
+
+    @Override
+    public ExecutionStatus configure(LoggerContext context) {
+        if (System.getProperty(CONFIGURATION_FILE_PROPERTY) != null) {
+            return ExecutionStatus.INVOKE_NEXT_IF_ANY;
+        }
+
+        super.configure(context);
+        return ExecutionStatus.DO_NOT_INVOKE_NEXT_IF_ANY;
+    }
+
+}
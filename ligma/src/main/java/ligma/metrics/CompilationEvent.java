@@ -0,0 +1,36 @@
+package ligma.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// JFR event recorded for the whole compilation of a program with the collected counters.
+@Name("ligma.Compilation")
+@Label("Compilation")
+@Category("Ligma")
+@Description("Compilation of a Ligma program")
+class CompilationEvent extends jdk.jfr.Event {
+
+    @Label("Input")
+    String input;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Parse Tree Nodes")
+    long parseTreeNodes;
+
+    @Label("IR Nodes")
+    long irNodes;
+
+    @Label("Symbol Lookups")
+    long symbolLookups;
+
+    @Label("Instructions")
+    long instructions;
+
+}
@@ -0,0 +1,376 @@
+package ligma.metrics;
+
+import jdk.jfr.FlightRecorder;
+import ligma.enums.CompilerPhase;
+import ligma.enums.MetricCounter;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Collects the metrics of the compilation of one program.
+///
+/// Every phase is measured by its wall time, the CPU time and the allocated bytes of the compiling thread
+/// (using the [ThreadMXBean]) and it is also recorded as the `ligma.CompilerPhase` JFR event. The counters
+/// (tokens, parse tree nodes, ...) are recorded as the `ligma.Compilation` JFR event when the compilation
+/// is finished. The collected metrics can be written as a JSON report.
+///
+/// A phase measured within another phase (e.g., the optimization within the generation) is reported separately
+/// and its resources are not counted again in the enclosing phase, so the phases add up to the total.
+///
+/// The metrics are collected per thread, so programs compiled concurrently do not share their metrics.
+///
+/// The JFR events are only created when the Flight Recorder is initialized, and the CPU time and the allocated
+/// bytes are only measured when they are requested or recorded, so a short compilation does not pay for
+/// loading JFR and the management beans.
+public class CompilerMetrics {
+
+    /// Metrics collected by the current thread.
+    private static final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    /// Whether the CPU time and the allocated bytes of the phases are requested.
+    private static volatile boolean resourceUsageMeasured = true;
+
+    /// Private constructor to prevent instantiation
+    private CompilerMetrics() {
+    }
+
+    /// Sets whether the CPU time and the allocated bytes of the phases are measured (they are always measured
+    /// while the Flight Recorder is initialized). Otherwise, they are reported as `-1`.
+    ///
+    /// @param measured whether the resource usage is measured
+    public static void setResourceUsageMeasured(boolean measured) {
+        resourceUsageMeasured = measured;
+    }
+
+    /// Starts the compilation of a program (clears the previously collected metrics).
+    ///
+    /// @param inputName the name of the compiled program
+    public static void start(String inputName) {
+        clear();
+
+        State current = state.get();
+        current.input = inputName;
+
+        if (isRecording()) {
+            current.compilationEvent = new CompilationEvent();
+            current.compilationEvent.begin();
+        }
+    }
+
+    /// Finishes the compilation of the program and records its JFR event.
+    public static void finish() {
+        State current = state.get();
+        CompilationEvent compilationEvent = current.compilationEvent;
+
+        if (compilationEvent == null) {
+            return;
+        }
+
+        compilationEvent.end();
+
+        if (compilationEvent.shouldCommit()) {
+            compilationEvent.input = current.input;
+            compilationEvent.tokens = get(MetricCounter.TOKENS);
+            compilationEvent.parseTreeNodes = get(MetricCounter.PARSE_TREE_NODES);
+            compilationEvent.irNodes = get(MetricCounter.IR_NODES);
+            compilationEvent.symbolLookups = get(MetricCounter.SYMBOL_LOOKUPS);
+            compilationEvent.instructions = get(MetricCounter.INSTRUCTIONS);
+            compilationEvent.commit();
+        }
+
+        current.compilationEvent = null;
+    }
+
+    /// Runs and measures a phase of the compilation.
+    ///
+    /// @param phase the phase
+    /// @param action the work of the phase
+    /// @return the result of the phase
+    public static <T> T measure(CompilerPhase phase, Supplier<T> action) {
+        PhaseEvent event = isRecording() ? new PhaseEvent() : null;
+        boolean measured = event != null || resourceUsageMeasured;
+        long cpuTime = measured ? getCpuTime() : -1;
+        long allocatedBytes = measured ? getAllocatedBytes() : -1;
+        long wallTime = System.nanoTime();
+
+        // The phase keeps its place in the order of execution even when the nested phases finish first
+        State current = state.get();
+        long[] enclosingNested = current.nested;
+        current.nested = new long[3];
+        int index = current.phases.size();
+        current.phases.add(null);
+
+        if (event != null) {
+            event.begin();
+        }
+
+        try {
+            return action.get();
+        } finally {
+            long[] nested = current.nested;
+            current.nested = enclosingNested;
+
+            long elapsedWallTime = System.nanoTime() - wallTime;
+            long elapsedCpuTime = cpuTime < 0 ? -1 : getCpuTime() - cpuTime;
+            long elapsedAllocatedBytes = allocatedBytes < 0 ? -1 : getAllocatedBytes() - allocatedBytes;
+
+            if (enclosingNested != null) {
+                enclosingNested[0] += elapsedWallTime;
+                enclosingNested[1] += Math.max(elapsedCpuTime, 0);
+                enclosingNested[2] += Math.max(elapsedAllocatedBytes, 0);
+            }
+
+            PhaseMetrics metrics = new PhaseMetrics(
+                phase,
+                elapsedWallTime - nested[0],
+                elapsedCpuTime < 0 ? -1 : elapsedCpuTime - nested[1],
+                elapsedAllocatedBytes < 0 ? -1 : elapsedAllocatedBytes - nested[2]
+            );
+            current.phases.set(index, metrics);
+
+            if (event != null) {
+                commit(event, metrics);
+            }
+        }
+    }
+
+    /// Records the JFR event of the measured phase.
+    private static void commit(PhaseEvent event, PhaseMetrics metrics) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.phase = metrics.phase().getName();
+            event.cpuTime = metrics.cpuTime();
+            event.allocatedBytes = metrics.allocatedBytes();
+            event.commit();
+        }
+    }
+
+    /// Returns whether the JFR events can be recorded (the event classes are not even loaded otherwise).
+    private static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /// Runs and measures a phase of the compilation.
+    ///
+    /// @param phase the phase
+    /// @param action the work of the phase
+    public static void measure(CompilerPhase phase, Runnable action) {
+        measure(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /// Increments the counter by one.
+    ///
+    /// @param counter the counter
+    public static void increment(MetricCounter counter) {
+        state.get().counters[counter.ordinal()]++;
+    }
+
+    /// Adds the value to the counter.
+    ///
+    /// @param counter the counter
+    /// @param value the value to add
+    public static void add(MetricCounter counter, long value) {
+        state.get().counters[counter.ordinal()] += value;
+    }
+
+    /// Adds the values to the counters.
+    ///
+    /// @param values the values indexed by the ordinal of the [MetricCounter]
+    public static void addAll(long[] values) {
+        long[] counters = state.get().counters;
+
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += values[i];
+        }
+    }
+
+    /// Runs the action with separate metrics and returns the values of its counters.
+    ///
+    /// Used by the tasks which can run on any thread, the values are then added to the metrics of the
+    /// compilation by [#addAll].
+    ///
+    /// @param action the work of the task
+    /// @return the values of the counters indexed by the ordinal of the [MetricCounter]
+    public static long[] countSeparately(Runnable action) {
+        State previous = state.get();
+        State separate = new State();
+        state.set(separate);
+
+        try {
+            action.run();
+        } finally {
+            state.set(previous);
+        }
+
+        return separate.counters;
+    }
+
+    /// Returns the value of the counter.
+    ///
+    /// @param counter the counter
+    /// @return the value of the counter
+    public static long get(MetricCounter counter) {
+        return state.get().counters[counter.ordinal()];
+    }
+
+    /// Returns the measured phases in the order of their execution.
+    public static List<PhaseMetrics> getPhases() {
+        return Collections.unmodifiableList(state.get().phases);
+    }
+
+    /// Counts the nodes (rules and tokens) of the parse tree.
+    ///
+    /// @param tree the root of the parse tree
+    /// @return the number of nodes
+    public static long countNodes(ParseTree tree) {
+        long count = 0;
+        Deque<ParseTree> stack = new ArrayDeque<>();
+        stack.push(tree);
+
+        while (!stack.isEmpty()) {
+            ParseTree node = stack.pop();
+            count++;
+
+            for (int i = 0; i < node.getChildCount(); i++) {
+                stack.push(node.getChild(i));
+            }
+        }
+
+        return count;
+    }
+
+    /// Writes the collected metrics as a JSON object.
+    ///
+    /// @param writer the writer to write the report to
+    /// @throws IOException if the report could not be written
+    public static void writeJson(Writer writer) throws IOException {
+        State current = state.get();
+        List<PhaseMetrics> phases = current.phases;
+        String lineSeparator = System.lineSeparator();
+        long wallTime = 0;
+        long cpuTime = 0;
+        long allocatedBytes = 0;
+
+        writer.write("{" + lineSeparator);
+        writer.write("  \"input\": " + quote(current.input) + "," + lineSeparator);
+        writer.write("  \"phases\": [" + lineSeparator);
+
+        for (int i = 0; i < phases.size(); i++) {
+            PhaseMetrics metrics = phases.get(i);
+            writer.write("    " + phaseJson(metrics.phase().getName(), metrics.wallTime(), metrics.cpuTime(), metrics.allocatedBytes()));
+            writer.write((i < phases.size() - 1 ? "," : "") + lineSeparator);
+
+            wallTime += metrics.wallTime();
+            cpuTime = cpuTime < 0 || metrics.cpuTime() < 0 ? -1 : cpuTime + metrics.cpuTime();
+            allocatedBytes = allocatedBytes < 0 || metrics.allocatedBytes() < 0 ? -1 : allocatedBytes + metrics.allocatedBytes();
+        }
+
+        writer.write("  ]," + lineSeparator);
+        writer.write("  \"total\": " + phaseJson("total", wallTime, cpuTime, allocatedBytes) + "," + lineSeparator);
+        writer.write("  \"counters\": {" + lineSeparator);
+
+        MetricCounter[] values = MetricCounter.values();
+        for (int i = 0; i < values.length; i++) {
+            writer.write("    " + quote(values[i].getName()) + ": " + get(values[i]));
+            writer.write((i < values.length - 1 ? "," : "") + lineSeparator);
+        }
+
+        writer.write("  }" + lineSeparator);
+        writer.write("}" + lineSeparator);
+    }
+
+    /// Clears the collected metrics.
+    public static void clear() {
+        state.set(new State());
+    }
+
+    /// Formats the metrics of a phase as a JSON object.
+    private static String phaseJson(String name, long wallTime, long cpuTime, long allocatedBytes) {
+        return "{\"phase\": " + quote(name) +
+            ", \"wallTimeNanos\": " + wallTime +
+            ", \"cpuTimeNanos\": " + cpuTime +
+            ", \"allocatedBytes\": " + allocatedBytes + "}";
+    }
+
+    /// Formats the value as a JSON string (or `null`).
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    /// Returns the CPU time of the current thread (`-1` if not supported).
+    private static long getCpuTime() {
+        ThreadMXBean threadBean = Beans.THREAD;
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /// Returns the number of bytes allocated by the current thread (`-1` if not supported).
+    private static long getAllocatedBytes() {
+        return Beans.ALLOCATION != null ? Beans.ALLOCATION.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /// Beans of the JVM, initialized when the resource usage is measured for the first time.
+    private static class Beans {
+
+        /// Bean providing the CPU time and the allocated bytes of the current thread.
+        private static final ThreadMXBean THREAD = ManagementFactory.getThreadMXBean();
+        /// Bean providing the allocated bytes (`null` if the JVM does not support it).
+        private static final com.sun.management.ThreadMXBean ALLOCATION =
+            THREAD instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported() ? bean : null;
+
+    }
+
+    /// Metrics collected by one thread.
+    private static class State {
+
+        /// Measured phases in the order of their execution.
+        private final List<PhaseMetrics> phases = new ArrayList<>();
+        /// Values of the counters indexed by the ordinal of the [MetricCounter].
+        private final long[] counters = new long[MetricCounter.values().length];
+        /// Name of the compiled program.
+        private String input;
+        /// JFR event of the current compilation.
+        private CompilationEvent compilationEvent;
+        /// Wall time, CPU time and allocated bytes of the phases nested in the running phase (`null` outside a phase).
+        private long[] nested;
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package ligma.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// JFR event recorded for every phase of the compilation (the duration of the event is the wall time).
+@Name("ligma.CompilerPhase")
+@Label("Compiler Phase")
+@Category("Ligma")
+@Description("A phase of the compilation of a Ligma program")
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("CPU Time")
+    @Timespan
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+}
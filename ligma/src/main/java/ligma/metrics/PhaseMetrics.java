@@ -0,0 +1,21 @@
+package ligma.metrics;
+
+import ligma.enums.CompilerPhase;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Resources consumed by one phase of the compilation (without the phases nested in it).
+///
+/// @param phase The measured phase.
+/// @param wallTime The elapsed time in nanoseconds.
+/// @param cpuTime The CPU time of the compiling thread in nanoseconds (`-1` if not supported).
+/// @param allocatedBytes The number of bytes allocated by the compiling thread (`-1` if not supported).
+public record PhaseMetrics(
+    CompilerPhase phase,
+    long wallTime,
+    long cpuTime,
+    long allocatedBytes
+) {
+
+}
@@ -0,0 +1,72 @@
+package ligma.parallel;
+
+import ligma.metrics.CompilerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Runs independent parts of the compilation (e.g. the functions of a program) in parallel.
+///
+/// The tasks run on the common [ForkJoinPool], so the compilation scales with the number of cores and
+/// the programs compiled concurrently (by the daemon) share the same threads. A task can run on any
+/// thread of the pool (or on the calling thread), so it must not rely on the state of the thread: it
+/// gets its own metrics whose counters are added to the metrics of the calling thread.
+public class ParallelRunner {
+
+    /// Private constructor to prevent instantiation
+    private ParallelRunner() {
+    }
+
+    /// Runs the task for every item and returns the results in the order of the items.
+    ///
+    /// @param items the items
+    /// @param task the task processing one item
+    /// @return the results of the task for every item
+    /// @throws RuntimeException the exception of the first failed task (in the order of the items)
+    public static <T, R> List<R> map(List<T> items, Function<T, R> task) {
+        List<ForkJoinTask<Outcome<R>>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(ForkJoinPool.commonPool().submit(() -> run(task, item)));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        for (ForkJoinTask<Outcome<R>> forkJoinTask : tasks) {
+            Outcome<R> outcome = forkJoinTask.join();
+
+            if (outcome.exception() != null) {
+                // The result is not needed anymore, the tasks which have not started yet are skipped
+                tasks.forEach(remaining -> remaining.cancel(false));
+                throw outcome.exception();
+            }
+
+            CompilerMetrics.addAll(outcome.counters());
+            results.add(outcome.result());
+        }
+
+        return results;
+    }
+
+    /// Runs the task with separate metrics.
+    private static <T, R> Outcome<R> run(Function<T, R> task, T item) {
+        AtomicReference<R> result = new AtomicReference<>();
+
+        try {
+            long[] counters = CompilerMetrics.countSeparately(() -> result.set(task.apply(item)));
+            return new Outcome<>(result.get(), counters, null);
+        } catch (RuntimeException exception) {
+            return new Outcome<>(null, null, exception);
+        }
+    }
+
+    /// Result of a task (or the exception it failed with) and the values of its counters.
+    private record Outcome<R>(R result, long[] counters, RuntimeException exception) {
+    }
+
+}
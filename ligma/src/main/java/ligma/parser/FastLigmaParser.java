@@ -0,0 +1,804 @@
+package ligma.parser;
+
+import ligma.cache.DfaSnapshot;
+import ligma.enums.CompilerPhase;
+import ligma.enums.DataType;
+import ligma.enums.MetricCounter;
+import ligma.enums.Operator;
+import ligma.exception.SemanticException;
+import ligma.exception.SyntaxException;
+import ligma.generated.LigmaLexer;
+import ligma.generated.LigmaParser;
+import ligma.ir.SourcePosition;
+import ligma.ir.expression.Expression;
+import ligma.ir.expression.FunctionCallExpression;
+import ligma.ir.expression.Literal;
+import ligma.ir.expression.ParenthesizedExpression;
+import ligma.ir.function.Function;
+import ligma.ir.function.FunctionParameter;
+import ligma.ir.program.Program;
+import ligma.ir.statement.DoWhileLoop;
+import ligma.ir.statement.ForLoop;
+import ligma.ir.statement.FunctionCall;
+import ligma.ir.statement.IfStatement;
+import ligma.ir.statement.RepeatUntilLoop;
+import ligma.ir.statement.Statement;
+import ligma.ir.statement.WhileLoop;
+import ligma.lexer.TokenArray;
+import ligma.lexer.TokenArraySource;
+import ligma.listener.SyntaxErrorListener;
+import ligma.metrics.CompilerMetrics;
+import ligma.semantic.SemanticAnalysis;
+import ligma.table.Descriptor;
+import ligma.table.FunctionDescriptor;
+import ligma.table.SymbolTable;
+import ligma.trace.Trace;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Hand-written parser of the Ligma language building the IR of the program directly from the tokens of the
+/// [ligma.lexer.FastLigmaLexer], a faster alternative to the generated `LigmaParser` and the visitors.
+///
+/// The statements are parsed by recursive descent (every statement is decided by at most two tokens) and the
+/// expressions by precedence climbing (Pratt parsing) with the precedence of the alternatives of the
+/// `expression` rule of the grammar. The first alternative binds the tightest and all binary operators are
+/// left-associative; the operand of a prefix operator is parsed at the precedence of the operator, so only
+/// the power binds tighter than it (`-a ^ b` is `-(a ^ b)`, `-a * b` is `(-a) * b`):
+///
+/// | Precedence | Operators                   | Kind   |
+/// |------------|-----------------------------|--------|
+/// | 12         | `^`                         | binary |
+/// | 11, 10, 9  | `-`, `+`, `!`               | prefix |
+/// | 8          | `*` `/` `%`                 | binary |
+/// | 7          | `+` `-`                     | binary |
+/// | 6          | `==` `!=` `>` `<` `>=` `<=` | binary |
+/// | 5          | `&&` `\|\|`                 | binary |
+///
+/// The semantic checks are done by the [SemanticAnalysis] shared with the visitors in the same order as the
+/// visitors do them while the program is parsed, the signatures of all functions are declared (from their tokens)
+/// before the first function body is parsed. An invalid program is parsed again by the generated parser,
+/// so a syntax error anywhere in the program wins over a semantic error and the syntax errors are reported
+/// with the messages of the generated parser.
+public class FastLigmaParser {
+
+    /// Precedence of the prefix operators.
+    private static final int UNARY_MINUS_PRECEDENCE = 11;
+    private static final int UNARY_PLUS_PRECEDENCE = 10;
+    private static final int NOT_PRECEDENCE = 9;
+
+    /// Precedence of the binary operators indexed by the type of their token (0 if it is not a binary operator).
+    private static final int[] BINARY_PRECEDENCES = new int[LigmaLexer.VOCABULARY.getMaxTokenType() + 1];
+
+    static {
+        BINARY_PRECEDENCES[LigmaLexer.POW] = 12;
+        for (int type : new int[]{LigmaLexer.MUL, LigmaLexer.DIV, LigmaLexer.MOD}) {
+            BINARY_PRECEDENCES[type] = 8;
+        }
+        for (int type : new int[]{LigmaLexer.ADD, LigmaLexer.SUB}) {
+            BINARY_PRECEDENCES[type] = 7;
+        }
+        for (int type : new int[]{LigmaLexer.EQ, LigmaLexer.NEQ, LigmaLexer.GT, LigmaLexer.LT, LigmaLexer.GTE, LigmaLexer.LTE}) {
+            BINARY_PRECEDENCES[type] = 6;
+        }
+        for (int type : new int[]{LigmaLexer.AND, LigmaLexer.OR}) {
+            BINARY_PRECEDENCES[type] = 5;
+        }
+    }
+
+    /// The lexed tokens.
+    private final TokenArray tokens;
+
+    /// Index of the current token.
+    private int position;
+    /// Type of the current token.
+    private int type;
+
+    private FastLigmaParser(TokenArray tokens) {
+        this.tokens = tokens;
+        this.type = tokens.getType(0);
+    }
+
+    /// Runs the syntax and semantic analysis of the program.
+    ///
+    /// @param tokens the tokens of the program
+    /// @return the program
+    /// @throws SyntaxException if the program does not match the grammar
+    /// @throws SemanticException if the program is not semantically valid
+    public static Program parse(TokenArray tokens) {
+        Trace.event(CompilerPhase.FRONT_END, "Program (hand-written parser)");
+
+        try {
+            return new FastLigmaParser(tokens).parseProgram();
+        } catch (RuntimeException exception) {
+            // The generated parser finds the first syntax error of the whole program
+            SyntaxException syntaxError = findSyntaxError(tokens);
+            throw syntaxError != null ? syntaxError : exception;
+        }
+    }
+
+    /// Parses the tokens by the generated parser (without the parse tree).
+    ///
+    /// @return the first syntax error (`null` if the program matches the grammar)
+    private static SyntaxException findSyntaxError(TokenArray tokens) {
+        DfaSnapshot.ensureLoaded();
+
+        LigmaParser parser = new LigmaParser(new CommonTokenStream(new TokenArraySource(tokens)));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new SyntaxErrorListener());
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setBuildParseTree(false);
+
+        try {
+            parser.program();
+        } catch (SyntaxException exception) {
+            return exception;
+        }
+
+        return null;
+    }
+
+    /// `program : statement+ functionDefinition* EOF`
+    private Program parseProgram() {
+        // Start with an empty table (a previous analysis could have failed inside a nested scope)
+        SymbolTable.clear();
+        SymbolTable.enterScope(false);
+
+        if (!isStatementStart()) {
+            throw syntaxError("statement");
+        }
+        List<Statement> statements = parseStatements();
+
+        // function signatures (every function can reference any function of the program)
+        declareFunctions();
+
+        List<Function> functions = new ArrayList<>();
+        while (type == LigmaLexer.FUNCTION) {
+            functions.add(parseFunctionDefinition());
+        }
+        expect(Token.EOF);
+
+        SymbolTable.exitScope();
+
+        return new Program(statements, functions);
+    }
+
+    /// Parses the statements up to the first token which does not start a statement.
+    private List<Statement> parseStatements() {
+        List<Statement> statements = new ArrayList<>();
+
+        while (isStatementStart()) {
+            statements.add(parseStatement());
+        }
+
+        return statements;
+    }
+
+    /// `statement : variableDefinition | constantDefinition | arrayDefinition | assignment | ... | breakStatement
+    /// | continueStatement | callStatement`
+    private Statement parseStatement() {
+        int start = position;
+
+        Statement statement = switch (type) {
+            case LigmaLexer.INT, LigmaLexer.BOOLEAN -> tokens.getType(position + 1) == LigmaLexer.LBRACKET
+                ? parseArrayDefinition()
+                : parseVariableDefinition(start);
+            case LigmaLexer.CONST -> {
+                advance();
+                yield parseVariableDefinition(start);
+            }
+            case LigmaLexer.IDENTIFIER -> switch (tokens.getType(position + 1)) {
+                case LigmaLexer.LPAREN -> parseFunctionCall();
+                case LigmaLexer.LBRACKET -> parseArrayAssignment();
+                default -> parseAssignment();
+            };
+            case LigmaLexer.IF -> parseIfStatement();
+            case LigmaLexer.FOR -> parseForLoop();
+            case LigmaLexer.WHILE -> parseWhileLoop();
+            case LigmaLexer.DO -> parseDoWhileLoop();
+            case LigmaLexer.REPEAT -> parseRepeatUntilLoop();
+            case LigmaLexer.BREAK, LigmaLexer.CONTINUE -> parseLoopJump();
+            default -> throw syntaxError("statement");
+        };
+
+        statement.setPosition(positionOf(start));
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        return statement;
+    }
+
+    /// `variableDefinition : dataType IDENTIFIER ASSIGN expression SEMICOLON` (also after `const`)
+    ///
+    /// @param start the index of the first token of the statement (`const` for a constant definition)
+    private Statement parseVariableDefinition(int start) {
+        boolean isConstant = tokens.getType(start) == LigmaLexer.CONST;
+        DataType dataType = parseDataType();
+        String identifier = parseIdentifier();
+        expect(LigmaLexer.ASSIGN);
+
+        SemanticAnalysis.checkNotDefined(identifier, tokens.getLine(start));
+
+        Expression expression = parseExpression();
+        expect(LigmaLexer.SEMICOLON);
+
+        return SemanticAnalysis.createVariableDefinition(identifier, dataType, expression, isConstant, tokens.getLine(start));
+    }
+
+    /// `arrayDefinition : dataType LBRACKET expression RBRACKET IDENTIFIER SEMICOLON`
+    ///
+    /// @throws SemanticException If there is a redeclaration or the length is not a positive int known at compile time.
+    private Statement parseArrayDefinition() {
+        int line = tokens.getLine(position);
+        DataType dataType = parseDataType();
+        expect(LigmaLexer.LBRACKET);
+        Expression lengthExpression = parseExpression();
+        expect(LigmaLexer.RBRACKET);
+        String identifier = parseIdentifier();
+        expect(LigmaLexer.SEMICOLON);
+
+        return SemanticAnalysis.createArrayDefinition(identifier, dataType, lengthExpression, line);
+    }
+
+    /// `assignment : IDENTIFIER (ASSIGN IDENTIFIER)* ASSIGN expression SEMICOLON`
+    ///
+    /// @throws SemanticException If reassignment to a constant or function occurs or if a type mismatch is found.
+    private Statement parseAssignment() {
+        int line = tokens.getLine(position);
+
+        // All identifiers in the assigment (an identifier followed by '=' is a target, not the expression)
+        List<String> allIdentifiers = new ArrayList<>();
+        allIdentifiers.add(parseIdentifier());
+        while (type == LigmaLexer.ASSIGN && tokens.getType(position + 1) == LigmaLexer.IDENTIFIER
+            && tokens.getType(position + 2) == LigmaLexer.ASSIGN) {
+            advance();
+            allIdentifiers.add(parseIdentifier());
+        }
+        expect(LigmaLexer.ASSIGN);
+
+        Expression expression = parseExpression();
+        expect(LigmaLexer.SEMICOLON);
+
+        return SemanticAnalysis.createAssignment(allIdentifiers, expression, line);
+    }
+
+    /// `arrayAssignment : IDENTIFIER LBRACKET expression RBRACKET ASSIGN expression SEMICOLON`
+    ///
+    /// @throws SemanticException If the identifier is not an array, the index is not an int or a type mismatch is found.
+    private Statement parseArrayAssignment() {
+        int line = tokens.getLine(position);
+        String identifier = parseIdentifier();
+        expect(LigmaLexer.LBRACKET);
+        Expression index = parseExpression();
+        expect(LigmaLexer.RBRACKET);
+        expect(LigmaLexer.ASSIGN);
+        Expression expression = parseExpression();
+        expect(LigmaLexer.SEMICOLON);
+
+        return SemanticAnalysis.createArrayAssignment(identifier, index, expression, line);
+    }
+
+    /// `ifStatement : IF LPAREN expression RPAREN LBRACE statement* RBRACE (ELSE LBRACE statement* RBRACE)?`
+    private Statement parseIfStatement() {
+        int line = tokens.getLine(position);
+        SymbolTable.enterScope(false);
+
+        expect(LigmaLexer.IF);
+        Expression expression = parseCondition(line);
+        List<Statement> ifStatements = parseBlock();
+
+        // 'else' is not present
+        if (type != LigmaLexer.ELSE) {
+            IfStatement ifStatement = new IfStatement(expression, ifStatements, new ArrayList<>());
+            ifStatement.setIfScopeSize(SymbolTable.getCurrentScopeSize());
+            SymbolTable.exitScope();
+
+            return ifStatement;
+        }
+
+        // The 'else' body has its own scope
+        advance();
+        int ifScopeSize = SymbolTable.getCurrentScopeSize();
+        SymbolTable.exitScope();
+        SymbolTable.enterScope(false);
+
+        IfStatement ifStatement = new IfStatement(expression, ifStatements, parseBlock());
+        ifStatement.setIfScopeSize(ifScopeSize);
+        ifStatement.setElseScopeSize(SymbolTable.getCurrentScopeSize());
+        SymbolTable.exitScope();
+
+        return ifStatement;
+    }
+
+    /// `forLoop : FOR LPAREN INT IDENTIFIER ASSIGN expression TO expression RPAREN LBRACE statement* RBRACE`
+    ///
+    /// @throws SemanticException If the initialization or range expressions are not of type integer.
+    private Statement parseForLoop() {
+        int line = tokens.getLine(position);
+        SymbolTable.enterLoopScope();
+
+        expect(LigmaLexer.FOR);
+        expect(LigmaLexer.LPAREN);
+        expect(LigmaLexer.INT);
+        String identifier = parseIdentifier();
+        SemanticAnalysis.declareVariable(identifier, DataType.INT);
+        expect(LigmaLexer.ASSIGN);
+        Expression expression = parseExpression();
+        expect(LigmaLexer.TO);
+        Expression toExpression = parseExpression();
+        expect(LigmaLexer.RPAREN);
+
+        SemanticAnalysis.checkForLoopRange(expression, toExpression, line);
+
+        ForLoop forLoop = new ForLoop(identifier, expression, toExpression, parseBlock());
+        forLoop.setAddress(SymbolTable.resolve(identifier));
+        forLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+        SymbolTable.exitScope();
+
+        return forLoop;
+    }
+
+    /// `whileLoop : WHILE LPAREN expression RPAREN LBRACE statement* RBRACE`
+    private Statement parseWhileLoop() {
+        int line = tokens.getLine(position);
+        SymbolTable.enterLoopScope();
+
+        expect(LigmaLexer.WHILE);
+        Expression condition = parseCondition(line);
+
+        WhileLoop whileLoop = new WhileLoop(condition, parseBlock());
+        whileLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+        SymbolTable.exitScope();
+
+        return whileLoop;
+    }
+
+    /// `doWhileLoop : DO LBRACE statement* RBRACE WHILE LPAREN expression RPAREN SEMICOLON`
+    private Statement parseDoWhileLoop() {
+        int line = tokens.getLine(position);
+        SymbolTable.enterLoopScope();
+
+        expect(LigmaLexer.DO);
+        List<Statement> statements = parseBlock();
+        expect(LigmaLexer.WHILE);
+        Expression condition = parseCondition(line);
+        expect(LigmaLexer.SEMICOLON);
+
+        DoWhileLoop doWhileLoop = new DoWhileLoop(statements, condition);
+        doWhileLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+        SymbolTable.exitScope();
+
+        return doWhileLoop;
+    }
+
+    /// `repeatUntilLoop : REPEAT LBRACE statement* RBRACE UNTIL LPAREN expression RPAREN SEMICOLON`
+    private Statement parseRepeatUntilLoop() {
+        int line = tokens.getLine(position);
+        SymbolTable.enterLoopScope();
+
+        expect(LigmaLexer.REPEAT);
+        List<Statement> statements = parseBlock();
+        expect(LigmaLexer.UNTIL);
+        Expression condition = parseCondition(line);
+        expect(LigmaLexer.SEMICOLON);
+
+        RepeatUntilLoop repeatUntilLoop = new RepeatUntilLoop(statements, condition);
+        repeatUntilLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+        SymbolTable.exitScope();
+
+        return repeatUntilLoop;
+    }
+
+    /// `breakStatement : BREAK SEMICOLON` or `continueStatement : CONTINUE SEMICOLON`
+    ///
+    /// @throws SemanticException If the statement is not in the body of a loop.
+    private Statement parseLoopJump() {
+        int line = tokens.getLine(position);
+        boolean isBreak = type == LigmaLexer.BREAK;
+        advance();
+        expect(LigmaLexer.SEMICOLON);
+
+        return SemanticAnalysis.createLoopJump(isBreak, line);
+    }
+
+    /// `LPAREN expression RPAREN` of a statement whose condition must be of boolean type.
+    ///
+    /// @param line the line of the statement
+    /// @throws SemanticException If the condition is not of boolean type.
+    private Expression parseCondition(int line) {
+        expect(LigmaLexer.LPAREN);
+        Expression condition = parseExpression();
+        expect(LigmaLexer.RPAREN);
+
+        SemanticAnalysis.checkCondition(condition, line);
+
+        return condition;
+    }
+
+    /// `LBRACE statement* RBRACE`
+    private List<Statement> parseBlock() {
+        expect(LigmaLexer.LBRACE);
+        List<Statement> statements = parseStatements();
+        expect(LigmaLexer.RBRACE);
+
+        return statements;
+    }
+
+    /// `callStatement : functionCall SEMICOLON`
+    private Statement parseFunctionCall() {
+        String identifier = parseIdentifier();
+        List<Expression> arguments = parseArguments();
+        expect(LigmaLexer.SEMICOLON);
+
+        FunctionCall functionCall = new FunctionCall(identifier, arguments);
+        functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+
+        return functionCall;
+    }
+
+    /// `LPAREN (expression (COMMA expression)*)? RPAREN`
+    private List<Expression> parseArguments() {
+        expect(LigmaLexer.LPAREN);
+        if (type == LigmaLexer.RPAREN) {
+            advance();
+            return new ArrayList<>();
+        }
+
+        List<Expression> arguments = new ArrayList<>();
+        arguments.add(parseExpression());
+        while (type == LigmaLexer.COMMA) {
+            advance();
+            arguments.add(parseExpression());
+        }
+        expect(LigmaLexer.RPAREN);
+
+        return arguments;
+    }
+
+    /// Declares the functions (adds their descriptors with the signatures to the symbol table), so that
+    /// they can be referenced by any function of the program before their bodies are analysed.
+    ///
+    /// The signatures are read from the tokens and the bodies are skipped by matching the braces. The scan
+    /// stops at the first function whose signature does not match the grammar, the syntax error is then
+    /// reported when the function is parsed.
+    private void declareFunctions() {
+        int index = position;
+
+        while (tokens.getType(index) == LigmaLexer.FUNCTION) {
+            DataType returnType = dataTypeAt(index + 1);
+            if (returnType == null || tokens.getType(index + 2) != LigmaLexer.IDENTIFIER
+                || tokens.getType(index + 3) != LigmaLexer.LPAREN) {
+                return;
+            }
+            String identifier = SymbolTable.intern(tokens.getText(index + 2));
+            index += 4;
+
+            List<FunctionParameter> parameters = new ArrayList<>();
+            while (tokens.getType(index) != LigmaLexer.RPAREN) {
+                DataType parameterType = dataTypeAt(index);
+                if (parameterType == null || tokens.getType(index + 1) != LigmaLexer.IDENTIFIER) {
+                    return;
+                }
+                parameters.add(new FunctionParameter(parameterType, SymbolTable.intern(tokens.getText(index + 1))));
+                index += 2;
+
+                if (tokens.getType(index) == LigmaLexer.COMMA) {
+                    index++;
+                } else if (tokens.getType(index) != LigmaLexer.RPAREN) {
+                    return;
+                }
+            }
+
+            index = skipBody(index + 1);
+            if (index < 0) {
+                return;
+            }
+
+            Descriptor descriptor = FunctionDescriptor.builder()
+                                                      .name(identifier)
+                                                      .type(returnType)
+                                                      .scopeLevel(SymbolTable.getLevel(identifier))
+                                                      .parameters(parameters)
+                                                      .build();
+
+            SymbolTable.add(identifier, descriptor);
+        }
+    }
+
+    /// Skips the body of a function.
+    ///
+    /// @param index the index of the opening brace
+    /// @return the index after the closing brace (-1 if the braces do not match)
+    private int skipBody(int index) {
+        if (tokens.getType(index) != LigmaLexer.LBRACE) {
+            return -1;
+        }
+
+        int depth = 0;
+        for (int i = index; i < tokens.size(); i++) {
+            switch (tokens.getType(i)) {
+                case LigmaLexer.LBRACE -> depth++;
+                case LigmaLexer.RBRACE -> {
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                }
+                default -> {
+                    // Other tokens of the body
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /// `functionDefinition : FUNCTION dataType IDENTIFIER LPAREN parameterList? RPAREN LBRACE functionBody RBRACE`
+    ///
+    /// @throws SemanticException If the type of the return expression does not match the return type.
+    private Function parseFunctionDefinition() {
+        int start = position;
+        expect(LigmaLexer.FUNCTION);
+        DataType returnType = parseDataType();
+        String identifier = parseIdentifier();
+        Trace.event(CompilerPhase.FRONT_END, "Function definition", () -> returnType + " " + identifier);
+
+        SymbolTable.enterScope(true);
+
+        List<FunctionParameter> parameters = new ArrayList<>();
+        expect(LigmaLexer.LPAREN);
+        if (type != LigmaLexer.RPAREN) {
+            parameters.add(parseParameter());
+            while (type == LigmaLexer.COMMA) {
+                advance();
+                parameters.add(parseParameter());
+            }
+        }
+        expect(LigmaLexer.RPAREN);
+
+        // functionBody : statement* RETURN expression SEMICOLON
+        expect(LigmaLexer.LBRACE);
+        List<Statement> statements = parseStatements();
+        expect(LigmaLexer.RETURN);
+        Expression returnExpr = parseExpression();
+        expect(LigmaLexer.SEMICOLON);
+        expect(LigmaLexer.RBRACE);
+
+        // Function's return type doesn't match the expression type
+        SemanticAnalysis.checkReturnType(returnType, returnExpr, tokens.getLine(start));
+
+        SymbolTable.exitScope();
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        return new Function(identifier, returnType, parameters, statements, returnExpr, positionOf(start));
+    }
+
+    /// `parameter : dataType IDENTIFIER` (the parameter is added to the symbol table)
+    private FunctionParameter parseParameter() {
+        DataType dataType = parseDataType();
+        String name = parseIdentifier();
+
+        SemanticAnalysis.declareVariable(name, dataType);
+
+        return new FunctionParameter(dataType, name);
+    }
+
+    /// Parses an expression.
+    private Expression parseExpression() {
+        return parseExpression(0);
+    }
+
+    /// Parses an expression whose binary operators have at least the given precedence.
+    ///
+    /// @param minPrecedence the lowest precedence of a binary operator which is a part of the expression
+    private Expression parseExpression(int minPrecedence) {
+        Expression left = parsePrefixExpression();
+
+        int precedence;
+        while ((precedence = binaryPrecedence(type)) > 0 && precedence >= minPrecedence) {
+            int operatorType = type;
+            Operator operator = Operator.fromSymbol(tokens.getText(position));
+            advance();
+
+            // All binary operators are left-associative
+            Expression right = parseExpression(precedence + 1);
+            Expression expression = createBinaryExpression(operatorType, operator, left, right);
+
+            // The expression starts where its left operand starts
+            expression.setPosition(left.getPosition());
+            CompilerMetrics.increment(MetricCounter.IR_NODES);
+            left = expression;
+        }
+
+        return left;
+    }
+
+    /// Parses a prefix operator with its operand or a primary expression.
+    private Expression parsePrefixExpression() {
+        int start = position;
+
+        Expression expression = switch (type) {
+            case LigmaLexer.SUB -> {
+                advance();
+                yield SemanticAnalysis.createUnaryMinus(parseExpression(UNARY_MINUS_PRECEDENCE), tokens.getLine(start));
+            }
+            case LigmaLexer.ADD -> {
+                advance();
+                yield SemanticAnalysis.createUnaryPlus(parseExpression(UNARY_PLUS_PRECEDENCE), tokens.getLine(start));
+            }
+            case LigmaLexer.NOT -> {
+                advance();
+                yield SemanticAnalysis.createNot(parseExpression(NOT_PRECEDENCE), tokens.getLine(start));
+            }
+            case LigmaLexer.LPAREN -> {
+                advance();
+                Expression inner = parseExpression();
+                expect(LigmaLexer.RPAREN);
+
+                yield new ParenthesizedExpression(inner, inner.getType());
+            }
+            case LigmaLexer.INTEGER_LITERAL -> new Literal(parseInteger());
+            case LigmaLexer.BOOLEAN_LITERAL -> {
+                boolean value = tokens.getLength(position) == 4;
+                advance();
+
+                yield new Literal(value);
+            }
+            case LigmaLexer.IDENTIFIER -> switch (tokens.getType(position + 1)) {
+                case LigmaLexer.LPAREN -> parseFunctionCallExpression();
+                case LigmaLexer.LBRACKET -> parseArrayAccessExpression();
+                default -> parseIdentifierExpression();
+            };
+            default -> throw syntaxError("expression");
+        };
+
+        expression.setPosition(positionOf(start));
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        return expression;
+    }
+
+    /// Parses an identifier in an expression.
+    ///
+    /// @throws SemanticException If the identifier is not declared.
+    private Expression parseIdentifierExpression() {
+        int line = tokens.getLine(position);
+        String identifier = parseIdentifier();
+
+        return SemanticAnalysis.createIdentifier(identifier, line);
+    }
+
+    /// `IDENTIFIER LBRACKET expression RBRACKET` in an expression.
+    ///
+    /// @throws SemanticException If the identifier is not a declared array or the index is not of type int.
+    private Expression parseArrayAccessExpression() {
+        int line = tokens.getLine(position);
+        String identifier = parseIdentifier();
+        expect(LigmaLexer.LBRACKET);
+        Expression index = parseExpression();
+        expect(LigmaLexer.RBRACKET);
+
+        return SemanticAnalysis.createArrayAccess(identifier, index, line);
+    }
+
+    /// `functionCall : IDENTIFIER LPAREN argumentList? RPAREN` in an expression.
+    private Expression parseFunctionCallExpression() {
+        String identifier = parseIdentifier();
+        List<Expression> arguments = parseArguments();
+
+        FunctionCallExpression functionCall = new FunctionCallExpression(DataType.INT, identifier, arguments);
+        functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+
+        return functionCall;
+    }
+
+    /// Creates the binary expression after checking the types of its operands.
+    ///
+    /// @throws SemanticException If the operand types do not match the expected types.
+    private static Expression createBinaryExpression(int operatorType, Operator operator, Expression left, Expression right) {
+        int line = left.getPosition().line();
+
+        return switch (operatorType) {
+            case LigmaLexer.POW -> SemanticAnalysis.createPower(left, right, line);
+            case LigmaLexer.MUL, LigmaLexer.DIV, LigmaLexer.MOD -> SemanticAnalysis.createMultiplicative(operator, left, right, line);
+            case LigmaLexer.ADD, LigmaLexer.SUB -> SemanticAnalysis.createAdditive(operator, left, right, line);
+            case LigmaLexer.AND, LigmaLexer.OR -> SemanticAnalysis.createLogical(operator, left, right, line);
+            default -> SemanticAnalysis.createComparison(operator, left, right, line);
+        };
+    }
+
+    /// Parses the value of an integer literal.
+    ///
+    /// @throws NumberFormatException If the value does not fit into an int (as by the visitor).
+    private int parseInteger() {
+        int value = Integer.parseInt(tokens.getText(position));
+        advance();
+
+        return value;
+    }
+
+    /// `dataType : INT | BOOLEAN`
+    private DataType parseDataType() {
+        DataType dataType = dataTypeAt(position);
+        if (dataType == null) {
+            throw syntaxError("data type");
+        }
+        advance();
+
+        return dataType;
+    }
+
+    /// Returns the data type of the token (`null` if it is not a data type).
+    private DataType dataTypeAt(int index) {
+        return switch (tokens.getType(index)) {
+            case LigmaLexer.INT -> DataType.INT;
+            case LigmaLexer.BOOLEAN -> DataType.BOOLEAN;
+            default -> null;
+        };
+    }
+
+    /// Matches an identifier.
+    ///
+    /// @return the interned name
+    private String parseIdentifier() {
+        if (type != LigmaLexer.IDENTIFIER) {
+            throw syntaxError(LigmaLexer.VOCABULARY.getDisplayName(LigmaLexer.IDENTIFIER));
+        }
+
+        String identifier = SymbolTable.intern(tokens.getText(position));
+        advance();
+
+        return identifier;
+    }
+
+    /// Matches a token of the given type.
+    private void expect(int tokenType) {
+        if (type != tokenType) {
+            throw syntaxError(LigmaLexer.VOCABULARY.getDisplayName(tokenType));
+        }
+        advance();
+    }
+
+    /// Moves to the next token (the end of the file is never passed).
+    private void advance() {
+        if (type != Token.EOF) {
+            type = tokens.getType(++position);
+        }
+    }
+
+    /// Returns whether the current token starts a statement.
+    private boolean isStatementStart() {
+        return switch (type) {
+            case LigmaLexer.INT, LigmaLexer.BOOLEAN, LigmaLexer.CONST, LigmaLexer.IDENTIFIER, LigmaLexer.IF,
+                 LigmaLexer.FOR, LigmaLexer.WHILE, LigmaLexer.DO, LigmaLexer.REPEAT, LigmaLexer.BREAK,
+                 LigmaLexer.CONTINUE -> true;
+            default -> false;
+        };
+    }
+
+    /// Returns the position of the token.
+    private SourcePosition positionOf(int index) {
+        return new SourcePosition(tokens.getLine(index), tokens.getColumn(index));
+    }
+
+    /// Creates the exception for the current token which does not match the grammar.
+    ///
+    /// @param expected the description of the expected token or construct
+    private SyntaxException syntaxError(String expected) {
+        // Reported only if the generated parser does not find the error (see #parse)
+        return new SyntaxException("Parsing failed: line " + tokens.getLine(position) + ":" + tokens.getColumn(position)
+            + " mismatched input '" + tokens.getText(position) + "' expecting " + expected);
+    }
+
+    /// Returns the precedence of the binary operator (0 if the token is not a binary operator).
+    private static int binaryPrecedence(int tokenType) {
+        return tokenType > 0 && tokenType < BINARY_PRECEDENCES.length ? BINARY_PRECEDENCES[tokenType] : 0;
+    }
+
+}
@@ -0,0 +1,533 @@
+package ligma.semantic;
+
+import ligma.enums.DataType;
+import ligma.enums.Operator;
+import ligma.exception.SemanticException;
+import ligma.ir.VariableAddress;
+import ligma.ir.expression.AdditiveExpression;
+import ligma.ir.expression.ArrayAccess;
+import ligma.ir.expression.ComparisonExpression;
+import ligma.ir.expression.ConstantEvaluator;
+import ligma.ir.expression.Expression;
+import ligma.ir.expression.FunctionCallExpression;
+import ligma.ir.expression.Identifier;
+import ligma.ir.expression.LogicalExpression;
+import ligma.ir.expression.MultiplicativeExpression;
+import ligma.ir.expression.NotExpression;
+import ligma.ir.expression.PowerExpression;
+import ligma.ir.expression.UnaryMinusExpression;
+import ligma.ir.expression.UnaryPlusExpression;
+import ligma.ir.function.Callable;
+import ligma.ir.statement.ArrayAssignment;
+import ligma.ir.statement.ArrayDefinition;
+import ligma.ir.statement.Assignment;
+import ligma.ir.statement.BreakStatement;
+import ligma.ir.statement.ConstantDefinition;
+import ligma.ir.statement.ContinueStatement;
+import ligma.ir.statement.Statement;
+import ligma.ir.statement.VariableDefinition;
+import ligma.table.Descriptor;
+import ligma.table.FunctionDescriptor;
+import ligma.table.SymbolTable;
+import ligma.table.VariableDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// The semantic checks of the language shared by the front ends (the visitors, the streaming listener and the
+/// hand-written parser). Each front end parses the construct in its own way and passes the analysed parts with
+/// the line of the construct, the checks report the errors with the same messages and update the symbol table.
+public final class SemanticAnalysis {
+
+    /// Private constructor to prevent instantiation
+    private SemanticAnalysis() {
+    }
+
+    /// Checks that the identifier is not defined in the current scope yet.
+    ///
+    /// @param identifier The name of the defined variable.
+    /// @param line The line of the definition.
+    /// @throws SemanticException If the identifier is already defined in the current scope.
+    public static void checkNotDefined(String identifier, int line) {
+        // Redeclaration of the same identifier in the current scope
+        if (SymbolTable.isIdentifierInCurrentScope(identifier)) {
+            throw new SemanticException(
+                "Variable '" + identifier + "' is already defined in the scope" +
+                " (line " + line + ")"
+            );
+        }
+    }
+
+    /// Checks the type of the variable (or constant) definition and adds the variable to the symbol table.
+    /// The redeclaration is checked by [#checkNotDefined] before the expression is analysed.
+    ///
+    /// @param identifier The name of the variable.
+    /// @param dataType The data type of the variable.
+    /// @param expression The initial value.
+    /// @param isConstant Whether the variable is constant or not.
+    /// @param line The line of the definition.
+    /// @return A VariableDefinition (or ConstantDefinition) statement with the resolved location of the variable.
+    /// @throws SemanticException If the type of the expression does not match the type of the variable.
+    public static Statement createVariableDefinition(
+        String identifier,
+        DataType dataType,
+        Expression expression,
+        boolean isConstant,
+        int line
+    ) {
+        // Type mismatch
+        if (!(expression instanceof FunctionCallExpression) && dataType != expression.getType()) {
+            throw new SemanticException(
+                "Cannot assign the value to the " + (isConstant ? "constant variable" : "variable") + " '" + identifier +
+                "': type mismatch [" + dataType + ", " + expression.getType() + "]" +
+                " (line " + line + ")"
+            );
+        }
+
+        // Add identifier with descriptor to the Symbol Table
+        VariableAddress address = addVariable(
+            identifier, dataType, isConstant, isConstant ? ConstantEvaluator.evaluate(expression) : null
+        );
+
+        if (isConstant) {
+            ConstantDefinition definition = new ConstantDefinition(identifier, dataType, expression);
+            definition.setAddress(address);
+            return definition;
+        }
+
+        VariableDefinition definition = new VariableDefinition(identifier, dataType, expression);
+        definition.setAddress(address);
+        return definition;
+    }
+
+    /// Checks the array definition and adds the array to the symbol table.
+    ///
+    /// @param identifier The name of the array.
+    /// @param dataType The data type of the elements.
+    /// @param lengthExpression The number of the elements.
+    /// @param line The line of the definition.
+    /// @return An ArrayDefinition statement with the resolved location of the first element.
+    /// @throws SemanticException If there is a redeclaration or the length is not a positive int known at compile time.
+    public static ArrayDefinition createArrayDefinition(String identifier, DataType dataType, Expression lengthExpression, int line) {
+        checkNotDefined(identifier, line);
+
+        // The elements are allocated in the scope, so the length must be known at compile time
+        Integer length = lengthExpression.getType() == DataType.INT ? ConstantEvaluator.evaluate(lengthExpression) : null;
+        if (length == null) {
+            throw new SemanticException(
+                "Length of the array '" + identifier + "' must be an int known at compile time" +
+                " (line " + line + ")"
+            );
+        }
+        if (length <= 0) {
+            throw new SemanticException(
+                "Length of the array '" + identifier + "' must be positive" +
+                " (line " + line + ")"
+            );
+        }
+
+        // Add identifier with descriptor to the Symbol Table
+        Descriptor descriptor = VariableDescriptor.builder()
+                                                  .name(identifier)
+                                                  .type(dataType)
+                                                  .length(length)
+                                                  .scopeLevel(SymbolTable.getLevel(identifier))
+                                                  .build();
+        SymbolTable.add(identifier, descriptor);
+
+        ArrayDefinition definition = new ArrayDefinition(identifier, dataType, length);
+        definition.setAddress(SymbolTable.resolve(identifier));
+        return definition;
+    }
+
+    /// Adds a variable which is not initialized by an expression (a parameter or the variable of a for loop)
+    /// to the symbol table.
+    ///
+    /// @param identifier The name of the variable.
+    /// @param dataType The data type of the variable.
+    /// @return The resolved location of the variable.
+    public static VariableAddress declareVariable(String identifier, DataType dataType) {
+        return addVariable(identifier, dataType, false, null);
+    }
+
+    /// Checks the targets of the (chained) assignment.
+    ///
+    /// @param identifiers All identifiers the value is assigned to.
+    /// @param expression The assigned value.
+    /// @param line The line of the assignment.
+    /// @return An Assignment statement with the resolved targets.
+    /// @throws SemanticException If reassignment to a constant or function occurs or if a type mismatch is found.
+    public static Assignment createAssignment(List<String> identifiers, Expression expression, int line) {
+        List<Identifier> targets = new ArrayList<>();
+        for (String iden : identifiers) {
+            Descriptor descriptor = SymbolTable.lookup(iden);
+
+            switch (descriptor) {
+                // Reassigment to constant is not allowed
+                case VariableDescriptor varDesc when varDesc.isConstant() ->
+                    throw new SemanticException(
+                        "Cannot assign new value to constant '" + varDesc.getName() + "'" +
+                        " (line " + line + ")"
+                    );
+                // Cannot assign value to a function
+                case FunctionDescriptor funcDesc ->
+                    throw new SemanticException(
+                        "Cannot assign new value to a function '" + funcDesc.getName() + "'" +
+                        " (line " + line + ")"
+                    );
+                // Identifier was not found in the traversed scopes
+                case null ->
+                    throw new SemanticException(
+                        "Variable " + iden + " was not declared yet" +
+                        " (line " + line + ")"
+                    );
+                // Only the elements of an array can be assigned
+                case VariableDescriptor varDesc when varDesc.isArray() ->
+                    throw new SemanticException(
+                        "Array '" + varDesc.getName() + "' must be indexed" +
+                        " (line " + line + ")"
+                    );
+                default -> {
+                    // Type mismatch
+                    if (!(expression instanceof Callable) && descriptor.getType() != expression.getType()) {
+                        throw new SemanticException(
+                            "Variable '" + iden + "' is not of type " + expression.getType() +
+                            " (line " + line + ")"
+                        );
+                    }
+                }
+            }
+
+            Identifier target = new Identifier(iden, descriptor.getType());
+            target.setAddress(SymbolTable.resolve(iden));
+            targets.add(target);
+        }
+
+        Assignment assignment = new Assignment(identifiers, expression);
+        assignment.setTargets(targets);
+
+        return assignment;
+    }
+
+    /// Checks the assignment to an element of an array.
+    ///
+    /// @param identifier The name of the array.
+    /// @param index The index of the element.
+    /// @param expression The assigned value.
+    /// @param line The line of the assignment.
+    /// @return An ArrayAssignment statement.
+    /// @throws SemanticException If the identifier is not an array, the index is not an int or a type mismatch is found.
+    public static ArrayAssignment createArrayAssignment(String identifier, Expression index, Expression expression, int line) {
+        Descriptor descriptor = SymbolTable.lookup(identifier);
+
+        switch (descriptor) {
+            // Cannot assign value to a function
+            case FunctionDescriptor funcDesc ->
+                throw new SemanticException("Cannot assign new value to a function '" + funcDesc.getName() + "' (line " + line + ")");
+            // Identifier was not found in the traversed scopes
+            case null -> throw new SemanticException("Variable " + identifier + " was not declared yet (line " + line + ")");
+            default -> {}
+        }
+
+        ArrayAccess target = createArrayAccess(identifier, descriptor, index, line);
+
+        // Type mismatch
+        if (!(expression instanceof Callable) && target.getType() != expression.getType()) {
+            throw new SemanticException(
+                "Elements of the array '" + identifier + "' are not of type " + expression.getType() +
+                " (line " + line + ")"
+            );
+        }
+
+        return new ArrayAssignment(target, expression);
+    }
+
+    /// Checks that the condition of a statement is of boolean type.
+    ///
+    /// @param condition The condition.
+    /// @param line The line of the statement.
+    /// @throws SemanticException If the condition is not of boolean type.
+    public static void checkCondition(Expression condition, int line) {
+        if (condition.getType() != DataType.BOOLEAN) {
+            throw new SemanticException(
+                "Condition must be a boolean type" +
+                " (line " + line + ")"
+            );
+        }
+    }
+
+    /// Checks that the initialization expression and the range of a for loop are of type int.
+    ///
+    /// @param expression The initialization expression.
+    /// @param toExpression The range.
+    /// @param line The line of the loop.
+    /// @throws SemanticException If the initialization or range expressions are not of type integer.
+    public static void checkForLoopRange(Expression expression, Expression toExpression, int line) {
+        // For loop initialization expression must be of type int
+        if (expression.getType() != DataType.INT) {
+            throw new SemanticException(
+                "For loop initialization expression must be of type int" +
+                " (line " + line + ")"
+            );
+        }
+        // For loop range must be of type int
+        if (toExpression.getType() != DataType.INT) {
+            throw new SemanticException(
+                "For loop range must be of type int" +
+                " (line " + line + ")"
+            );
+        }
+    }
+
+    /// Checks that the break or continue statement is in the body of a loop.
+    ///
+    /// @param isBreak Whether the statement is a break statement (a continue statement otherwise).
+    /// @param line The line of the statement.
+    /// @return A BreakStatement or ContinueStatement statement.
+    /// @throws SemanticException If the statement is not in a loop.
+    public static Statement createLoopJump(boolean isBreak, int line) {
+        if (!SymbolTable.isInLoop()) {
+            throw new SemanticException((isBreak ? "Break" : "Continue") + " statement must be inside a loop (line " + line + ")");
+        }
+
+        return isBreak ? new BreakStatement() : new ContinueStatement();
+    }
+
+    /// Checks that the type of the return expression matches the return type of the function.
+    ///
+    /// @param returnType The return type of the function.
+    /// @param returnExpr The return expression.
+    /// @param line The line of the function definition.
+    /// @throws SemanticException If the type of the return expression does not match the return type.
+    public static void checkReturnType(DataType returnType, Expression returnExpr, int line) {
+        // Function's return type doesn't match the expression type
+        if (returnExpr.getType() != returnType) {
+            throw new SemanticException(
+                "Function's return type is: " + returnType.name().toLowerCase() +
+                ", but the provided type was: " + returnExpr.getType().name().toLowerCase() +
+                " (line " + line + ")"
+            );
+        }
+    }
+
+    /// Checks the operands of a power expression (exponentiation).
+    ///
+    /// @throws SemanticException If either operand is not of type int.
+    public static Expression createPower(Expression left, Expression right, int line) {
+        if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
+            throw new SemanticException("Cannot apply the 'pow' operation to non-int type (line " + line + ")");
+        }
+
+        return new PowerExpression(Operator.POW, left, right, DataType.INT);
+    }
+
+    /// Checks the operand of a unary minus expression.
+    ///
+    /// @throws SemanticException If the operand is not of type int.
+    public static Expression createUnaryMinus(Expression operand, int line) {
+        if (operand.getType() != DataType.INT) {
+            throw new SemanticException("Cannot apply the 'unary minus' operation to non-int type (line " + line + ")");
+        }
+
+        return new UnaryMinusExpression(Operator.SUB, operand, DataType.INT);
+    }
+
+    /// Checks the operand of a unary plus expression.
+    ///
+    /// @throws SemanticException If the operand is not of type int.
+    public static Expression createUnaryPlus(Expression operand, int line) {
+        if (operand.getType() != DataType.INT) {
+            throw new SemanticException(
+                "Cannot apply the 'unary plus' operation to non-int type" +
+                " (line " + line + ")"
+            );
+        }
+
+        return new UnaryPlusExpression(Operator.ADD, operand, DataType.INT);
+    }
+
+    /// Checks the operand of a logical NOT expression.
+    ///
+    /// @throws SemanticException If the operand is not of type boolean.
+    public static Expression createNot(Expression operand, int line) {
+        if (operand.getType() != DataType.BOOLEAN) {
+            throw new SemanticException(
+                "Cannot negate non-boolean type: " + operand.getType() +
+                " (line " + line + ")"
+            );
+        }
+
+        return new NotExpression(Operator.NOT, operand, operand.getType());
+    }
+
+    /// Checks the operands of a multiplicative expression (multiplication, division or modulo).
+    ///
+    /// @throws SemanticException If either operand is not of type int.
+    public static Expression createMultiplicative(Operator operator, Expression left, Expression right, int line) {
+        checkIntOperands(operator, left, right, line);
+
+        return new MultiplicativeExpression(operator, left, right, DataType.INT);
+    }
+
+    /// Checks the operands of an additive expression (addition or subtraction).
+    ///
+    /// @throws SemanticException If either operand is not of type int.
+    public static Expression createAdditive(Operator operator, Expression left, Expression right, int line) {
+        checkIntOperands(operator, left, right, line);
+
+        return new AdditiveExpression(operator, left, right, DataType.INT);
+    }
+
+    /// Checks the operands of a comparison expression (e.g., ==, !=, <, >, <=, >=).
+    ///
+    /// @throws SemanticException If the operand types do not match the expected types.
+    public static Expression createComparison(Operator operator, Expression left, Expression right, int line) {
+        // ==, !=
+        if (operator == Operator.EQ || operator == Operator.NEQ) {
+            // Both expressions need to be of the same data type
+            if (!left.getType().equals(right.getType())) {
+                throw new SemanticException(
+                    "Cannot evaluate comparison: " + operator.getSymbol() +
+                    " for non-matching types [" + left.getType() + ", " + right.getType() + "]" +
+                    " (line " + line + ")"
+                );
+            }
+        }
+        // >, <, >=, <=
+        else if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
+            throw new SemanticException(
+                "Cannot apply the operation to non-int type" +
+                " (line " + line + ")"
+            );
+        }
+
+        // Data type of the comparison expression is always boolean
+        return new ComparisonExpression(operator, left, right, DataType.BOOLEAN);
+    }
+
+    /// Checks the operands of a logical expression (AND, OR).
+    ///
+    /// @throws SemanticException If either operand is not of type boolean.
+    public static Expression createLogical(Operator operator, Expression left, Expression right, int line) {
+        // Both expressions must be of type boolean
+        if (left.getType() != DataType.BOOLEAN || right.getType() != DataType.BOOLEAN) {
+            throw new SemanticException(
+                "Cannot evaluate logical expression with non-boolean types" +
+                " (line " + line + ")"
+            );
+        }
+
+        // Data type of the logical expression is always boolean
+        return new LogicalExpression(operator, left, right, DataType.BOOLEAN);
+    }
+
+    /// Checks the identifier in an expression (variable reference).
+    ///
+    /// @param identifier The name of the variable.
+    /// @param line The line of the expression.
+    /// @return An Identifier with the resolved location of the variable.
+    /// @throws SemanticException If the identifier is not declared or it is an array.
+    public static Identifier createIdentifier(String identifier, int line) {
+        Descriptor descriptor = SymbolTable.lookup(identifier);
+
+        if (descriptor == null) {
+            throw new SemanticException(
+                "Identifier: " + identifier + " was not declared" +
+                " (line " + line + ")"
+            );
+        }
+        // An array is only accessed by its elements
+        if (descriptor instanceof VariableDescriptor variableDescriptor && variableDescriptor.isArray()) {
+            throw new SemanticException("Array '" + identifier + "' must be indexed (line " + line + ")");
+        }
+
+        Identifier identifierExpression = new Identifier(identifier, descriptor.getType());
+        identifierExpression.setAddress(SymbolTable.resolve(identifier));
+        // The value of a constant is known at compile time (the generator prunes the branches depending on it)
+        if (descriptor instanceof VariableDescriptor variableDescriptor) {
+            identifierExpression.setConstantValue(variableDescriptor.getConstantValue());
+        }
+
+        return identifierExpression;
+    }
+
+    /// Checks the access to an element of an array in an expression.
+    ///
+    /// @param identifier The name of the array.
+    /// @param index The index of the element.
+    /// @param line The line of the expression.
+    /// @return An ArrayAccess with the resolved location of the array.
+    /// @throws SemanticException If the identifier is not a declared array or the index is not of type int.
+    public static ArrayAccess createArrayAccess(String identifier, Expression index, int line) {
+        Descriptor descriptor = SymbolTable.lookup(identifier);
+
+        if (descriptor == null) {
+            throw new SemanticException(
+                "Identifier: " + identifier + " was not declared" +
+                " (line " + line + ")"
+            );
+        }
+
+        return createArrayAccess(identifier, descriptor, index, line);
+    }
+
+    /// Creates the access to an element of an array.
+    ///
+    /// @param identifier The name of the array.
+    /// @param descriptor The descriptor of the identifier.
+    /// @param index The index of the element.
+    /// @param line The line of the access.
+    /// @return The access to the element with the resolved location of the array.
+    /// @throws SemanticException If the identifier is not an array or the index is not of type int.
+    private static ArrayAccess createArrayAccess(String identifier, Descriptor descriptor, Expression index, int line) {
+        if (!(descriptor instanceof VariableDescriptor variableDescriptor) || !variableDescriptor.isArray()) {
+            throw new SemanticException("Identifier '" + identifier + "' is not an array (line " + line + ")");
+        }
+        if (index.getType() != DataType.INT) {
+            throw new SemanticException("Index of the array '" + identifier + "' must be of type int (line " + line + ")");
+        }
+
+        ArrayAccess access = new ArrayAccess(identifier, index, descriptor.getType());
+        access.setAddress(SymbolTable.resolve(identifier));
+        access.setLength(variableDescriptor.getLength());
+
+        return access;
+    }
+
+    /// Checks that both operands of an arithmetic operation are of type int.
+    ///
+    /// @throws SemanticException If either operand is not of type int.
+    private static void checkIntOperands(Operator operator, Expression left, Expression right, int line) {
+        if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
+            throw new SemanticException(
+                "Cannot apply the '" + operator.getSymbol() + "' operation to non-int type" +
+                " (line " + line + ")"
+            );
+        }
+    }
+
+    /// Adds a variable to the symbol table.
+    ///
+    /// @param identifier The name of the variable.
+    /// @param dataType The data type of the variable.
+    /// @param isConstant Whether the variable is constant or not.
+    /// @param constantValue The value of the constant known at compile time (`null` if it is not known).
+    /// @return The resolved location of the variable.
+    private static VariableAddress addVariable(String identifier, DataType dataType, boolean isConstant, Integer constantValue) {
+        Descriptor descriptor = VariableDescriptor.builder()
+                                                  .name(identifier)
+                                                  .type(dataType)
+                                                  .isConstant(isConstant)
+                                                  .constantValue(constantValue)
+                                                  .scopeLevel(SymbolTable.getLevel(identifier))
+                                                  .build();
+
+        SymbolTable.add(identifier, descriptor);
+
+        return SymbolTable.resolve(identifier);
+    }
+
+}
@@ -0,0 +1,584 @@
+package ligma.synthetic;
+
+import ligma.enums.DataType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Generates random, but valid (syntactically and semantically) Ligma programs of any size.
+///
+/// The programs are meant for scale tests and benchmarks of the compiler, the generation is driven
+/// by [SynthesizerOptions] and is fully deterministic for the given seed. Every generated program
+/// also terminates when executed:
+/// - all loops have a constant number of iterations (the loop counters are never assigned in the body),
+/// - the call graph of the functions is acyclic,
+/// - the functions use only their parameters and local variables,
+///   every callee is called at most once in the body of its caller and never inside a loop,
+/// - divisions use only non-zero literals as divisors.
+public class ProgramSynthesizer {
+
+    /// Indentation of one nesting level.
+    private static final String INDENT = "    ";
+    /// Operators of the arithmetic expressions with two int operands.
+    private static final String[] ARITHMETIC_OPERATORS = {"+", "-", "*"};
+    /// Operators of the comparisons of two int operands.
+    private static final String[] COMPARISON_OPERATORS = {"==", "!=", "<", ">", "<=", ">="};
+
+    /// Options of the generation.
+    private final SynthesizerOptions options;
+    /// Random generator seeded by the options.
+    private final Random random;
+    /// The generated source code.
+    private final StringBuilder source = new StringBuilder();
+    /// Variables visible in the generated code by their type.
+    private final Map<DataType, List<Variable>> variables = new EnumMap<>(DataType.class);
+    /// Variables visible in the generated code which can be assigned by their type.
+    private final Map<DataType, List<Variable>> assignableVariables = new EnumMap<>(DataType.class);
+    /// Number of visible variables when the blocks around the generated code were entered.
+    private final Deque<Map<DataType, int[]>> scopes = new ArrayDeque<>();
+
+    /// Signatures of all functions.
+    private final List<Signature> signatures = new ArrayList<>();
+    /// Functions called by every function (indexed by the function).
+    private final List<List<Integer>> callees = new ArrayList<>();
+
+    /// Functions which can be called from the generated code.
+    private List<Integer> callableFunctions;
+    /// Callees already called in the body of the generated function (`null` in the main program).
+    private Set<Integer> calledFunctions;
+    /// Number of loops around the generated code.
+    private int loopDepth;
+    /// Number of statements which can still be generated.
+    private int remainingStatements;
+    /// Counter used to create unique identifiers.
+    private int identifierCounter;
+
+    public ProgramSynthesizer(SynthesizerOptions options) {
+        this.options = options;
+        this.random = new Random(options.getSeed());
+
+        for (DataType type : DataType.values()) {
+            variables.put(type, new ArrayList<>());
+            assignableVariables.put(type, new ArrayList<>());
+        }
+    }
+
+    /// Generates a program.
+    ///
+    /// @param options the options of the generation
+    /// @return the source code of the program
+    public static String synthesize(SynthesizerOptions options) {
+        return new ProgramSynthesizer(options).synthesize();
+    }
+
+    /// Generates the program (can be called only once).
+    ///
+    /// @return the source code of the program
+    public String synthesize() {
+        planFunctions();
+
+        // Main program (at least one statement is required by the grammar)
+        List<Integer> allFunctions = new ArrayList<>();
+        for (int i = 0; i < signatures.size(); i++) {
+            allFunctions.add(i);
+        }
+
+        callableFunctions = allFunctions;
+        calledFunctions = null;
+        remainingStatements = Math.max(1, options.getStatements());
+
+        enterScope();
+        while (remainingStatements > 0) {
+            statement(0, 0);
+        }
+        exitScope();
+
+        // Function definitions
+        for (int i = 0; i < signatures.size(); i++) {
+            function(i);
+        }
+
+        return source.toString();
+    }
+
+    /// Creates the signatures of the functions and their call graph.
+    private void planFunctions() {
+        int count = Math.max(0, options.getFunctions());
+
+        for (int i = 0; i < count; i++) {
+            DataType returnType = random.nextInt(4) == 0 ? DataType.BOOLEAN : DataType.INT;
+
+            List<Variable> parameters = new ArrayList<>();
+            int parameterCount = random.nextInt(4);
+            for (int j = 0; j < parameterCount; j++) {
+                parameters.add(new Variable("p" + identifierCounter++, randomType(), true));
+            }
+
+            signatures.add(new Signature("f" + i, returnType, parameters));
+            callees.add(new ArrayList<>());
+        }
+
+        for (int i = 1; i < count; i++) {
+            switch (options.getCallGraph()) {
+                case NONE -> {
+                }
+                case CHAIN -> callees.get(i - 1).add(i);
+                case TREE -> callees.get((i - 1) / 2).add(i);
+                case RANDOM -> callees.get(random.nextInt(i)).add(i);
+            }
+        }
+    }
+
+    /// Generates the definition of the function.
+    ///
+    /// @param index the index of the function
+    private void function(int index) {
+        Signature signature = signatures.get(index);
+
+        source.append("\nfunc ").append(typeName(signature.returnType())).append(' ').append(signature.name()).append('(');
+        for (int i = 0; i < signature.parameters().size(); i++) {
+            Variable parameter = signature.parameters().get(i);
+            source.append(i > 0 ? ", " : "").append(typeName(parameter.type())).append(' ').append(parameter.name());
+        }
+        source.append(") {\n");
+
+        callableFunctions = callees.get(index);
+        calledFunctions = new HashSet<>();
+        remainingStatements = Math.max(0, options.getFunctionStatements());
+
+        // Only parameters and local variables are visible in the function
+        enterScope();
+        signature.parameters().forEach(this::declare);
+
+        while (remainingStatements > 0) {
+            statement(1, 0);
+        }
+
+        // Call all remaining callees, so that the whole call graph is used
+        for (int callee : callableFunctions) {
+            if (!calledFunctions.contains(callee)) {
+                indent(1);
+                source.append(call(callee)).append(";\n");
+            }
+        }
+
+        indent(1);
+        source.append("return ").append(expression(signature.returnType(), options.getExpressionSize())).append(";\n");
+        source.append("}\n");
+
+        exitScope();
+    }
+
+    /// Generates a random statement.
+    ///
+    /// @param indentation the indentation level of the statement
+    /// @param depth the nesting depth of the statement
+    private void statement(int indentation, int depth) {
+        remainingStatements--;
+
+        boolean compound = depth < options.getMaxDepth() && remainingStatements > 0 && random.nextInt(4) == 0;
+        if (compound) {
+            switch (random.nextInt(6)) {
+                case 0 -> ifStatement(indentation, depth, false);
+                case 1 -> ifStatement(indentation, depth, true);
+                case 2 -> forLoop(indentation, depth);
+                case 3 -> whileLoop(indentation, depth);
+                case 4 -> doWhileLoop(indentation, depth);
+                default -> repeatUntilLoop(indentation, depth);
+            }
+            return;
+        }
+
+        switch (random.nextInt(10)) {
+            case 0, 1, 2 -> variableDefinition(indentation, false);
+            case 3 -> variableDefinition(indentation, true);
+            case 4, 5, 6, 7 -> assignment(indentation, false);
+            case 8 -> assignment(indentation, true);
+            default -> functionCall(indentation);
+        }
+    }
+
+    /// Generates a (constant) variable definition.
+    private void variableDefinition(int indentation, boolean constant) {
+        DataType type = randomType();
+        String value = assignedValue(type);
+        Variable variable = new Variable("v" + identifierCounter++, type, !constant);
+
+        indent(indentation);
+        source.append(constant ? "const " : "").append(typeName(type)).append(' ').append(variable.name())
+              .append(" = ").append(value).append(";\n");
+
+        declare(variable);
+    }
+
+    /// Generates an assignment (or a variable definition if there is no assignable variable).
+    private void assignment(int indentation, boolean chained) {
+        List<Variable> targets = assignableVariables.get(randomType());
+
+        if (targets.isEmpty()) {
+            variableDefinition(indentation, false);
+            return;
+        }
+
+        Variable target = targets.get(random.nextInt(targets.size()));
+
+        indent(indentation);
+        source.append(target.name()).append(" = ");
+
+        if (chained && targets.size() > 1) {
+            Variable second = targets.get(random.nextInt(targets.size()));
+            if (second != target) {
+                source.append(second.name()).append(" = ");
+            }
+        }
+
+        source.append(assignedValue(target.type())).append(";\n");
+    }
+
+    /// Generates a function call statement (or an assignment if no function can be called).
+    private void functionCall(int indentation) {
+        List<Integer> functions = availableFunctions(null);
+
+        if (functions.isEmpty()) {
+            assignment(indentation, false);
+            return;
+        }
+
+        indent(indentation);
+        source.append(call(functions.get(random.nextInt(functions.size())))).append(";\n");
+    }
+
+    /// Generates a condition (with an optional else branch).
+    private void ifStatement(int indentation, int depth, boolean withElse) {
+        indent(indentation);
+        source.append("if (").append(expression(DataType.BOOLEAN, options.getExpressionSize())).append(") {\n");
+        block(indentation, depth);
+
+        if (withElse) {
+            indent(indentation);
+            source.append("} else {\n");
+            block(indentation, depth);
+        }
+
+        indent(indentation);
+        source.append("}\n");
+    }
+
+    /// Generates a for loop.
+    private void forLoop(int indentation, int depth) {
+        Variable counter = new Variable("i" + identifierCounter++, DataType.INT, false);
+
+        indent(indentation);
+        source.append("for (int ").append(counter.name()).append(" = 0 to ").append(loopIterations()).append(") {\n");
+
+        loopDepth++;
+        enterScope();
+        declare(counter);
+        statements(indentation + 1, depth + 1);
+        exitScope();
+        loopDepth--;
+
+        indent(indentation);
+        source.append("}\n");
+    }
+
+    /// Generates a while loop (preceded by the definition of its counter).
+    private void whileLoop(int indentation, int depth) {
+        String counter = loopCounter(indentation);
+
+        indent(indentation);
+        source.append("while (").append(counter).append(" < ").append(loopIterations()).append(") {\n");
+        loopBody(indentation, depth, counter);
+        indent(indentation);
+        source.append("}\n");
+    }
+
+    /// Generates a do-while loop (preceded by the definition of its counter).
+    private void doWhileLoop(int indentation, int depth) {
+        String counter = loopCounter(indentation);
+
+        indent(indentation);
+        source.append("do {\n");
+        loopBody(indentation, depth, counter);
+        indent(indentation);
+        source.append("} while (").append(counter).append(" < ").append(loopIterations()).append(");\n");
+    }
+
+    /// Generates a repeat-until loop (preceded by the definition of its counter).
+    private void repeatUntilLoop(int indentation, int depth) {
+        String counter = loopCounter(indentation);
+
+        indent(indentation);
+        source.append("repeat {\n");
+        loopBody(indentation, depth, counter);
+        indent(indentation);
+        source.append("} until (").append(counter).append(" >= ").append(loopIterations()).append(");\n");
+    }
+
+    /// Generates the definition of a loop counter (which cannot be assigned by the generated statements).
+    ///
+    /// @return the name of the counter
+    private String loopCounter(int indentation) {
+        String counter = "c" + identifierCounter++;
+
+        indent(indentation);
+        source.append("int ").append(counter).append(" = 0;\n");
+        declare(new Variable(counter, DataType.INT, false));
+
+        return counter;
+    }
+
+    /// Generates the body of a loop ending with the increment of the loop counter.
+    private void loopBody(int indentation, int depth, String counter) {
+        loopDepth++;
+        enterScope();
+        statements(indentation + 1, depth + 1);
+        exitScope();
+        loopDepth--;
+
+        indent(indentation + 1);
+        source.append(counter).append(" = ").append(counter).append(" + 1;\n");
+    }
+
+    /// Generates a block of statements in a new scope.
+    private void block(int indentation, int depth) {
+        enterScope();
+        statements(indentation + 1, depth + 1);
+        exitScope();
+    }
+
+    /// Generates one to three statements (limited by the remaining statements).
+    private void statements(int indentation, int depth) {
+        int count = Math.min(1 + random.nextInt(3), remainingStatements);
+
+        for (int i = 0; i < count; i++) {
+            statement(indentation, depth);
+        }
+    }
+
+    /// Generates the value assigned to a variable of the given type,
+    /// it is either an expression or a call of a function returning the type.
+    private String assignedValue(DataType type) {
+        List<Integer> functions = availableFunctions(type);
+
+        if (!functions.isEmpty() && random.nextInt(5) == 0) {
+            return call(functions.get(random.nextInt(functions.size())));
+        }
+
+        return expression(type, options.getExpressionSize());
+    }
+
+    /// Generates an expression of the given type.
+    ///
+    /// @param type the type of the expression
+    /// @param size the maximum number of operators
+    /// @return the expression
+    private String expression(DataType type, int size) {
+        return type == DataType.INT ? intExpression(size) : booleanExpression(size);
+    }
+
+    /// Generates an int expression with at most `size` operators.
+    private String intExpression(int size) {
+        if (size <= 0 || random.nextInt(size + 1) == 0) {
+            return intOperand();
+        }
+
+        int left = random.nextInt(size);
+        int right = size - 1 - left;
+
+        return switch (random.nextInt(8)) {
+            case 0, 1, 2, 3 -> wrap(intExpression(left)) + " " + pick(ARITHMETIC_OPERATORS) + " " + wrap(intExpression(right));
+            case 4 -> wrap(intExpression(size - 1)) + (random.nextBoolean() ? " / " : " % ") + (1 + random.nextInt(9));
+            case 5 -> wrap(intExpression(size - 1)) + " ^ " + random.nextInt(3);
+            case 6 -> "-" + wrap(intExpression(size - 1));
+            default -> "(" + intExpression(size - 1) + ")";
+        };
+    }
+
+    /// Generates a boolean expression with at most `size` operators.
+    private String booleanExpression(int size) {
+        if (size <= 0 || random.nextInt(size + 1) == 0) {
+            return booleanOperand();
+        }
+
+        int left = random.nextInt(size);
+        int right = size - 1 - left;
+
+        return switch (random.nextInt(7)) {
+            case 0, 1, 2 -> wrap(intExpression(left)) + " " + pick(COMPARISON_OPERATORS) + " " + wrap(intExpression(right));
+            case 3 -> wrap(booleanExpression(left)) + (random.nextBoolean() ? " == " : " != ") + wrap(booleanExpression(right));
+            case 4, 5 -> wrap(booleanExpression(left)) + (random.nextBoolean() ? " && " : " || ") + wrap(booleanExpression(right));
+            default -> "!" + wrap(booleanExpression(size - 1));
+        };
+    }
+
+    /// Generates an int literal, variable or function call.
+    private String intOperand() {
+        List<Integer> functions = availableFunctions(DataType.INT);
+        if (!functions.isEmpty() && random.nextInt(6) == 0) {
+            return call(functions.get(random.nextInt(functions.size())));
+        }
+
+        List<Variable> intVariables = variables.get(DataType.INT);
+        if (!intVariables.isEmpty() && random.nextInt(3) > 0) {
+            return intVariables.get(random.nextInt(intVariables.size())).name();
+        }
+
+        return String.valueOf(random.nextInt(100));
+    }
+
+    /// Generates a boolean literal or variable.
+    private String booleanOperand() {
+        List<Variable> booleanVariables = variables.get(DataType.BOOLEAN);
+        if (!booleanVariables.isEmpty() && random.nextInt(3) > 0) {
+            return booleanVariables.get(random.nextInt(booleanVariables.size())).name();
+        }
+
+        return random.nextBoolean() ? "true" : "false";
+    }
+
+    /// Generates a call of the function (with random arguments).
+    ///
+    /// @param index the index of the function
+    /// @return the call without the semicolon
+    private String call(int index) {
+        if (calledFunctions != null) {
+            calledFunctions.add(index);
+        }
+
+        Signature signature = signatures.get(index);
+        StringBuilder call = new StringBuilder(signature.name()).append('(');
+
+        for (int i = 0; i < signature.parameters().size(); i++) {
+            call.append(i > 0 ? ", " : "").append(expression(signature.parameters().get(i).type(), 2));
+        }
+
+        return call.append(')').toString();
+    }
+
+    /// Returns the functions which can be called from the generated code.
+    ///
+    /// @param returnType the required return type (`null` for any type)
+    /// @return indexes of the functions
+    private List<Integer> availableFunctions(DataType returnType) {
+        List<Integer> functions = new ArrayList<>();
+
+        // Functions call their callees at most once and never inside a loop
+        if (calledFunctions != null && loopDepth > 0) {
+            return functions;
+        }
+
+        for (int index : callableFunctions) {
+            boolean typeMatches = returnType == null || signatures.get(index).returnType() == returnType;
+            boolean notCalled = calledFunctions == null || !calledFunctions.contains(index);
+
+            if (typeMatches && notCalled) {
+                functions.add(index);
+            }
+        }
+
+        return functions;
+    }
+
+    /// Makes the variable visible until the end of the current block.
+    private void declare(Variable variable) {
+        variables.get(variable.type()).add(variable);
+
+        if (variable.assignable()) {
+            assignableVariables.get(variable.type()).add(variable);
+        }
+    }
+
+    /// Enters a block, the variables declared in it are visible until the block is exited.
+    private void enterScope() {
+        Map<DataType, int[]> sizes = new EnumMap<>(DataType.class);
+
+        for (DataType type : DataType.values()) {
+            sizes.put(type, new int[]{variables.get(type).size(), assignableVariables.get(type).size()});
+        }
+
+        scopes.push(sizes);
+    }
+
+    /// Exits the current block and forgets the variables declared in it.
+    private void exitScope() {
+        Map<DataType, int[]> sizes = scopes.pop();
+
+        for (DataType type : DataType.values()) {
+            truncate(variables.get(type), sizes.get(type)[0]);
+            truncate(assignableVariables.get(type), sizes.get(type)[1]);
+        }
+    }
+
+    /// Removes the elements of the list after the given size.
+    private static void truncate(List<Variable> list, int size) {
+        list.subList(size, list.size()).clear();
+    }
+
+    /// Wraps the expression in parentheses unless it is a single operand.
+    private static String wrap(String expression) {
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return "(" + expression + ")";
+            }
+        }
+
+        return expression;
+    }
+
+    /// Returns a random number of loop iterations (at least one).
+    private int loopIterations() {
+        return 1 + random.nextInt(Math.max(1, options.getMaxLoopIterations()));
+    }
+
+    /// Returns a random data type (int is more likely).
+    private DataType randomType() {
+        return random.nextInt(3) == 0 ? DataType.BOOLEAN : DataType.INT;
+    }
+
+    /// Returns a random element of the array.
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /// Appends the indentation of the given level.
+    private void indent(int indentation) {
+        source.append(INDENT.repeat(indentation));
+    }
+
+    /// Returns the keyword of the data type.
+    private static String typeName(DataType type) {
+        return type.name().toLowerCase();
+    }
+
+    /// A variable visible in the generated code.
+    ///
+    /// @param name The name of the variable.
+    /// @param type The type of the variable.
+    /// @param assignable Whether the variable can be assigned (constants and loop counters cannot).
+    private record Variable(String name, DataType type, boolean assignable) {
+
+    }
+
+    /// A signature of a generated function.
+    ///
+    /// @param name The name of the function.
+    /// @param returnType The return type of the function.
+    /// @param parameters The parameters of the function.
+    private record Signature(String name, DataType returnType, List<Variable> parameters) {
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package ligma.synthetic;
+
+import ligma.enums.CallGraphShape;
+import lombok.Builder;
+import lombok.Getter;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Options of the [ProgramSynthesizer].
+@Getter
+@Builder(toBuilder = true)
+public class SynthesizerOptions {
+
+    /// Seed of the random generator (the same options always produce the same program).
+    @Builder.Default
+    private final long seed = 1;
+    /// Number of statements of the main program (including the nested ones).
+    @Builder.Default
+    private final int statements = 100;
+    /// Maximum nesting depth of the conditions and loops.
+    @Builder.Default
+    private final int maxDepth = 3;
+    /// Number of defined functions.
+    @Builder.Default
+    private final int functions = 5;
+    /// Number of statements in the body of every function.
+    @Builder.Default
+    private final int functionStatements = 5;
+    /// Shape of the call graph of the functions.
+    @Builder.Default
+    private final CallGraphShape callGraph = CallGraphShape.TREE;
+    /// Maximum number of operators in an expression.
+    @Builder.Default
+    private final int expressionSize = 6;
+    /// Maximum number of iterations of every loop.
+    @Builder.Default
+    private final int maxLoopIterations = 3;
+
+}
@@ -23,4 +23,9 @@ public abstract class Descriptor {
     /// Relative Address (to the current scope) in stack.
     private int addres;
 
+    /// Returns the number of the stack cells occupied by the identifier.
+    public int getSize() {
+        return 1;
+    }
+
 }
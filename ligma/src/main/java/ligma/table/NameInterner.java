@@ -0,0 +1,29 @@
+package ligma.table;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Interner of the identifiers of one compilation.
+///
+/// The text of a token is a new string every time it is read, so every IR node would keep its own copy of
+/// the name. The interner returns one shared instance per name instead. It is shared by the tasks analysing
+/// the functions in parallel, so it is thread-safe.
+class NameInterner {
+
+    /// Shared instances of the names.
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    /// Returns the shared instance of the name.
+    ///
+    /// @param name the name
+    /// @return the instance equal to the name which is returned for all equal names
+    String intern(String name) {
+        String interned = names.putIfAbsent(name, name);
+
+        return interned != null ? interned : name;
+    }
+
+}
@@ -0,0 +1,217 @@
+package ligma.table;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Flat representation of the nested scopes of the symbol table.
+///
+/// Every identifier is interned to a symbol id, the innermost visible binding of every symbol is kept in
+/// an array indexed by the id. A new binding is also pushed to the undo log, which is unwound down to the
+/// start of the scope when the scope is exited (restoring the shadowed bindings). So a lookup is one hash
+/// lookup of the interned id and entering a scope does not allocate any map.
+///
+/// A stack can be built on top of a scope of another (base) stack, which is then read by the lookups that
+/// do not find a binding in this stack. The base stack must not be modified while it is used this way.
+class ScopeStack {
+
+    /// Initial capacity of the arrays.
+    private static final int INITIAL_CAPACITY = 16;
+
+    /// Stack of the outer scopes (`null` if there are none).
+    private final ScopeStack base;
+    /// Interner of the names of the compilation (shared with the base).
+    private final NameInterner interner;
+    /// Index of the first scope of this stack (the number of the scopes of the base below it).
+    private final int firstScope;
+
+    /// Ids of the interned identifiers.
+    private final Map<String, Integer> symbols = new HashMap<>();
+    /// Innermost visible binding of every symbol (indexed by the symbol id).
+    private Binding[] bindings = new Binding[INITIAL_CAPACITY];
+    /// Undo log with the bindings in the order they were added.
+    private Binding[] undoLog = new Binding[INITIAL_CAPACITY];
+    /// Number of the bindings in the undo log.
+    private int undoSize;
+
+    /// Size of the undo log when the scope was entered (indexed by the scope).
+    private int[] scopeStarts = new int[INITIAL_CAPACITY];
+    /// First address of the scope (indexed by the scope).
+    private int[] startAddresses = new int[INITIAL_CAPACITY];
+    /// Next free address of the scope (indexed by the scope).
+    private int[] nextAddresses = new int[INITIAL_CAPACITY];
+    /// Number of the named scopes up to the scope (indexed by the scope, including the scope itself).
+    private int[] namedDepths = new int[INITIAL_CAPACITY];
+    /// Whether the scope is named (indexed by the scope).
+    private boolean[] named = new boolean[INITIAL_CAPACITY];
+    /// Number of the loops enclosing the scope within its function (indexed by the scope, including the scope itself).
+    private int[] loopDepths = new int[INITIAL_CAPACITY];
+    /// Number of the scopes of this stack.
+    private int scopeCount;
+
+    /// Creates an empty stack.
+    ScopeStack() {
+        this(null, 0);
+    }
+
+    /// Creates a stack starting with a copy of the scope of the base stack.
+    ///
+    /// The bindings of the base are visible, the new bindings of the first scope are visible only in this
+    /// stack.
+    ///
+    /// @param base the base stack
+    /// @param scope the index of the scope of the base stack
+    ScopeStack(ScopeStack base, int scope) {
+        this.base = base;
+        this.firstScope = scope;
+        this.interner = base != null ? base.interner : new NameInterner();
+
+        if (base != null) {
+            int baseIndex = scope - base.firstScope;
+            push(base.named[baseIndex], base.namedDepths[baseIndex], base.nextAddresses[baseIndex], base.loopDepths[baseIndex]);
+        }
+    }
+
+    /// Enters a new scope.
+    ///
+    /// @param isNamed whether the scope is named (a function)
+    /// @param startAddress the first address of a named scope
+    void enterScope(boolean isNamed, int startAddress) {
+        int namedDepth = scopeCount == 0 ? 0 : namedDepths[scopeCount - 1];
+
+        if (isNamed) {
+            push(true, namedDepth + 1, startAddress, 0);
+        } else {
+            push(false, namedDepth, scopeCount == 0 ? startAddress : nextAddresses[scopeCount - 1], getLoopDepth());
+        }
+    }
+
+    /// Enters a new scope of the body of a loop.
+    ///
+    /// @param startAddress the first address of the scope if it is the first scope
+    void enterLoopScope(int startAddress) {
+        int namedDepth = scopeCount == 0 ? 0 : namedDepths[scopeCount - 1];
+
+        push(false, namedDepth, scopeCount == 0 ? startAddress : nextAddresses[scopeCount - 1], getLoopDepth() + 1);
+    }
+
+    /// Exits the current scope, the bindings shadowed by its bindings become visible again.
+    void exitScope() {
+        int start = scopeStarts[--scopeCount];
+
+        while (undoSize > start) {
+            Binding binding = undoLog[--undoSize];
+            undoLog[undoSize] = null;
+            bindings[binding.symbol()] = binding.shadowed();
+        }
+    }
+
+    /// Returns whether there is no scope.
+    boolean isEmpty() {
+        return scopeCount == 0;
+    }
+
+    /// Returns the index of the current scope.
+    int getCurrentScope() {
+        return firstScope + scopeCount - 1;
+    }
+
+    /// Returns the number of the stack cells of the identifiers added to the current scope
+    /// (an array occupies a cell for every element).
+    int getCurrentScopeSize() {
+        return nextAddresses[scopeCount - 1] - startAddresses[scopeCount - 1];
+    }
+
+    /// Returns the number of the named scopes in the stack.
+    int getNamedDepth() {
+        return namedDepths[scopeCount - 1];
+    }
+
+    /// Returns the number of the loops enclosing the current scope within its function.
+    int getLoopDepth() {
+        return scopeCount == 0 ? 0 : loopDepths[scopeCount - 1];
+    }
+
+    /// Returns the interner of the names of the compilation.
+    NameInterner getInterner() {
+        return interner;
+    }
+
+    /// Adds the descriptor to the current scope and assigns it the next address of the scope
+    /// (the following [Descriptor#getSize()] cells are reserved for it).
+    ///
+    /// @param identifier the identifier
+    /// @param descriptor the descriptor
+    void add(String identifier, Descriptor descriptor) {
+        int current = scopeCount - 1;
+        descriptor.setAddres(nextAddresses[current]);
+        nextAddresses[current] += descriptor.getSize();
+
+        int symbol = symbols.computeIfAbsent(identifier, ignored -> symbols.size());
+        if (symbol >= bindings.length) {
+            bindings = Arrays.copyOf(bindings, bindings.length * 2);
+        }
+        if (undoSize == undoLog.length) {
+            undoLog = Arrays.copyOf(undoLog, undoLog.length * 2);
+        }
+
+        Binding binding = new Binding(symbol, descriptor, getCurrentScope(), namedDepths[current], bindings[symbol]);
+        bindings[symbol] = binding;
+        undoLog[undoSize++] = binding;
+    }
+
+    /// Finds the innermost visible binding of the identifier.
+    ///
+    /// @param identifier the identifier
+    /// @return the binding (`null` if the identifier is not defined)
+    Binding find(String identifier) {
+        Integer symbol = symbols.get(identifier);
+        Binding binding = symbol != null ? bindings[symbol] : null;
+
+        if (binding == null && base != null) {
+            binding = base.find(identifier);
+
+            // Only the bindings up to the shared scope are visible
+            while (binding != null && binding.scope() > firstScope) {
+                binding = binding.shadowed();
+            }
+        }
+
+        return binding;
+    }
+
+    /// Pushes a new scope.
+    private void push(boolean isNamed, int namedDepth, int nextAddress, int loopDepth) {
+        if (scopeCount == scopeStarts.length) {
+            int capacity = scopeCount * 2;
+            scopeStarts = Arrays.copyOf(scopeStarts, capacity);
+            startAddresses = Arrays.copyOf(startAddresses, capacity);
+            nextAddresses = Arrays.copyOf(nextAddresses, capacity);
+            namedDepths = Arrays.copyOf(namedDepths, capacity);
+            named = Arrays.copyOf(named, capacity);
+            loopDepths = Arrays.copyOf(loopDepths, capacity);
+        }
+
+        scopeStarts[scopeCount] = undoSize;
+        startAddresses[scopeCount] = nextAddress;
+        nextAddresses[scopeCount] = nextAddress;
+        namedDepths[scopeCount] = namedDepth;
+        named[scopeCount] = isNamed;
+        loopDepths[scopeCount] = loopDepth;
+        scopeCount++;
+    }
+
+    /// Binding of an identifier to its descriptor.
+    ///
+    /// @param symbol the symbol id of the identifier
+    /// @param descriptor the descriptor
+    /// @param scope the index of the scope of the binding
+    /// @param namedDepth the number of the named scopes up to the scope of the binding
+    /// @param shadowed the binding of the same identifier in an outer scope (`null` if there is none)
+    record Binding(int symbol, Descriptor descriptor, int scope, int namedDepth, Binding shadowed) {
+    }
+
+}
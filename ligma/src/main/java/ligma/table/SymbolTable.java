@@ -1,19 +1,24 @@
 package ligma.table;
 
+import ligma.enums.MetricCounter;
 import ligma.exception.SemanticException;
+import ligma.ir.VariableAddress;
+import ligma.metrics.CompilerMetrics;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.function.Supplier;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
 ///
 /// A class to manage a symbol table with nested scopes
 /// allowing addition, lookup, and manipulation of descriptors.
+///
+/// The scopes are kept flat in a [ScopeStack] (interned identifiers and an undo log), the semantic analysis
+/// resolves the level and the address of every identifier, so the generation does not use the table.
 public class SymbolTable {
 
-    /// Stack to manage nested scopes
-    private static final Deque<Scope> scopes = new ArrayDeque<>();
+    /// Stack of the nested scopes (every thread analyses its own program)
+    private static final ThreadLocal<ScopeStack> scopes = ThreadLocal.withInitial(ScopeStack::new);
 
     /// Starting address for named scopes
     private static final int START_ADDRESS = 3;
@@ -22,112 +27,143 @@ public class SymbolTable {
     private SymbolTable() {
     }
 
-    /// Enter a new scope by pushing a new scope onto the stack
+    /// Enter a new scope
     public static void enterScope(boolean isNamedScope) {
-        Scope scope = new Scope();
+        scopes.get().enterScope(isNamedScope, START_ADDRESS);
+    }
 
-        // Scope is a function
-        if (isNamedScope) {
-            scope.setNamed(true);
-            scope.setNextAddress(START_ADDRESS);
-        }
-        // Scope is not a function
-        else {
-            int nextAddress = scopes.isEmpty()
-                ? START_ADDRESS
-                : scopes.peek().getCurrentAddress();
+    /// Enter a new scope of the body of a loop (see [#isInLoop()])
+    public static void enterLoopScope() {
+        scopes.get().enterLoopScope(START_ADDRESS);
+    }
 
-            scope.setNextAddress(nextAddress);
+    /// Run the action with a separate stack of scopes starting with the given scope
+    ///
+    /// Used by the tasks analysing the functions in parallel, they share the global scope
+    /// (which must not be modified while they run) but every task has its own scopes above it.
+    public static <T> T withScope(Scope scope, Supplier<T> action) {
+        ScopeStack previous = scopes.get();
+        scopes.set(new ScopeStack(scope.stack, scope.index));
+
+        try {
+            return action.get();
+        } finally {
+            scopes.set(previous);
         }
-
-        scopes.push(scope);
     }
 
-    /// Exit the current scope by popping the top map off the stack
+    /// Exit the current scope
     public static void exitScope() {
         ensureScopeIsNotEmpty("Cannot exit scope: No active scope!");
 
-        scopes.pop();
+        scopes.get().exitScope();
     }
 
     /// Get the size of the current scope
     public static int getCurrentScopeSize() {
         ensureScopeIsNotEmpty("Cannot get current scope size: No active scope!");
 
-        return scopes.peek().getDescriptors().size();
+        return scopes.get().getCurrentScopeSize();
+    }
+
+    /// Check whether the current scope is in the body of a loop of the current function
+    public static boolean isInLoop() {
+        return scopes.get().getLoopDepth() > 0;
     }
 
     /// Add a descriptor to the current scope
     public static void add(String identifier, Descriptor descriptor) {
         ensureScopeIsNotEmpty("No active scope to add the identifier to.");
 
-        Scope currentScope = scopes.peek();
-
         // Duplicate identifier
-        if (currentScope.containsKey(identifier)) {
+        if (isIdentifierInCurrentScope(identifier)) {
             throw new SemanticException("Identifier '" + identifier + "' already exists in the current scope.");
         }
 
-        // Set address to the identifier
-        int address = currentScope.getNextAddress();
-        descriptor.setAddres(address);
+        scopes.get().add(identifier, descriptor);
+    }
 
-        currentScope.addDescriptor(identifier, descriptor);
+    /// Intern the name of an identifier (all its occurrences in the IR then share one string)
+    public static String intern(String identifier) {
+        return scopes.get().getInterner().intern(identifier);
     }
 
     /// Lookup an identifier in the scope hierarchy
     public static Descriptor lookup(String identifier) {
-        for (Scope scope : scopes) {
-            if (scope.containsKey(identifier)) {
-                return scope.getDescriptor(identifier);
-            }
-        }
+        CompilerMetrics.increment(MetricCounter.SYMBOL_LOOKUPS);
+
+        ScopeStack.Binding binding = scopes.get().find(identifier);
 
         // Not found
-        return null;
+        return binding != null ? binding.descriptor() : null;
+    }
+
+    /// Resolve the location (level and address) of an identifier
+    public static VariableAddress resolve(String identifier) {
+        CompilerMetrics.increment(MetricCounter.SYMBOL_LOOKUPS);
+
+        ScopeStack stack = scopes.get();
+        ScopeStack.Binding binding = stack.isEmpty() ? null : stack.find(identifier);
+
+        // Not found
+        if (binding == null) {
+            return null;
+        }
+
+        return new VariableAddress(stack.getNamedDepth() - binding.namedDepth(), binding.descriptor().getAddres());
     }
 
     /// Check if an identifier exists in the current scope
     public static boolean isIdentifierInCurrentScope(String identifier) {
         ensureScopeIsNotEmpty("No active scope to get the identifier from.");
 
-        return scopes.peek().containsKey(identifier);
+        ScopeStack stack = scopes.get();
+        ScopeStack.Binding binding = stack.find(identifier);
+
+        return binding != null && binding.scope() == stack.getCurrentScope();
     }
 
     /// Get the nesting level of an identifier
+    /// (the number of named scopes above its scope, or above all scopes if it is not defined)
     public static int getLevel(String identifier) {
-        int level = 0;
-
-        for (Scope scope : scopes) {
-            if (scope.containsKey(identifier)) {
-                return level;
-            }
-            // Increment level for each named scope
-            if (scope.isNamed()) {
-                level++;
-            }
+        CompilerMetrics.increment(MetricCounter.SYMBOL_LOOKUPS);
+
+        ScopeStack stack = scopes.get();
+        if (stack.isEmpty()) {
+            return 0;
         }
 
-        return level;
+        ScopeStack.Binding binding = stack.find(identifier);
+
+        return binding != null ? stack.getNamedDepth() - binding.namedDepth() : stack.getNamedDepth();
+    }
+
+    /// Get the nesting level of the global scope (the number of named scopes above it)
+    public static int getGlobalLevel() {
+        ScopeStack stack = scopes.get();
+
+        return stack.isEmpty() ? 0 : stack.getNamedDepth();
     }
 
-    /// Get the next address in the current scope
-    public static int getNextAddress() {
-        ensureScopeIsNotEmpty("Cannot get next address: No active scope!");
+    /// Get the current scope
+    public static Scope getCurrentScope() {
+        ensureScopeIsNotEmpty("Cannot get current scope: No active scope!");
+
+        ScopeStack stack = scopes.get();
 
-        return scopes.peek().getNextAddress();
+        return new Scope(stack, stack.getCurrentScope());
     }
 
     /// Check if scopes are not empty
     private static void ensureScopeIsNotEmpty(String message) {
-        if (scopes.isEmpty()) {
+        if (scopes.get().isEmpty()) {
             throw new SemanticException(message);
         }
     }
 
     /// Clear all scopes
     public static void clear() {
-        scopes.clear();
+        scopes.set(new ScopeStack());
     }
 
 }
@@ -14,11 +14,28 @@ public class VariableDescriptor extends Descriptor {
 
     /// To differentiate between constants and variables.
     private final boolean isConstant;
+    /// The value of the constant known at compile time (`null` for a variable or a constant computed at runtime).
+    private final Integer constantValue;
+    /// The number of the elements of an array (`0` for a variable which is not an array).
+    private final int length;
 
     @Builder
-    public VariableDescriptor(String name, DataType type, int scopeLevel, int addres, boolean isConstant) {
+    public VariableDescriptor(String name, DataType type, int scopeLevel, int addres, boolean isConstant, Integer constantValue,
+                              int length) {
         super(name, type, scopeLevel, addres);
         this.isConstant = isConstant;
+        this.constantValue = constantValue;
+        this.length = length;
+    }
+
+    /// Returns whether the variable is an array (its elements are stored in consecutive cells).
+    public boolean isArray() {
+        return length > 0;
+    }
+
+    @Override
+    public int getSize() {
+        return isArray() ? length : 1;
     }
 
 }
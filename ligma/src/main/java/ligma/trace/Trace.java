@@ -0,0 +1,103 @@
+package ligma.trace;
+
+import ligma.enums.CompilerPhase;
+import ligma.ir.SourcePosition;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Diagnostics of the visitors and the generators, switched on per phase of the compilation.
+///
+/// The details of an event (e.g. the text of an expression) are only built when its phase is traced.
+/// The text of a parse tree node covers its whole subtree, so building it for every node of a nested
+/// expression takes quadratic time, which the compilation must not pay when nobody reads the trace.
+///
+/// The events are logged by default (logger `ligma.trace`), or passed to the given sink.
+@Slf4j
+public class Trace {
+
+    /// Sink logging the events.
+    private static final Consumer<TraceEvent> LOGGING_SINK = event -> log.atInfo()
+        .addKeyValue("phase", event.phase().getName())
+        .addKeyValue("line", event.position().line())
+        .addKeyValue("column", event.position().column())
+        .log("{}: {}", event.event(), event.detail());
+
+    /// Traced phases.
+    private static volatile Set<CompilerPhase> phases = EnumSet.noneOf(CompilerPhase.class);
+    /// Sink of the events of the traced phases.
+    private static volatile Consumer<TraceEvent> sink = LOGGING_SINK;
+
+    /// Private constructor to prevent instantiation
+    private Trace() {
+    }
+
+    /// Traces the phases, their events are logged.
+    ///
+    /// @param tracedPhases the phases to trace (the other phases are not traced)
+    public static void enable(Set<CompilerPhase> tracedPhases) {
+        enable(tracedPhases, LOGGING_SINK);
+    }
+
+    /// Traces the phases, their events are passed to the sink.
+    ///
+    /// @param tracedPhases the phases to trace (the other phases are not traced)
+    /// @param eventSink the sink of the events (called by the compiling threads)
+    public static void enable(Set<CompilerPhase> tracedPhases, Consumer<TraceEvent> eventSink) {
+        sink = eventSink;
+        phases = tracedPhases.isEmpty() ? EnumSet.noneOf(CompilerPhase.class) : EnumSet.copyOf(tracedPhases);
+    }
+
+    /// Stops tracing all phases.
+    public static void disable() {
+        enable(Set.of());
+    }
+
+    /// Returns whether the phase is traced.
+    ///
+    /// @param phase the phase
+    /// @return `true` if the events of the phase are traced
+    public static boolean isEnabled(CompilerPhase phase) {
+        return phases.contains(phase);
+    }
+
+    /// Traces an event without details.
+    ///
+    /// @param phase the phase tracing the event
+    /// @param event the name of the event
+    public static void event(CompilerPhase phase, String event) {
+        if (isEnabled(phase)) {
+            sink.accept(new TraceEvent(phase, event, SourcePosition.UNKNOWN, ""));
+        }
+    }
+
+    /// Traces an event of a parse tree node, its details are the text of the node.
+    ///
+    /// @param phase the phase tracing the event
+    /// @param event the name of the event
+    /// @param ctx the parse tree node
+    public static void event(CompilerPhase phase, String event, ParserRuleContext ctx) {
+        if (isEnabled(phase)) {
+            sink.accept(new TraceEvent(phase, event, SourcePosition.of(ctx.getStart()), ctx.getText()));
+        }
+    }
+
+    /// Traces an event with details built only if the phase is traced.
+    ///
+    /// @param phase the phase tracing the event
+    /// @param event the name of the event
+    /// @param detail the supplier of the details
+    public static void event(CompilerPhase phase, String event, Supplier<String> detail) {
+        if (isEnabled(phase)) {
+            sink.accept(new TraceEvent(phase, event, SourcePosition.UNKNOWN, detail.get()));
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package ligma.trace;
+
+import ligma.enums.CompilerPhase;
+import ligma.ir.SourcePosition;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Event traced by a phase of the compilation (e.g. an analysed expression or a generated statement).
+///
+/// @param phase The phase which traced the event.
+/// @param event The name of the event (e.g. `Additive expression`).
+/// @param position The position of the construct in the source code ([SourcePosition#UNKNOWN] if there is none).
+/// @param detail The details of the event (e.g. the text of the expression, empty if there are none).
+public record TraceEvent(
+    CompilerPhase phase,
+    String event,
+    SourcePosition position,
+    String detail
+) {
+}
@@ -1,25 +1,21 @@
 package ligma.visitor;
 
-import ligma.enums.DataType;
+import ligma.enums.CompilerPhase;
+import ligma.enums.MetricCounter;
 import ligma.enums.Operator;
 import ligma.exception.SemanticException;
 import ligma.generated.LigmaBaseVisitor;
 import ligma.generated.LigmaParser;
-import ligma.ir.expression.AdditiveExpression;
-import ligma.ir.expression.ComparisonExpression;
+import ligma.ir.SourcePosition;
 import ligma.ir.expression.Expression;
-import ligma.ir.expression.Identifier;
 import ligma.ir.expression.Literal;
-import ligma.ir.expression.LogicalExpression;
-import ligma.ir.expression.MultiplicativeExpression;
-import ligma.ir.expression.NotExpression;
 import ligma.ir.expression.ParenthesizedExpression;
-import ligma.ir.expression.PowerExpression;
-import ligma.ir.expression.UnaryMinusExpression;
-import ligma.ir.expression.UnaryPlusExpression;
-import ligma.table.Descriptor;
+import ligma.metrics.CompilerMetrics;
+import ligma.semantic.SemanticAnalysis;
 import ligma.table.SymbolTable;
-import lombok.extern.slf4j.Slf4j;
+import ligma.trace.Trace;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
 
 /// @author Milan Janoch & Jakub Pavlicek
 /// @version 1.0
@@ -28,12 +24,27 @@ import lombok.extern.slf4j.Slf4j;
 /// This class is responsible for handling different types of expressions in the abstract syntax tree (AST),
 /// such as unary expressions, arithmetic expressions, logical expressions, comparisons, function calls, and literals.
 /// It ensures type checking and semantic validation during the expression evaluation.
-@Slf4j
 public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
 
     /// A static visitor for processing functions.
     private static final FunctionVisitor functionVisitor = new FunctionVisitor();
 
+    /// Visits an expression and records its position in the source code.
+    ///
+    /// @param tree The parse tree of the expression.
+    /// @return The expression with its position set.
+    @Override
+    public Expression visit(ParseTree tree) {
+        Expression expression = super.visit(tree);
+
+        if (expression != null && tree instanceof ParserRuleContext ctx) {
+            expression.setPosition(SourcePosition.of(ctx.getStart()));
+            CompilerMetrics.increment(MetricCounter.IR_NODES);
+        }
+
+        return expression;
+    }
+
     /// Visits a power expression (exponentiation) in the parse tree.
     ///
     /// @param ctx The parse tree context for the power expression.
@@ -41,15 +52,11 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If either operand is not of type int.
     @Override
     public Expression visitPowerExpression(LigmaParser.PowerExpressionContext ctx) {
-        log.debug("Power expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Power expression", ctx);
         Expression left = visit(ctx.expression(0));
         Expression right = visit(ctx.expression(1));
 
-        if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
-            throw new SemanticException("Cannot apply the 'pow' operation to non-int type (line " + ctx.getStart().getLine() + ")");
-        }
-
-        return new PowerExpression(Operator.POW, left, right, DataType.INT);
+        return SemanticAnalysis.createPower(left, right, ctx.getStart().getLine());
     }
 
     /// Visits a unary minus expression in the parse tree.
@@ -59,14 +66,10 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If the operand is not of type int.
     @Override
     public Expression visitUnaryMinusExpression(LigmaParser.UnaryMinusExpressionContext ctx) {
-        log.debug("Unary minus expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Unary minus expression", ctx);
         Expression expression = visit(ctx.expression());
 
-        if (expression.getType() != DataType.INT) {
-            throw new SemanticException("Cannot apply the 'unary minus' operation to non-int type (line " + ctx.getStart().getLine() + ")");
-        }
-
-        return new UnaryMinusExpression(Operator.SUB, expression, DataType.INT);
+        return SemanticAnalysis.createUnaryMinus(expression, ctx.getStart().getLine());
     }
 
     /// Visits a unary plus expression in the parse tree.
@@ -76,17 +79,10 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If the operand is not of type int.
     @Override
     public Expression visitUnaryPlusExpression(LigmaParser.UnaryPlusExpressionContext ctx) {
-        log.debug("Unary plus expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Unary plus expression", ctx);
         Expression expression = visit(ctx.expression());
 
-        if (expression.getType() != DataType.INT) {
-            throw new SemanticException(
-                "Cannot apply the 'unary plus' operation to non-int type" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        return new UnaryPlusExpression(Operator.ADD, expression, DataType.INT);
+        return SemanticAnalysis.createUnaryPlus(expression, ctx.getStart().getLine());
     }
 
     /// Visits a logical NOT expression in the parse tree.
@@ -96,19 +92,10 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If the operand is not of type boolean.
     @Override
     public Expression visitNotExpression(LigmaParser.NotExpressionContext ctx) {
-        log.debug("Not expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Not expression", ctx);
         Expression expression = visit(ctx.expression());
 
-        DataType expressionType = expression.getType();
-
-        if (expressionType != DataType.BOOLEAN) {
-            throw new SemanticException(
-                "Cannot negate non-boolean type: " + expressionType +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        return new NotExpression(Operator.NOT, expression, expressionType);
+        return SemanticAnalysis.createNot(expression, ctx.getStart().getLine());
     }
 
     /// Visits a multiplicative expression (multiplication or division) in the parse tree.
@@ -118,19 +105,12 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If either operand is not of type int.
     @Override
     public Expression visitMultiplicativeExpression(LigmaParser.MultiplicativeExpressionContext ctx) {
-        log.debug("Multiplicative expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Multiplicative expression", ctx);
         Operator operator = Operator.fromSymbol(ctx.op.getText());
         Expression left = visit(ctx.expression(0));
         Expression right = visit(ctx.expression(1));
 
-        if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
-            throw new SemanticException(
-                "Cannot apply the '" + operator.getSymbol() + "' operation to non-int type" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        return new MultiplicativeExpression(operator, left, right, DataType.INT);
+        return SemanticAnalysis.createMultiplicative(operator, left, right, ctx.getStart().getLine());
     }
 
     /// Visits an additive expression (addition or subtraction) in the parse tree.
@@ -140,19 +120,12 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If either operand is not of type int.
     @Override
     public Expression visitAdditiveExpression(LigmaParser.AdditiveExpressionContext ctx) {
-        log.debug("Additive expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Additive expression", ctx);
         Operator operator = Operator.fromSymbol(ctx.op.getText());
         Expression left = visit(ctx.expression(0));
         Expression right = visit(ctx.expression(1));
 
-        if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
-            throw new SemanticException(
-                "Cannot apply the '" + operator.getSymbol() + "' operation to non-int type" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        return new AdditiveExpression(operator, left, right, DataType.INT);
+        return SemanticAnalysis.createAdditive(operator, left, right, ctx.getStart().getLine());
     }
 
     /// Visits a comparison expression (e.g., ==, !=, <, >, <=, >=) in the parse tree.
@@ -162,35 +135,12 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If the operand types do not match the expected types.
     @Override
     public Expression visitComparisonExpression(LigmaParser.ComparisonExpressionContext ctx) {
-        log.debug("Comparison expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Comparison expression", ctx);
         Operator operator = Operator.fromSymbol(ctx.op.getText());
         Expression left = visit(ctx.expression(0));
         Expression right = visit(ctx.expression(1));
 
-        // ==, !*
-        if (operator == Operator.EQ || operator == Operator.NEQ) {
-            // Both expressions need to be of the same data type
-            if (!left.getType().equals(right.getType())) {
-                throw new SemanticException(
-                    "Cannot evaluate comparison: " + operator.getSymbol() +
-                    " for non-matching types [" + left.getType() + ", " + right.getType() + "]" +
-                    " (line " + ctx.getStart().getLine() + ")"
-                );
-            }
-        }
-        // >, <, >=, <=
-        else {
-            // Both expressions need to be int
-            if (left.getType() != DataType.INT || right.getType() != DataType.INT) {
-                throw new SemanticException(
-                    "Cannot apply the operation to non-int type" +
-                    " (line " + ctx.getStart().getLine() + ")"
-                );
-            }
-        }
-
-        // Data type of the comparison expression is always boolean
-        return new ComparisonExpression(operator, left, right, DataType.BOOLEAN);
+        return SemanticAnalysis.createComparison(operator, left, right, ctx.getStart().getLine());
     }
 
     /// Visits a logical expression (AND, OR) in the parse tree.
@@ -200,21 +150,12 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If either operand is not of type boolean.
     @Override
     public Expression visitLogicalExpression(LigmaParser.LogicalExpressionContext ctx) {
-        log.debug("Logical expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Logical expression", ctx);
         Operator operator = Operator.fromSymbol(ctx.op.getText());
         Expression left = visit(ctx.expression(0));
         Expression right = visit(ctx.expression(1));
 
-        // Both expressions must be of type boolean
-        if (left.getType() != DataType.BOOLEAN || right.getType() != DataType.BOOLEAN) {
-            throw new SemanticException(
-                "Cannot evaluate logical expression with non-boolean types" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        // Data type of the logical expression is always boolean
-        return new LogicalExpression(operator, left, right, DataType.BOOLEAN);
+        return SemanticAnalysis.createLogical(operator, left, right, ctx.getStart().getLine());
     }
 
     /// Visits a parenthesized expression in the parse tree.
@@ -223,7 +164,7 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @return A ParenthesizedExpression object representing the expression inside parentheses.
     @Override
     public Expression visitParenthesizedExpression(LigmaParser.ParenthesizedExpressionContext ctx) {
-        log.debug("Parenthesized expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Parenthesized expression", ctx);
         Expression expression = visit(ctx.expression());
 
         return new ParenthesizedExpression(expression, expression.getType());
@@ -236,19 +177,24 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @throws SemanticException If the identifier is not declared in the symbol table.
     @Override
     public Expression visitIdentifierExpression(LigmaParser.IdentifierExpressionContext ctx) {
-        log.debug("Identifier expression: {}", ctx.getText());
-        String identifier = ctx.IDENTIFIER().getText();
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Identifier expression", ctx);
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
 
-        Descriptor descriptor = SymbolTable.lookup(identifier);
+        return SemanticAnalysis.createIdentifier(identifier, ctx.getStart().getLine());
+    }
 
-        if (descriptor == null) {
-            throw new SemanticException(
-                "Identifier: " + identifier + " was not declared" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+    /// Visits an access to an element of an array in the parse tree.
+    ///
+    /// @param ctx The parse tree context for the array access expression.
+    /// @return An ArrayAccess object representing the element of the array.
+    /// @throws SemanticException If the identifier is not a declared array or the index is not of type int.
+    @Override
+    public Expression visitArrayAccessExpression(LigmaParser.ArrayAccessExpressionContext ctx) {
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Array access expression", ctx);
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Expression index = visit(ctx.expression());
 
-        return new Identifier(identifier, descriptor.getType());
+        return SemanticAnalysis.createArrayAccess(identifier, index, ctx.getStart().getLine());
     }
 
     /// Visits a literal expression (integer or boolean literal) in the parse tree.
@@ -257,20 +203,20 @@ public class ExpressionVisitor extends LigmaBaseVisitor<Expression> {
     /// @return A Literal object representing the literal value.
     @Override
     public Expression visitLiteralExpression(LigmaParser.LiteralExpressionContext ctx) {
-        log.debug("Literal expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Literal expression", ctx);
         LigmaParser.LiteralContext literalCtx = ctx.literal();
 
-        Literal<?> literal = null;
+        Literal literal = null;
 
         // int
         if (literalCtx.INTEGER_LITERAL() != null) {
-            Integer value = Integer.parseInt(literalCtx.INTEGER_LITERAL().getText());
-            literal = new Literal<>(value, DataType.INT);
+            int value = Integer.parseInt(literalCtx.INTEGER_LITERAL().getText());
+            literal = new Literal(value);
         }
         // boolean
         else if (literalCtx.BOOLEAN_LITERAL() != null) {
-            Boolean value = Boolean.parseBoolean(literalCtx.BOOLEAN_LITERAL().getText());
-            literal = new Literal<>(value, DataType.BOOLEAN);
+            boolean value = Boolean.parseBoolean(literalCtx.BOOLEAN_LITERAL().getText());
+            literal = new Literal(value);
         }
 
         return literal;
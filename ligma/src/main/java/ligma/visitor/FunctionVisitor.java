@@ -1,20 +1,23 @@
 package ligma.visitor;
 
+import ligma.enums.CompilerPhase;
 import ligma.enums.DataType;
-import ligma.exception.SemanticException;
+import ligma.enums.MetricCounter;
 import ligma.generated.LigmaBaseVisitor;
 import ligma.generated.LigmaParser;
+import ligma.ir.SourcePosition;
 import ligma.ir.expression.Expression;
 import ligma.ir.expression.FunctionCallExpression;
 import ligma.ir.function.Function;
 import ligma.ir.function.FunctionParameter;
 import ligma.ir.statement.FunctionCall;
 import ligma.ir.statement.Statement;
+import ligma.metrics.CompilerMetrics;
+import ligma.semantic.SemanticAnalysis;
 import ligma.table.Descriptor;
 import ligma.table.FunctionDescriptor;
 import ligma.table.SymbolTable;
-import ligma.table.VariableDescriptor;
-import lombok.extern.slf4j.Slf4j;
+import ligma.trace.Trace;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,7 +29,6 @@ import java.util.List;
 /// and function call expressions in the Ligma language. It handles function parameter parsing,
 /// the creation of function descriptors, validation of return types, and adds relevant information
 /// to the symbol table. This class also processes the body of functions and the arguments for function calls.
-@Slf4j
 public class FunctionVisitor extends LigmaBaseVisitor<Object> {
 
     /// A static visitor for processing statements within functions.
@@ -34,17 +36,44 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
     /// A static visitor for processing expressions within functions.
     private static final ExpressionVisitor expressionVisitor = new ExpressionVisitor();
 
+    /// Declares the function (adds its descriptor with the signature to the symbol table), so that it can be
+    /// referenced by any function of the program before its body is analysed.
+    ///
+    /// @param ctx The context of the function definition.
+    public void declareFunction(LigmaParser.FunctionDefinitionContext ctx) {
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        DataType returnType = DataType.getDataType(ctx.dataType().getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Function declaration", () -> returnType + " " + identifier);
+
+        List<FunctionParameter> parameters = new ArrayList<>();
+        if (ctx.parameterList() != null) {
+            for (LigmaParser.ParameterContext parameterCtx : ctx.parameterList().parameter()) {
+                DataType paramDataType = DataType.getDataType(parameterCtx.dataType().getText());
+                parameters.add(new FunctionParameter(paramDataType, SymbolTable.intern(parameterCtx.IDENTIFIER().getText())));
+            }
+        }
+
+        Descriptor descriptor = FunctionDescriptor.builder()
+                                                  .name(identifier)
+                                                  .type(returnType)
+                                                  .scopeLevel(SymbolTable.getLevel(identifier))
+                                                  .parameters(parameters)
+                                                  .build();
+
+        SymbolTable.add(identifier, descriptor);
+    }
+
     /// Visits a function definition in the Ligma language, processing the function's return type,
     /// parameters, body, and return expression. It also ensures that the function's return type matches
-    /// the type of the return expression and adds the function to the symbol table.
+    /// the type of the return expression. The function must be declared by [#declareFunction] before.
     ///
     /// @param ctx The context of the function definition.
     /// @return A Function object representing the parsed function.
     @Override
     public Function visitFunctionDefinition(LigmaParser.FunctionDefinitionContext ctx) {
         String type = ctx.dataType().getText();
-        String identifier = ctx.IDENTIFIER().getText();
-        log.debug("Function definition: {} [type: {}, id: {}]", ctx.getText(), type, identifier);
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Function definition", ctx);
 
         DataType returnType = DataType.getDataType(type);
 
@@ -67,20 +96,12 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
         Expression returnExpr = expressionVisitor.visit(functionBody.expression());
 
         // Function's return type doesn't match the expression type
-        if (returnExpr.getType() != returnType) {
-            throw new SemanticException(
-                "Function's return type is: " + type +
-                ", but the provided type was: " + returnExpr.getType().name().toLowerCase() +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        SemanticAnalysis.checkReturnType(returnType, returnExpr, ctx.getStart().getLine());
 
         SymbolTable.exitScope();
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
 
-        // Function descriptor belongs to the parent scope
-        addFunctionToSymbolTable(identifier, returnType, parameters, statements, returnExpr);
-
-        return new Function(identifier, returnType, parameters, statements, returnExpr);
+        return new Function(identifier, returnType, parameters, statements, returnExpr, SourcePosition.of(ctx.getStart()));
     }
 
     /// Visits a function call statement in the Ligma language, processing the function's identifier
@@ -90,8 +111,8 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
     /// @return A FunctionCall object representing the parsed function call.
     @Override
     public FunctionCall visitFunctionCall(LigmaParser.FunctionCallContext ctx) {
-        log.debug("Function call statement: {}", ctx.getText());
-        String identifier = ctx.IDENTIFIER().getText();
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Function call statement", ctx);
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
         List<Expression> arguments = new ArrayList<>();
 
         LigmaParser.ArgumentListContext argumentListCtx = ctx.argumentList();
@@ -104,7 +125,10 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
                                        .toList();
         }
 
-        return new FunctionCall(identifier, arguments);
+        FunctionCall functionCall = new FunctionCall(identifier, arguments);
+        functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+
+        return functionCall;
     }
 
     /// Visits a function call expression in the Ligma language, processing the function's identifier
@@ -114,10 +138,10 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
     /// @return A FunctionCallExpression object representing the parsed function call expression.
     @Override
     public FunctionCallExpression visitFunctionCallExpression(LigmaParser.FunctionCallExpressionContext ctx) {
-        log.debug("Function call expression: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Function call expression", ctx);
         LigmaParser.FunctionCallContext functionCallCtx = ctx.functionCall();
 
-        String identifier = functionCallCtx.IDENTIFIER().getText();
+        String identifier = SymbolTable.intern(functionCallCtx.IDENTIFIER().getText());
         List<Expression> arguments = new ArrayList<>();
 
         // Function call has some arguments
@@ -129,7 +153,10 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
                                        .toList();
         }
 
-        return new FunctionCallExpression(DataType.INT, identifier, arguments);
+        FunctionCallExpression functionCall = new FunctionCallExpression(DataType.INT, identifier, arguments);
+        functionCall.setGlobalLevel(SymbolTable.getGlobalLevel());
+
+        return functionCall;
     }
 
     /// Processes the function parameters by visiting each parameter context in the function definition,
@@ -144,55 +171,18 @@ public class FunctionVisitor extends LigmaBaseVisitor<Object> {
         }
 
         for (LigmaParser.ParameterContext parameterCtx : ctx.parameterList().parameter()) {
-            String paramName = parameterCtx.IDENTIFIER().getText();
+            String paramName = SymbolTable.intern(parameterCtx.IDENTIFIER().getText());
             String paramType = parameterCtx.dataType().getText();
             DataType paramDataType = DataType.getDataType(paramType);
 
             FunctionParameter parameter = new FunctionParameter(paramDataType, paramName);
             parameters.add(parameter);
 
-            log.debug("Parameter: {} {}", paramType, paramName);
+            Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Parameter", () -> paramType + " " + paramName);
 
             // Create parameter descriptor and add it to the symbol table
-            addParameterToSymbolTable(paramName, paramDataType);
+            SemanticAnalysis.declareVariable(paramName, paramDataType);
         }
     }
 
-    /// Adds a parameter descriptor to the symbol table, which contains information about the parameter's
-    /// name, type, and scope level.
-    ///
-    /// @param paramName   The name of the parameter.
-    /// @param paramDataType The data type of the parameter.
-    private void addParameterToSymbolTable(String paramName, DataType paramDataType) {
-        Descriptor paramDescriptor = VariableDescriptor.builder()
-                                                       .name(paramName)
-                                                       .type(paramDataType)
-                                                       .isConstant(false)
-                                                       .scopeLevel(SymbolTable.getLevel(paramName))
-                                                       .build();
-
-        SymbolTable.add(paramName, paramDescriptor);
-    }
-
-    /// Adds a function descriptor to the symbol table, which contains information about the function's
-    /// name, return type, parameters, statements, and return expression.
-    ///
-    /// @param identifier  The name of the function.
-    /// @param returnType  The return type of the function.
-    /// @param parameters  The list of parameters of the function.
-    /// @param statements  The list of statements in the function body.
-    /// @param returnExpr  The return expression of the function.
-    private void addFunctionToSymbolTable(String identifier, DataType returnType, List<FunctionParameter> parameters, List<Statement> statements, Expression returnExpr) {
-        Descriptor descriptor = FunctionDescriptor.builder()
-                                                  .name(identifier)
-                                                  .type(returnType)
-                                                  .scopeLevel(SymbolTable.getLevel(identifier))
-                                                  .parameters(parameters)
-                                                  .statements(statements)
-                                                  .returnExpression(returnExpr)
-                                                  .build();
-
-        SymbolTable.add(identifier, descriptor);
-    }
-
 }
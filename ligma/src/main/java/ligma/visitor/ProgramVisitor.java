@@ -1,12 +1,15 @@
 package ligma.visitor;
 
+import ligma.enums.CompilerPhase;
 import ligma.generated.LigmaBaseVisitor;
 import ligma.generated.LigmaParser;
 import ligma.ir.function.Function;
 import ligma.ir.program.Program;
 import ligma.ir.statement.Statement;
+import ligma.parallel.ParallelRunner;
+import ligma.table.Scope;
 import ligma.table.SymbolTable;
-import lombok.extern.slf4j.Slf4j;
+import ligma.trace.Trace;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,7 +21,9 @@ import java.util.List;
 /// It traverses the program, visiting all statements and function definitions, and performs semantic checks
 /// by interacting with the Symbol Table. This class is part of the semantic analysis phase and ensures that
 /// the program structure is valid and well-formed.
-@Slf4j
+///
+/// The bodies of the functions are analysed in parallel once the statements and the signatures of all
+/// functions are in the global scope.
 public class ProgramVisitor extends LigmaBaseVisitor<Program> {
 
     /// A static visitor for processing statements within the program.
@@ -33,8 +38,10 @@ public class ProgramVisitor extends LigmaBaseVisitor<Program> {
     /// @return A Program object that represents the parsed program.
     @Override
     public Program visitProgram(LigmaParser.ProgramContext ctx) {
-        log.debug("Program");
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Program");
 
+        // Start with an empty table (a previous analysis could have failed inside a nested scope)
+        SymbolTable.clear();
         SymbolTable.enterScope(false);
 
         // statements
@@ -43,12 +50,18 @@ public class ProgramVisitor extends LigmaBaseVisitor<Program> {
             statements.add(statementVisitor.visit(statementContext));
         }
 
-        // functions
-        List<Function> functions = new ArrayList<>();
+        // function signatures (every function can reference any function of the program)
         for (LigmaParser.FunctionDefinitionContext functionContext : ctx.functionDefinition()) {
-            functions.add((Function) functionVisitor.visit(functionContext));
+            functionVisitor.declareFunction(functionContext);
         }
 
+        // function bodies are independent of each other, they only read the global scope
+        Scope globalScope = SymbolTable.getCurrentScope();
+        List<Function> functions = ParallelRunner.map(
+            ctx.functionDefinition(),
+            functionContext -> SymbolTable.withScope(globalScope, () -> (Function) functionVisitor.visit(functionContext))
+        );
+
         SymbolTable.exitScope();
 
         return new Program(statements, functions);
@@ -1,26 +1,24 @@
 package ligma.visitor;
 
+import ligma.enums.CompilerPhase;
 import ligma.enums.DataType;
+import ligma.enums.MetricCounter;
 import ligma.exception.SemanticException;
 import ligma.generated.LigmaBaseVisitor;
 import ligma.generated.LigmaParser;
+import ligma.ir.SourcePosition;
+import ligma.ir.VariableAddress;
 import ligma.ir.expression.Expression;
-import ligma.ir.expression.FunctionCallExpression;
-import ligma.ir.function.Callable;
-import ligma.ir.statement.Assignment;
-import ligma.ir.statement.ConstantDefinition;
 import ligma.ir.statement.DoWhileLoop;
 import ligma.ir.statement.ForLoop;
 import ligma.ir.statement.IfStatement;
 import ligma.ir.statement.RepeatUntilLoop;
 import ligma.ir.statement.Statement;
-import ligma.ir.statement.VariableDefinition;
 import ligma.ir.statement.WhileLoop;
-import ligma.table.Descriptor;
-import ligma.table.FunctionDescriptor;
+import ligma.metrics.CompilerMetrics;
+import ligma.semantic.SemanticAnalysis;
 import ligma.table.SymbolTable;
-import ligma.table.VariableDescriptor;
-import lombok.extern.slf4j.Slf4j;
+import ligma.trace.Trace;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,7 +31,6 @@ import java.util.function.BiFunction;
 /// in the Ligma language during the semantic analysis phase. This class extends the LigmaBaseVisitor
 /// and overrides methods to visit and process statements. It performs semantic checks such as ensuring correct type
 /// assignments, checking variable redeclarations, and managing scope through the Symbol Table.
-@Slf4j
 public class StatementVisitor extends LigmaBaseVisitor<Statement> {
 
     /// A static visitor for processing expressions.
@@ -41,6 +38,19 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// A static visitor for processing functions.
     private static final FunctionVisitor functionVisitor = new FunctionVisitor();
 
+    /// Visits a statement and records its position in the source code.
+    ///
+    /// @param ctx The context representing a statement.
+    /// @return The statement with its position set.
+    @Override
+    public Statement visitStatement(LigmaParser.StatementContext ctx) {
+        Statement statement = visitChildren(ctx);
+        statement.setPosition(SourcePosition.of(ctx.getStart()));
+        CompilerMetrics.increment(MetricCounter.IR_NODES);
+
+        return statement;
+    }
+
     /// Visits a variable definition statement and processes it.
     /// Validates the data type and checks for variable redeclaration in the current scope.
     ///
@@ -50,33 +60,15 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     @Override
     public Statement visitVariableDefinition(LigmaParser.VariableDefinitionContext ctx) {
         String type = ctx.dataType().getText();
-        String identifier = ctx.IDENTIFIER().getText();
-        log.debug("Variable definition: {} [type: {}, id: {}]", ctx.getText(), type, identifier);
-
-        // Redeclaration of the same identifier in the current scope
-        if (SymbolTable.isIdentifierInCurrentScope(identifier)) {
-            throw new SemanticException(
-                "Variable '" + identifier + "' is already defined in the scope" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Variable definition", ctx);
+
+        SemanticAnalysis.checkNotDefined(identifier, ctx.getStart().getLine());
 
         DataType dataType = DataType.getDataType(type);
         Expression expression = expressionVisitor.visit(ctx.expression());
 
-        // Type mismatch
-        if (!(expression instanceof FunctionCallExpression) && dataType != expression.getType()) {
-            throw new SemanticException(
-                "Cannot assign the value to the variable '" + identifier +
-                "': type mismatch [" + dataType + ", " + expression.getType() + "]" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-
-        // Add identifier with descriptor to the Symbol Table
-        addVariableToSymbolTable(identifier, dataType, false);
-
-        return new VariableDefinition(identifier, dataType, expression);
+        return SemanticAnalysis.createVariableDefinition(identifier, dataType, expression, false, ctx.getStart().getLine());
     }
 
     /// Visits a constant definition statement and processes it.
@@ -88,33 +80,32 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     @Override
     public Statement visitConstantDefinition(LigmaParser.ConstantDefinitionContext ctx) {
         String type = ctx.variableDefinition().dataType().getText();
-        String identifier = ctx.variableDefinition().IDENTIFIER().getText();
-        log.debug("Constant definition: {} [type: {}, id: {}]", ctx.getText(), type, identifier);
-
-        // Redeclaration of the same identifier in the current scope
-        if (SymbolTable.isIdentifierInCurrentScope(identifier)) {
-            throw new SemanticException(
-                "Variable '" + identifier + "' is already defined in the scope" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        String identifier = SymbolTable.intern(ctx.variableDefinition().IDENTIFIER().getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Constant definition", ctx);
+
+        SemanticAnalysis.checkNotDefined(identifier, ctx.getStart().getLine());
 
         DataType dataType = DataType.getDataType(type);
         Expression expression = expressionVisitor.visit(ctx.variableDefinition().expression());
 
-        // Type mismatch
-        if (!(expression instanceof FunctionCallExpression) && dataType != expression.getType()) {
-            throw new SemanticException(
-                "Cannot assign the value to the constant variable '" + identifier +
-                "': type mismatch [" + dataType + ", " + expression.getType() + "]" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        return SemanticAnalysis.createVariableDefinition(identifier, dataType, expression, true, ctx.getStart().getLine());
+    }
 
-        // Add identifier with descriptor to the Symbol Table
-        addVariableToSymbolTable(identifier, dataType, true);
+    /// Visits an array definition statement and processes it.
+    /// Checks for array redeclaration in the current scope and validates the length of the array.
+    ///
+    /// @param ctx The context representing an array definition.
+    /// @return A new ArrayDefinition statement.
+    /// @throws SemanticException If there is a redeclaration or the length is not a positive int known at compile time.
+    @Override
+    public Statement visitArrayDefinition(LigmaParser.ArrayDefinitionContext ctx) {
+        String type = ctx.dataType().getText();
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Array definition", ctx);
+
+        Expression lengthExpression = expressionVisitor.visit(ctx.expression());
 
-        return new ConstantDefinition(identifier, dataType, expression);
+        return SemanticAnalysis.createArrayDefinition(identifier, DataType.getDataType(type), lengthExpression, ctx.getStart().getLine());
     }
 
     /// Visits an assignment statement and processes it.
@@ -125,14 +116,14 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @throws SemanticException If reassignment to a constant or function occurs or if a type mismatch is found.
     @Override
     public Statement visitAssignment(LigmaParser.AssignmentContext ctx) {
-        log.debug("Assignment: {}", ctx.getText());
-        String firstIdentifier = ctx.IDENTIFIER().getText();
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Assignment", ctx);
+        String firstIdentifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
         Expression expression = expressionVisitor.visit(ctx.expression());
 
         // Traverse all chained identifiers
         List<String> chainedIdentifiers = new ArrayList<>();
         for (LigmaParser.ChainedAssignmentContext chainedAssignmentCtx : ctx.chainedAssignment()) {
-            chainedIdentifiers.add(chainedAssignmentCtx.IDENTIFIER().getText());
+            chainedIdentifiers.add(SymbolTable.intern(chainedAssignmentCtx.IDENTIFIER().getText()));
         }
 
         // All identifiers in the assigment
@@ -140,42 +131,23 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
         allIdentifiers.add(firstIdentifier);
         allIdentifiers.addAll(chainedIdentifiers);
 
-        // Loop throush every identifier in the assignment
-        for (String iden : allIdentifiers) {
-            Descriptor descriptor = SymbolTable.lookup(iden);
-
-            switch (descriptor) {
-                // Reassigment to constant is not allowed
-                case VariableDescriptor varDesc when varDesc.isConstant() ->
-                    throw new SemanticException(
-                        "Cannot assign new value to constant '" + varDesc.getName() + "'" +
-                        " (line " + ctx.getStart().getLine() + ")"
-                    );
-                // Cannot assign value to a function
-                case FunctionDescriptor funcDesc ->
-                    throw new SemanticException(
-                        "Cannot assign new value to a function '" + funcDesc.getName() + "'" +
-                        " (line " + ctx.getStart().getLine() + ")"
-                    );
-                // Identifier was not found in the traversed scopes
-                case null ->
-                    throw new SemanticException(
-                        "Variable " + iden + " was not declared yet" +
-                        " (line " + ctx.getStart().getLine() + ")"
-                    );
-                default -> {
-                    // Type mismatch
-                    if (!(expression instanceof Callable) && descriptor.getType() != expression.getType()) {
-                        throw new SemanticException(
-                            "Variable '" + iden + "' is not of type " + expression.getType() +
-                            " (line " + ctx.getStart().getLine() + ")"
-                        );
-                    }
-                }
-            }
-        }
+        return SemanticAnalysis.createAssignment(allIdentifiers, expression, ctx.getStart().getLine());
+    }
 
-        return new Assignment(allIdentifiers, expression);
+    /// Visits an assignment to an element of an array and processes it.
+    /// Ensures that the identifier is an array, the index is of type int and checks for a type mismatch.
+    ///
+    /// @param ctx The context representing an assignment to an element of an array.
+    /// @return An ArrayAssignment statement.
+    /// @throws SemanticException If the identifier is not an array, the index is not an int or a type mismatch is found.
+    @Override
+    public Statement visitArrayAssignment(LigmaParser.ArrayAssignmentContext ctx) {
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Array assignment", ctx);
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
+        Expression index = expressionVisitor.visit(ctx.expression(0));
+        Expression expression = expressionVisitor.visit(ctx.expression(1));
+
+        return SemanticAnalysis.createArrayAssignment(identifier, index, expression, ctx.getStart().getLine());
     }
 
     /// Visits an if statement and processes it.
@@ -186,19 +158,14 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @throws SemanticException If the condition is not of boolean type.
     @Override
     public Statement visitIfStatement(LigmaParser.IfStatementContext ctx) {
-        log.debug("If statement: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "If statement", ctx);
 
         SymbolTable.enterScope(false);
 
         Expression expression = expressionVisitor.visit(ctx.expression());
 
         // Expression must be of type boolean
-        if (expression.getType() != DataType.BOOLEAN) {
-            throw new SemanticException(
-                "Condition must be a boolean type" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        SemanticAnalysis.checkCondition(expression, ctx.getStart().getLine());
 
         // Traverse statements in the 'if' body
         List<Statement> ifStatements = new ArrayList<>();
@@ -206,11 +173,15 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
             ifStatements.add(visit(statementCtx));
         }
 
+        int ifScopeSize = SymbolTable.getCurrentScopeSize();
         SymbolTable.exitScope();
 
         // 'else' is not present
         if (ctx.ELSE() == null) {
-            return new IfStatement(expression, ifStatements, new ArrayList<>());
+            IfStatement ifStatement = new IfStatement(expression, ifStatements, new ArrayList<>());
+            ifStatement.setIfScopeSize(ifScopeSize);
+
+            return ifStatement;
         }
 
         SymbolTable.enterScope(false);
@@ -221,9 +192,13 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
             elseStatements.add(visit(statementCtx));
         }
 
+        IfStatement ifStatement = new IfStatement(expression, ifStatements, elseStatements);
+        ifStatement.setIfScopeSize(ifScopeSize);
+        ifStatement.setElseScopeSize(SymbolTable.getCurrentScopeSize());
+
         SymbolTable.exitScope();
 
-        return new IfStatement(expression, ifStatements, elseStatements);
+        return ifStatement;
     }
 
     /// Visits a for loop statement and processes it.
@@ -234,32 +209,19 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @throws SemanticException If the initialization or range expressions are not of type integer.
     @Override
     public Statement visitForLoop(LigmaParser.ForLoopContext ctx) {
-        log.debug("For loop: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "For loop", ctx);
 
-        SymbolTable.enterScope(false);
+        SymbolTable.enterLoopScope();
 
-        String identifier = ctx.IDENTIFIER().getText();
+        String identifier = SymbolTable.intern(ctx.IDENTIFIER().getText());
 
         // Add identifier with descriptor to the Symbol Table
-        addVariableToSymbolTable(identifier, DataType.INT, false);
+        VariableAddress address = SemanticAnalysis.declareVariable(identifier, DataType.INT);
 
         Expression expression = expressionVisitor.visit(ctx.expression(0));
         Expression toExpression = expressionVisitor.visit(ctx.expression(1));
 
-        // For loop initialization expression must be of type int
-        if (expression.getType() != DataType.INT) {
-            throw new SemanticException(
-                "For loop initialization expression must be of type int" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
-        // For loop range must be of type int
-        if (toExpression.getType() != DataType.INT) {
-            throw new SemanticException(
-                "For loop range must be of type int" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        SemanticAnalysis.checkForLoopRange(expression, toExpression, ctx.getStart().getLine());
 
         // Traverse statements in the for loop body
         List<Statement> statements = new ArrayList<>();
@@ -267,9 +229,13 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
             statements.add(visit(statementCtx));
         }
 
+        ForLoop forLoop = new ForLoop(identifier, expression, toExpression, statements);
+        forLoop.setAddress(address);
+        forLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+
         SymbolTable.exitScope();
 
-        return new ForLoop(identifier, expression, toExpression, statements);
+        return forLoop;
     }
 
     /// Visits a while loop statement and processes it.
@@ -280,19 +246,14 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @throws SemanticException If the condition is not of boolean type.
     @Override
     public Statement visitWhileLoop(LigmaParser.WhileLoopContext ctx) {
-        log.debug("While loop: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "While loop", ctx);
 
-        SymbolTable.enterScope(false);
+        SymbolTable.enterLoopScope();
 
         Expression expression = expressionVisitor.visit(ctx.expression());
 
         // Expression must be of type boolean
-        if (expression.getType() != DataType.BOOLEAN) {
-            throw new SemanticException(
-                "Condition must be a boolean type" +
-                " (line " + ctx.getStart().getLine() + ")"
-            );
-        }
+        SemanticAnalysis.checkCondition(expression, ctx.getStart().getLine());
 
         // Traverse statements in the body
         List<Statement> statements = new ArrayList<>();
@@ -300,9 +261,12 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
             statements.add(visit(statementCtx));
         }
 
+        WhileLoop whileLoop = new WhileLoop(expression, statements);
+        whileLoop.setScopeSize(SymbolTable.getCurrentScopeSize());
+
         SymbolTable.exitScope();
 
-        return new WhileLoop(expression, statements);
+        return whileLoop;
     }
 
     /// Visits a do-while loop statement and processes it.
@@ -311,7 +275,7 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @return A DoWhileLoop statement.
     @Override
     public Statement visitDoWhileLoop(LigmaParser.DoWhileLoopContext ctx) {
-        log.debug("Do-while loop: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Do-while loop", ctx);
         int line = ctx.getStart().getLine();
         return processLoop(ctx.statement(), ctx.expression(), DoWhileLoop::new, line);
     }
@@ -322,7 +286,7 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
     /// @return A RepeatUntilLoop statement.
     @Override
     public Statement visitRepeatUntilLoop(LigmaParser.RepeatUntilLoopContext ctx) {
-        log.debug("Repeat-until loop: {}", ctx.getText());
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Repeat-until loop", ctx);
         int line = ctx.getStart().getLine();
         return processLoop(ctx.statement(), ctx.expression(), RepeatUntilLoop::new, line);
     }
@@ -340,7 +304,7 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
         BiFunction<List<Statement>, Expression, Statement> loopConstructor,
         int line
     ) {
-        SymbolTable.enterScope(false);
+        SymbolTable.enterLoopScope();
 
         // Traverse statements in the loop body
         List<Statement> statements = statementCtxList.stream()
@@ -351,42 +315,53 @@ public class StatementVisitor extends LigmaBaseVisitor<Statement> {
         Expression condition = expressionVisitor.visit(expressionCtx);
 
         // Validate that the condition is boolean
-        if (condition.getType() != DataType.BOOLEAN) {
-            throw new SemanticException(
-                "Condition must be a boolean type" +
-                " (line " + line + ")"
-            );
+        SemanticAnalysis.checkCondition(condition, line);
+
+        // Create the loop statement
+        Statement loop = loopConstructor.apply(statements, condition);
+        int scopeSize = SymbolTable.getCurrentScopeSize();
+        switch (loop) {
+            case DoWhileLoop doWhileLoop -> doWhileLoop.setScopeSize(scopeSize);
+            case RepeatUntilLoop repeatUntilLoop -> repeatUntilLoop.setScopeSize(scopeSize);
+            default -> throw new IllegalStateException("Unexpected loop: " + loop);
         }
 
         SymbolTable.exitScope();
 
-        // Create and return the loop statement
-        return loopConstructor.apply(statements, condition);
+        return loop;
     }
 
-    /// Visits a function call statement and processes it.
+    /// Visits a break statement and checks that it is in the body of a loop.
     ///
-    /// @param ctx The context representing a function call.
-    /// @return The result of the function call.
+    /// @param ctx The context representing a break statement.
+    /// @return A BreakStatement statement.
+    /// @throws SemanticException If the statement is not in a loop.
     @Override
-    public Statement visitFunctionCall(LigmaParser.FunctionCallContext ctx) {
-        return functionVisitor.visitFunctionCall(ctx);
+    public Statement visitBreakStatement(LigmaParser.BreakStatementContext ctx) {
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Break statement", ctx);
+
+        return SemanticAnalysis.createLoopJump(true, ctx.getStart().getLine());
     }
 
-    /// Adds a variable to the symbol table.
+    /// Visits a continue statement and checks that it is in the body of a loop.
     ///
-    /// @param identifier The name of the variable.
-    /// @param dataType The data type of the variable.
-    /// @param isConstant Whether the variable is constant or not.
-    private void addVariableToSymbolTable(String identifier, DataType dataType, boolean isConstant) {
-        Descriptor descriptor = VariableDescriptor.builder()
-                                                  .name(identifier)
-                                                  .type(dataType)
-                                                  .isConstant(isConstant)
-                                                  .scopeLevel(SymbolTable.getLevel(identifier))
-                                                  .build();
-
-        SymbolTable.add(identifier, descriptor);
+    /// @param ctx The context representing a continue statement.
+    /// @return A ContinueStatement statement.
+    /// @throws SemanticException If the statement is not in a loop.
+    @Override
+    public Statement visitContinueStatement(LigmaParser.ContinueStatementContext ctx) {
+        Trace.event(CompilerPhase.SEMANTIC_ANALYSIS, "Continue statement", ctx);
+
+        return SemanticAnalysis.createLoopJump(false, ctx.getStart().getLine());
+    }
+
+    /// Visits a function call statement and processes it.
+    ///
+    /// @param ctx The context representing a function call statement.
+    /// @return The result of the function call.
+    @Override
+    public Statement visitCallStatement(LigmaParser.CallStatementContext ctx) {
+        return functionVisitor.visitFunctionCall(ctx.functionCall());
     }
 
 }
@@ -0,0 +1,67 @@
+package ligma.visitor;
+
+import ligma.enums.CompilerPhase;
+import ligma.generated.LigmaLexer;
+import ligma.generated.LigmaParser;
+import ligma.ir.function.Function;
+import ligma.ir.program.Program;
+import ligma.ir.statement.Statement;
+import ligma.listener.EnhancedLigmaLexer;
+import ligma.listener.IrBuildingListener;
+import ligma.listener.SyntaxErrorListener;
+import ligma.trace.Trace;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Streaming front end building the IR of the program while it is read.
+///
+/// Unlike the [ProgramVisitor] (which needs the parse tree of the whole program), the source code is read
+/// through unbuffered character and token streams by a parser which does not build the parse tree. The IR
+/// is built by the [IrBuildingListener] as the rules are parsed, so only the text around the currently
+/// parsed construct and the contexts of the unfinished rules are kept in memory and the memory used by the
+/// front end is proportional to the largest top-level construct (plus the resulting IR) rather than to the
+/// whole source code.
+public class StreamingProgramReader {
+
+    /// Size of the buffers of the unbuffered streams (they grow when a construct needs more).
+    private static final int BUFFER_SIZE = 4096;
+
+    /// Private constructor to prevent instantiation
+    private StreamingProgramReader() {
+    }
+
+    /// Runs the lexical, syntax and semantic analysis of the program read from the stream.
+    ///
+    /// @param input the stream with the UTF-8 encoded source code
+    /// @return the program
+    public static Program read(InputStream input) {
+        Trace.event(CompilerPhase.FRONT_END, "Program (streaming)");
+
+        LigmaLexer lexer = new EnhancedLigmaLexer(new UnbufferedCharStream(input, BUFFER_SIZE, StandardCharsets.UTF_8));
+        // The tokens must keep their text, the characters are released from the buffer
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+
+        LigmaParser parser = new LigmaParser(new UnbufferedTokenStream<>(lexer, BUFFER_SIZE));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new SyntaxErrorListener());
+        parser.setBuildParseTree(false);
+
+        List<Statement> statements = new ArrayList<>();
+        List<Function> functions = new ArrayList<>();
+        parser.addParseListener(new IrBuildingListener(parser, statements::add, functions::add));
+
+        parser.program();
+
+        return new Program(statements, functions);
+    }
+
+}
@@ -0,0 +1,233 @@
+package ligma.vm;
+
+import ligma.generator.InstructionInfo;
+import ligma.generator.SourceMap;
+import ligma.ir.SourcePosition;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Collects execution counts of a program run by the [VirtualMachine].
+///
+/// Every executed instruction is counted by its index and by the calling context (the chain of functions
+/// on the stack) it was executed in. Using the [SourceMap] of the program, the counts are then
+/// attributed to source lines and functions and reported as a flat profile and as collapsed stacks
+/// (one `frame;frame;frame count` line per calling context) accepted by flame graph tools.
+public class Profiler {
+
+    /// Initial capacity of the calling context tree.
+    private static final int INITIAL_NODES = 64;
+
+    /// The profiled instructions.
+    private final List<InstructionInfo> instructions;
+    /// The side table with the origin of the instructions.
+    private final SourceMap sourceMap;
+    /// Execution counts indexed by the instruction index.
+    private final long[] instructionCounts;
+
+    /// Parent of every node in the calling context tree.
+    private int[] nodeParents = new int[INITIAL_NODES];
+    /// Function name of every node in the calling context tree.
+    private String[] nodeFunctions = new String[INITIAL_NODES];
+    /// Execution counts of every node (instructions executed directly in the context).
+    private long[] nodeCounts = new long[INITIAL_NODES];
+    /// Number of nodes in the calling context tree.
+    private int nodeCount;
+    /// Children of the nodes, the key combines the parent node and the called address.
+    private final Map<Long, Integer> nodeChildren = new HashMap<>();
+    /// The calling context of the currently executed instruction.
+    private int currentNode;
+
+    public Profiler(List<InstructionInfo> instructions, SourceMap sourceMap) {
+        this.instructions = instructions;
+        this.sourceMap = sourceMap;
+        this.instructionCounts = new long[instructions.size()];
+
+        String root = instructions.isEmpty() ? SourceMap.MAIN_FUNCTION : sourceMap.getFunction(0);
+        this.currentNode = addNode(-1, root);
+    }
+
+    /// Counts the execution of an instruction.
+    ///
+    /// @param index the index of the executed instruction
+    void count(int index) {
+        instructionCounts[index]++;
+        nodeCounts[currentNode]++;
+    }
+
+    /// Enters the function starting at the given address (called on `cal`).
+    ///
+    /// @param address the address of the called function
+    void enter(int address) {
+        long key = ((long) currentNode << 32) | address;
+        Integer child = nodeChildren.get(key);
+
+        if (child == null) {
+            child = addNode(currentNode, sourceMap.getFunction(address));
+            nodeChildren.put(key, child);
+        }
+
+        currentNode = child;
+    }
+
+    /// Leaves the current function (called on `ret`).
+    void leave() {
+        if (nodeParents[currentNode] >= 0) {
+            currentNode = nodeParents[currentNode];
+        }
+    }
+
+    /// Returns the number of executions of the instruction at the given index.
+    ///
+    /// @param index the index of the instruction
+    /// @return the number of executions
+    public long getInstructionCount(int index) {
+        return instructionCounts[index];
+    }
+
+    /// Returns the total number of executed instructions.
+    public long getTotalCount() {
+        return Arrays.stream(instructionCounts).sum();
+    }
+
+    /// Returns the execution counts aggregated by source line.
+    ///
+    /// @return map of source lines to execution counts (in order of the first instruction of the line)
+    public Map<Integer, Long> getLineCounts() {
+        Map<Integer, Long> lineCounts = new LinkedHashMap<>();
+
+        for (int i = 0; i < instructionCounts.length; i++) {
+            lineCounts.merge(sourceMap.getPosition(i).line(), instructionCounts[i], Long::sum);
+        }
+
+        return lineCounts;
+    }
+
+    /// Returns the execution counts aggregated by function.
+    ///
+    /// @return map of function names to execution counts (in order of the first instruction of the function)
+    public Map<String, Long> getFunctionCounts() {
+        Map<String, Long> functionCounts = new LinkedHashMap<>();
+
+        for (int i = 0; i < instructionCounts.length; i++) {
+            functionCounts.merge(sourceMap.getFunction(i), instructionCounts[i], Long::sum);
+        }
+
+        return functionCounts;
+    }
+
+    /// Writes the flat profile: execution counts per function, per source line and per instruction.
+    ///
+    /// @param writer the writer to write the profile to
+    /// @throws IOException if the profile could not be written
+    public void writeFlatProfile(Writer writer) throws IOException {
+        long total = getTotalCount();
+
+        writer.write("Executed instructions: " + total + System.lineSeparator());
+
+        writer.write(System.lineSeparator() + "Functions" + System.lineSeparator());
+        for (Map.Entry<String, Long> entry : sortByCount(getFunctionCounts())) {
+            writer.write(formatCount(entry.getValue(), total) + entry.getKey() + System.lineSeparator());
+        }
+
+        writer.write(System.lineSeparator() + "Lines" + System.lineSeparator());
+        for (Map.Entry<Integer, Long> entry : sortByCount(getLineCounts())) {
+            String line = entry.getKey() == 0 ? "-" : String.valueOf(entry.getKey());
+            writer.write(formatCount(entry.getValue(), total) + "line " + line + System.lineSeparator());
+        }
+
+        writer.write(System.lineSeparator() + "Instructions" + System.lineSeparator());
+        for (int i = 0; i < instructionCounts.length; i++) {
+            InstructionInfo instruction = instructions.get(i);
+            SourcePosition position = sourceMap.getPosition(i);
+
+            writer.write(formatCount(instructionCounts[i], total) + String.format("%-5d %-5s %-3d %-6d %d:%d %s%n",
+                i,
+                instruction.getInstruction().name(),
+                instruction.getLevel(),
+                instruction.getAddress(),
+                position.line(),
+                position.column(),
+                sourceMap.getFunction(i)
+            ));
+        }
+    }
+
+    /// Writes the execution counts of the calling contexts in the collapsed stack format.
+    ///
+    /// @param writer the writer to write the stacks to
+    /// @throws IOException if the stacks could not be written
+    public void writeCollapsedStacks(Writer writer) throws IOException {
+        for (int node = 0; node < nodeCount; node++) {
+            if (nodeCounts[node] == 0) {
+                continue;
+            }
+
+            writer.write(getStack(node) + " " + nodeCounts[node] + System.lineSeparator());
+        }
+    }
+
+    /// Builds the `;` separated chain of functions of the node (outermost first).
+    ///
+    /// @param node the node of the calling context tree
+    /// @return the chain of function names
+    private String getStack(int node) {
+        List<String> frames = new ArrayList<>();
+
+        for (int current = node; current >= 0; current = nodeParents[current]) {
+            frames.add(nodeFunctions[current]);
+        }
+
+        StringBuilder stack = new StringBuilder();
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            stack.append(frames.get(i));
+            if (i > 0) {
+                stack.append(';');
+            }
+        }
+
+        return stack.toString();
+    }
+
+    /// Adds a new node to the calling context tree.
+    ///
+    /// @param parent the parent node (`-1` for the root)
+    /// @param function the name of the function of the node
+    /// @return the index of the new node
+    private int addNode(int parent, String function) {
+        if (nodeCount == nodeParents.length) {
+            nodeParents = Arrays.copyOf(nodeParents, nodeCount * 2);
+            nodeFunctions = Arrays.copyOf(nodeFunctions, nodeCount * 2);
+            nodeCounts = Arrays.copyOf(nodeCounts, nodeCount * 2);
+        }
+
+        nodeParents[nodeCount] = parent;
+        nodeFunctions[nodeCount] = function;
+
+        return nodeCount++;
+    }
+
+    /// Formats the count and its share of the total count.
+    private static String formatCount(long count, long total) {
+        double percent = total == 0 ? 0 : 100.0 * count / total;
+        return String.format("%12d %6.2f%%  ", count, percent);
+    }
+
+    /// Sorts the entries of the map by their counts (descending).
+    private static <K> List<Map.Entry<K, Long>> sortByCount(Map<K, Long> counts) {
+        List<Map.Entry<K, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<K, Long>comparingByValue().reversed());
+
+        return entries;
+    }
+
+}
@@ -0,0 +1,248 @@
+package ligma.vm;
+
+import ligma.enums.Instruction;
+import ligma.exception.VirtualMachineException;
+import ligma.generator.InstructionInfo;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+
+/// @author Milan Janoch & Jakub Pavlicek
+/// @version 1.0
+///
+/// Interpreter of the generated PL/0 instructions.
+///
+/// The machine follows the classic PL/0 model: a single stack holding the activation records,
+/// the base register `b` pointing to the current activation record, the stack top register `t`
+/// and the program counter `p`. Every activation record starts with the static link, the dynamic link
+/// and the return address. The program ends when the control returns to the address `0`.
+///
+/// Besides PL/0, the machine runs the instructions of the [ligma.enums.InstructionSet#EXTENDED] instruction set.
+@Slf4j
+public class VirtualMachine {
+
+    /// Default number of stack cells available to the program.
+    private static final int DEFAULT_STACK_SIZE = 1 << 16;
+    /// All instructions indexed by their ordinal.
+    private static final Instruction[] INSTRUCTIONS = Instruction.values();
+
+    /// Opcodes (ordinals of [Instruction]) of the program.
+    private final int[] opcodes;
+    /// Levels of the program instructions.
+    private final int[] levels;
+    /// Addresses of the program instructions.
+    private final int[] addresses;
+    /// The stack of the machine.
+    private final int[] stack;
+
+    /// Maximum number of executed instructions before the execution is aborted (`0` means unlimited).
+    @Setter
+    private long instructionLimit;
+    /// Number of instructions executed by the last run.
+    @Getter
+    private long executedInstructions;
+
+    public VirtualMachine(List<InstructionInfo> instructions) {
+        this(instructions, DEFAULT_STACK_SIZE);
+    }
+
+    public VirtualMachine(List<InstructionInfo> instructions, int stackSize) {
+        int size = instructions.size();
+
+        this.opcodes = new int[size];
+        this.levels = new int[size];
+        this.addresses = new int[size];
+        this.stack = new int[stackSize];
+
+        for (int i = 0; i < size; i++) {
+            InstructionInfo instruction = instructions.get(i);
+            opcodes[i] = instruction.getInstruction().ordinal();
+            levels[i] = instruction.getLevel();
+            addresses[i] = instruction.getAddress();
+        }
+    }
+
+    /// Runs the program.
+    public void run() {
+        run(null);
+    }
+
+    /// Runs the program and reports every executed instruction to the profiler.
+    ///
+    /// @param profiler the profiler collecting the execution counts (can be `null`)
+    /// @throws VirtualMachineException if the program performs an invalid operation
+    public void run(Profiler profiler) {
+        int[] s = stack;
+        int p = 0;
+        int b = 0;
+        int t = -1;
+        // Index of the executed instruction (p already points to the next one, or to the target of a jump)
+        int pc = 0;
+        long executed = 0;
+        long limit = instructionLimit;
+
+        try {
+            do {
+                pc = p++;
+                int address = addresses[pc];
+                executed++;
+
+                if (profiler != null) {
+                    profiler.count(pc);
+                }
+
+                switch (INSTRUCTIONS[opcodes[pc]]) {
+                    case LIT -> s[++t] = address;
+                    case OPR -> {
+                        if (address == 0) {
+                            t = b - 1;
+                            p = s[t + 3];
+                            b = s[t + 2];
+
+                            if (profiler != null) {
+                                profiler.leave();
+                            }
+                        } else if (address == 1 || address == 7) {
+                            s[t] = address == 1 ? -s[t] : s[t] & 1;
+                        } else {
+                            t--;
+                            s[t] = operate(address, s[t], s[t + 1], pc);
+                        }
+                    }
+                    case LOD -> {
+                        int value = s[base(s, b, levels[pc]) + address];
+                        s[++t] = value;
+                    }
+                    case STO -> s[base(s, b, levels[pc]) + address] = s[t--];
+                    case CAL -> {
+                        s[t + 1] = base(s, b, levels[pc]);
+                        s[t + 2] = b;
+                        s[t + 3] = p;
+                        b = t + 1;
+                        p = address;
+
+                        if (profiler != null) {
+                            profiler.enter(address);
+                        }
+                    }
+                    case INT -> t += address;
+                    case JMP -> p = address;
+                    case JMC -> {
+                        if (s[t--] == 0) {
+                            p = address;
+                        }
+                    }
+                    case RET -> {
+                        t = b - 1;
+                        p = s[t + 3];
+                        b = s[t + 2];
+
+                        if (profiler != null) {
+                            profiler.leave();
+                        }
+                    }
+                    case DUP -> {
+                        s[t + 1] = s[t];
+                        t++;
+                    }
+                    case INC -> s[base(s, b, levels[pc]) + address]++;
+                    case DEC -> s[base(s, b, levels[pc]) + address]--;
+                    case ADI -> s[t] += address;
+                    case NOT -> s[t] = s[t] == 0 ? 1 : 0;
+                    case JCC -> {
+                        t -= 2;
+                        if (operate(levels[pc], s[t + 1], s[t + 2], pc) == 0) {
+                            p = address;
+                        }
+                    }
+                    case ALC -> {
+                        Arrays.fill(s, t + 1, t + 1 + address, 0);
+                        t += address;
+                    }
+                    case LDX -> s[t] = s[base(s, b, levels[pc]) + address + s[t]];
+                    case STX -> {
+                        t -= 2;
+                        s[base(s, b, levels[pc]) + address + s[t + 1]] = s[t + 2];
+                    }
+                    case CHK -> {
+                        if (s[t] < 0 || s[t] >= address) {
+                            throw new VirtualMachineException(
+                                "Array index " + s[t] + " out of bounds for length " + address + " at instruction " + pc
+                            );
+                        }
+                    }
+                }
+
+                if (limit > 0 && executed >= limit) {
+                    throw new VirtualMachineException("Instruction limit of " + limit + " instructions exceeded");
+                }
+            } while (p != 0);
+        } catch (IndexOutOfBoundsException exception) {
+            if (pc < 0 || pc >= opcodes.length) {
+                throw new VirtualMachineException("Jump to invalid instruction " + pc + " (stack top " + t + ")");
+            }
+            throw new VirtualMachineException("Invalid memory access at instruction " + pc + " (stack top " + t + ")");
+        } finally {
+            executedInstructions = executed;
+        }
+
+        log.debug("Program finished after {} instructions", executed);
+    }
+
+    /// Returns the value stored in the stack at the given absolute address.
+    ///
+    /// @param address the absolute address in the stack
+    /// @return the value at the address
+    public int getStackValue(int address) {
+        return stack[address];
+    }
+
+    /// Finds the base of the activation record `level` levels down the static chain.
+    ///
+    /// @param stack the stack of the machine
+    /// @param base the current base
+    /// @param level the number of levels to descend
+    /// @return the base of the activation record
+    private static int base(int[] stack, int base, int level) {
+        int result = base;
+
+        while (level > 0) {
+            result = stack[result];
+            level--;
+        }
+
+        return result;
+    }
+
+    /// Evaluates a binary `opr` instruction.
+    ///
+    /// @param code the code of the operation
+    /// @param left the left operand
+    /// @param right the right operand
+    /// @param pc the index of the instruction (for error messages)
+    /// @return the result of the operation
+    private static int operate(int code, int left, int right, int pc) {
+        return switch (code) {
+            case 2 -> left + right;
+            case 3 -> left - right;
+            case 4 -> left * right;
+            case 5, 6 -> {
+                if (right == 0) {
+                    throw new VirtualMachineException("Division by zero at instruction " + pc);
+                }
+                yield code == 5 ? left / right : left % right;
+            }
+            case 8 -> left == right ? 1 : 0;
+            case 9 -> left != right ? 1 : 0;
+            case 10 -> left < right ? 1 : 0;
+            case 11 -> left >= right ? 1 : 0;
+            case 12 -> left > right ? 1 : 0;
+            case 13 -> left <= right ? 1 : 0;
+            default -> throw new VirtualMachineException("Unknown operation " + code + " at instruction " + pc);
+        };
+    }
+
+}
@@ -0,0 +1,181 @@
+package ligma;
+
+import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
+import ligma.exception.GenerateException;
+import ligma.exception.VirtualMachineException;
+import ligma.generator.Generator;
+import ligma.table.SymbolTable;
+import ligma.vm.VirtualMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArrayTest {
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    /// Compiles the program for the extended instruction set and runs it.
+    private static VirtualMachine run(String source) {
+        ProgramEquivalenceTest.compile(source, InstructionSet.EXTENDED);
+
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+        virtualMachine.run();
+
+        return virtualMachine;
+    }
+
+    /// Counts the generated instructions of the type.
+    private static long count(Instruction instruction) {
+        return Collections.frequency(ProgramEquivalenceTest.generatedInstructions(), instruction);
+    }
+
+    @Test
+    void sieveShouldCountPrimes() throws IOException {
+        VirtualMachine virtualMachine = run(Files.readString(Path.of("src/test/resources/generator/arrays/sieve.txt")));
+
+        // const int LIMIT (address 3), int count (address 4), int largest (address 5), boolean[100] composite (from 6)
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(25);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(97);
+        assertThat(virtualMachine.getStackValue(6 + 91)).isEqualTo(1);
+        assertThat(virtualMachine.getStackValue(6 + 97)).isZero();
+    }
+
+    @Test
+    void sortShouldOrderValues() throws IOException {
+        VirtualMachine virtualMachine = run(Files.readString(Path.of("src/test/resources/generator/arrays/sort.txt")));
+
+        // const int N (address 3), int[10] values (from 4), int seed (14), boolean sorted (15), int first (16),
+        // int last (17) and int total (18)
+        for (int address = 4; address < 13; address++) {
+            assertThat(virtualMachine.getStackValue(address)).isLessThanOrEqualTo(virtualMachine.getStackValue(address + 1));
+        }
+        assertThat(virtualMachine.getStackValue(15)).isEqualTo(1);
+        assertThat(virtualMachine.getStackValue(16)).isEqualTo(virtualMachine.getStackValue(4));
+        assertThat(virtualMachine.getStackValue(17)).isEqualTo(virtualMachine.getStackValue(13));
+        assertThat(virtualMachine.getStackValue(18)).isEqualTo(285);
+    }
+
+    @Test
+    void elementsShouldBeZeroInitialized() {
+        VirtualMachine virtualMachine = run("""
+            int[3] values;
+            int sum = 7;
+            sum = sum + values[0] + values[1] + values[2];
+            """);
+
+        assertThat(virtualMachine.getStackValue(6)).isEqualTo(7);
+    }
+
+    @Test
+    void localArraysShouldBeReleasedWithTheirScope() {
+        VirtualMachine virtualMachine = run("""
+            int total = 0;
+            int k = 0;
+            while (k < 3) {
+                int[4] local;
+                local[k] = k + 1;
+                total = total + local[k];
+                k = k + 1;
+            }
+            int after = 5;
+            """);
+
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(6);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(5);
+    }
+
+    @Test
+    void indexesOfConstantRangeLoopsShouldNotBeChecked() {
+        run("""
+            const int N = 8;
+            int[N] values;
+            int sum = 0;
+            for (int i = 0 to N) {
+                values[i] = i;
+            }
+            for (int i = 1 to N) {
+                sum = sum + values[i - 1] + values[N - 1 - i];
+            }
+            """);
+
+        assertThat(count(Instruction.CHK)).isZero();
+        assertThat(count(Instruction.LDX)).isEqualTo(2);
+        assertThat(count(Instruction.STX)).isEqualTo(1);
+    }
+
+    @Test
+    void constantIndexesShouldUseDirectAddresses() {
+        VirtualMachine virtualMachine = run("""
+            int[4] values;
+            values[3] = 9;
+            int last = values[3];
+            """);
+
+        assertThat(count(Instruction.CHK)).isZero();
+        assertThat(count(Instruction.LDX)).isZero();
+        assertThat(count(Instruction.STX)).isZero();
+        assertThat(virtualMachine.getStackValue(7)).isEqualTo(9);
+    }
+
+    @Test
+    void indexesOfUnknownRangeShouldBeChecked() {
+        run("""
+            int[4] values;
+            int n = 4;
+            int k = 0;
+            while (k < n) {
+                values[k] = k;
+                k = k + 1;
+            }
+            for (int i = 0 to n) {
+                values[i] = values[i] + 1;
+            }
+            for (int i = 0 to 4) {
+                i = i + 1;
+                values[i] = 0;
+            }
+            """);
+
+        // The while loop, both accesses of the loop to 'n' and the loop which assigns its variable
+        assertThat(count(Instruction.CHK)).isEqualTo(4);
+    }
+
+    @Test
+    void indexOutOfBoundsShouldStopExecution() throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/generator/arrays/out_of_bounds.txt"));
+        ProgramEquivalenceTest.compile(source, InstructionSet.EXTENDED);
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+
+        assertThatThrownBy(virtualMachine::run).isInstanceOf(VirtualMachineException.class)
+                                               .hasMessageStartingWith("Array index 3 out of bounds for length 3");
+    }
+
+    @Test
+    void constantIndexOutOfBoundsShouldBeCheckedAtRunTime() {
+        ProgramEquivalenceTest.compile("int[2] values;\nvalues[2] = 1;", InstructionSet.EXTENDED);
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+
+        assertThat(count(Instruction.CHK)).isEqualTo(1);
+        assertThatThrownBy(virtualMachine::run).isInstanceOf(VirtualMachineException.class);
+    }
+
+    @Test
+    void arraysShouldNeedExtendedInstructionSet() {
+        assertThatThrownBy(() -> ProgramEquivalenceTest.compile("int[2] values;", InstructionSet.PL0))
+            .isInstanceOf(GenerateException.class)
+            .hasMessageContaining("--extended-isa");
+    }
+
+}
@@ -0,0 +1,148 @@
+package ligma;
+
+import ligma.cache.BuildCache;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final byte[] SOURCE = "int a = 1;".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void keyShouldDependOnSourceVersionAndFlags() throws IOException {
+        BuildCache cache = new BuildCache(tempDir, 1024, "1.0");
+        BuildCache otherVersion = new BuildCache(tempDir, 1024, "1.1");
+        String key = cache.key(SOURCE, "");
+
+        assertThat(cache.key(SOURCE, "")).isEqualTo(key);
+        assertThat(cache.key("int a = 2;".getBytes(StandardCharsets.UTF_8), "")).isNotEqualTo(key);
+        assertThat(cache.key(SOURCE, "--optimize")).isNotEqualTo(key);
+        assertThat(otherVersion.key(SOURCE, "")).isNotEqualTo(key);
+    }
+
+    @Test
+    void compilerHashShouldDependOnContentOfClasses() throws IOException {
+        Path classes = Files.createDirectories(tempDir.resolve("classes/ligma/nested"));
+        Path nestedClass = Files.write(classes.resolve("Nested.class"), new byte[]{1, 2, 3});
+        Path jar = Files.write(tempDir.resolve("ligma.jar"), new byte[]{4, 5, 6});
+        FileTime time = Files.getLastModifiedTime(nestedClass);
+        String directoryHash = BuildCache.hashCompilerCode(tempDir.resolve("classes"));
+        String jarHash = BuildCache.hashCompilerCode(jar);
+
+        // A nested class compiled again changes neither the time of the directory nor (here) its own time
+        Files.write(nestedClass, new byte[]{1, 2, 4});
+        Files.setLastModifiedTime(nestedClass, time);
+        Files.write(jar, new byte[]{4, 5, 7});
+
+        assertThat(BuildCache.hashCompilerCode(tempDir.resolve("classes"))).isNotEqualTo(directoryHash);
+        assertThat(BuildCache.hashCompilerCode(jar)).isNotEqualTo(jarHash);
+        assertThat(BuildCache.hashCompilerCode(jar)).isEqualTo(BuildCache.hashCompilerCode(jar));
+    }
+
+    @Test
+    void storedInstructionsShouldBeFound() throws IOException {
+        BuildCache cache = new BuildCache(tempDir, 1024, "1.0");
+        String key = cache.key(SOURCE, "");
+
+        assertThat(cache.get(key)).isNull();
+        cache.put(key, "0   RET   0   0\n");
+
+        assertThat(cache.get(key)).isEqualTo("0   RET   0   0\n");
+        assertThat(new BuildCache(tempDir, 1024, "1.0").get(key)).isEqualTo("0   RET   0   0\n");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHitRate()).isEqualTo(0.5);
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).allMatch(file -> file.toString().endsWith(".pl0"));
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesShouldBeEvicted() throws IOException {
+        BuildCache cache = new BuildCache(tempDir, 250, "1.0");
+        String instructions = "x".repeat(100);
+
+        cache.put("a", instructions);
+        cache.put("b", instructions);
+        Files.setLastModifiedTime(tempDir.resolve("a.pl0"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(tempDir.resolve("b.pl0"), FileTime.fromMillis(2000));
+
+        // Reading "a" makes "b" the least recently used entry
+        assertThat(cache.get("a")).isEqualTo(instructions);
+        cache.put("c", instructions);
+
+        assertThat(cache.getSize()).isEqualTo(200);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(instructions);
+        assertThat(cache.get("c")).isEqualTo(instructions);
+    }
+
+    @Test
+    void batchCompilationShouldReuseCachedInstructions() throws IOException {
+        Path cacheDirectory = tempDir.resolve("cache");
+        Path outputDirectory = tempDir.resolve("output");
+        File[] files = Objects.requireNonNull(Path.of("src/main/resources/programs").toFile().listFiles());
+
+        List<String> args = new ArrayList<>(List.of("--cache", cacheDirectory.toString(), "--batch", outputDirectory.toString()));
+        for (File file : files) {
+            args.add(file.getPath());
+        }
+
+        App.main(args.toArray(String[]::new));
+
+        for (File file : files) {
+            assertThat(outputDirectory.resolve(file.getName()))
+                .hasContent(App.compile(CharStreams.fromPath(file.toPath())).stripTrailing());
+        }
+
+        // The second build must take the instructions from the cache (it is not compiled again)
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            assertThat(entries.toList()).hasSize(files.length).allSatisfy(entry -> Files.writeString(entry, "cached"));
+        }
+
+        App.main(args.toArray(String[]::new));
+
+        for (File file : files) {
+            assertThat(outputDirectory.resolve(file.getName())).hasContent("cached");
+        }
+    }
+
+    @Test
+    void singleFileCompilationShouldUseCache() throws IOException {
+        Path cacheDirectory = tempDir.resolve("cache");
+        Path output = tempDir.resolve("simple.pl0");
+        String input = "src/main/resources/programs/simple.txt";
+        String[] args = {"--cache", cacheDirectory.toString(), input, output.toString()};
+
+        App.main(args);
+        String instructions = Files.readString(output);
+
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            assertThat(entries.toList()).singleElement().satisfies(entry -> assertThat(entry).hasContent(instructions.stripTrailing()));
+        }
+
+        Files.delete(output);
+        App.main(args);
+
+        assertThat(output).hasContent(instructions.stripTrailing());
+    }
+
+}
@@ -0,0 +1,42 @@
+package ligma;
+
+import ligma.cache.CdsArchive;
+import ligma.cli.CompilerOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CdsArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void archiveShouldNotBeDumpedFromClassDirectories() {
+        // The tests run from the directories with the classes, the JVM can only archive the classes of jars
+        Path archive = tempDir.resolve("ligma.jsa");
+
+        assertThat(CdsArchive.train(archive, List.of("src/main/resources/programs/simple.txt"))).isFalse();
+        assertThat(Files.exists(archive)).isFalse();
+    }
+
+    @Test
+    void trainingOptionShouldExpectOnlyPrograms() {
+        CompilerOptions options = CompilerOptions.parse(new String[]{"--train-cds", "ligma.jsa", "a.txt", "programs"});
+
+        assertThat(options.getCdsArchive()).isEqualTo("ligma.jsa");
+        assertThat(options.getInputFiles()).containsExactly("a.txt", "programs");
+        assertThat(CompilerOptions.parse(new String[]{"--train-cds", "ligma.jsa"}).getInputFiles()).isEmpty();
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--train-cds", "ligma.jsa", "--run", "a.txt"}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--train-cds"}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,120 @@
+package ligma;
+
+import ligma.daemon.CompileClient;
+import ligma.daemon.CompileDaemon;
+import ligma.daemon.DaemonResponse;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompileDaemonTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path socket;
+    private Thread daemonThread;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        socket = tempDir.resolve("ligma.sock");
+        startDaemon(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (Files.exists(socket)) {
+            CompileClient.shutdown(socket);
+        }
+        daemonThread.join(10_000);
+    }
+
+    private void startDaemon(Duration idleTimeout) throws IOException {
+        CompileDaemon daemon = new CompileDaemon(socket, idleTimeout);
+        daemon.start();
+
+        daemonThread = new Thread(daemon::serve);
+        daemonThread.start();
+    }
+
+    @Test
+    void concurrentRequestsShouldMatchLocalCompilation() throws Exception {
+        File[] files = Objects.requireNonNull(Path.of("src/main/resources/programs").toFile().listFiles());
+        List<String> sources = new ArrayList<>();
+        List<Future<DaemonResponse>> responses = new ArrayList<>();
+
+        for (File file : files) {
+            sources.add(Files.readString(file.toPath()));
+        }
+
+        try (ExecutorService clients = Executors.newFixedThreadPool(8)) {
+            // Every program is compiled several times at once
+            for (int i = 0; i < 4 * sources.size(); i++) {
+                String source = sources.get(i % sources.size());
+                responses.add(clients.submit(() -> CompileClient.compile(socket, "program.txt", source)));
+            }
+
+            for (int i = 0; i < responses.size(); i++) {
+                DaemonResponse response = responses.get(i).get();
+
+                assertThat(response.successful()).isTrue();
+                assertThat(response.content()).isEqualTo(App.compile(CharStreams.fromString(sources.get(i % sources.size()))));
+            }
+        }
+    }
+
+    @Test
+    void invalidProgramShouldReturnDiagnostics() throws IOException {
+        DaemonResponse response = CompileClient.compile(socket, "invalid.txt", "int a = ;");
+
+        assertThat(response.successful()).isFalse();
+        assertThat(response.content()).startsWith("SyntaxException");
+
+        response = CompileClient.compile(socket, "undefined.txt", "int a = b;");
+
+        assertThat(response.successful()).isFalse();
+        assertThat(response.content()).startsWith("SemanticException");
+    }
+
+    @Test
+    void clientModeShouldWriteOutputFile() throws IOException {
+        Path output = tempDir.resolve("factorial.pl0");
+        String input = "src/main/resources/programs/factorial.txt";
+
+        App.main(new String[]{"--client", socket.toString(), input, output.toString()});
+
+        assertThat(output).hasContent(App.compile(CharStreams.fromFileName(input)).stripTrailing());
+    }
+
+    @Test
+    void daemonShouldStopAfterIdleTimeout() throws Exception {
+        CompileClient.shutdown(socket);
+        daemonThread.join(10_000);
+
+        startDaemon(Duration.ofMillis(200));
+        daemonThread.join(10_000);
+
+        assertThat(daemonThread.isAlive()).isFalse();
+        assertThat(socket).doesNotExist();
+        assertThatThrownBy(() -> CompileClient.compile(socket, "simple.txt", "int a = 1;"))
+            .isInstanceOf(IOException.class);
+    }
+
+}
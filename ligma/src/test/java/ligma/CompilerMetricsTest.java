@@ -0,0 +1,90 @@
+package ligma;
+
+import ligma.enums.CompilerPhase;
+import ligma.enums.MetricCounter;
+import ligma.metrics.CompilerMetrics;
+import ligma.metrics.PhaseMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompilerMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compilationShouldRecordAllPhasesAndCounters() throws IOException {
+        Path output = tempDir.resolve("factorial.pl0");
+        Path metrics = tempDir.resolve("metrics.json");
+
+        App.main(new String[]{
+            "--run", "--metrics", metrics.toString(),
+            "src/main/resources/programs/factorial.txt", output.toString()
+        });
+
+        assertThat(CompilerMetrics.getPhases())
+            .extracting(PhaseMetrics::phase)
+            .containsExactly(
+                CompilerPhase.LEXING,
+                CompilerPhase.PARSING,
+                CompilerPhase.SEMANTIC_ANALYSIS,
+                CompilerPhase.GENERATION,
+                CompilerPhase.OPTIMIZATION,
+                CompilerPhase.WRITING,
+                CompilerPhase.EXECUTION
+            );
+        assertThat(CompilerMetrics.getPhases()).allSatisfy(phase -> assertThat(phase.wallTime()).isPositive());
+
+        for (MetricCounter counter : MetricCounter.values()) {
+            assertThat(CompilerMetrics.get(counter)).as(counter.getName()).isPositive();
+        }
+
+        assertThat(CompilerMetrics.get(MetricCounter.INSTRUCTIONS))
+            .isEqualTo(Files.readAllLines(output).size());
+
+        assertThat(Files.readString(metrics))
+            .contains("\"phase\": \"semantic-analysis\"", "\"allocatedBytes\"", "\"tokens\": " + CompilerMetrics.get(MetricCounter.TOKENS));
+    }
+
+    @Test
+    void nestedPhaseShouldNotBeCountedInEnclosingPhase() {
+        CompilerMetrics.start("nested");
+
+        CompilerMetrics.measure(CompilerPhase.GENERATION, () ->
+            CompilerMetrics.measure(CompilerPhase.OPTIMIZATION, () -> sleep(50))
+        );
+
+        assertThat(CompilerMetrics.getPhases())
+            .extracting(PhaseMetrics::phase)
+            .containsExactly(CompilerPhase.GENERATION, CompilerPhase.OPTIMIZATION);
+        assertThat(CompilerMetrics.getPhases().get(0).wallTime()).isLessThan(50_000_000L);
+        assertThat(CompilerMetrics.getPhases().get(1).wallTime()).isGreaterThanOrEqualTo(50_000_000L);
+    }
+
+    @Test
+    void resourceUsageShouldOnlyBeMeasuredForReport() {
+        Path output = tempDir.resolve("factorial.pl0");
+
+        App.main(new String[]{"src/main/resources/programs/factorial.txt", output.toString()});
+
+        assertThat(CompilerMetrics.getPhases()).isNotEmpty().allSatisfy(phase -> {
+            assertThat(phase.cpuTime()).isEqualTo(-1);
+            assertThat(phase.allocatedBytes()).isEqualTo(-1);
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
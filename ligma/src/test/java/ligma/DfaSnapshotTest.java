@@ -0,0 +1,120 @@
+package ligma;
+
+import ligma.cache.DfaSnapshot;
+import ligma.generated.LigmaLexer;
+import ligma.generated.LigmaParser;
+import ligma.listener.EnhancedLigmaLexer;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DfaSnapshotTest {
+
+    /// Program which trains the shared caches.
+    private static final String SOURCE = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(1).statements(200).functions(5).build());
+
+    /// Compiles the program and writes the shared caches.
+    private static byte[] writeTrainedCaches() throws IOException {
+        App.compile(CharStreams.fromString(SOURCE));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DfaSnapshot.write(output, DfaSnapshot.Caches.shared());
+
+        return output.toByteArray();
+    }
+
+    /// Parses the program by the generated lexer and parser using only the given caches.
+    private static String parse(String source, DfaSnapshot.Caches caches) {
+        LigmaLexer lexer = new EnhancedLigmaLexer(CharStreams.fromString(source));
+        lexer.setInterpreter(new LexerATNSimulator(lexer, LigmaLexer._ATN, caches.lexer(), new PredictionContextCache()));
+
+        LigmaParser parser = new LigmaParser(new CommonTokenStream(lexer));
+        parser.setInterpreter(new ParserATNSimulator(parser, LigmaParser._ATN, caches.parser(), new PredictionContextCache()));
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        return parser.program().toStringTree(parser);
+    }
+
+    @Test
+    void bundledSnapshotShouldMatchGrammar() throws IOException {
+        try (InputStream input = DfaSnapshot.class.getResourceAsStream(DfaSnapshot.RESOURCE)) {
+            assertThat(input).isNotNull();
+
+            DfaSnapshot.Caches caches = DfaSnapshot.read(input);
+            assertThat(caches).isNotNull();
+            assertThat(caches.countStates()).isPositive();
+        }
+    }
+
+    @Test
+    void snapshotShouldBeWrittenAsRead() throws IOException {
+        byte[] snapshot = writeTrainedCaches();
+        DfaSnapshot.Caches shared = DfaSnapshot.Caches.shared();
+        DfaSnapshot.Caches caches = DfaSnapshot.read(new ByteArrayInputStream(snapshot));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DfaSnapshot.write(output, caches);
+
+        assertThat(output.toByteArray()).isEqualTo(snapshot);
+        assertThat(caches.countStates()).isEqualTo(shared.countStates());
+        for (int decision = 0; decision < shared.parser().length; decision++) {
+            assertThat(caches.parser()[decision].toString(LigmaParser.VOCABULARY))
+                .isEqualTo(shared.parser()[decision].toString(LigmaParser.VOCABULARY));
+        }
+        for (int mode = 0; mode < shared.lexer().length; mode++) {
+            assertThat(caches.lexer()[mode].toLexerString()).isEqualTo(shared.lexer()[mode].toLexerString());
+        }
+    }
+
+    @Test
+    void readCachesShouldPredictWithoutNewStates() throws IOException {
+        DfaSnapshot.Caches caches = DfaSnapshot.read(new ByteArrayInputStream(writeTrainedCaches()));
+        int states = caches.countStates();
+
+        assertThat(parse(SOURCE, caches)).isEqualTo(parse(SOURCE, DfaSnapshot.Caches.empty()));
+        assertThat(caches.countStates()).isEqualTo(states);
+    }
+
+    @Test
+    void readCachesShouldBeExtendedByNewPrograms() throws IOException {
+        DfaSnapshot.Caches caches = DfaSnapshot.read(new ByteArrayInputStream(writeTrainedCaches()));
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(2).statements(200).functions(5).build());
+
+        assertThat(parse(source, caches)).isEqualTo(parse(source, DfaSnapshot.Caches.empty()));
+    }
+
+    @Test
+    void snapshotOfDifferentGrammarShouldBeIgnored() throws IOException {
+        byte[] snapshot = writeTrainedCaches();
+        // The hash of the grammar follows the magic number and the version of the format
+        snapshot[8] ^= 1;
+
+        assertThat(DfaSnapshot.read(new ByteArrayInputStream(snapshot))).isNull();
+        assertThat(DfaSnapshot.read(new ByteArrayInputStream(SOURCE.getBytes()))).isNull();
+    }
+
+    @Test
+    void onlyEmptyCachesShouldBeInstalled() throws IOException {
+        DfaSnapshot.Caches caches = DfaSnapshot.read(new ByteArrayInputStream(writeTrainedCaches()));
+        DfaSnapshot.Caches target = DfaSnapshot.Caches.empty();
+
+        assertThat(DfaSnapshot.install(caches, target)).isEqualTo(caches.countStates());
+        assertThat(DfaSnapshot.install(caches, target)).isZero();
+        assertThat(target.countStates()).isEqualTo(caches.countStates());
+        assertThat(parse(SOURCE, target)).isEqualTo(parse(SOURCE, DfaSnapshot.Caches.empty()));
+    }
+
+}
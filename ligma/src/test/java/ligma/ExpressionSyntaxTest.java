@@ -1,8 +1,11 @@
 package ligma;
 
 import ligma.exception.SyntaxException;
+import ligma.generated.LigmaParser;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -14,6 +17,7 @@ import java.nio.file.Path;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -50,6 +54,28 @@ class ExpressionSyntaxTest {
                 .doesNotThrowAnyException();
     }
 
+    @ParameterizedTest(name = "Valid file: {0}")
+    @MethodSource("validFiles")
+    void validFilesShouldHaveSameTreeWithFullLLPrediction(String fileName, String resourcePath) throws IOException {
+        CharStream charStream = CharStreams.fromFileName(Path.of("src/test/resources", resourcePath).toString());
+        String tree = App.parse(App.tokenize(charStream)).toStringTree();
+
+        charStream.seek(0);
+        assertThat(App.parseLL(App.tokenize(charStream)).toStringTree()).isEqualTo(tree);
+    }
+
+    @ParameterizedTest(name = "Program: {0}")
+    @MethodSource("ligma.ProgramEquivalenceTest#programFiles")
+    void programsShouldParseWithSLLPrediction(String fileName, String resourcePath) throws IOException {
+        LigmaParser parser = new LigmaParser(App.tokenize(CharStreams.fromString(ProgramEquivalenceTest.readResource(resourcePath))));
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        // The first stage of App.parse must not fall back to the full LL prediction on a valid program
+        assertThatCode(parser::program).doesNotThrowAnyException();
+    }
+
     @ParameterizedTest(name = "Invalid file: {0}")
     @MethodSource("invalidFiles")
     void invalidFilesShouldThrowExceptions(String fileName, String resourcePath) {
@@ -0,0 +1,104 @@
+package ligma;
+
+import ligma.cli.CompilerOptions;
+import ligma.enums.CallGraphShape;
+import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
+import ligma.generator.Generator;
+import ligma.table.SymbolTable;
+import ligma.vm.VirtualMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtendedInstructionSetTest {
+
+    /// The instructions of PL/0.
+    private static final Set<Instruction> PL0_INSTRUCTIONS = EnumSet.range(Instruction.LIT, Instruction.RET);
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    @ParameterizedTest(name = "Program file: {0}")
+    @MethodSource("ligma.ProgramEquivalenceTest#programFiles")
+    void defaultOutputShouldStayStrictPl0(String fileName, String resourcePath) throws IOException {
+        ProgramEquivalenceTest.compile(ProgramEquivalenceTest.readResource(resourcePath), InstructionSet.PL0);
+
+        assertThat(ProgramEquivalenceTest.generatedInstructions()).allMatch(PL0_INSTRUCTIONS::contains);
+    }
+
+    @ParameterizedTest(name = "Call graph: {0}, seed: {1}")
+    @MethodSource("ligma.ProgramEquivalenceTest#synthesizedPrograms")
+    void defaultOutputOfSynthesizedProgramsShouldStayStrictPl0(CallGraphShape shape, long seed) {
+        ProgramEquivalenceTest.compile(ProgramEquivalenceTest.synthesize(shape, seed), InstructionSet.PL0);
+
+        assertThat(ProgramEquivalenceTest.generatedInstructions()).allMatch(PL0_INSTRUCTIONS::contains);
+    }
+
+    @Test
+    void additionsOfConstantsShouldUseExtendedInstructions() {
+        ProgramEquivalenceTest.compile("""
+            int a = 5;
+            int b = 0;
+            a = a - 1;
+            b = a + 7;
+            """, InstructionSet.EXTENDED);
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+        virtualMachine.run();
+
+        assertThat(ProgramEquivalenceTest.generatedInstructions()).contains(Instruction.DEC, Instruction.ADI);
+        // int a (address 3) and int b (address 4)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(4);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(11);
+    }
+
+    @Test
+    void loopsShouldUseExtendedInstructions() throws IOException {
+        ProgramEquivalenceTest.compile(ProgramEquivalenceTest.readResource("programs/loops.txt"), InstructionSet.EXTENDED);
+
+        assertThat(ProgramEquivalenceTest.generatedInstructions()).contains(Instruction.INC, Instruction.JCC)
+                                           .doesNotContain(Instruction.JMC);
+    }
+
+    @Test
+    void chainedAssignmentAndNotShouldUseExtendedInstructions() {
+        ProgramEquivalenceTest.compile("""
+            int a = 0;
+            int b = 0;
+            boolean c = false;
+            a = b = 5;
+            c = !c;
+            """, InstructionSet.EXTENDED);
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions());
+        virtualMachine.run();
+
+        assertThat(ProgramEquivalenceTest.generatedInstructions()).contains(Instruction.DUP, Instruction.NOT);
+        // int a (address 3), int b (address 4) and boolean c (address 5)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(5);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(5);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(1);
+    }
+
+    @Test
+    void extendedInstructionSetShouldBeOptIn() {
+        CompilerOptions options = CompilerOptions.parse(new String[]{"--extended-isa", "a.txt", "a.pl0"});
+
+        assertThat(options.getInstructionSet()).isEqualTo(InstructionSet.EXTENDED);
+        assertThat(options.getCodeGenerationFlags()).isNotEqualTo(CompilerOptions.parse(new String[]{"a.txt", "a.pl0"}).getCodeGenerationFlags());
+        assertThat(CompilerOptions.parse(new String[]{"a.txt", "a.pl0"}).getInstructionSet()).isEqualTo(InstructionSet.PL0);
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--extended-isa", "--batch", "out", "a.txt"}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
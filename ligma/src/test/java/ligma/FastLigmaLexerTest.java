@@ -0,0 +1,157 @@
+package ligma;
+
+import ligma.cli.CompilerOptions;
+import ligma.exception.LexicalException;
+import ligma.lexer.FastLigmaLexer;
+import ligma.lexer.TokenArray;
+import ligma.lexer.TokenArraySource;
+import ligma.listener.EnhancedLigmaLexer;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FastLigmaLexerTest {
+
+    /// Lexes the source by the lexer and describes the tokens (or the lexical error).
+    private static List<String> describe(CommonTokenStream tokenStream) {
+        try {
+            tokenStream.fill();
+        } catch (LexicalException exception) {
+            return List.of("error: " + exception.getMessage());
+        }
+
+        return tokenStream.getTokens().stream().map(FastLigmaLexerTest::describe).toList();
+    }
+
+    private static String describe(Token token) {
+        return token.getType() + " '" + token.getText() + "' " + token.getLine() + ":" + token.getCharPositionInLine()
+            + " " + token.getStartIndex() + "-" + token.getStopIndex() + " #" + token.getTokenIndex();
+    }
+
+    private static void assertSameTokens(String source) {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+
+        List<String> expected = describe(new CommonTokenStream(new EnhancedLigmaLexer(CharStreams.fromString(source))));
+        List<String> actual = describe(new CommonTokenStream(new TokenArraySource(FastLigmaLexer.tokenize(bytes))));
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    static Stream<Arguments> sourceFiles() throws IOException {
+        try (Stream<Path> programs = Files.list(Path.of("src/main/resources/programs"));
+             Stream<Path> resources = Files.walk(Path.of("src/test/resources"))) {
+            return Stream.concat(programs.toList().stream(), resources.filter(Files::isRegularFile).toList().stream())
+                         .map(path -> Arguments.of(path.toString()));
+        }
+    }
+
+    @ParameterizedTest(name = "File: {0}")
+    @MethodSource("sourceFiles")
+    void filesShouldBeLexedAsByGeneratedLexer(String path) throws IOException {
+        String source = Files.readString(Path.of(path));
+        List<String> expected = describe(new CommonTokenStream(new EnhancedLigmaLexer(CharStreams.fromString(source))));
+
+        if (expected.getFirst().startsWith("error: ")) {
+            assertThatThrownBy(() -> FastLigmaLexer.tokenize(source.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(LexicalException.class)
+                .hasMessage(expected.getFirst().substring("error: ".length()));
+        } else {
+            assertSameTokens(source);
+        }
+    }
+
+    @ParameterizedTest(name = "Seed: {0}")
+    @ValueSource(longs = {1, 2, 3})
+    void synthesizedProgramsShouldBeLexedAsByGeneratedLexer(long seed) {
+        assertSameTokens(ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(seed).statements(2000).functions(20).build()));
+    }
+
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "iffy if1 _if for_ to tO TRUE true1 falsey false",
+        "int x=007+a1_b2 * 3%4^5/6;",
+        "a==b=c!=d!e>=f>g<=h<i&&j||k",
+        "int a = 1; // comment\r\nint b = 2;// comment at the end",
+        "int a = /* žluťoučký\n kůň */ 5; /**/ int /***/ b = 3;",
+        "\tint\ta\r=\r\n1;\n\n\n  x",
+        "int a = 4 /* unterminated * / comment",
+        "int a = 4 / *",
+        "",
+        "   \n",
+    })
+    void sourcesShouldBeLexedAsByGeneratedLexer(String source) {
+        assertSameTokens(source);
+    }
+
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "int a = 1 & 2;",
+        "int a = 1 | 2;",
+        "int a = 1 &",
+        "|",
+        "a &č",
+        "/* ř */ int a = 1 @ 2;",
+        "int x = 1;\n  int ý = 2;",
+        "int a = 1;\r\n#",
+        "boolean b = true &&& false;",
+    })
+    void errorsShouldBeReportedAsByGeneratedLexer(String source) {
+        List<String> expected = describe(new CommonTokenStream(new EnhancedLigmaLexer(CharStreams.fromString(source))));
+
+        assertThat(expected.getFirst()).startsWith("error: ");
+        assertThatThrownBy(() -> FastLigmaLexer.tokenize(source.getBytes(StandardCharsets.UTF_8)))
+            .isInstanceOf(LexicalException.class)
+            .hasMessage(expected.getFirst().substring("error: ".length()));
+    }
+
+    @Test
+    void tokenArrayShouldDescribeTokens() {
+        TokenArray tokens = FastLigmaLexer.tokenize("int a =\n  10;".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(tokens.size()).isEqualTo(6);
+        assertThat(tokens.getText(3)).isEqualTo("10");
+        assertThat(tokens.getStart(3)).isEqualTo(10);
+        assertThat(tokens.getLength(3)).isEqualTo(2);
+        assertThat(tokens.getLine(3)).isEqualTo(2);
+        assertThat(tokens.getColumn(3)).isEqualTo(2);
+        assertThat(tokens.getType(5)).isEqualTo(Token.EOF);
+    }
+
+    @Test
+    void programsShouldCompileToSameInstructions() throws IOException {
+        try (Stream<Path> programs = Files.list(Path.of("src/main/resources/programs"))) {
+            for (Path program : programs.toList()) {
+                byte[] source = Files.readAllBytes(program);
+
+                assertThat(App.compile(source))
+                    .as(program.toString())
+                    .isEqualTo(App.compile(CharStreams.fromString(new String(source, StandardCharsets.UTF_8))));
+            }
+        }
+    }
+
+    @Test
+    void fastLexerShouldNotBeCombinedWithStreaming() {
+        assertThat(CompilerOptions.parse(new String[]{"--fast-lexer", "in.txt", "out.txt"}).isFastLexer()).isTrue();
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--fast-lexer", "--stream", "in.txt", "out.txt"}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
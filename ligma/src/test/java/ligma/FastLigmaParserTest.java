@@ -0,0 +1,164 @@
+package ligma;
+
+import ligma.cli.CompilerOptions;
+import ligma.exception.SemanticException;
+import ligma.exception.SyntaxException;
+import ligma.ir.program.Program;
+import ligma.lexer.FastLigmaLexer;
+import ligma.parser.FastLigmaParser;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import ligma.visitor.ProgramVisitor;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class FastLigmaParserTest {
+
+    /// Analyses the program by the generated parser and the visitors.
+    private static Program parseByVisitors(String source) {
+        return new ProgramVisitor().visit(App.getProgramContext(CharStreams.fromString(source)));
+    }
+
+    /// Analyses the program by the hand-written lexer and parser.
+    private static Program parseFast(String source) {
+        return FastLigmaParser.parse(FastLigmaLexer.tokenize(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /// Checks that both front ends build the same IR (or report the same error) and the same instructions.
+    private static void assertSameResult(String source) {
+        Throwable expected = catchThrowable(() -> App.compile(CharStreams.fromString(source)));
+
+        if (expected != null) {
+            assertThatThrownBy(() -> App.compileFast(source.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(expected.getClass())
+                .hasMessage(expected.getMessage());
+            return;
+        }
+
+        assertThat(parseFast(source)).usingRecursiveComparison().isEqualTo(parseByVisitors(source));
+        assertThat(App.compileFast(source.getBytes(StandardCharsets.UTF_8)))
+            .isEqualTo(App.compile(CharStreams.fromString(source)));
+    }
+
+    static Stream<Arguments> sourceFiles() throws IOException {
+        try (Stream<Path> programs = Files.list(Path.of("src/main/resources/programs"));
+             Stream<Path> resources = Files.walk(Path.of("src/test/resources"))) {
+            return Stream.concat(programs.toList().stream(), resources.filter(Files::isRegularFile).toList().stream())
+                         .map(path -> Arguments.of(path.toString()));
+        }
+    }
+
+    @ParameterizedTest(name = "File: {0}")
+    @MethodSource("sourceFiles")
+    void filesShouldBeAnalysedAsByVisitors(String path) throws IOException {
+        assertSameResult(Files.readString(Path.of(path)));
+    }
+
+    /// Programs with arrays are not generated for PL/0, so only their IR is compared.
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "src/test/resources/generator/arrays/sieve.txt",
+        "src/test/resources/generator/arrays/sort.txt",
+        "src/test/resources/semantic/valid/expression/array.txt",
+    })
+    void arraysShouldBeAnalysedAsByVisitors(String path) throws IOException {
+        String source = Files.readString(Path.of(path));
+
+        assertThat(parseFast(source)).usingRecursiveComparison().isEqualTo(parseByVisitors(source));
+    }
+
+    @ParameterizedTest(name = "Seed: {0}")
+    @ValueSource(longs = {1, 2, 3})
+    void synthesizedProgramsShouldBeAnalysedAsByVisitors(long seed) {
+        assertSameResult(ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(seed).statements(300).functions(5).build()));
+    }
+
+    @Test
+    void largeSynthesizedProgramShouldCompileToSameInstructions() {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(4).statements(5000).functions(20).build());
+
+        assertThat(App.compileFast(source.getBytes(StandardCharsets.UTF_8))).isEqualTo(App.compile(CharStreams.fromString(source)));
+    }
+
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "int a = -2 ^ 2 * 3 - -4 % 5 / +6 ^ 2 ^ 3;",
+        "boolean b = !true && false || 1 + 2 * 3 > 4 == true;",
+        "boolean b = 1 < 2 == 3 >= 4 != !(5 <= 6);",
+        "int a = 1; int b = a = a; a = b = a + 1; a = (b) = 3;",
+        "int a = f(g(); + 3); f(a) g(); int b = g();; int c = f(1); + 1; func int f(int x) { return x; } func int g() { return 2; }",
+        "int a = f(); func int f() { return g(); } func int g() { int f = 1; return f; }",
+        "int a = 1; for (int i = a to a + 10) { a = i; } if (a > 1) { int c = 1; } else { int c = 2; int d = 3; }",
+        "boolean t = true; do { int a = 1; } while (t); repeat { int b = 2; } until (!t);",
+        "const int a = 1; const boolean b = false;",
+        "int a = 0; while (true) { int b = a; if (b > 3) { break; } a = a + 1; continue; } do { break; } while (true);",
+    })
+    void sourcesShouldBeAnalysedAsByVisitors(String source) {
+        assertSameResult(source);
+    }
+
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "int a = 1 +;",
+        "int a = (1;",
+        "int a = 1",
+        "a = = 1;",
+        "func int f() { return 1; }",
+        "int a = 1; func int f() { return 1; } int b = 2;",
+        "int a = b; int c = ;",
+        "int a = 1; func int f(int x,) { return x; }",
+        "int a = 1; func int f() { int a = true; } ",
+        "int a = 1; int a = 2; func int f() { return true }",
+        "int a = true; for (int i = 1 to 2) }",
+        "int a = 99999999999;",
+        "int a = 99999999999; int b = ;",
+    })
+    void errorsShouldBeReportedAsByVisitors(String source) {
+        assertSameResult(source);
+    }
+
+    @ParameterizedTest(name = "Source: {0}")
+    @ValueSource(strings = {
+        "int a = b;",
+        "boolean b = 1 + true;",
+        "int a = 1; func int f() { return 1; } func boolean f() { return true; }",
+        "int a = 1; func int f(int a, int a) { return a; }",
+        "int a = 1; func boolean f() { return 1; }",
+        "int a = 1; break;",
+        "int a = 1; if (a > 0) { continue; }",
+        "int a = 1; while (a > 0) { f(); } func int f() { break; return 1; }",
+    })
+    void semanticErrorsShouldThrowSemanticException(String source) {
+        assertThatThrownBy(() -> parseFast(source)).isInstanceOf(SemanticException.class);
+    }
+
+    @Test
+    void syntaxErrorAfterSemanticErrorShouldWin() {
+        assertThatThrownBy(() -> parseFast("int a = b;\nint c = ;")).isInstanceOf(SyntaxException.class)
+                                                                   .hasMessageStartingWith("Parsing failed: ");
+    }
+
+    @Test
+    void fastParserShouldNotBeCombinedWithStreaming() {
+        assertThat(CompilerOptions.parse(new String[]{"--fast-parser", "in.txt", "out.txt"}).isFastParser()).isTrue();
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--fast-parser", "--stream", "in.txt", "out.txt"}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--daemon", "socket", "--fast-parser"}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -8,6 +8,7 @@ import ligma.ir.program.Program;
 import ligma.visitor.ProgramVisitor;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -75,4 +76,12 @@ class FunctionSemanticTest {
                 .isInstanceOf(GenerateException.class);
     }
 
+    @Test
+    void errorOfFirstDefinedFunctionShouldBeReportedEvenIfNotCalled() {
+        // Neither function is called, both of them contain an invalid call
+        assertThatThrownBy(() -> runSemanticAnalysis("generator/functions/invalid/not_called_3.txt"))
+                .isInstanceOf(GenerateException.class)
+                .hasMessage("Function missing not found");
+    }
+
 }
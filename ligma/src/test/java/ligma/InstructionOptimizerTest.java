@@ -0,0 +1,123 @@
+package ligma;
+
+import ligma.enums.CallGraphShape;
+import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.InstructionOptimizer;
+import ligma.generator.SourceMap;
+import ligma.ir.SourcePosition;
+import ligma.table.SymbolTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstructionOptimizerTest {
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    /// Compiles the program with or without the optimization of the instructions.
+    private static void compile(String source, boolean optimized) {
+        ProgramEquivalenceTest.compile(source, generator -> generator.setOptimized(optimized));
+    }
+
+    /// Checks that no jump is left to a jump or to the next instruction (except the jump to the main program).
+    private static void assertJumpsThreaded(List<InstructionInfo> instructions) {
+        for (int i = 1; i < instructions.size(); i++) {
+            InstructionInfo instruction = instructions.get(i);
+            Instruction type = instruction.getInstruction();
+
+            if (type == Instruction.JMP || type == Instruction.JMC) {
+                assertThat(instruction.getAddress()).as("target of instruction %d", i).isNotEqualTo(i + 1);
+                assertThat(instructions.get(instruction.getAddress()).getInstruction()).as("target of instruction %d", i)
+                                                                                        .isNotEqualTo(Instruction.JMP);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "Program file: {0}")
+    @MethodSource("ligma.ProgramEquivalenceTest#programFiles")
+    void optimizedProgramsShouldNotJumpToJumps(String fileName, String resourcePath) throws IOException {
+        compile(ProgramEquivalenceTest.readResource(resourcePath), true);
+
+        assertJumpsThreaded(Generator.getInstructions());
+    }
+
+    @ParameterizedTest(name = "Call graph: {0}, seed: {1}")
+    @MethodSource("ligma.ProgramEquivalenceTest#synthesizedPrograms")
+    void optimizedSynthesizedProgramsShouldNotJumpToJumps(CallGraphShape shape, long seed) {
+        compile(ProgramEquivalenceTest.synthesize(shape, seed), true);
+
+        assertJumpsThreaded(Generator.getInstructions());
+    }
+
+    @Test
+    void nestedBranchesShouldNotJumpToJumps() throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/generator/jumps/branches.txt"));
+        compile(source, false);
+        int generated = Generator.getInstructions().size();
+        compile(source, true);
+        int optimized = Generator.getInstructions().size();
+
+        assertThat(optimized).isLessThan(generated);
+    }
+
+    @Test
+    void jumpChainsShouldBeCollapsed() {
+        List<InstructionInfo> instructions = new ArrayList<>(List.of(
+            new InstructionInfo(Instruction.JMP, 0, 1),
+            new InstructionInfo(Instruction.INT, 0, 3),
+            new InstructionInfo(Instruction.LIT, 0, 0),
+            new InstructionInfo(Instruction.JMC, 0, 5),
+            new InstructionInfo(Instruction.JMP, 0, 6),
+            new InstructionInfo(Instruction.JMP, 0, 7),
+            new InstructionInfo(Instruction.JMP, 0, 9),
+            new InstructionInfo(Instruction.LIT, 0, 1),
+            new InstructionInfo(Instruction.JMC, 0, 9),
+            new InstructionInfo(Instruction.RET, 0, 0)
+        ));
+        SourceMap sourceMap = new SourceMap();
+        instructions.forEach(instruction -> sourceMap.record(SourcePosition.UNKNOWN, SourceMap.MAIN_FUNCTION));
+
+        InstructionOptimizer.optimize(instructions, sourceMap, InstructionSet.PL0);
+
+        // The jumps to the jumps are threaded, the jump to the return returns and the 'JMC' to the next instruction only drops the condition
+        assertThat(instructions).extracting(instruction -> instruction.getInstruction() + " " + instruction.getLevel() + " " + instruction.getAddress())
+                                .containsExactly("JMP 0 1", "INT 0 3", "LIT 0 0", "JMC 0 5", "RET 0 0", "LIT 0 1", "INT 0 -1", "RET 0 0");
+        assertThat(sourceMap.size()).isEqualTo(instructions.size());
+    }
+
+    @Test
+    void cycleOfJumpsShouldStayInfinite() {
+        List<InstructionInfo> instructions = new ArrayList<>(List.of(
+            new InstructionInfo(Instruction.JMP, 0, 1),
+            new InstructionInfo(Instruction.INT, 0, 3),
+            new InstructionInfo(Instruction.JMP, 0, 3),
+            new InstructionInfo(Instruction.JMP, 0, 2),
+            new InstructionInfo(Instruction.RET, 0, 0)
+        ));
+        SourceMap sourceMap = new SourceMap();
+        instructions.forEach(instruction -> sourceMap.record(SourcePosition.UNKNOWN, SourceMap.MAIN_FUNCTION));
+
+        InstructionOptimizer.optimize(instructions, sourceMap, InstructionSet.PL0);
+
+        // The jump into the cycle is removed, the remaining jump jumps to itself
+        assertThat(instructions).extracting(instruction -> instruction.getInstruction() + " " + instruction.getLevel() + " " + instruction.getAddress())
+                                .containsExactly("JMP 0 1", "INT 0 3", "JMP 0 2");
+    }
+
+}
@@ -0,0 +1,122 @@
+package ligma;
+
+import ligma.enums.Instruction;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.InstructionWriter;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstructionWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /// The format the instructions were written in before the writer was introduced.
+    private static String format(List<InstructionInfo> instructions) {
+        StringBuilder expected = new StringBuilder();
+
+        for (int row = 0; row < instructions.size(); row++) {
+            InstructionInfo instruction = instructions.get(row);
+            expected.append(String.format("%-3d %-5s %-3d %d%n",
+                row, instruction.getInstruction().name(), instruction.getLevel(), instruction.getAddress()));
+        }
+
+        return expected.toString();
+    }
+
+    private static String writeToChannel(InstructionWriter writer, List<InstructionInfo> instructions) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.write(instructions, Channels.newChannel(output));
+
+        return output.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String writeToWriter(InstructionWriter writer, List<InstructionInfo> instructions) throws IOException {
+        StringWriter output = new StringWriter();
+        writer.write(instructions, output);
+
+        return output.toString();
+    }
+
+    private static List<InstructionInfo> compile(String source) {
+        ProgramEquivalenceTest.compile(source);
+
+        return List.copyOf(Generator.getInstructions());
+    }
+
+    @ParameterizedTest(name = "Program: {0}")
+    @MethodSource("ligma.ProgramEquivalenceTest#programFiles")
+    void programsShouldBeWrittenAsFormatted(String fileName, String resourcePath) throws IOException {
+        List<InstructionInfo> instructions = compile(ProgramEquivalenceTest.readResource(resourcePath));
+        String expected = format(instructions);
+
+        assertThat(writeToChannel(new InstructionWriter(), instructions)).isEqualTo(expected);
+        assertThat(writeToWriter(new InstructionWriter(), instructions)).isEqualTo(expected);
+    }
+
+    @Test
+    void extremeValuesShouldBeWrittenAsFormatted() throws IOException {
+        List<InstructionInfo> instructions = new ArrayList<>();
+        int[] values = {0, 7, -1, 10, -10, 99, 100, -100, 999, 1000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        for (Instruction instruction : Instruction.values()) {
+            for (int value : values) {
+                instructions.add(new InstructionInfo(instruction, value, -value));
+            }
+        }
+        // Rows with more digits than the width of the column
+        while (instructions.size() < 1200) {
+            instructions.add(new InstructionInfo(Instruction.LIT, 0, instructions.size()));
+        }
+
+        assertThat(writeToChannel(new InstructionWriter(), instructions)).isEqualTo(format(instructions));
+    }
+
+    @Test
+    void chunksFormattedInParallelShouldBeWrittenInOrder() throws IOException {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(7).statements(500).build());
+        List<InstructionInfo> instructions = compile(source);
+        String expected = format(instructions);
+
+        // Tiny chunks, the parallel formatting is forced
+        InstructionWriter parallelWriter = new InstructionWriter(3, 0);
+
+        assertThat(writeToChannel(parallelWriter, instructions)).isEqualTo(expected);
+        assertThat(writeToWriter(parallelWriter, instructions)).isEqualTo(expected);
+    }
+
+    @Test
+    void fileShouldContainAllInstructions() throws IOException {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(3).statements(2000).build());
+        List<InstructionInfo> instructions = compile(source);
+        Path output = tempDir.resolve("output.pl0");
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            new InstructionWriter(1024, 0).write(instructions, channel);
+        }
+
+        // Larger than the buffers, so the buffers are flushed several times
+        assertThat(Files.size(output)).isGreaterThan(1 << 16);
+        assertThat(Files.readString(output)).isEqualTo(format(instructions));
+    }
+
+}
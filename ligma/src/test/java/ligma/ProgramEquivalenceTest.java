@@ -0,0 +1,192 @@
+package ligma;
+
+import ligma.enums.CallGraphShape;
+import ligma.enums.Instruction;
+import ligma.enums.InstructionSet;
+import ligma.generated.LigmaParser;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.ProgramGenerator;
+import ligma.ir.program.Program;
+import ligma.ir.statement.ConstantDefinition;
+import ligma.ir.statement.VariableDefinition;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import ligma.vm.VirtualMachine;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/// Compiles every program in a variant of the code generation and in its baseline, runs both in the virtual
+/// machine and compares the global variables. The helpers are shared by the tests of the variants.
+class ProgramEquivalenceTest {
+
+    /// Size of the stack of the compared runs.
+    private static final int STACK_SIZE = 4096;
+
+    /// Variant of the code generation compared with its baseline.
+    enum Variant {
+
+        /// The optimized instructions against the generated ones.
+        OPTIMIZER(generator -> generator.setOptimized(false), generator -> generator.setOptimized(true)),
+        /// The extended instruction set against PL/0.
+        EXTENDED_ISA(generator -> generator.setInstructionSet(InstructionSet.PL0),
+                     generator -> generator.setInstructionSet(InstructionSet.EXTENDED));
+
+        private final Consumer<ProgramGenerator> baseline;
+        private final Consumer<ProgramGenerator> variant;
+
+        Variant(Consumer<ProgramGenerator> baseline, Consumer<ProgramGenerator> variant) {
+            this.baseline = baseline;
+            this.variant = variant;
+        }
+
+    }
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    /// Compiles the program, the generator is configured before the generation.
+    static Program compile(String source, Consumer<ProgramGenerator> configuration) {
+        SymbolTable.clear();
+        Generator.clear();
+
+        LigmaParser.ProgramContext programContext = App.getProgramContext(CharStreams.fromString(source));
+        Program program = new ProgramVisitor().visit(programContext);
+
+        ProgramGenerator programGenerator = new ProgramGenerator(program);
+        configuration.accept(programGenerator);
+        programGenerator.generate();
+
+        return program;
+    }
+
+    /// Compiles the program with the default configuration of the generator.
+    static Program compile(String source) {
+        return compile(source, generator -> {
+        });
+    }
+
+    /// Compiles the program for the instruction set.
+    static Program compile(String source, InstructionSet instructionSet) {
+        return compile(source, generator -> generator.setInstructionSet(instructionSet));
+    }
+
+    /// Returns the types of the generated instructions.
+    static List<Instruction> generatedInstructions() {
+        return Generator.getInstructions().stream()
+                        .map(InstructionInfo::getInstruction)
+                        .toList();
+    }
+
+    /// Reads the source of the program from the test class path.
+    static String readResource(String resourcePath) throws IOException {
+        try (InputStream inputStream = ProgramEquivalenceTest.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            return new String(Objects.requireNonNull(inputStream).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /// Lists the files of the resource folder, the arguments are the name of the file and its resource path.
+    ///
+    /// @param root the directory of the resources (`src/main/resources` or `src/test/resources`)
+    /// @param resourceFolder the folder relative to the root
+    static Stream<Arguments> loadFiles(String root, String resourceFolder) {
+        File folder = Path.of(root, resourceFolder).toFile();
+        return Stream.of(Objects.requireNonNull(folder.listFiles()))
+                     .map(file -> Arguments.of(file.getName(), resourceFolder + "/" + file.getName()));
+    }
+
+    /// The example programs and the programs of the generated loops and jumps.
+    static Stream<Arguments> programFiles() {
+        return Stream.of(loadFiles("src/main/resources", "programs"),
+                         loadFiles("src/test/resources", "generator/loops"),
+                         loadFiles("src/test/resources", "generator/jumps"))
+                     .flatMap(Function.identity());
+    }
+
+    static Stream<Arguments> synthesizedPrograms() {
+        return Stream.of(CallGraphShape.values())
+                     .flatMap(shape -> Stream.of(1L, 2L)
+                                             .map(seed -> Arguments.of(shape, seed)));
+    }
+
+    /// Synthesizes a program whose functions call each other in the shape of the call graph.
+    static String synthesize(CallGraphShape shape, long seed) {
+        return ProgramSynthesizer.synthesize(SynthesizerOptions.builder()
+            .seed(seed)
+            .statements(100)
+            .functions(6)
+            .callGraph(shape)
+            .build());
+    }
+
+    static Stream<Arguments> variantProgramFiles() {
+        return Stream.of(Variant.values())
+                     .flatMap(variant -> programFiles().map(file -> Arguments.of(variant, file.get()[0], file.get()[1])));
+    }
+
+    static Stream<Arguments> variantSynthesizedPrograms() {
+        return Stream.of(Variant.values())
+                     .flatMap(variant -> synthesizedPrograms().map(program -> Arguments.of(variant, program.get()[0], program.get()[1])));
+    }
+
+    /// Runs the program compiled in the baseline and in the variant, both runs must leave the same global variables
+    /// and the variant must not be larger nor slower.
+    private static void assertSameExecution(Variant variant, String source) {
+        compile(source, variant.baseline);
+        List<InstructionInfo> baselineInstructions = List.copyOf(Generator.getInstructions());
+        VirtualMachine baseline = new VirtualMachine(baselineInstructions, STACK_SIZE);
+        baseline.run();
+
+        Program program = compile(source, variant.variant);
+        List<InstructionInfo> instructions = Generator.getInstructions();
+        VirtualMachine compared = new VirtualMachine(instructions, STACK_SIZE);
+        compared.run();
+
+        // The global variables follow the activation record of the main program (the rest of the stack
+        // also contains the return addresses, which differ)
+        long globals = program.statements().stream()
+                              .filter(statement -> statement instanceof VariableDefinition || statement instanceof ConstantDefinition)
+                              .count();
+        for (int address = 3; address < 3 + globals; address++) {
+            assertThat(compared.getStackValue(address)).as("stack address %d", address)
+                                                        .isEqualTo(baseline.getStackValue(address));
+        }
+        assertThat(compared.getExecutedInstructions()).isLessThanOrEqualTo(baseline.getExecutedInstructions());
+        assertThat(instructions).hasSizeLessThanOrEqualTo(baselineInstructions.size());
+        assertThat(Generator.getSourceMap().size()).isEqualTo(instructions.size());
+    }
+
+    @ParameterizedTest(name = "{0}, program file: {1}")
+    @MethodSource("variantProgramFiles")
+    void programsShouldExecuteAsBaseline(Variant variant, String fileName, String resourcePath) throws IOException {
+        assertSameExecution(variant, readResource(resourcePath));
+    }
+
+    @ParameterizedTest(name = "{0}, call graph: {1}, seed: {2}")
+    @MethodSource("variantSynthesizedPrograms")
+    void synthesizedProgramsShouldExecuteAsBaseline(Variant variant, CallGraphShape shape, long seed) {
+        assertSameExecution(variant, synthesize(shape, seed));
+    }
+
+}
@@ -0,0 +1,73 @@
+package ligma;
+
+import ligma.enums.CallGraphShape;
+import ligma.generator.Generator;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import ligma.table.SymbolTable;
+import ligma.vm.VirtualMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class ProgramSynthesizerTest {
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    private VirtualMachine compile(String source) {
+        ProgramEquivalenceTest.compile(source);
+
+        return new VirtualMachine(Generator.getInstructions());
+    }
+
+    static Stream<Arguments> synthesizedPrograms() {
+        return Stream.of(CallGraphShape.values())
+                     .flatMap(shape -> Stream.of(1L, 2L, 3L)
+                                             .map(seed -> Arguments.of(shape, seed)));
+    }
+
+    @ParameterizedTest(name = "Call graph: {0}, seed: {1}")
+    @MethodSource("synthesizedPrograms")
+    void synthesizedProgramsShouldCompileAndRun(CallGraphShape shape, long seed) {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder()
+            .seed(seed)
+            .statements(100)
+            .functions(6)
+            .callGraph(shape)
+            .build());
+
+        assertThatCode(() -> compile(source).run())
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    void sameSeedShouldProduceSameProgram() {
+        SynthesizerOptions options = SynthesizerOptions.builder().seed(42).build();
+
+        assertThat(ProgramSynthesizer.synthesize(options))
+            .isEqualTo(ProgramSynthesizer.synthesize(options))
+            .isNotEqualTo(ProgramSynthesizer.synthesize(options.toBuilder().seed(43).build()));
+    }
+
+    @Test
+    void largeProgramsShouldHaveMegabytesOfSource() {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder()
+            .statements(100_000)
+            .functions(1000)
+            .build());
+
+        assertThat(source.length()).isGreaterThan(1_000_000);
+    }
+
+}
@@ -0,0 +1,73 @@
+package ligma;
+
+import ligma.generator.Generator;
+import ligma.generator.ProgramGenerator;
+import ligma.ir.program.Program;
+import ligma.lexer.FastLigmaLexer;
+import ligma.parser.FastLigmaParser;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import ligma.visitor.StreamingProgramReader;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/// Feeds the invalid programs to every front end (the visitors, the streaming listener and the hand-written
+/// parser), all of them must report the same error.
+class SemanticAnalysisTest {
+
+    /// Analyses the program by the front end and generates its instructions.
+    ///
+    /// @return the reported error (`null` if the program was compiled)
+    private static Throwable compile(Supplier<Program> frontEnd) {
+        SymbolTable.clear();
+        Generator.clear();
+
+        return catchThrowable(() -> new ProgramGenerator(frontEnd.get()).generate());
+    }
+
+    /// Lists the files in the `invalid` folders under the directory.
+    private static Stream<Path> invalidFiles(String directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(Path.of(directory))) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(path -> StreamSupport.stream(path.spliterator(), false).anyMatch(name -> name.toString().equals("invalid")))
+                        .toList()
+                        .stream();
+        }
+    }
+
+    /// The files of the `generator/**/invalid` and `semantic/**/invalid` folders.
+    static Stream<Arguments> invalidFiles() throws IOException {
+        return Stream.concat(invalidFiles("src/test/resources/generator"), invalidFiles("src/test/resources/semantic"))
+                     .map(path -> Arguments.of(path.toString()));
+    }
+
+    @ParameterizedTest(name = "Invalid file: {0}")
+    @MethodSource("invalidFiles")
+    void frontEndsShouldReportSameError(String path) throws IOException {
+        byte[] source = Files.readAllBytes(Path.of(path));
+        String text = new String(source, StandardCharsets.UTF_8);
+
+        Throwable visitors = compile(() -> new ProgramVisitor().visit(App.getProgramContext(CharStreams.fromString(text))));
+        Throwable streaming = compile(() -> StreamingProgramReader.read(new ByteArrayInputStream(source)));
+        Throwable fast = compile(() -> FastLigmaParser.parse(FastLigmaLexer.tokenize(source)));
+
+        assertThat(visitors).isNotNull();
+        assertThat(streaming).as("streaming listener").isInstanceOf(visitors.getClass()).hasMessage(visitors.getMessage());
+        assertThat(fast).as("hand-written parser").isInstanceOf(visitors.getClass()).hasMessage(visitors.getMessage());
+    }
+
+}
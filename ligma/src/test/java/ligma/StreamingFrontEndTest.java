@@ -0,0 +1,208 @@
+package ligma;
+
+import ligma.cli.CompilerOptions;
+import ligma.exception.LexicalException;
+import ligma.exception.SemanticException;
+import ligma.exception.SyntaxException;
+import ligma.generator.Generator;
+import ligma.generated.LigmaParser;
+import ligma.generator.ProgramGenerator;
+import ligma.ir.function.Function;
+import ligma.ir.program.Program;
+import ligma.ir.statement.Assignment;
+import ligma.ir.statement.Statement;
+import ligma.ir.statement.VariableDefinition;
+import ligma.listener.EnhancedLigmaLexer;
+import ligma.listener.IrBuildingListener;
+import ligma.synthetic.ProgramSynthesizer;
+import ligma.synthetic.SynthesizerOptions;
+import ligma.table.SymbolTable;
+import ligma.visitor.ProgramVisitor;
+import ligma.visitor.StreamingProgramReader;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class StreamingFrontEndTest {
+
+    private static String compileStreaming(InputStream input) throws IOException {
+        SymbolTable.clear();
+        Generator.clear();
+
+        Program program = StreamingProgramReader.read(input);
+        new ProgramGenerator(program).generate();
+
+        StringWriter output = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(output)) {
+            Generator.writeInstructions(writer);
+        }
+
+        return output.toString();
+    }
+
+    private static void readStreaming(String path) throws IOException {
+        try (InputStream input = Files.newInputStream(Path.of(path))) {
+            StreamingProgramReader.read(input);
+        }
+    }
+
+    private static Stream<Arguments> loadFiles(String folderPath) {
+        File folder = Path.of(folderPath).toFile();
+        return Stream.of(Objects.requireNonNull(folder.listFiles()))
+                     .map(file -> Arguments.of(file.getName(), file.getPath()));
+    }
+
+    static Stream<Arguments> programs() {
+        return loadFiles("src/main/resources/programs");
+    }
+
+    static Stream<Arguments> validFiles() {
+        return loadFiles("src/test/resources/semantic/valid/expression");
+    }
+
+    @ParameterizedTest(name = "Program: {0}")
+    @MethodSource("programs")
+    void programsShouldBeCompiledAsWithBufferedFrontEnd(String fileName, String path) throws IOException {
+        String expected = App.compile(CharStreams.fromFileName(path));
+
+        try (InputStream input = Files.newInputStream(Path.of(path))) {
+            assertThat(compileStreaming(input)).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest(name = "Seed: {0}")
+    @ValueSource(longs = {1, 2, 3})
+    void synthesizedProgramsShouldBeCompiledAsWithBufferedFrontEnd(long seed) throws IOException {
+        String source = ProgramSynthesizer.synthesize(SynthesizerOptions.builder().seed(seed).statements(300).build());
+        String expected = App.compile(CharStreams.fromString(source));
+
+        assertThat(compileStreaming(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)))).isEqualTo(expected);
+    }
+
+    /// Programs with arrays are not generated for PL/0, so only their IR is compared.
+    @ParameterizedTest(name = "Program: {0}")
+    @ValueSource(strings = {"src/test/resources/generator/arrays/sieve.txt", "src/test/resources/generator/arrays/sort.txt"})
+    void arraysShouldBeReadAsByBufferedFrontEnd(String path) throws IOException {
+        SymbolTable.clear();
+        Program expected = new ProgramVisitor().visit(App.getProgramContext(CharStreams.fromFileName(path)));
+        SymbolTable.clear();
+
+        try (InputStream input = Files.newInputStream(Path.of(path))) {
+            assertThat(StreamingProgramReader.read(input)).usingRecursiveComparison().isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest(name = "Valid file: {0}")
+    @MethodSource("validFiles")
+    void validFilesShouldNotThrowExceptions(String fileName, String path) {
+        assertThatCode(() -> readStreaming(path)).doesNotThrowAnyException();
+    }
+
+    @ParameterizedTest(name = "Invalid file: {0}")
+    @MethodSource("syntaxInvalidFiles")
+    void syntaxInvalidFilesShouldThrowException(String fileName, String path) {
+        // The statements are analysed as soon as they are parsed, so a semantic error in a statement
+        // before the syntax error is reported first
+        assertThatThrownBy(() -> readStreaming(path)).isInstanceOfAny(SyntaxException.class, SemanticException.class);
+    }
+
+    @ParameterizedTest(name = "Invalid file: {0}")
+    @MethodSource("semanticInvalidFiles")
+    void semanticInvalidFilesShouldThrowSemanticException(String fileName, String path) {
+        assertThatThrownBy(() -> readStreaming(path)).isInstanceOf(SemanticException.class);
+    }
+
+    @ParameterizedTest(name = "Invalid file: {0}")
+    @MethodSource("semanticInvalidFiles")
+    void semanticInvalidFilesShouldReportSameErrorAsBufferedFrontEnd(String fileName, String path) {
+        Throwable expected = catchThrowable(() -> App.compile(CharStreams.fromFileName(path)));
+
+        assertThatThrownBy(() -> readStreaming(path)).isInstanceOf(expected.getClass())
+                                                     .hasMessage(expected.getMessage());
+    }
+
+    @ParameterizedTest(name = "Program: {0}")
+    @MethodSource("programs")
+    void parseTreeShouldNotBeBuilt(String fileName, String path) throws IOException {
+        LigmaParser parser = new LigmaParser(new CommonTokenStream(new EnhancedLigmaLexer(CharStreams.fromFileName(path))));
+        parser.setBuildParseTree(false);
+
+        List<Statement> statements = new ArrayList<>();
+        List<Function> functions = new ArrayList<>();
+        parser.addParseListener(new IrBuildingListener(parser, statements::add, functions::add));
+
+        LigmaParser.ProgramContext context = parser.program();
+        Program expected = new ProgramVisitor().visit(App.getProgramContext(CharStreams.fromFileName(path)));
+
+        // Only the end of the file is attached to the root, the statements were passed to the consumers
+        assertThat(context.getChildCount()).isEqualTo(1);
+        assertThat(context.getChild(0).getText()).isEqualTo("<EOF>");
+        assertThat(statements).hasSameSizeAs(expected.statements());
+        assertThat(functions).extracting(Function::name)
+                             .containsExactlyElementsOf(expected.functions().stream().map(Function::name).toList());
+    }
+
+    @Test
+    void namesShouldBeSharedByAllOccurrences() throws IOException {
+        SymbolTable.clear();
+        String source = "int a = 1;\na = a + 2;\n";
+
+        Program program = StreamingProgramReader.read(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        VariableDefinition definition = (VariableDefinition) program.statements().get(0);
+        Assignment assignment = (Assignment) program.statements().get(1);
+
+        // Every occurrence reads its own text of the token, the IR keeps one instance
+        assertThat(assignment.getAllIdentifiers().getFirst()).isSameAs(definition.getIdentifier());
+        assertThat(assignment.getTargets().getFirst().getName()).isSameAs(definition.getIdentifier());
+    }
+
+    @Test
+    void streamingShouldNotBeCombinedWithBatch() {
+        assertThat(CompilerOptions.parse(new String[]{"--stream", "in.txt", "out.txt"}).isStream()).isTrue();
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--batch", "out", "--stream", "a.txt", "b.txt"}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("--stream");
+    }
+
+    @ParameterizedTest(name = "Invalid file: {0}")
+    @MethodSource("lexicalInvalidFiles")
+    void lexicalInvalidFilesShouldThrowLexicalException(String fileName, String path) {
+        assertThatThrownBy(() -> readStreaming(path)).isInstanceOf(LexicalException.class);
+    }
+
+    static Stream<Arguments> syntaxInvalidFiles() {
+        return loadFiles("src/test/resources/syntax/invalid/expression");
+    }
+
+    static Stream<Arguments> semanticInvalidFiles() {
+        return loadFiles("src/test/resources/semantic/invalid/expression");
+    }
+
+    static Stream<Arguments> lexicalInvalidFiles() {
+        return loadFiles("src/test/resources/lexical/invalid/expression");
+    }
+
+}
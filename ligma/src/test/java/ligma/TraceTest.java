@@ -0,0 +1,73 @@
+package ligma;
+
+import ligma.cli.CompilerOptions;
+import ligma.enums.CompilerPhase;
+import ligma.ir.SourcePosition;
+import ligma.trace.Trace;
+import ligma.trace.TraceEvent;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TraceTest {
+
+    private final List<TraceEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        Trace.disable();
+    }
+
+    @Test
+    void tracedPhaseShouldReportItsEvents() {
+        Trace.enable(Set.of(CompilerPhase.SEMANTIC_ANALYSIS), events::add);
+
+        App.compile(CharStreams.fromString("int a = 1 + 2 * 3;\n"));
+
+        assertThat(events).allSatisfy(event -> assertThat(event.phase()).isEqualTo(CompilerPhase.SEMANTIC_ANALYSIS));
+        assertThat(events).contains(
+            new TraceEvent(CompilerPhase.SEMANTIC_ANALYSIS, "Additive expression", new SourcePosition(1, 8), "1+2*3"),
+            new TraceEvent(CompilerPhase.SEMANTIC_ANALYSIS, "Multiplicative expression", new SourcePosition(1, 12), "2*3")
+        );
+    }
+
+    @Test
+    void onlyTracedPhasesShouldReportEvents() {
+        Trace.enable(Set.of(CompilerPhase.GENERATION), events::add);
+
+        App.compile(CharStreams.fromString("int a = 1 + 2 * 3;\n"));
+
+        assertThat(events).extracting(TraceEvent::phase).containsOnly(CompilerPhase.GENERATION);
+        assertThat(events).extracting(TraceEvent::event).contains("Generating program", "Generating additive expression");
+    }
+
+    @Test
+    void disabledTraceShouldReportNoEvents() {
+        Trace.enable(Set.of(), events::add);
+
+        App.compile(CharStreams.fromString("int a = 1 + 2 * 3;\n"));
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void traceOptionShouldSelectPhases() {
+        CompilerOptions options = CompilerOptions.parse(new String[]{"--trace", "semantic-analysis,generation", "in.txt", "out.txt"});
+
+        assertThat(options.getTracedPhases()).containsExactlyInAnyOrder(CompilerPhase.SEMANTIC_ANALYSIS, CompilerPhase.GENERATION);
+        assertThat(CompilerOptions.parse(new String[]{"--trace", "all", "in.txt", "out.txt"}).getTracedPhases())
+            .containsExactlyInAnyOrder(CompilerPhase.values());
+        assertThatThrownBy(() -> CompilerOptions.parse(new String[]{"--trace", "linking", "in.txt", "out.txt"}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("linking");
+    }
+
+}
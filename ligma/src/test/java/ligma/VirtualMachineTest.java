@@ -0,0 +1,277 @@
+package ligma;
+
+import ligma.enums.Instruction;
+import ligma.exception.VirtualMachineException;
+import ligma.generator.Generator;
+import ligma.generator.InstructionInfo;
+import ligma.generator.SourceMap;
+import ligma.ir.SourcePosition;
+import ligma.table.SymbolTable;
+import ligma.vm.Profiler;
+import ligma.vm.VirtualMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VirtualMachineTest {
+
+    @BeforeEach
+    void setUp() {
+        SymbolTable.clear();
+        Generator.clear();
+    }
+
+    private VirtualMachine compile(String resourcePath) throws IOException {
+        ProgramEquivalenceTest.compile(ProgramEquivalenceTest.readResource(resourcePath));
+
+        return new VirtualMachine(Generator.getInstructions());
+    }
+
+    static Stream<Arguments> exampleFiles() {
+        return ProgramEquivalenceTest.loadFiles("src/main/resources", "programs");
+    }
+
+    @ParameterizedTest(name = "Example file: {0}")
+    @MethodSource("exampleFiles")
+    void exampleFilesShouldRunWithoutErrors(String fileName, String resourcePath) {
+        assertThatCode(() -> compile(resourcePath).run())
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    void factorialShouldComputeTheResult() throws IOException {
+        VirtualMachine virtualMachine = compile("programs/factorial.txt");
+        virtualMachine.run();
+
+        // int res (address 3) and int resRecursive (address 4)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(120);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(120);
+    }
+
+    @Test
+    void functionShouldReadGlobalsRegardlessOfItsCaller() throws IOException {
+        // 'add' is called from the main program first and then from the function 'twice'
+        VirtualMachine virtualMachine = compile("generator/functions/valid/global_from_any_caller.txt");
+        virtualMachine.run();
+
+        // int base (address 3), int a (address 4) and int b (address 5)
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(7);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(11);
+    }
+
+    @Test
+    void ifElseShouldReleaseTheVariablesOfTheTakenBranch() throws IOException {
+        // Each branch releases its own variables, the call after the 'if' must not overwrite the frame of 'pick'
+        VirtualMachine virtualMachine = compile("generator/functions/valid/if_else_locals.txt");
+        // An overwritten return address usually makes the program run forever
+        virtualMachine.setInstructionLimit(10_000);
+        virtualMachine.run();
+
+        // int first (address 3) and int second (address 4)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(33);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(21);
+    }
+
+    @Test
+    void variablesShouldBeResolvedBeforeTheirDefinition() throws IOException {
+        // The initializer of the shadowing 'x' reads the outer 'x', the power inside the function reads a global
+        VirtualMachine virtualMachine = compile("generator/functions/valid/resolved_variables.txt");
+        virtualMachine.run();
+
+        // int x (address 3), int y (address 4) and int z (address 5)
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(20);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(625);
+    }
+
+    @Test
+    void loopsShouldComputeTheResults() throws IOException {
+        VirtualMachine virtualMachine = compile("programs/loops.txt");
+        virtualMachine.run();
+
+        // int sum (address 3), int value (address 4), int product (address 5), int counter (address 6), int result (address 7)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(45);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(1024);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(5);
+        assertThat(virtualMachine.getStackValue(6)).isEqualTo(10);
+        assertThat(virtualMachine.getStackValue(7)).isEqualTo(16);
+    }
+
+    @Test
+    void whileConditionsShouldBeTestedAtTheBottom() throws IOException {
+        VirtualMachine virtualMachine = compile("generator/loops/conditions.txt");
+        virtualMachine.run();
+
+        // int a (address 3), int b (address 4), int c (address 5) and int d (address 6)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(10);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(7);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(4);
+        assertThat(virtualMachine.getStackValue(6)).isEqualTo(3);
+    }
+
+    @Test
+    void emptyForRangeShouldNotFreeTheBodyVariables() throws IOException {
+        VirtualMachine virtualMachine = compile("generator/loops/empty_range.txt");
+        virtualMachine.run();
+
+        // int a (address 3) and int b (address 4), the evaluation of 'b' must not overwrite 'a'
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(7);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(7);
+    }
+
+    @Test
+    void loopBodyVariablesShouldBeFreedInEveryIteration() throws IOException {
+        compile("generator/loops/body_variables.txt");
+        // 1000 iterations would not fit to the stack if the variables of the body were not freed
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions(), 64);
+        virtualMachine.run();
+
+        // int sum (address 3) and int n (address 4)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(999_000);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(1000);
+    }
+
+    @Test
+    void breakAndContinueShouldJumpOutOfNestedScopes() throws IOException {
+        compile("generator/loops/break_continue.txt");
+        // The loop of 1000 iterations would not fit to the stack if the jumps did not free the variables
+        VirtualMachine virtualMachine = new VirtualMachine(Generator.getInstructions(), 64);
+        virtualMachine.run();
+
+        // int found (address 3), int oddSum (4), int tailSum (5), int rounds (6), int repeated (7), int pairs (8),
+        // int first (9), int k (10), int kept (11), int marker (12) and int last (13)
+        assertThat(virtualMachine.getStackValue(3)).isEqualTo(8);
+        assertThat(virtualMachine.getStackValue(4)).isEqualTo(25);
+        assertThat(virtualMachine.getStackValue(5)).isEqualTo(18);
+        assertThat(virtualMachine.getStackValue(6)).isEqualTo(7);
+        assertThat(virtualMachine.getStackValue(7)).isEqualTo(12);
+        assertThat(virtualMachine.getStackValue(8)).isEqualTo(30);
+        assertThat(virtualMachine.getStackValue(9)).isEqualTo(7);
+        assertThat(virtualMachine.getStackValue(10)).isEqualTo(11);
+        assertThat(virtualMachine.getStackValue(11)).isEqualTo(500);
+        assertThat(virtualMachine.getStackValue(12)).isEqualTo(42);
+        assertThat(virtualMachine.getStackValue(13)).isEqualTo(7);
+    }
+
+    @Test
+    void breakShouldExecuteFewerInstructionsThanFlag() throws IOException {
+        VirtualMachine flag = compile("generator/loops/search_flag.txt");
+        flag.run();
+        SymbolTable.clear();
+        Generator.clear();
+        VirtualMachine jump = compile("generator/loops/search_break.txt");
+        jump.run();
+
+        // const int N (address 3), int target (address 4) and int found (address 5)
+        assertThat(jump.getStackValue(5)).isEqualTo(997)
+                                         .isEqualTo(flag.getStackValue(5));
+        assertThat(jump.getExecutedInstructions()).isLessThan(flag.getExecutedInstructions());
+    }
+
+    @Test
+    void constantConditionsShouldBeResolvedAtCompileTime() throws IOException {
+        VirtualMachine virtualMachine = compile("generator/constants/flags.txt");
+        virtualMachine.run();
+
+        // int debugCount (address 6), int a (address 7), int b (address 8), int c (address 9) and int d (address 10)
+        assertThat(virtualMachine.getStackValue(6)).isZero();
+        assertThat(virtualMachine.getStackValue(7)).isEqualTo(10);
+        assertThat(virtualMachine.getStackValue(8)).isEqualTo(45);
+        assertThat(virtualMachine.getStackValue(9)).isEqualTo(1);
+        assertThat(virtualMachine.getStackValue(10)).isEqualTo(2);
+
+        // Neither the conditions nor the ruled out branches are generated, only the 'for' range is tested
+        assertThat(Generator.getInstructions()).filteredOn(instruction -> instruction.getInstruction() == Instruction.JMC)
+                                               .hasSize(1);
+        assertThat(Generator.getInstructions()).noneMatch(instruction -> instruction.getAddress() == 12345)
+                                               .noneMatch(instruction -> instruction.getInstruction() == Instruction.INT
+                                                                         && instruction.getAddress() == 0);
+    }
+
+    @Test
+    void codeAfterInfiniteLoopShouldBeRemoved() throws IOException {
+        compile("generator/constants/infinite_loop.txt");
+
+        assertThat(Generator.getInstructions()).noneMatch(instruction -> instruction.getAddress() == 12345)
+                                               .noneMatch(instruction -> instruction.getInstruction() == Instruction.JMC)
+                                               .noneMatch(instruction -> instruction.getInstruction() == Instruction.RET);
+        assertThat(Generator.getSourceMap().size()).isEqualTo(Generator.getInstructions().size());
+    }
+
+    @Test
+    void profilerShouldAttributeAllExecutedInstructions() throws IOException {
+        VirtualMachine virtualMachine = compile("programs/factorial.txt");
+        Profiler profiler = new Profiler(Generator.getInstructions(), Generator.getSourceMap());
+        virtualMachine.run(profiler);
+
+        assertThat(profiler.getTotalCount()).isEqualTo(virtualMachine.getExecutedInstructions());
+        assertThat(profiler.getFunctionCounts()).containsKeys("<main>", "factorial", "calcResult", "factorialRecursive");
+        assertThat(profiler.getFunctionCounts().values().stream().mapToLong(Long::longValue).sum())
+            .isEqualTo(virtualMachine.getExecutedInstructions());
+
+        StringWriter stacks = new StringWriter();
+        profiler.writeCollapsedStacks(stacks);
+
+        assertThat(stacks.toString()).contains("<main>;factorial;calcResult ");
+    }
+
+    @Test
+    void invalidMemoryAccessAfterJumpShouldReportTheFaultingInstruction() {
+        // The load at index 2 is reached by the jump and reads beyond the stack of 8 cells
+        VirtualMachine load = new VirtualMachine(List.of(
+            new InstructionInfo(Instruction.JMP, 0, 2),
+            new InstructionInfo(Instruction.LIT, 0, 1),
+            new InstructionInfo(Instruction.LOD, 0, 100)
+        ), 8);
+        // The conditional jump at index 2 pops from the empty stack
+        VirtualMachine pop = new VirtualMachine(List.of(
+            new InstructionInfo(Instruction.JMP, 0, 2),
+            new InstructionInfo(Instruction.RET, 0, 0),
+            new InstructionInfo(Instruction.JMC, 0, 0)
+        ), 8);
+
+        assertThatThrownBy(load::run).isInstanceOf(VirtualMachineException.class)
+                                     .hasMessageStartingWith("Invalid memory access at instruction 2 ");
+        assertThatThrownBy(pop::run).isInstanceOf(VirtualMachineException.class)
+                                    .hasMessageStartingWith("Invalid memory access at instruction 2 ");
+    }
+
+    @Test
+    void jumpOutOfProgramShouldBeReported() {
+        VirtualMachine virtualMachine = new VirtualMachine(List.of(
+            new InstructionInfo(Instruction.JMP, 0, 9),
+            new InstructionInfo(Instruction.RET, 0, 0)
+        ));
+
+        assertThatThrownBy(virtualMachine::run).isInstanceOf(VirtualMachineException.class)
+                                               .hasMessageStartingWith("Jump to invalid instruction 9 ");
+    }
+
+    @Test
+    void profiledCallOutOfProgramShouldReportTheCall() {
+        List<InstructionInfo> instructions = List.of(
+            new InstructionInfo(Instruction.INT, 0, 3),
+            new InstructionInfo(Instruction.CAL, 0, 9),
+            new InstructionInfo(Instruction.RET, 0, 0)
+        );
+        SourceMap sourceMap = new SourceMap();
+        instructions.forEach(instruction -> sourceMap.record(SourcePosition.UNKNOWN, SourceMap.MAIN_FUNCTION));
+        VirtualMachine virtualMachine = new VirtualMachine(instructions);
+
+        // The profiler fails to resolve the called function after the call already moved to its address
+        assertThatThrownBy(() -> virtualMachine.run(new Profiler(instructions, sourceMap)))
+            .isInstanceOf(VirtualMachineException.class)
+            .hasMessageStartingWith("Invalid memory access at instruction 1 ");
+    }
+
+}